@@ -0,0 +1,234 @@
+package de.hs_kl.staab.planner.benchmark;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.services.BookingResult;
+import de.hs_kl.staab.planner.services.Outcome;
+import de.hs_kl.staab.planner.services.PlannerService;
+import de.hs_kl.staab.planner.services.VehicleService;
+import de.hs_kl.staab.planner.services.WorkingAppointmentRequest;
+
+/**
+ * Benchmarks the hot paths of the planner on a {@link SyntheticCalendar}. Every
+ * fork builds its own calendar, because the services are singletons.
+ *
+ * Run with {@code mvn -P benchmark -DskipTests verify}, the results are written
+ * to target/jmh-result.json. Further JMH options can be passed with
+ * {@code -Djmh.args="..."}, e.g. {@code -Djmh.args="-p
+ * numberOfAppointments=10000000 -jvmArgsAppend -Xmx16g weekOverview"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PlannerServiceBenchmark {
+
+	private static final int NUMBER_OF_SAMPLES = 1024;
+	private static final int SIZE_OF_BATCH = 1000;
+
+	@Param({ "1000", "100000", "1000000" })
+	public int numberOfAppointments;
+
+	@Param({ "200" })
+	public int numberOfWorkingPlatforms;
+
+	private final PlannerService plannerService = PlannerService.getInstance();
+	private final VehicleService vehicleService = VehicleService.getInstance();
+
+	private SyntheticCalendar calendar;
+	private LocalDateTime middleOfCalendar;
+	private int weekBasedYearOfMiddle;
+	private int calendarWeekOfMiddle;
+	private LocalDateTime beginOfNextNewAppointment;
+
+	// booked appointments to collide with and random inputs, used one after the
+	// other, so choosing them doesn't count
+	private final List<WorkingAppointment> bookedWorkingAppointments = new ArrayList<>();
+	private final List<Set<String>> sampleWorkIds = new ArrayList<>();
+	private final List<Integer> sampleWorkingPlatforms = new ArrayList<>();
+	private final List<Integer> sampleCustomers = new ArrayList<>();
+	private int nextSample;
+	// half of it collides with booked appointments, the other half is free
+	private final List<WorkingAppointmentRequest> batch = new ArrayList<>();
+
+	@Setup(Level.Trial)
+	public void createCalendar() {
+		calendar = new SyntheticCalendar(numberOfAppointments, numberOfWorkingPlatforms);
+		LocalDateTime latestEnd = calendar.getLatestEndOfCalendar();
+		middleOfCalendar = SyntheticCalendar.FIRST_BEGIN.plus(Duration.between(SyntheticCalendar.FIRST_BEGIN, latestEnd)
+				.dividedBy(2));
+		weekBasedYearOfMiddle = middleOfCalendar.get(WeekFields.ISO.weekBasedYear());
+		calendarWeekOfMiddle = middleOfCalendar.get(WeekFields.ISO.weekOfWeekBasedYear());
+		beginOfNextNewAppointment = latestEnd.plusDays(1);
+
+		int everyNthAppointment = Math.max(1, numberOfAppointments / NUMBER_OF_SAMPLES);
+		Iterator<Appointment> appointments = plannerService.getAppointmentsInOrderAfter(null, null)
+				.iterator();
+		for (int appointment = 0; appointments.hasNext(); appointment++) {
+			Appointment nextAppointment = appointments.next();
+			if (appointment % everyNthAppointment == 0 && nextAppointment instanceof WorkingAppointment) {
+				bookedWorkingAppointments.add((WorkingAppointment) nextAppointment);
+			}
+		}
+		for (int sample = 0; sample < NUMBER_OF_SAMPLES; sample++) {
+			sampleWorkIds.add(calendar.getRandomWorkIds());
+			sampleWorkingPlatforms.add(calendar.getRandomIndex(calendar.workingPlatformIds));
+			sampleCustomers.add(calendar.getRandomIndex(calendar.customerIds));
+		}
+		LocalDateTime beginOfFreeBatchAppointments = latestEnd.plusYears(1);
+		for (int request = 0; request < SIZE_OF_BATCH; request++) {
+			int sample = request % NUMBER_OF_SAMPLES;
+			if (request % 2 == 0) {
+				WorkingAppointment bookedWorkingAppointment = bookedWorkingAppointments
+						.get(request % bookedWorkingAppointments.size());
+				batch.add(new WorkingAppointmentRequest(sampleWorkIds.get(sample),
+						bookedWorkingAppointment.getCustomerRelatedToWorkingAppointment()
+								.getCustomerId(),
+						bookedWorkingAppointment.getVehicleToWorkOn()
+								.getVehicleLicensePlate(),
+						bookedWorkingAppointment.getWorkingPlatformRelatedToWorkingAppointment()
+								.getWorkingPlatformId(),
+						bookedWorkingAppointment.getAppointmentBeginDateAndTime(),
+						bookedWorkingAppointment.getResponsibleCarMechanicUser()
+								.getUsername()));
+			} else {
+				int platform = sampleWorkingPlatforms.get(sample);
+				int customer = sampleCustomers.get(sample);
+				batch.add(new WorkingAppointmentRequest(sampleWorkIds.get(sample), calendar.customerIds.get(customer),
+						calendar.vehicleLicensePlates.get(customer), calendar.workingPlatformIds.get(platform),
+						beginOfFreeBatchAppointments.plusHours(5 * request),
+						calendar.carMechanicUsernames.get(platform)));
+			}
+		}
+	}
+
+	private int nextSample() {
+		nextSample = (nextSample + 1) % NUMBER_OF_SAMPLES;
+		return nextSample;
+	}
+
+	/**
+	 * Books a working appointment after the end of the calendar and removes it
+	 * again, so the calendar keeps its size.
+	 */
+	@Benchmark
+	public Optional<WorkingAppointment> createAndRemoveWorkingAppointment() {
+		int sample = nextSample();
+		int platform = sampleWorkingPlatforms.get(sample);
+		int customer = sampleCustomers.get(sample);
+		LocalDateTime begin = beginOfNextNewAppointment;
+		beginOfNextNewAppointment = beginOfNextNewAppointment.plusHours(5);
+		Optional<WorkingAppointment> newAppointment = plannerService
+				.createAndAddNewWorkingAppointment(sampleWorkIds.get(sample), calendar.customerIds.get(customer),
+						calendar.vehicleLicensePlates.get(customer), calendar.workingPlatformIds.get(platform), begin,
+						calendar.carMechanicUsernames.get(platform))
+				.getResult();
+		newAppointment.ifPresent(appointment -> plannerService.removeAppointment(appointment.getAppointmentId()));
+		return newAppointment;
+	}
+
+	/**
+	 * Tries to book a working appointment at the begin of a booked one on the
+	 * same working platform, which the availability check has to reject.
+	 */
+	@Benchmark
+	public Outcome<WorkingAppointment> rejectConflictingWorkingAppointment() {
+		WorkingAppointment bookedWorkingAppointment = bookedWorkingAppointments
+				.get(nextSample() % bookedWorkingAppointments.size());
+		return plannerService.createAndAddNewWorkingAppointment(sampleWorkIds.get(nextSample),
+				bookedWorkingAppointment.getCustomerRelatedToWorkingAppointment()
+						.getCustomerId(),
+				bookedWorkingAppointment.getVehicleToWorkOn()
+						.getVehicleLicensePlate(),
+				bookedWorkingAppointment.getWorkingPlatformRelatedToWorkingAppointment()
+						.getWorkingPlatformId(),
+				bookedWorkingAppointment.getAppointmentBeginDateAndTime(),
+				bookedWorkingAppointment.getResponsibleCarMechanicUser()
+						.getUsername());
+	}
+
+	/**
+	 * Books a batch of {@value #SIZE_OF_BATCH} working appointments like an import
+	 * and removes the booked ones again, so the calendar keeps its size.
+	 */
+	@Benchmark
+	public List<BookingResult> bookAndRemoveBatchOfWorkingAppointments() {
+		List<BookingResult> results = plannerService.bookWorkingAppointments(batch);
+		for (BookingResult result : results) {
+			result.getBookedWorkingAppointment()
+					.ifPresent(appointment -> plannerService.removeAppointment(appointment.getAppointmentId()));
+		}
+		return results;
+	}
+
+	@Benchmark
+	public Set<Appointment> weekOverview() {
+		return plannerService.getSortedAppointmentOverviewOfWeek(weekBasedYearOfMiddle, calendarWeekOfMiddle);
+	}
+
+	@Benchmark
+	public Outcome<List<LocalDateTime>> slotSuggestionsOnWorkingPlatform() {
+		int sample = nextSample();
+		int platform = sampleWorkingPlatforms.get(sample);
+		return plannerService.getNextAvailableWorkingAppointmentDatesOnWorkingPlatform(sampleWorkIds.get(sample),
+				calendar.workingPlatformIds.get(platform), calendar.carMechanicUsernames.get(platform), 3,
+				middleOfCalendar, LocalDateTime.MAX);
+	}
+
+	@Benchmark
+	public Outcome<Map<WorkingPlatform, List<LocalDateTime>>> slotSuggestionsOnAllWorkingPlatforms() {
+		return plannerService.getNextAvailableWorkingAppointmentDatesOnAllWorkingPlatforms(
+				sampleWorkIds.get(nextSample()), null, 3, middleOfCalendar, LocalDateTime.MAX);
+	}
+
+	/**
+	 * Lets the planner choose the earliest date on any working platform with any
+	 * car mechanic from the middle of the calendar on, and removes the
+	 * appointment again.
+	 */
+	@Benchmark
+	public Optional<WorkingAppointment> bookAndRemoveWorkingAppointmentAtEarliestDate() {
+		int sample = nextSample();
+		int customer = sampleCustomers.get(sample);
+		Optional<WorkingAppointment> newAppointment = plannerService
+				.createAndAddWorkingAppointmentAtEarliestDate(sampleWorkIds.get(sample),
+						calendar.customerIds.get(customer), calendar.vehicleLicensePlates.get(customer),
+						middleOfCalendar, null)
+				.getResult();
+		newAppointment.ifPresent(appointment -> plannerService.removeAppointment(appointment.getAppointmentId()));
+		return newAppointment;
+	}
+
+	@Benchmark
+	public Set<WorkingAppointment> vehicleHistory() {
+		return vehicleService.getHistoryOfFinishedWorkingAppointments(
+				calendar.vehicleLicensePlates.get(sampleCustomers.get(nextSample())));
+	}
+}
@@ -0,0 +1,166 @@
+package de.hs_kl.staab.planner.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.Customer;
+import de.hs_kl.staab.planner.Work;
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.services.CustomerService;
+import de.hs_kl.staab.planner.services.PlannerService;
+import de.hs_kl.staab.planner.services.UserService;
+import de.hs_kl.staab.planner.services.VehicleService;
+import de.hs_kl.staab.planner.services.WorkService;
+import de.hs_kl.staab.planner.services.WorkingPlatformService;
+
+/**
+ * Fills the planner with a reproducible calendar of working appointments,
+ * created through the services like by a user. Every working platform has its
+ * own car mechanic, and the appointments of a platform follow each other with
+ * random gaps, so no booking is rejected. About a third of the appointments
+ * are finished, so the vehicles have a history.
+ */
+class SyntheticCalendar {
+
+	static final LocalDateTime FIRST_BEGIN = LocalDateTime.of(2021, 1, 4, 8, 0);
+
+	private static final int MAX_NUMBER_OF_CUSTOMERS = 1000;
+	private static final int MAX_GAP_IN_MINUTES = 90;
+
+	private final PlannerService plannerService = PlannerService.getInstance();
+	private final CustomerService customerService = CustomerService.getInstance();
+	private final VehicleService vehicleService = VehicleService.getInstance();
+	private final WorkService workService = WorkService.getInstance();
+	private final WorkingPlatformService workingPlatformService = WorkingPlatformService.getInstance();
+	private final UserService userService = UserService.getInstance();
+
+	private final Random random = new Random(42);
+
+	final List<String> workIds = new ArrayList<>();
+	final List<String> workingPlatformIds = new ArrayList<>();
+	final List<String> carMechanicUsernames = new ArrayList<>();
+	final List<String> customerIds = new ArrayList<>();
+	// the vehicle of the customer with the same index
+	final List<String> vehicleLicensePlates = new ArrayList<>();
+	// end of the last appointment on the working platform with the same index
+	final List<LocalDateTime> endsOfCalendar = new ArrayList<>();
+
+	SyntheticCalendar(int numberOfAppointments, int numberOfWorkingPlatforms) {
+		createWorks();
+		createWorkingPlatformsAndCarMechanics(numberOfWorkingPlatforms);
+		createCustomersWithVehicles(Math.min(MAX_NUMBER_OF_CUSTOMERS, Math.max(1, numberOfAppointments / 10)));
+		createWorkingAppointments(numberOfAppointments);
+		finishEveryThirdWorkingAppointment();
+	}
+
+	Set<String> getRandomWorkIds() {
+		Set<String> randomWorkIds = new HashSet<>();
+		randomWorkIds.add(workIds.get(random.nextInt(workIds.size())));
+		if (random.nextBoolean()) {
+			randomWorkIds.add(workIds.get(random.nextInt(workIds.size())));
+		}
+		return randomWorkIds;
+	}
+
+	int getRandomIndex(List<?> list) {
+		return random.nextInt(list.size());
+	}
+
+	private void createWorks() {
+		workService.createAndAddNewWork("Oil change", 20);
+		workService.createAndAddNewWork("Maintenance and inspection", 30);
+		workService.createAndAddNewWork("Change Tires", 40);
+		workService.createAndAddNewWork("Clean vehicle interior", 45);
+		workService.createAndAddNewWork("Chiptuning Engine", 60);
+		workService.createAndAddNewWork("Engine change", 120);
+		workIds.addAll(workService.getAllWorks()
+				.stream()
+				.map(Work::getWorkId)
+				.sorted()
+				.collect(Collectors.toList()));
+	}
+
+	private void createWorkingPlatformsAndCarMechanics(int numberOfWorkingPlatforms) {
+		for (int platform = 0; platform < numberOfWorkingPlatforms; platform++) {
+			workingPlatformService.createAndAddNewWorkingPlatform("Working Platform " + platform);
+			userService.createAndAddNewCarMechanicUser("mechanic" + platform, "Car", "Mechanic " + platform);
+			carMechanicUsernames.add("mechanic" + platform);
+		}
+		workingPlatformIds.addAll(workingPlatformService.getAllWorkingPlatforms()
+				.stream()
+				.map(WorkingPlatform::getWorkingPlatformId)
+				.sorted()
+				.collect(Collectors.toList()));
+		endsOfCalendar.addAll(Collections.nCopies(numberOfWorkingPlatforms, FIRST_BEGIN));
+	}
+
+	private void createCustomersWithVehicles(int numberOfCustomers) {
+		for (int customer = 0; customer < numberOfCustomers; customer++) {
+			customerService.createAndAddNewCustomer("Customer", String.valueOf(customer), "Benchmark Street",
+					customer, 67657, "Kaiserslautern", "0631-" + customer, "customer" + customer + "@example.com");
+		}
+		List<Customer> customers = new ArrayList<>(customerService.getAllCustomers());
+		customers.sort((first, second) -> first.getCustomerId()
+				.compareTo(second.getCustomerId()));
+		for (Customer customer : customers) {
+			String licensePlate = "KL-B-" + customer.getCustomerId();
+			vehicleService.createAndAddNewVehicle("Opel", "Corsa", 2020, licensePlate, FIRST_BEGIN.minusYears(1));
+			customerService.addVehicleToCustomersVehicles(customer.getCustomerId(), licensePlate);
+			customerIds.add(customer.getCustomerId());
+			vehicleLicensePlates.add(licensePlate);
+		}
+	}
+
+	private void createWorkingAppointments(int numberOfAppointments) {
+		for (int appointment = 0; appointment < numberOfAppointments; appointment++) {
+			int platform = appointment % workingPlatformIds.size();
+			int customer = getRandomIndex(customerIds);
+			Set<String> idsOfWorks = getRandomWorkIds();
+			LocalDateTime begin = endsOfCalendar.get(platform)
+					.plusMinutes(random.nextInt(MAX_GAP_IN_MINUTES + 1));
+			plannerService.createAndAddNewWorkingAppointment(idsOfWorks, customerIds.get(customer),
+					vehicleLicensePlates.get(customer), workingPlatformIds.get(platform), begin,
+					carMechanicUsernames.get(platform));
+			endsOfCalendar.set(platform, begin.plusMinutes(getDurationOf(idsOfWorks)));
+		}
+	}
+
+	private void finishEveryThirdWorkingAppointment() {
+		List<String> appointmentIds = new ArrayList<>();
+		Iterator<Appointment> appointments = plannerService.getAppointmentsInOrderAfter(null, null)
+				.iterator();
+		for (int appointment = 0; appointments.hasNext(); appointment++) {
+			String appointmentId = appointments.next()
+					.getAppointmentId();
+			if (appointment % 3 == 0) {
+				appointmentIds.add(appointmentId);
+			}
+		}
+		for (String appointmentId : appointmentIds) {
+			plannerService.changeWorkingAppointmentStatusOf_To(appointmentId, WorkingAppointmentStatus.FINISHED);
+		}
+	}
+
+	LocalDateTime getLatestEndOfCalendar() {
+		return Collections.max(endsOfCalendar);
+	}
+
+	int getDurationOf(Set<String> idsOfWorks) {
+		int duration = 0;
+		for (String workId : idsOfWorks) {
+			duration += workService.getWorkById(workId)
+					.get()
+					.getWorkDuration();
+		}
+		return duration;
+	}
+}
@@ -1,7 +1,15 @@
 package de.hs_kl.staab;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.time.Period;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -9,6 +17,10 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import de.hs_kl.staab.planner.CleaningAppointmentType;
 import de.hs_kl.staab.planner.WorkingAppointmentStatus;
 import de.hs_kl.staab.planner.services.CustomerService;
+import de.hs_kl.staab.planner.services.ImportFormat;
+import de.hs_kl.staab.planner.services.ImportReport;
+import de.hs_kl.staab.planner.services.ImportService;
+import de.hs_kl.staab.planner.services.PersistenceService;
 import de.hs_kl.staab.planner.services.PlannerService;
 import de.hs_kl.staab.planner.services.UserService;
 import de.hs_kl.staab.planner.services.VehicleService;
@@ -38,8 +50,9 @@ public class MainApplication {
 	static CustomerService customerService = CustomerService.getInstance();
 	static PlannerService plannerService = PlannerService.getInstance();
 	static UserService userService = UserService.getInstance();
+	static PersistenceService persistenceService = PersistenceService.getInstance();
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 
 		System.out.println("Now the application is started!\n");
 		// Wenn Sie OHNE REST arbeiten wollen, können Sie die folgende Zeile
@@ -48,48 +61,114 @@ public class MainApplication {
 
 		// Wenn Sie MIT REST arbeiten wollen, können Sie die folgende Zeile
 		// und die entsprechende Methode löschen!
-		initializeObjects();
+		// Mit -Dplanner.dataDirectory=... werden alle Daten in diesem Verzeichnis
+		// gespeichert und beim nächsten Start wiederhergestellt.
+		String dataDirectory = System.getProperty("planner.dataDirectory");
+		if (dataDirectory != null) {
+			persistenceService.enablePersistence(Paths.get(dataDirectory));
+		}
+		if (workService.getAllWorks()
+				.isEmpty()) {
+			initializeObjects();
+		}
+		// Mit -Dplanner.importDirectory=... werden die Dateien works, vehicles,
+		// customers und vehiclesOfCustomers (.csv oder .json) daraus importiert.
+		String importDirectory = System.getProperty("planner.importDirectory");
+		if (importDirectory != null) {
+			importFiles(Paths.get(importDirectory));
+		}
+		// Mit -Dplanner.locations=KL,ZW,... bekommt jeder Standort einen eigenen
+		// Planungskalender, Standorte aus dem Journal gibt es auch ohne Angabe.
+		for (String location : System.getProperty("planner.locations", "")
+				.split(",")) {
+			if (!location.trim()
+					.isEmpty()) {
+				PlannerService.getInstance(location.trim());
+			}
+		}
+		// Mit -Dplanner.archiveAfterDays=... werden abgeschlossene und abgesagte
+		// Arbeitstermine nach so vielen Tagen aus dem Planungskalender archiviert.
+		// Das Archiv liegt im Datenverzeichnis, es braucht also -Dplanner.dataDirectory.
+		Integer archiveAfterDays = Integer.getInteger("planner.archiveAfterDays");
+		if (archiveAfterDays != null && !persistenceService.isPersistenceEnabled()) {
+			System.err.println("ERROR: Archiving needs -Dplanner.dataDirectory, no appointments are archived.");
+		} else if (archiveAfterDays != null) {
+			for (String location : PlannerService.getLocations()) {
+				PlannerService.getInstance(location)
+						.startArchivingWorkingAppointmentsOlderThan(Period.ofDays(archiveAfterDays));
+			}
+		}
 		runApplication();
 	}
 
+	private static void importFiles(Path importDirectory) throws IOException {
+		ImportService importService = ImportService.getInstance();
+		for (String nameOfFile : new String[] { "works", "vehicles", "customers", "vehiclesOfCustomers" }) {
+			for (ImportFormat format : ImportFormat.values()) {
+				Path file = importDirectory.resolve(nameOfFile + "." + format.name()
+						.toLowerCase(Locale.ROOT));
+				if (Files.exists(file)) {
+					try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+						ImportReport importReport;
+						if (nameOfFile.equals("works")) {
+							importReport = importService.importWorks(reader, format);
+						} else if (nameOfFile.equals("vehicles")) {
+							importReport = importService.importVehicles(reader, format);
+						} else if (nameOfFile.equals("customers")) {
+							importReport = importService.importCustomers(reader, format);
+						} else {
+							importReport = importService.importVehiclesOfCustomers(reader, format);
+						}
+						System.out.println(importReport);
+						importReport.getRejections()
+								.forEach(System.out::println);
+					}
+				}
+			}
+		}
+	}
+
 //Initialize objects needed for testing of all requirements
 	private static void initializeObjects() {
-		workService.createAndAddNewWork("Change Tires", 30);
-		workService.createAndAddNewWork("Maintenance and inspection", 30);
-		workService.createAndAddNewWork("Clean vehicle interior", 30);
-		workService.createAndAddNewWork("Engine change", 120);
-		workService.createAndAddNewWork("Oil change", 20);
-		workService.createAndAddNewWork("Change Tires", 70); // different duration with same name is allowed
-		workService.createAndAddNewWork("Chiptuning Engine", 60);
-
-		workingPlatformService.createAndAddNewWorkingPlatform("Working Platform 1");
-		workingPlatformService.createAndAddNewWorkingPlatform("Working Platform 2");
-		workingPlatformService.createAndAddNewWorkingPlatform("WorkingPlatform 3");
-		workingPlatformService.createAndAddNewWorkingPlatform("WorkingPlatform 4");
-
-		vehicleService.createAndAddNewVehicle("Opel", "Corsa", 2020, "DE-XX-1111", LocalDateTime.of(2020, 6, 19, 0, 0));
+		workService.createAndAddNewWork("Change Tires", 30).printIfRejected();
+		workService.createAndAddNewWork("Maintenance and inspection", 30).printIfRejected();
+		workService.createAndAddNewWork("Clean vehicle interior", 30).printIfRejected();
+		workService.createAndAddNewWork("Engine change", 120).printIfRejected();
+		workService.createAndAddNewWork("Oil change", 20).printIfRejected();
+		workService.createAndAddNewWork("Change Tires", 70)
+				.printIfRejected(); // different duration with same name is allowed
+		workService.createAndAddNewWork("Chiptuning Engine", 60).printIfRejected();
+
+		workingPlatformService.createAndAddNewWorkingPlatform("Working Platform 1").printIfRejected();
+		workingPlatformService.createAndAddNewWorkingPlatform("Working Platform 2").printIfRejected();
+		workingPlatformService.createAndAddNewWorkingPlatform("WorkingPlatform 3").printIfRejected();
+		workingPlatformService.createAndAddNewWorkingPlatform("WorkingPlatform 4").printIfRejected();
+
+		vehicleService.createAndAddNewVehicle("Opel", "Corsa", 2020, "DE-XX-1111", LocalDateTime.of(2020, 6, 19, 0, 0))
+				.printIfRejected();
 		vehicleService.createAndAddNewVehicle("Opel", "Corsa-E", 2021, "KL-JW-123",
-				LocalDateTime.of(2021, 11, 11, 0, 0));
+				LocalDateTime.of(2021, 11, 11, 0, 0)).printIfRejected();
 		vehicleService.createAndAddNewVehicle("Audi", "e-tron GT", 2021, "DE-YY-2222",
-				LocalDateTime.of(2021, 2, 23, 0, 0));
-		vehicleService.createAndAddNewVehicle("Audi", "A3", 2008, "DE-JW-123", LocalDateTime.of(2021, 11, 11, 0, 0));
+				LocalDateTime.of(2021, 2, 23, 0, 0)).printIfRejected();
+		vehicleService.createAndAddNewVehicle("Audi", "A3", 2008, "DE-JW-123", LocalDateTime.of(2021, 11, 11, 0, 0))
+				.printIfRejected();
 
 		customerService.createAndAddNewCustomer("Jerry", "Mouse", "Alphastraße", 1, 11111, "Alphastadt", "0162-123456",
-				"test@123.de");
+				"test@123.de").printIfRejected();
 		customerService.createAndAddNewCustomer("Jakub", "Wachowiak", "Musterstraße", 99, 99999, "Berlin",
-				"0631-124562", "jw@gmail.com");
+				"0631-124562", "jw@gmail.com").printIfRejected();
 		customerService.createAndAddNewCustomer("Donald", "Duck", "Disneystraße", 007, 77777, "Neustadt",
-				"0172-13288456", "dd@mail.com");
-		customerService.addVehicleToCustomersVehicles("C-2", "DE-JW-123");
-		customerService.addVehicleToCustomersVehicles("C-2", "KL-JW-123");
-		customerService.addVehicleToCustomersVehicles("C-1", "DE-XX-1111");
-
-		userService.createAndAddNewDispatcherUser("jemo1000", "Jerry", "Mouse");
-		userService.createAndAddNewClientadvisorUser("jawa1000", "Jakub", "Wachowiak");
-		userService.createAndAddNewCarMechanicUser("dodu1002", "Donald", "Duck");
-		userService.createAndAddNewCarMechanicUser("ABT Sportsline", "Daniel", "Abt");
-		userService.createAndAddNewCarMechanicUser("JP Performance", "Jean Pierre", "Kraemer");
-		userService.createAndAddNewDispatcherUser("UserToRemove", "Use", "Remover");
+				"0172-13288456", "dd@mail.com").printIfRejected();
+		customerService.addVehicleToCustomersVehicles("C-2", "DE-JW-123").printIfRejected();
+		customerService.addVehicleToCustomersVehicles("C-2", "KL-JW-123").printIfRejected();
+		customerService.addVehicleToCustomersVehicles("C-1", "DE-XX-1111").printIfRejected();
+
+		userService.createAndAddNewDispatcherUser("jemo1000", "Jerry", "Mouse").printIfRejected();
+		userService.createAndAddNewClientadvisorUser("jawa1000", "Jakub", "Wachowiak").printIfRejected();
+		userService.createAndAddNewCarMechanicUser("dodu1002", "Donald", "Duck").printIfRejected();
+		userService.createAndAddNewCarMechanicUser("ABT Sportsline", "Daniel", "Abt").printIfRejected();
+		userService.createAndAddNewCarMechanicUser("JP Performance", "Jean Pierre", "Kraemer").printIfRejected();
+		userService.createAndAddNewDispatcherUser("UserToRemove", "Use", "Remover").printIfRejected();
 
 		Set<String> worksToPerform1 = new HashSet<>();
 		worksToPerform1.add("W-3");
@@ -98,23 +177,23 @@ public class MainApplication {
 		worksToPerform2.add("W-4");
 		worksToPerform2.add("W-5");
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform1, "C-2", "KL-JW-123", "WP-2",
-				LocalDateTime.of(2021, 12, 28, 9, 30), "dodu1002");
+				LocalDateTime.of(2021, 12, 28, 9, 30), "dodu1002").printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-1", "DE-XX-1111", "WP-3",
-				LocalDateTime.of(2021, 12, 26, 10, 00), "dodu1002");
+				LocalDateTime.of(2021, 12, 26, 10, 00), "dodu1002").printIfRejected();
 
 		plannerService.createAndAddNewConsultingAppointment("C-1", 60, LocalDateTime.of(2021, 12, 22, 8, 00),
-				"jawa1000");
+				"jawa1000").printIfRejected();
 		plannerService.createAndAddNewConsultingAppointment("C-2", 30, LocalDateTime.of(2021, 12, 24, 9, 30),
-				"jawa1000");
+				"jawa1000").printIfRejected();
 		plannerService.createAndAddNewConsultingAppointment("C-3", 45, LocalDateTime.of(2021, 12, 23, 11, 00),
-				"jawa1000");
+				"jawa1000").printIfRejected();
 
 		plannerService.createAndAddNewCleaningAppointment(CleaningAppointmentType.QUICK, "WP-4",
-				LocalDateTime.of(2021, 12, 25, 8, 00), "jemo1000");
+				LocalDateTime.of(2021, 12, 25, 8, 00), "jemo1000").printIfRejected();
 		plannerService.createAndAddNewCleaningAppointment(CleaningAppointmentType.INTENSIVE, "WP-2",
-				LocalDateTime.of(2021, 12, 22, 8, 0), "jemo1000");
+				LocalDateTime.of(2021, 12, 22, 8, 0), "jemo1000").printIfRejected();
 		plannerService.createAndAddNewCleaningAppointment(CleaningAppointmentType.INTENSIVE, "WP-3",
-				LocalDateTime.of(2021, 12, 24, 8, 30), "jemo1000");
+				LocalDateTime.of(2021, 12, 24, 8, 30), "jemo1000").printIfRejected();
 	}
 
 	// MVP 01
@@ -122,15 +201,15 @@ public class MainApplication {
 	private static void testWorkClasses() {
 		System.out.println("\n---Testing Work, WorkService and WorkData---");
 		System.out.println("All works: " + workService.getAllWorks());
-		workService.updateWorkName("W-2", "Test Change of the Work Name");
-		workService.updateWorkDuration("W-3", 45);
+		workService.updateWorkName("W-2", "Test Change of the Work Name").printIfRejected();
+		workService.updateWorkDuration("W-3", 45).printIfRejected();
 		System.out.println("All works after updating name of W-2 and duration of W-3: " + workService.getAllWorks());
-		workService.removeWork("W-1");
+		workService.removeWork("W-1").printIfRejected();
 		System.out.println("After removing Work with ID W-1: " + workService.getAllWorks());
 
 		System.out.println("\n---Error testing in Work, WorkService and WorkData---");
-		workService.updateWorkName("W-100", "Wrong ID should not work");
-		workService.createAndAddNewWork("Chiptuning Engine", 60);
+		workService.updateWorkName("W-100", "Wrong ID should not work").printIfRejected();
+		workService.createAndAddNewWork("Chiptuning Engine", 60).printIfRejected();
 	}
 
 	// MVP 02
@@ -138,16 +217,17 @@ public class MainApplication {
 	private static void testWorkingPlatformClasses() {
 		System.out.println("\n---Testing WorkingPlatform, WorkingPlatformService and WorkingPlatformData---");
 		System.out.println("All working platforms: " + workingPlatformService.getAllWorkingPlatforms());
-		workingPlatformService.updateWorkingPlatformName("WP-1", "Test change Name of Working Platform 1");
+		workingPlatformService.updateWorkingPlatformName("WP-1", "Test change Name of Working Platform 1")
+				.printIfRejected();
 		System.out.println("All working platforms after changing name of WP-1: "
 				+ workingPlatformService.getAllWorkingPlatforms());
-		workingPlatformService.removeWorkingPlatform("WP-1");
+		workingPlatformService.removeWorkingPlatform("WP-1").printIfRejected();
 		System.out.println(
 				"After removing WorkingPlatform with ID WP-1: " + workingPlatformService.getAllWorkingPlatforms());
 
 		System.out.println("\n---Error Testing in WorkingPlatform, WorkingPlatformService and WorkingPlatformData---");
-		workingPlatformService.updateWorkingPlatformName("Test", "Wrong ID should not work");
-		workingPlatformService.createAndAddNewWorkingPlatform("Working Platform 2");
+		workingPlatformService.updateWorkingPlatformName("Test", "Wrong ID should not work").printIfRejected();
+		workingPlatformService.createAndAddNewWorkingPlatform("Working Platform 2").printIfRejected();
 	}
 
 	// MVP03
@@ -155,14 +235,15 @@ public class MainApplication {
 	private static void testVehicleClasses() {
 		System.out.println("\n---Testing Vehicle, Vehicle Service and VehicleData---");
 		System.out.println("All vehicles: " + vehicleService.getAllVehicles());
-		vehicleService.updateVehicleLicensePlate("DE-XX-1111", "DE-XX-111");
+		vehicleService.updateVehicleLicensePlate("DE-XX-1111", "DE-XX-111").printIfRejected();
 		System.out.println("All vehicles after updating a license plate: " + vehicleService.getAllVehicles());
-		vehicleService.removeVehicle("DE-JW-123");
+		vehicleService.removeVehicle("DE-JW-123").printIfRejected();
 		System.out.println("After removing Vehicle with License Plate KL-JW-123: " + vehicleService.getAllVehicles());
 
 		System.out.println("\n---Error testing in Vehicle, Vehicle Service and VehicleData---");
-		vehicleService.updateVehicleLicensePlate("Wrong License Plate should not work", "test");
-		vehicleService.createAndAddNewVehicle("Test", "Same", 5, "KL-JW-123", LocalDateTime.of(2021, 11, 11, 0, 0));
+		vehicleService.updateVehicleLicensePlate("Wrong License Plate should not work", "test").printIfRejected();
+		vehicleService.createAndAddNewVehicle("Test", "Same", 5, "KL-JW-123", LocalDateTime.of(2021, 11, 11, 0, 0))
+				.printIfRejected();
 
 	}
 
@@ -176,7 +257,7 @@ public class MainApplication {
 
 		System.out.println("\n---Error testing in Vehicle, Vehicle Service and VehicleData---");
 		customerService.createAndAddNewCustomer("Jakub", "Wachowiak", "Virginiastraße", 14, 66482, "Zweibrücken",
-				"0631-124562", "jw@gmail.com");
+				"0631-124562", "jw@gmail.com").printIfRejected();
 
 	}
 
@@ -185,23 +266,24 @@ public class MainApplication {
 	private static void testUserClasses() {
 		System.out.println("\n---Testing Users---");
 		System.out.println("All users: " + userService.getAllUsers());
-		userService.updateNameOfUser("jemo1000", "Jerry", "Mouse");
-		userService.removeUser("UserToRemove");
+		userService.updateNameOfUser("jemo1000", "Jerry", "Mouse").printIfRejected();
+		userService.removeUser("UserToRemove").printIfRejected();
 		System.out.println("After removing user UserToRemove: " + userService.getAllUsers());
 
 		System.out.println("---Error testing in User Classes---");
-		userService.createAndAddNewDispatcherUser("jemo1000", "Jerry", "Mouse");
+		userService.createAndAddNewDispatcherUser("jemo1000", "Jerry", "Mouse").printIfRejected();
 	}
 
 	// MVP05, MMP02, MMP03, MLP02
 	@SuppressWarnings("unused")
 	private static void testWorkingAppointment() {
 		System.out.println("\n---Testing WorkingAppointment---");
-		plannerService.changeWorkingAppointmentStatusOf_To("A-2", WorkingAppointmentStatus.CANCELLED);
+		plannerService.changeWorkingAppointmentStatusOf_To("A-2", WorkingAppointmentStatus.CANCELLED).printIfRejected();
 		System.out.println("All Working Appointments until now: " + plannerService.getAllWorkingAppointments());
-		plannerService.updateWorkingAppointment("A-1", "WP-4", LocalDateTime.of(2021, 12, 27, 16, 00));
+		plannerService.updateWorkingAppointment("A-1", "WP-4", LocalDateTime.of(2021, 12, 27, 16, 00))
+				.printIfRejected();
 		System.out.println("After updating of A-1: " + plannerService.getAllWorkingAppointments());
-		plannerService.removeAppointment("A-1");
+		plannerService.removeAppointment("A-1").printIfRejected();
 		System.out.println("After deleting of A-1: " + plannerService.getAllWorkingAppointments());
 
 		System.out.println("All Working Appointments: " + plannerService.getAllWorkingAppointments() + "\n");
@@ -214,17 +296,18 @@ public class MainApplication {
 		worksToPerform2.add("W-4");
 		worksToPerform2.add("W-5");
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-1", "KL-JW-123", "WP-3",
-				LocalDateTime.of(2021, 12, 26, 10, 00), "dodu1002");
+				LocalDateTime.of(2021, 12, 26, 10, 00), "dodu1002").printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-1", "DE-XX-1", "WP-3",
-				LocalDateTime.of(2021, 12, 26, 10, 00), "dodu1002");
+				LocalDateTime.of(2021, 12, 26, 10, 00), "dodu1002").printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-100", "DE-XX-16", "WP-3",
-				LocalDateTime.of(2021, 12, 26, 10, 00), "dodu1002");
+				LocalDateTime.of(2021, 12, 26, 10, 00), "dodu1002").printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-100", "DE-XX-16", "WP-99",
-				LocalDateTime.of(2021, 12, 26, 10, 00), "dodu1002");
-		plannerService.updateWorkingAppointment("A-100", "WP-2", LocalDateTime.of(2021, 12, 25, 10, 30));
+				LocalDateTime.of(2021, 12, 26, 10, 00), "dodu1002").printIfRejected();
+		plannerService.updateWorkingAppointment("A-100", "WP-2", LocalDateTime.of(2021, 12, 25, 10, 30))
+				.printIfRejected();
 		System.err.println("---Testing appointment overlaps---");
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-1", "DE-XX-1111", "WP-2",
-				LocalDateTime.of(2021, 12, 26, 10, 5), "dodu1002");
+				LocalDateTime.of(2021, 12, 26, 10, 5), "dodu1002").printIfRejected();
 	}
 
 	// MVP05, MMP02
@@ -232,21 +315,22 @@ public class MainApplication {
 	private static void testConsultingAppointment() {
 		System.out.println("\n---Testing ConsultingAppointment---");
 		System.out.println("All Consulting Appointments until now: " + plannerService.getAllConsultingAppointments());
-		plannerService.updateConsultingAppointment("A-5", 30, LocalDateTime.of(2021, 12, 22, 14, 30));
+		plannerService.updateConsultingAppointment("A-5", 30, LocalDateTime.of(2021, 12, 22, 14, 30)).printIfRejected();
 		System.out.println("After updating of A-5: " + plannerService.getAllConsultingAppointments());
-		plannerService.removeAppointment("A-5");
+		plannerService.removeAppointment("A-5").printIfRejected();
 		System.out.println("After deleting of A-5: " + plannerService.getAllConsultingAppointments());
 
 		System.out.println("All Consulting Appointments: " + plannerService.getAllConsultingAppointments() + "\n");
 
 		System.out.println("---Error testing in ConsultingAppointment---");
 		plannerService.createAndAddNewConsultingAppointment("C-100", 60, LocalDateTime.of(2021, 12, 22, 13, 30),
-				"jawa1000");
-		plannerService.updateConsultingAppointment("A-101", 15, LocalDateTime.of(2021, 12, 20, 10, 00));
+				"jawa1000").printIfRejected();
+		plannerService.updateConsultingAppointment("A-101", 15, LocalDateTime.of(2021, 12, 20, 10, 00))
+				.printIfRejected();
 
 		System.err.println("---Testing appointment overlaps---");
 		plannerService.createAndAddNewConsultingAppointment("C-2", 30, LocalDateTime.of(2021, 12, 24, 9, 30),
-				"jawa1000");
+				"jawa1000").printIfRejected();
 	}
 
 	// MVP05, MMP02, MLP02
@@ -255,19 +339,19 @@ public class MainApplication {
 		System.out.println("\n---Testing CleaningAppointment---");
 		System.out.println("All Cleaning Appointments until now: " + plannerService.getAllCleaningAppointments());
 		plannerService.updateCleaningAppointment("A-8", CleaningAppointmentType.QUICK, "WP-2",
-				LocalDateTime.of(2021, 12, 24, 16, 00));
+				LocalDateTime.of(2021, 12, 24, 16, 00)).printIfRejected();
 		System.out.println("After updating of A-9:" + plannerService.getAllCleaningAppointments());
-		plannerService.removeAppointment("A-8");
+		plannerService.removeAppointment("A-8").printIfRejected();
 		System.out.println("After removing of A-9:" + plannerService.getAllCleaningAppointments());
 
 		System.out.println("All Cleaning Appointments: " + plannerService.getAllCleaningAppointments() + "\n");
 
 		System.out.println("---Error testing in CleaningAppointment---");
 		plannerService.createAndAddNewCleaningAppointment(CleaningAppointmentType.QUICK, "WP-200",
-				LocalDateTime.of(2021, 12, 25, 8, 00), "jemo1000");
+				LocalDateTime.of(2021, 12, 25, 8, 00), "jemo1000").printIfRejected();
 		System.err.println("---Testing appointment overlaps---");
 		plannerService.createAndAddNewCleaningAppointment(CleaningAppointmentType.QUICK, "WP-4",
-				LocalDateTime.of(2021, 12, 25, 8, 10), "jemo1000");
+				LocalDateTime.of(2021, 12, 25, 8, 10), "jemo1000").printIfRejected();
 	}
 
 	// MVP05
@@ -276,14 +360,15 @@ public class MainApplication {
 		System.out.println("\n---Error testing of update Methods in Appointment Classes---");
 
 		// Test: Update of WorkingAppointment on ConsultingAppointment
-		plannerService.updateWorkingAppointment("A-4", "WP-2", LocalDateTime.of(2021, 12, 25, 10, 30));
+		plannerService.updateWorkingAppointment("A-4", "WP-2", LocalDateTime.of(2021, 12, 25, 10, 30))
+				.printIfRejected();
 
 		// Test: Update of ConsultingAppointment on CleaningAppointment
-		plannerService.updateConsultingAppointment("A-8", 30, LocalDateTime.of(2021, 12, 20, 10, 00));
+		plannerService.updateConsultingAppointment("A-8", 30, LocalDateTime.of(2021, 12, 20, 10, 00)).printIfRejected();
 
 		// Test: Update of CleaningAppointment on WorkingAppointment
 		plannerService.updateCleaningAppointment("A-3", CleaningAppointmentType.QUICK, "WP-2",
-				LocalDateTime.of(2021, 12, 24, 16, 00));
+				LocalDateTime.of(2021, 12, 24, 16, 00)).printIfRejected();
 	}
 
 	// MVP06
@@ -291,15 +376,15 @@ public class MainApplication {
 	private static void testWeeklyOverview() {
 		System.out.println("\n--- Testing Weekly Overview:---");
 		System.out.println("Testing for week 50:");
-		plannerService.printSortedAppointmentOverviewOfWeek(50);
+		plannerService.printSortedAppointmentOverviewOfWeek(2021, 50);
 		plannerService.createAndAddNewConsultingAppointment("C-2", 30, LocalDateTime.of(2021, 12, 13, 0, 0),
-				"jawa1000");
+				"jawa1000").printIfRejected();
 		System.out.println("Testing for week 50 after adding an Appointment on a Date in this week:");
-		plannerService.printSortedAppointmentOverviewOfWeek(50);
+		plannerService.printSortedAppointmentOverviewOfWeek(2021, 50);
 		System.out.println("\nTesting for week 51:");
-		plannerService.printSortedAppointmentOverviewOfWeek(51);
+		plannerService.printSortedAppointmentOverviewOfWeek(2021, 51);
 		System.out.println("\nTesting for week 52:");
-		plannerService.printSortedAppointmentOverviewOfWeek(52);
+		plannerService.printSortedAppointmentOverviewOfWeek(2021, 52);
 	}
 
 	// MMP04, MMP03
@@ -314,14 +399,14 @@ public class MainApplication {
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-2", "KL-JW-123", "WP-2",
 				LocalDateTime.now()
 						.minusDays(1),
-				"dodu1002");
+				"dodu1002").printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-2", "KL-JW-123", "WP-1",
 				LocalDateTime.now()
 						.minusDays(1)
 						.minusMinutes(180),
-				"dodu1002");
-		plannerService.changeWorkingAppointmentStatusOf_To("A-9", WorkingAppointmentStatus.FINISHED);
-		plannerService.changeWorkingAppointmentStatusOf_To("A-10", WorkingAppointmentStatus.FINISHED);
+				"dodu1002").printIfRejected();
+		plannerService.changeWorkingAppointmentStatusOf_To("A-9", WorkingAppointmentStatus.FINISHED).printIfRejected();
+		plannerService.changeWorkingAppointmentStatusOf_To("A-10", WorkingAppointmentStatus.FINISHED).printIfRejected();
 		plannerService.printAllWorkingAppointmentsOfYesterday();
 	}
 
@@ -335,14 +420,14 @@ public class MainApplication {
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-2", "KL-JW-123", "WP-2",
 				LocalDateTime.now()
 						.minusDays(1),
-				"dodu1002");
-		plannerService.changeWorkingAppointmentStatusOf_To("A-9", WorkingAppointmentStatus.FINISHED);
+				"dodu1002").printIfRejected();
+		plannerService.changeWorkingAppointmentStatusOf_To("A-9", WorkingAppointmentStatus.FINISHED).printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-2", "KL-JW-123", "WP-3",
-				LocalDateTime.now(), "dodu1002");
-		plannerService.changeWorkingAppointmentStatusOf_To("A-10", WorkingAppointmentStatus.FINISHED);
+				LocalDateTime.now(), "dodu1002").printIfRejected();
+		plannerService.changeWorkingAppointmentStatusOf_To("A-10", WorkingAppointmentStatus.FINISHED).printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform2, "C-2", "KL-JW-123", "WP-2",
-				LocalDateTime.of(2022, 1, 2, 15, 0), "dodu1002");
-		plannerService.changeWorkingAppointmentStatusOf_To("A-11", WorkingAppointmentStatus.FINISHED);
+				LocalDateTime.of(2022, 1, 2, 15, 0), "dodu1002").printIfRejected();
+		plannerService.changeWorkingAppointmentStatusOf_To("A-11", WorkingAppointmentStatus.FINISHED).printIfRejected();
 		vehicleService.printHistoryOfFinishedWorkingAppointments("KL-JW-123");
 
 		System.out.println("\n---Error testing for vehicle with no history of working appointments---");
@@ -358,11 +443,11 @@ public class MainApplication {
 		worksToPerform1.add("W-3");
 		worksToPerform1.add("W-2");
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform1, "C-2", "KL-JW-123", "WP-2",
-				LocalDateTime.now(), "JP Performance");
+				LocalDateTime.now(), "JP Performance").printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform1, "C-2", "DE-JW-123", "WP-3",
 				LocalDateTime.now()
 						.plusMinutes(60),
-				"JP Performance"); // if checked after 23 o´clock only one will be
+				"JP Performance").printIfRejected(); // if checked after 23 o´clock only one will be
 									// shown ;)
 		plannerService.printAllSortedOpenWorkingAppointmentsOfTodayFor("JP Performance");
 		System.out.println("\nError-Testing for non-existing working appointments for car mechanic:");
@@ -375,23 +460,24 @@ public class MainApplication {
 		System.out.println("\n---Testing creation of next available cleaning appointment---");
 		// test purpose only Appointments
 		plannerService.createAndAddNewCleaningAppointment(CleaningAppointmentType.QUICK, "WP-2", LocalDateTime.now()
-				.plusHours(1), "jemo1000");
+				.plusHours(1), "jemo1000").printIfRejected();
 		plannerService.createAndAddNewCleaningAppointment(CleaningAppointmentType.INTENSIVE, "WP-2", LocalDateTime.now()
-				.plusHours(2), "jemo1000");
+				.plusHours(2), "jemo1000").printIfRejected();
 		Set<String> worksToPerform1 = new HashSet<>();
 		worksToPerform1.add("W-3");
 		worksToPerform1.add("W-2");
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform1, "C-2", "KL-JW-123", "WP-2",
-				LocalDateTime.now(), "JP Performance");
+				LocalDateTime.now(), "JP Performance").printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerform1, "C-2", "KL-JW-123", "WP-2",
 				LocalDateTime.now()
 						.plusDays(1),
-				"JP Performance");
+				"JP Performance").printIfRejected();
 		System.out.println("Before:");
 		plannerService.printAppointmentsDetailedFor(
 				plannerService.getAllOpenSortedAppointmentsOnWorkingPlatformAfterNow("WP-2"));
 		System.out.print("\n--->Creating next available: ");
-		plannerService.createAndAddNextAvailableCleaningAppointment(CleaningAppointmentType.QUICK, "WP-2", "jemo1000");
+		plannerService.createAndAddNextAvailableCleaningAppointment(CleaningAppointmentType.QUICK, "WP-2", "jemo1000")
+				.printIfRejected();
 		System.out.println("\nAfter:");
 		plannerService.printAppointmentsDetailedFor(
 				plannerService.getAllOpenSortedAppointmentsOnWorkingPlatformAfterNow("WP-2"));
@@ -402,14 +488,15 @@ public class MainApplication {
 	private static void testSuggestionOfThreeNextAvailableWorkingAppointmentDates() {
 		System.out.println(
 				"\n---Testing suggestion of three next available working appointment dates for one working platform and for all working platforms---");
-		workService.createAndAddNewWork("Adjusting lights", 15);
-		workService.createAndAddNewWork("Refilling Oil", 15);
-		workService.createAndAddNewWork("Gearbox change", 180);
-		workService.createAndAddNewWork("Timing chain replacement", 300);
-		workService.createAndAddNewWork("Fixing windshield", 120);
-		workService.createAndAddNewWork("Change painting of the car to white", 420);
-		workService.createAndAddNewWork("Deep cleaning the car", 60);
-		workService.createAndAddNewWork("Troubleshooting the problem with blinking of high beam", 120);
+		workService.createAndAddNewWork("Adjusting lights", 15).printIfRejected();
+		workService.createAndAddNewWork("Refilling Oil", 15).printIfRejected();
+		workService.createAndAddNewWork("Gearbox change", 180).printIfRejected();
+		workService.createAndAddNewWork("Timing chain replacement", 300).printIfRejected();
+		workService.createAndAddNewWork("Fixing windshield", 120).printIfRejected();
+		workService.createAndAddNewWork("Change painting of the car to white", 420).printIfRejected();
+		workService.createAndAddNewWork("Deep cleaning the car", 60).printIfRejected();
+		workService.createAndAddNewWork("Troubleshooting the problem with blinking of high beam", 120)
+				.printIfRejected();
 
 		// 30 minutes
 		Set<String> worksToPerformSuggestion1 = new HashSet<>();
@@ -437,24 +524,24 @@ public class MainApplication {
 		plannerService.createAndAddNewWorkingAppointment(worksToPerformSuggestion1, "C-2", "KL-JW-123", "WP-1",
 				LocalDateTime.now()
 						.plusMinutes(30),
-				"ABT Sportsline");
+				"ABT Sportsline").printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerformSuggestion1, "C-2", "KL-JW-123", "WP-1",
 				LocalDateTime.now()
 						.plusMinutes(180),
-				"JP Performance");
+				"JP Performance").printIfRejected();
 
 		plannerService.createAndAddNewWorkingAppointment(worksToPerformSuggestion5, "C-2", "KL-JW-123", "WP-1",
 				LocalDateTime.now()
 						.plusMinutes(120),
-				"dodu1002");
+				"dodu1002").printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerformSuggestion1, "C-2", "KL-JW-123", "WP-1",
 				LocalDateTime.now()
 						.plusMinutes(60),
-				"dodu1002");
+				"dodu1002").printIfRejected();
 		plannerService.createAndAddNewWorkingAppointment(worksToPerformSuggestion1, "C-2", "KL-JW-123", "WP-2",
 				LocalDateTime.now()
 						.plusMinutes(30),
-				"dodu1002");
+				"dodu1002").printIfRejected();
 
 		System.out.println("Existing Appointments: ");
 		plannerService.printAppointmentsDetailedFor(
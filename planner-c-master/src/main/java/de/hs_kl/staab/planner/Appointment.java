@@ -3,40 +3,103 @@ package de.hs_kl.staab.planner;
 
 import java.time.LocalDateTime;
 
+import de.hs_kl.staab.planner.id.EntityIds;
+import de.hs_kl.staab.planner.id.IdGenerators;
+
 public abstract class Appointment {
 
-	private static int APPOINTMENT_ID = 1;
+	private static final EntityIds APPOINTMENT_IDS = new EntityIds("A-", IdGenerators.newIdGenerator());
 
-	private static final String APPOINTMENT_PREFIX = "A-";
 	protected final String appointmentId;
+	// -1 if the ID was not generated
+	private final long appointmentIdNumber;
+
+	// minutes since 1970-01-01 (see EpochMinutes), the end is exclusive
+	protected long appointmentBeginEpochMinute;
+	protected long appointmentEndEpochMinute;
+
+	/**
+	 * @param appointmentId               - a new ID from
+	 *                                    {@link #generateAppointmentId()} or the
+	 *                                    ID of a restored appointment, in this
+	 *                                    case no new appointment will get the
+	 *                                    same ID afterwards
+	 * @param appointmentBeginDateAndTime - the begin, seconds are cut off
+	 */
+	protected Appointment(String appointmentId, LocalDateTime appointmentBeginDateAndTime) {
+		APPOINTMENT_IDS.reserve(appointmentId);
+		this.appointmentId = appointmentId;
+		this.appointmentIdNumber = APPOINTMENT_IDS.parse(appointmentId);
+		this.appointmentBeginEpochMinute = EpochMinutes.of(appointmentBeginDateAndTime);
+	}
 
-	protected LocalDateTime appointmentBeginDateAndTime;
-	protected LocalDateTime appointmentEndDateAndTime;
+	protected static String generateAppointmentId() {
+		return APPOINTMENT_IDS.nextId();
+	}
 
-	protected Appointment(LocalDateTime appointmentBeginDateAndTime) {
-		this.appointmentBeginDateAndTime = appointmentBeginDateAndTime;
-		appointmentId = APPOINTMENT_PREFIX + APPOINTMENT_ID++;
+	/**
+	 * @return - the ID with the given number, e.g. "A-17" for 17
+	 */
+	public static String formatAppointmentId(long appointmentIdNumber) {
+		return APPOINTMENT_IDS.format(appointmentIdNumber);
 	}
 
 	public String getAppointmentId() {
 		return appointmentId;
 	}
 
+	/**
+	 * @return - the number of a generated ID, or -1 if the appointment was
+	 *         restored with an ID that was not generated
+	 */
+	public long getAppointmentIdNumber() {
+		return appointmentIdNumber;
+	}
+
 	public LocalDateTime getAppointmentBeginDateAndTime() {
-		return appointmentBeginDateAndTime;
+		return EpochMinutes.toLocalDateTime(appointmentBeginEpochMinute);
+	}
+
+	public long getAppointmentBeginEpochMinute() {
+		return appointmentBeginEpochMinute;
 	}
 
 	public String getAppointmentBeginDateAndTimeFormatted() {
+		LocalDateTime appointmentBeginDateAndTime = getAppointmentBeginDateAndTime();
 		return appointmentBeginDateAndTime.getDayOfMonth() + "." + appointmentBeginDateAndTime.getMonthValue() + "."
 				+ appointmentBeginDateAndTime.getYear() + " at " + appointmentBeginDateAndTime.getHour() + ":"
 				+ appointmentBeginDateAndTime.getMinute();
 	}
 
+	/**
+	 * Sets a new begin, the end is moved with it, so the duration stays the same.
+	 */
 	public void setAppointmentBeginDateAndTime(LocalDateTime appointmentBeginDateAndTime) {
-		this.appointmentBeginDateAndTime = appointmentBeginDateAndTime;
+		moveTo(EpochMinutes.of(appointmentBeginDateAndTime));
+	}
+
+	/**
+	 * Moves the whole appointment to the given begin in epoch minutes, its
+	 * duration stays the same.
+	 */
+	public void moveTo(long beginEpochMinute) {
+		this.appointmentEndEpochMinute += beginEpochMinute - this.appointmentBeginEpochMinute;
+		this.appointmentBeginEpochMinute = beginEpochMinute;
 	}
 
 	public LocalDateTime getAppointmentEndDateAndTime() {
-		return appointmentEndDateAndTime;
+		return EpochMinutes.toLocalDateTime(appointmentEndEpochMinute);
+	}
+
+	public long getAppointmentEndEpochMinute() {
+		return appointmentEndEpochMinute;
+	}
+
+	/**
+	 * @return - true if the appointment overlaps the time span from begin
+	 *         (inclusive) to end (exclusive), both in epoch minutes
+	 */
+	public boolean isOverlapping(long beginEpochMinute, long endEpochMinute) {
+		return appointmentBeginEpochMinute < endEpochMinute && appointmentEndEpochMinute > beginEpochMinute;
 	}
 }
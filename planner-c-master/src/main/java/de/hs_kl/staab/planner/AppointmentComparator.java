@@ -20,8 +20,7 @@ public class AppointmentComparator implements Comparator<Appointment> {
 		if (o2 == null) {
 			return 1;
 		}
-		return o1.getAppointmentBeginDateAndTime()
-				.compareTo(o2.getAppointmentBeginDateAndTime());
+		return Long.compare(o1.getAppointmentBeginEpochMinute(), o2.getAppointmentBeginEpochMinute());
 	}
 
 }
\ No newline at end of file
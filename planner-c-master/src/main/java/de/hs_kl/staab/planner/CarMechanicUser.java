@@ -2,8 +2,8 @@ package de.hs_kl.staab.planner;
 
 public class CarMechanicUser extends User {
 
-	public CarMechanicUser(String userName, String userFirstName, String userLastName) {
-		super(userName, userFirstName, userLastName);
+	public CarMechanicUser(String userName, String userFirstName, String userLastName, String location) {
+		super(userName, userFirstName, userLastName, location);
 	}
 
 }
@@ -16,7 +16,18 @@ public class CleaningAppointment extends Appointment {
 	public CleaningAppointment(CleaningAppointmentType cleaningAppointmentType,
 			WorkingPlatform workingPlatformRelatedToCleaningAppointment, LocalDateTime appointmentBeginDateAndTime,
 			DispatcherUser responsibleDispatcherUser) {
-		super(appointmentBeginDateAndTime);
+		this(generateAppointmentId(), cleaningAppointmentType, workingPlatformRelatedToCleaningAppointment,
+				appointmentBeginDateAndTime, responsibleDispatcherUser);
+	}
+
+	/**
+	 * Restores a cleaning appointment with an already existing ID (e.g. from the
+	 * journal).
+	 */
+	public CleaningAppointment(String appointmentId, CleaningAppointmentType cleaningAppointmentType,
+			WorkingPlatform workingPlatformRelatedToCleaningAppointment, LocalDateTime appointmentBeginDateAndTime,
+			DispatcherUser responsibleDispatcherUser) {
+		super(appointmentId, appointmentBeginDateAndTime);
 		this.workingPlatformRelatedToCleaningAppointment = workingPlatformRelatedToCleaningAppointment;
 		this.setCleaningAppointmentType(cleaningAppointmentType);
 		this.responsibleDispatcherUser = responsibleDispatcherUser;
@@ -29,7 +40,7 @@ public class CleaningAppointment extends Appointment {
 				+ workingPlatformRelatedToCleaningAppointment.getWorkingPlatformName() + " (ID: "
 				+ workingPlatformRelatedToCleaningAppointment.getWorkingPlatformId() + ") is scheduled to be cleaned "
 				+ cleaningAppointmentType + "(" + cleaningDuration + " minutes)" + " (Until: "
-				+ appointmentEndDateAndTime + ") " + "by  dispatcher named "
+				+ getAppointmentEndDateAndTime() + ") " + "by  dispatcher named "
 				+ responsibleDispatcherUser.getUserFirstName() + " " + responsibleDispatcherUser.getUserLastName()
 				+ " (" + responsibleDispatcherUser.getUsername() + ") (Appointments ID: " + appointmentId + ").";
 	}
@@ -43,12 +54,12 @@ public class CleaningAppointment extends Appointment {
 		case QUICK:
 			this.cleaningAppointmentType = "Quick";
 			this.cleaningDuration = DURATION_QUICK_CLEANING_APPOINTMENT;
-			this.appointmentEndDateAndTime = this.appointmentBeginDateAndTime.plusMinutes(cleaningDuration);
+			this.appointmentEndEpochMinute = this.appointmentBeginEpochMinute + cleaningDuration;
 			break;
 		case INTENSIVE:
 			this.cleaningAppointmentType = "Intensive";
 			this.cleaningDuration = DURATION_INTENSIVE_CLEANING_APPOINTMENT;
-			this.appointmentEndDateAndTime = this.appointmentBeginDateAndTime.plusMinutes(cleaningDuration);
+			this.appointmentEndEpochMinute = this.appointmentBeginEpochMinute + cleaningDuration;
 			break;
 		default:
 			throw new IllegalArgumentException("ERROR: Unspecified cleaning type! Use QUICK or INTENSIVE instead.");
@@ -2,7 +2,7 @@ package de.hs_kl.staab.planner;
 
 public class ClientAdvisorUser extends User {
 
-	public ClientAdvisorUser(String userName, String userFirstName, String userLastName) {
-		super(userName, userFirstName, userLastName);
+	public ClientAdvisorUser(String userName, String userFirstName, String userLastName, String location) {
+		super(userName, userFirstName, userLastName, location);
 	}
 }
@@ -10,7 +10,18 @@ public class ConsultingAppointment extends Appointment {
 
 	public ConsultingAppointment(Customer customerRelatedToConsultingAppointment, int consultingAppointmentDuration,
 			LocalDateTime appointmentBeginDateAndTime, ClientAdvisorUser responsibleClientAdvisorUser) {
-		super(appointmentBeginDateAndTime);
+		this(generateAppointmentId(), customerRelatedToConsultingAppointment, consultingAppointmentDuration,
+				appointmentBeginDateAndTime, responsibleClientAdvisorUser);
+	}
+
+	/**
+	 * Restores a consulting appointment with an already existing ID (e.g. from the
+	 * journal).
+	 */
+	public ConsultingAppointment(String appointmentId, Customer customerRelatedToConsultingAppointment,
+			int consultingAppointmentDuration, LocalDateTime appointmentBeginDateAndTime,
+			ClientAdvisorUser responsibleClientAdvisorUser) {
+		super(appointmentId, appointmentBeginDateAndTime);
 		this.setConsultingAppointmentDuration(consultingAppointmentDuration);
 		this.customerRelatedToConsultingAppointment = customerRelatedToConsultingAppointment;
 		this.responsibleClientAdvisorUser = responsibleClientAdvisorUser;
@@ -21,7 +32,7 @@ public class ConsultingAppointment extends Appointment {
 	public String toString() {
 		return "On " + getAppointmentBeginDateAndTimeFormatted() + " there is a " + consultingAppointmentDuration
 				+ "-minute consultation scheduled with client " + customerRelatedToConsultingAppointment.getFullName()
-				+ " (Until: " + appointmentEndDateAndTime + ") " + "by client advisor named "
+				+ " (Until: " + getAppointmentEndDateAndTime() + ") " + "by client advisor named "
 				+ responsibleClientAdvisorUser.getUserFirstName() + " " + responsibleClientAdvisorUser.getUserLastName()
 				+ " (" + responsibleClientAdvisorUser.getUsername() + ") ( Appointments ID: " + appointmentId + ").";
 
@@ -33,7 +44,7 @@ public class ConsultingAppointment extends Appointment {
 
 	public void setConsultingAppointmentDuration(int consultingAppointmentDuration) {
 		this.consultingAppointmentDuration = consultingAppointmentDuration;
-		this.appointmentEndDateAndTime = this.appointmentBeginDateAndTime.plusMinutes(consultingAppointmentDuration);
+		this.appointmentEndEpochMinute = this.appointmentBeginEpochMinute + consultingAppointmentDuration;
 	}
 
 	public Customer getCustomerRelatedToConsultingAppointment() {
@@ -1,12 +1,14 @@
 package de.hs_kl.staab.planner;
 
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.hs_kl.staab.planner.id.EntityIds;
+import de.hs_kl.staab.planner.id.IdGenerators;
 
 public class Customer {
 
-	private static int CUSTOMER_ID_COUNTER = 1;
-	private static final String CUSTOMER_ID_PREFIX = "C-";
+	private static final EntityIds CUSTOMER_IDS = new EntityIds("C-", IdGenerators.newIdGenerator());
 
 	private final String customerId;
 
@@ -18,11 +20,22 @@ public class Customer {
 	private String phoneNumber;
 	private int houseNumber;
 	private int postalCode;
-	private Set<Vehicle> vehiclesOfTheCustomer = new HashSet<>();
+	private Set<Vehicle> vehiclesOfTheCustomer = ConcurrentHashMap.newKeySet();
 
 	public Customer(String customerFirstName, String customerLastName, String street, int houseNumber, int postalCode,
 			String city, String phoneNumber, String email) {
-		this.customerId = CUSTOMER_ID_PREFIX + CUSTOMER_ID_COUNTER++;
+		this(CUSTOMER_IDS.nextId(), customerFirstName, customerLastName, street, houseNumber, postalCode, city,
+				phoneNumber, email);
+	}
+
+	/**
+	 * Restores a customer with an already existing ID (e.g. from the journal). No
+	 * new customer will get the same ID afterwards.
+	 */
+	public Customer(String customerId, String customerFirstName, String customerLastName, String street,
+			int houseNumber, int postalCode, String city, String phoneNumber, String email) {
+		CUSTOMER_IDS.reserve(customerId);
+		this.customerId = customerId;
 		this.customerFirstName = customerFirstName;
 		this.customerLastName = customerLastName;
 		this.street = street;
@@ -2,8 +2,8 @@ package de.hs_kl.staab.planner;
 
 public class DispatcherUser extends User {
 
-	public DispatcherUser(String userName, String userFirstName, String userLastName) {
-		super(userName, userFirstName, userLastName);
+	public DispatcherUser(String userName, String userFirstName, String userLastName, String location) {
+		super(userName, userFirstName, userLastName, location);
 	}
 
 }
@@ -0,0 +1,51 @@
+package de.hs_kl.staab.planner;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Points in time as whole minutes since 1970-01-01 00:00, the form in which
+ * the appointments keep their begin and end. Comparing two points in time or
+ * computing the minutes between them is plain arithmetic on longs, a
+ * LocalDateTime is only created when a time is handed out.
+ *
+ * The date and time are counted as if they were UTC, so every day has 1440
+ * minutes, without gaps or repetitions when the clocks are changed for
+ * daylight saving time.
+ */
+public final class EpochMinutes {
+
+	public static final int MINUTES_PER_DAY = 24 * 60;
+
+	/** The minute of {@link LocalDateTime#MIN}. */
+	public static final long MIN = of(LocalDateTime.MIN);
+	/** The minute of {@link LocalDateTime#MAX}. */
+	public static final long MAX = of(LocalDateTime.MAX);
+
+	private EpochMinutes() {
+	}
+
+	/**
+	 * @return - the minute the given date and time lies in, seconds and fractions
+	 *         of a second are cut off
+	 */
+	public static long of(LocalDateTime dateAndTime) {
+		return Math.floorDiv(dateAndTime.toEpochSecond(ZoneOffset.UTC), 60);
+	}
+
+	public static LocalDateTime toLocalDateTime(long epochMinute) {
+		return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+	}
+
+	public static LocalDate toLocalDate(long epochMinute) {
+		return LocalDate.ofEpochDay(Math.floorDiv(epochMinute, MINUTES_PER_DAY));
+	}
+
+	/**
+	 * @return - the first minute of the given day
+	 */
+	public static long ofDay(LocalDate day) {
+		return day.toEpochDay() * MINUTES_PER_DAY;
+	}
+}
@@ -0,0 +1,139 @@
+package de.hs_kl.staab.planner.REST;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import de.hs_kl.staab.planner.data.CalendarChange;
+import de.hs_kl.staab.planner.services.PlannerService;
+
+/**
+ * Sends the changes of the planning calendar to one client as server-sent
+ * events. The listener is called while the calendar is locked, so it only puts
+ * the change into a queue, a thread of a shared pool sends the queued changes
+ * in their order afterwards. Every change carries its own copy of the
+ * appointment, so the sending thread never reads the appointment of the
+ * calendar while it is changed. If a client doesn't keep up and its queue is full,
+ * its connection is closed, because it would miss changes otherwise. It has to
+ * load the calendar again after reconnecting.
+ */
+final class CalendarChangeSubscription implements Consumer<CalendarChange> {
+
+	// the client reconnects afterwards
+	private static final long TIMEOUT_IN_MILLISECONDS = 30 * 60 * 1000L;
+	private static final int MAX_NUMBER_OF_QUEUED_CHANGES = 1000;
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	// sending blocks while the network is slow, so every client needs its own thread while sending
+	private static final ExecutorService DELIVERY_THREADS = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "calendar-change-delivery");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final PlannerService plannerService;
+	private final List<Object> subscribedResources;
+	private final SseEmitter emitter = new SseEmitter(TIMEOUT_IN_MILLISECONDS);
+	private final BlockingQueue<CalendarChange> queuedChanges = new ArrayBlockingQueue<>(
+			MAX_NUMBER_OF_QUEUED_CHANGES);
+	private final AtomicBoolean delivering = new AtomicBoolean();
+	private volatile boolean overflowed;
+
+	private CalendarChangeSubscription(PlannerService plannerService, List<Object> subscribedResources) {
+		this.plannerService = plannerService;
+		this.subscribedResources = subscribedResources;
+	}
+
+	/**
+	 * @param subscribedResources - working platforms and users, only changes of
+	 *                            appointments occupying one of them are sent; if
+	 *                            empty, all changes are sent
+	 * @return - the emitter to return from the request handler
+	 */
+	static SseEmitter subscribe(PlannerService plannerService, List<Object> subscribedResources) {
+		CalendarChangeSubscription subscription = new CalendarChangeSubscription(plannerService,
+				subscribedResources);
+		subscription.emitter.onCompletion(subscription::unsubscribe);
+		subscription.emitter.onTimeout(subscription::unsubscribe);
+		subscription.emitter.onError(error -> subscription.unsubscribe());
+		plannerService.addCalendarChangeListener(subscription);
+		return subscription.emitter;
+	}
+
+	@Override
+	public void accept(CalendarChange change) {
+		if (!isSubscribedTo(change)) {
+			return;
+		}
+		if (!queuedChanges.offer(change)) {
+			overflowed = true;
+		}
+		if (delivering.compareAndSet(false, true)) {
+			DELIVERY_THREADS.execute(this::deliverQueuedChanges);
+		}
+	}
+
+	private boolean isSubscribedTo(CalendarChange change) {
+		if (subscribedResources.isEmpty()) {
+			return true;
+		}
+		for (Object resource : subscribedResources) {
+			if (change.isAffecting(resource)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void deliverQueuedChanges() {
+		do {
+			CalendarChange change;
+			while (!overflowed && (change = queuedChanges.poll()) != null) {
+				try {
+					send(change);
+				} catch (IOException e) {
+					unsubscribe();
+					emitter.completeWithError(e);
+					return;
+				}
+			}
+			if (overflowed) {
+				unsubscribe();
+				emitter.complete();
+				return;
+			}
+			delivering.set(false);
+			// a change queued after polling the last one found delivering still set
+		} while (!queuedChanges.isEmpty() && delivering.compareAndSet(false, true));
+	}
+
+	private void send(CalendarChange change) throws IOException {
+		StringWriter data = new StringWriter();
+		try (JsonGenerator json = JSON_FACTORY.createGenerator(data)) {
+			PlannerJsonWriter.writeAppointment(json, change.getAppointment());
+		}
+		emitter.send(SseEmitter.event()
+				.id(String.valueOf(change.getSequenceNumber()))
+				.name(change.getKind()
+						.name())
+				.data(data.toString(), MediaType.APPLICATION_JSON));
+	}
+
+	private void unsubscribe() {
+		plannerService.removeCalendarChangeListener(this);
+		queuedChanges.clear();
+	}
+}
@@ -1,14 +1,96 @@
 package de.hs_kl.staab.planner.REST;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.AppointmentComparator;
+import de.hs_kl.staab.planner.CleaningAppointment;
+import de.hs_kl.staab.planner.CleaningAppointmentType;
+import de.hs_kl.staab.planner.ConsultingAppointment;
+import de.hs_kl.staab.planner.Customer;
+import de.hs_kl.staab.planner.User;
+import de.hs_kl.staab.planner.Vehicle;
+import de.hs_kl.staab.planner.Work;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.REST.PlannerJsonWriter.ElementWriter;
+import de.hs_kl.staab.planner.services.AppointmentExport;
+import de.hs_kl.staab.planner.services.CustomerService;
+import de.hs_kl.staab.planner.services.ExportFormat;
+import de.hs_kl.staab.planner.services.Outcome;
 import de.hs_kl.staab.planner.services.PlannerService;
+import de.hs_kl.staab.planner.services.UserService;
+import de.hs_kl.staab.planner.services.UtilizationBucket;
+import de.hs_kl.staab.planner.services.UtilizationReport;
+import de.hs_kl.staab.planner.services.VehicleService;
+import de.hs_kl.staab.planner.services.WorkService;
+import de.hs_kl.staab.planner.services.WorkingPlatformService;
 
 /**
- * Klasse, die das REST-Interface für den Werkstattplaner zur Verfügung stellt
- * (optional!).
- * 
+ * Klasse, die das REST-Interface für den Werkstattplaner zur Verfügung stellt.
+ *
+ * <p>
+ * Alle Antworten werden mit Jackson direkt in die Antwort geschrieben
+ * (gestreamt), statt sie vorher als Set im Speicher aufzubauen. Listen werden
+ * seitenweise gelesen: Jede Seite endet mit einem {@code nextCursor}, der beim
+ * nächsten Aufruf als {@code cursor} übergeben wird. Ist er {@code null}, gibt
+ * es keine weiteren Einträge.
+ * </p>
+ *
+ * <p>
+ * Änderungen antworten mit 201 und dem angelegten Objekt bzw. mit 204. Lehnt
+ * ein Service eine Änderung ab, wird aus dem {@link Outcome} der Status:
+ * 404, wenn etwas nicht existiert, 409 bei einer Überschneidung mit einem
+ * vorhandenen Objekt und 400 bei ungültigen Werten.
+ * </p>
+ *
+ * <p>
+ * Statt die Termine regelmäßig neu zu laden, können Clients ihre Änderungen
+ * unter {@code /planner/appointments/changes} abonnieren.
+ * </p>
+ *
+ * <p>
+ * Jeder Standort (jede Werkstatt) hat seinen eigenen Planungskalender. Die
+ * Anfragen zu Terminen werden über den Parameter {@code location} an den
+ * Kalender des Standorts weitergeleitet, Kunden, Fahrzeuge, Arbeiten,
+ * Arbeitsbühnen und Benutzer gelten für alle Standorte.
+ * </p>
+ *
  * @author Staab
  *
  */
@@ -16,11 +98,830 @@ import de.hs_kl.staab.planner.services.PlannerService;
 @RequestMapping(path = "/planner")
 public class PlannerController {
 
-	private final PlannerService plannerService = PlannerService.getInstance();
+	public enum UserRole {
+		DISPATCHER, CLIENT_ADVISOR, CAR_MECHANIC
+	}
+
+	private static final int MAX_PAGE_SIZE = 10000;
+	private static final String DEFAULT_PAGE_SIZE = "100";
+	// separates begin and ID in the cursor of the appointments
+	private static final char CURSOR_SEPARATOR = '|';
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory()
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	private final CustomerService customerService = CustomerService.getInstance();
+	private final VehicleService vehicleService = VehicleService.getInstance();
+	private final WorkService workService = WorkService.getInstance();
+	private final WorkingPlatformService workingPlatformService = WorkingPlatformService.getInstance();
+	private final UserService userService = UserService.getInstance();
+
+	/* ************************************************ */
+	/* * Termine ************************************** */
+	/* ************************************************ */
+
+	/**
+	 * Alle Termine des Kalenders seitenweise, sortiert nach Beginn und ID:
+	 * http://localhost:8080/planner/appointments?limit=100
+	 */
+	@RequestMapping(value = "/appointments", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getAppointments(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		checkPageSize(limit);
+		LocalDateTime beginOfLastAppointment = null;
+		String idOfLastAppointment = null;
+		if (cursor != null) {
+			String decodedCursor = decodeCursor(cursor);
+			int separatorIndex = decodedCursor.indexOf(CURSOR_SEPARATOR);
+			if (separatorIndex < 0) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + cursor + ".");
+			}
+			try {
+				beginOfLastAppointment = LocalDateTime.parse(decodedCursor.substring(0, separatorIndex));
+			} catch (DateTimeParseException e) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + cursor + ".");
+			}
+			idOfLastAppointment = decodedCursor.substring(separatorIndex + 1);
+		}
+		Iterator<Appointment> appointments = plannerService
+				.getAppointmentsInOrderAfter(beginOfLastAppointment, idOfLastAppointment)
+				.iterator();
+		return streamPage(appointments, limit, PlannerJsonWriter::writeAppointment,
+				appointment -> appointment.getAppointmentBeginDateAndTime() + String.valueOf(CURSOR_SEPARATOR)
+						+ appointment.getAppointmentId());
+	}
+
+	/**
+	 * Export der Termine eines Zeitraums inklusive der archivierten als CSV,
+	 * NDJSON oder im kompakten Binärformat (siehe {@link ExportFormat}), optional
+	 * nur die auf einer Arbeitsbühne, eines Mechanikers und/oder mit einem
+	 * Status. Die Datei wird während des Lesens der Termine in Stücken gesendet:
+	 * http://localhost:8080/planner/appointments/export?from=2021-12-01&to=2021-12-31&format=CSV
+	 */
+	@RequestMapping(value = "/appointments/export", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> exportAppointments(
+			@RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+			@RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "CSV") ExportFormat format,
+			@RequestParam(required = false) String workingPlatformId,
+			@RequestParam(required = false) String carMechanicUsername,
+			@RequestParam(required = false) WorkingAppointmentStatus status,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		AppointmentExport export = checkAccepted(
+				plannerService.createAppointmentExport(from, to, workingPlatformId, carMechanicUsername, status));
+		StreamingResponseBody body = outputStream -> export.writeTo(Channels.newChannel(outputStream), format);
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(format.getMediaType()))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"appointments-" + from + "-" + to + "."
+						+ format.getFileExtension() + "\"")
+				.body(body);
+	}
+
+	/**
+	 * Auslastung aller Arbeitsbühnen und Mechaniker während der Öffnungszeiten
+	 * eines Zeitraums: gebuchte und freie Minuten und Auslastung in Prozent je
+	 * Stunde, Tag oder Woche sowie die Anzahl der Leerlaufzeiten nach ihrer Länge:
+	 * http://localhost:8080/planner/utilization?from=2021-01-01&to=2021-12-31&bucket=WEEK&openingTime=07:00
+	 */
+	@RequestMapping(value = "/utilization", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getUtilization(
+			@RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+			@RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "DAY") UtilizationBucket bucket,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.TIME) LocalTime openingTime,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.TIME) LocalTime closingTime,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		UtilizationReport report = checkAccepted(
+				plannerService.createUtilizationReport(from, to, bucket, openingTime, closingTime));
+		return streamJson(json -> PlannerJsonWriter.writeUtilizationReport(json, report));
+	}
+
+	@RequestMapping(value = "/appointments/{appointmentId}", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getAppointment(@PathVariable String appointmentId,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		return streamObject(plannerService.getAppointmentById(appointmentId), PlannerJsonWriter::writeAppointment);
+	}
+
+	/**
+	 * Alle Termine einer Kalenderwoche (ISO 8601), inklusive der archivierten:
+	 * http://localhost:8080/planner/appointments/weeks/2021/51
+	 */
+	@RequestMapping(value = "/appointments/weeks/{year}/{calendarWeek}", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getAppointmentsOfWeek(@PathVariable int year,
+			@PathVariable int calendarWeek,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		return streamArray(plannerService.getSortedAppointmentOverviewOfWeek(year, calendarWeek),
+				PlannerJsonWriter::writeAppointment);
+	}
+
+	@RequestMapping(value = "/appointments/finished/yesterday", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getFinishedWorkingAppointmentsOfYesterday(
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		return streamArray(plannerService.getSortedFinishedWorkingAppointmentsOfYesterday(),
+				PlannerJsonWriter::writeAppointment);
+	}
+
+	/**
+	 * Alle offenen Termine ab jetzt, optional nur auf einer Arbeitsbühne.
+	 */
+	@RequestMapping(value = "/appointments/open", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getOpenAppointmentsAfterNow(
+			@RequestParam(required = false) String workingPlatformId,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		if (workingPlatformId == null) {
+			return streamArray(plannerService.getAllOpenSortedAppointmentsAfterNow(),
+					PlannerJsonWriter::writeAppointment);
+		}
+		if (!workingPlatformService.getWorkingPlatformById(workingPlatformId)
+				.isPresent()) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		return streamArray(plannerService.getAllOpenSortedAppointmentsOnWorkingPlatformAfterNow(workingPlatformId),
+				PlannerJsonWriter::writeAppointment);
+	}
+
+	/**
+	 * Alle Änderungen der Termine als Server-Sent Events, optional nur die auf
+	 * einer Arbeitsbühne und/oder eines Benutzers (Mechaniker, Berater oder
+	 * Disponent). Der Name eines Events ist die Art der Änderung (CREATED,
+	 * UPDATED, STATUS_CHANGED, REMOVED), die ID ihre laufende Nummer und die
+	 * Daten der geänderte Termin:
+	 * http://localhost:8080/planner/appointments/changes?workingPlatformId=WP-1
+	 *
+	 * <p>
+	 * Ein Client abonniert zuerst die Änderungen und lädt danach die Termine
+	 * seitenweise. Änderungen aus der Zeit dazwischen wendet er einfach noch
+	 * einmal an, da jedes Event den ganzen Termin enthält. Änderungen desselben
+	 * Termins kommen in der Reihenfolge ihrer Nummern. Kommt ein Client nicht
+	 * hinterher, schließt der Server die Verbindung, der Client abonniert dann
+	 * erneut und lädt die Termine neu.
+	 * </p>
+	 */
+	@RequestMapping(value = "/appointments/changes", method = RequestMethod.GET,
+			produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> getAppointmentChanges(@RequestParam(required = false) String workingPlatformId,
+			@RequestParam(required = false) String username,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		List<Object> subscribedResources = new ArrayList<>(2);
+		if (workingPlatformId != null) {
+			Optional<WorkingPlatform> optionalWorkingPlatform = workingPlatformService
+					.getWorkingPlatformById(workingPlatformId);
+			if (!optionalWorkingPlatform.isPresent()) {
+				return ResponseEntity.notFound()
+						.build();
+			}
+			subscribedResources.add(optionalWorkingPlatform.get());
+		}
+		if (username != null) {
+			Optional<User> optionalUser = userService.getUserByUsername(username);
+			if (!optionalUser.isPresent()) {
+				return ResponseEntity.notFound()
+						.build();
+			}
+			subscribedResources.add(optionalUser.get());
+		}
+		return ResponseEntity.ok(CalendarChangeSubscription.subscribe(plannerService, subscribedResources));
+	}
+
+	@RequestMapping(value = "/appointments/working", method = RequestMethod.POST)
+	public ResponseEntity<StreamingResponseBody> createWorkingAppointment(@RequestParam Set<String> workIds,
+			@RequestParam String customerId, @RequestParam String vehicleLicensePlate,
+			@RequestParam String workingPlatformId,
+			@RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime begin,
+			@RequestParam String carMechanicUsername,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		return streamCreated(plannerService.createAndAddNewWorkingAppointment(workIds, customerId, vehicleLicensePlate,
+				workingPlatformId, begin, carMechanicUsername), PlannerJsonWriter::writeAppointment);
+	}
+
+	/**
+	 * Bucht den Arbeitstermin zum frühesten Zeitpunkt, an dem irgendeine
+	 * Arbeitsbühne und irgendein Mechaniker des Standorts gemeinsam frei sind. Gibt
+	 * es bis latestEnd keinen solchen Zeitpunkt, wird mit 409 geantwortet.
+	 */
+	@RequestMapping(value = "/appointments/working/earliest", method = RequestMethod.POST)
+	public ResponseEntity<StreamingResponseBody> createWorkingAppointmentAtEarliestDate(
+			@RequestParam Set<String> workIds, @RequestParam String customerId,
+			@RequestParam String vehicleLicensePlate,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime earliestBegin,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime latestEnd,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		return streamCreated(plannerService.createAndAddWorkingAppointmentAtEarliestDate(workIds, customerId,
+				vehicleLicensePlate, earliestBegin, latestEnd), PlannerJsonWriter::writeAppointment);
+	}
+
+	@RequestMapping(value = "/appointments/consulting", method = RequestMethod.POST)
+	public ResponseEntity<StreamingResponseBody> createConsultingAppointment(@RequestParam String customerId,
+			@RequestParam int duration, @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime begin,
+			@RequestParam String clientAdvisorUsername,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		return streamCreated(
+				plannerService.createAndAddNewConsultingAppointment(customerId, duration, begin, clientAdvisorUsername),
+				PlannerJsonWriter::writeAppointment);
+	}
 
+	/**
+	 * Ohne Beginn wird der nächste freie Termin auf der Arbeitsbühne gebucht.
+	 */
+	@RequestMapping(value = "/appointments/cleaning", method = RequestMethod.POST)
+	public ResponseEntity<StreamingResponseBody> createCleaningAppointment(
+			@RequestParam CleaningAppointmentType cleaningAppointmentType, @RequestParam String workingPlatformId,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime begin,
+			@RequestParam String dispatcherUsername,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		Outcome<CleaningAppointment> outcome;
+		if (begin == null) {
+			outcome = plannerService.createAndAddNextAvailableCleaningAppointment(cleaningAppointmentType,
+					workingPlatformId, dispatcherUsername);
+		} else {
+			outcome = plannerService.createAndAddNewCleaningAppointment(cleaningAppointmentType, workingPlatformId,
+					begin, dispatcherUsername);
+		}
+		return streamCreated(outcome, PlannerJsonWriter::writeAppointment);
+	}
+
+	@RequestMapping(value = "/appointments/working/{appointmentId}", method = RequestMethod.PUT)
+	public ResponseEntity<Void> updateWorkingAppointment(@PathVariable String appointmentId,
+			@RequestParam String workingPlatformId,
+			@RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime begin,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		if (!isAppointmentOfType(plannerService, appointmentId, WorkingAppointment.class)) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		return noContent(plannerService.updateWorkingAppointment(appointmentId, workingPlatformId, begin));
+	}
+
+	@RequestMapping(value = "/appointments/working/{appointmentId}/status", method = RequestMethod.PUT)
+	public ResponseEntity<Void> changeWorkingAppointmentStatus(@PathVariable String appointmentId,
+			@RequestParam WorkingAppointmentStatus status,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		if (!isAppointmentOfType(plannerService, appointmentId, WorkingAppointment.class)) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		return noContent(plannerService.changeWorkingAppointmentStatusOf_To(appointmentId, status));
+	}
+
+	@RequestMapping(value = "/appointments/consulting/{appointmentId}", method = RequestMethod.PUT)
+	public ResponseEntity<Void> updateConsultingAppointment(@PathVariable String appointmentId,
+			@RequestParam int duration, @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime begin,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		if (!isAppointmentOfType(plannerService, appointmentId, ConsultingAppointment.class)) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		return noContent(plannerService.updateConsultingAppointment(appointmentId, duration, begin));
+	}
+
+	@RequestMapping(value = "/appointments/cleaning/{appointmentId}", method = RequestMethod.PUT)
+	public ResponseEntity<Void> updateCleaningAppointment(@PathVariable String appointmentId,
+			@RequestParam CleaningAppointmentType cleaningAppointmentType, @RequestParam String workingPlatformId,
+			@RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime begin,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		if (!isAppointmentOfType(plannerService, appointmentId, CleaningAppointment.class)) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		return noContent(plannerService.updateCleaningAppointment(appointmentId, cleaningAppointmentType,
+				workingPlatformId, begin));
+	}
+
+	@RequestMapping(value = "/appointments/{appointmentId}", method = RequestMethod.DELETE)
+	public ResponseEntity<Void> removeAppointment(@PathVariable String appointmentId,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		return noContent(plannerService.removeAppointment(appointmentId));
+	}
+
+	/**
+	 * Die nächsten freien Termine für die Arbeiten, auf einer Arbeitsbühne oder
+	 * (ohne workingPlatformId) auf allen Arbeitsbühnen. Ohne carMechanicUsername
+	 * genügt ein beliebiger freier Mechaniker.
+	 */
+	@RequestMapping(value = "/appointments/suggestions", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getNextAvailableWorkingAppointmentDates(
+			@RequestParam Set<String> workIds, @RequestParam(required = false) String workingPlatformId,
+			@RequestParam(required = false) String carMechanicUsername,
+			@RequestParam(defaultValue = "3") int numberOfDates,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime earliestBegin,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime latestEnd,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		if (numberOfDates < 1 || numberOfDates > MAX_PAGE_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"numberOfDates has to be between 1 and " + MAX_PAGE_SIZE + ".");
+		}
+		LocalDateTime begin = earliestBegin != null ? earliestBegin : LocalDateTime.now();
+		LocalDateTime end = latestEnd != null ? latestEnd : LocalDateTime.MAX;
+		if (workingPlatformId != null) {
+			List<LocalDateTime> dates = checkAccepted(
+					plannerService.getNextAvailableWorkingAppointmentDatesOnWorkingPlatform(workIds, workingPlatformId,
+							carMechanicUsername, numberOfDates, begin, end));
+			return streamArray(dates, (json, date) -> json.writeString(date.toString()));
+		}
+		Map<WorkingPlatform, List<LocalDateTime>> datesByWorkingPlatform = checkAccepted(plannerService
+				.getNextAvailableWorkingAppointmentDatesOnAllWorkingPlatforms(workIds, carMechanicUsername,
+						numberOfDates, begin, end));
+		return streamArray(datesByWorkingPlatform.entrySet(), (json, datesOfWorkingPlatform) -> {
+			json.writeStartObject();
+			json.writeStringField("workingPlatformId", datesOfWorkingPlatform.getKey()
+					.getWorkingPlatformId());
+			json.writeArrayFieldStart("dates");
+			for (LocalDateTime date : datesOfWorkingPlatform.getValue()) {
+				json.writeString(date.toString());
+			}
+			json.writeEndArray();
+			json.writeEndObject();
+		});
+	}
+
+	/* ************************************************ */
+	/* * Standorte ************************************ */
+	/* ************************************************ */
+
+	/**
+	 * Alle Standorte mit einem eigenen Planungskalender. Alle Anfragen zu Terminen
+	 * nehmen den Standort als Parameter location, ohne ihn gilt der Standort
+	 * "default".
+	 */
+	@RequestMapping(value = "/locations", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getLocations() {
+		return streamArray(PlannerService.getLocations(), JsonGenerator::writeString);
+	}
+
+	/* ************************************************ */
+	/* * Kunden *************************************** */
 	/* ************************************************ */
-	/* * HIER KÖNNEN SIE IHRE REST-METHODEN SCHREIBEN * */
-	/* * Siehe RestSandbox für Beispiele ************** */
+
+	@RequestMapping(value = "/customers", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getCustomers(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+		checkPageSize(limit);
+		Collection<Customer> customers = customerService
+				.getCustomersOrderedByIdAfter(cursor == null ? null : decodeCursor(cursor));
+		return streamPage(customers.iterator(), limit, PlannerJsonWriter::writeCustomer, Customer::getCustomerId);
+	}
+
+	/**
+	 * Suche während der Eingabe: findet Kunden über den Anfang ihres Namens oder
+	 * ihres Wohnorts (auch leicht falsch geschrieben), ihre Postleitzahl,
+	 * Telefonnummer oder E-Mail-Adresse. Die besten Treffer kommen zuerst.
+	 */
+	@RequestMapping(value = "/customers/search", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> searchCustomers(@RequestParam String query,
+			@RequestParam(defaultValue = "20") int limit) {
+		if (limit < 1 || limit > CustomerService.MAX_NUMBER_OF_SEARCH_RESULTS) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"limit has to be between 1 and " + CustomerService.MAX_NUMBER_OF_SEARCH_RESULTS + ".");
+		}
+		return streamArray(customerService.searchCustomers(query, limit), PlannerJsonWriter::writeCustomer);
+	}
+
+	@RequestMapping(value = "/customers/{customerId}", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getCustomer(@PathVariable String customerId) {
+		return streamObject(customerService.getCustomerById(customerId), PlannerJsonWriter::writeCustomer);
+	}
+
+	@RequestMapping(value = "/customers/{customerId}/vehicles", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getVehiclesOfCustomer(@PathVariable String customerId) {
+		Optional<Customer> optionalCustomer = customerService.getCustomerById(customerId);
+		if (!optionalCustomer.isPresent()) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		return streamArray(optionalCustomer.get()
+				.getVehiclesOfCustomer(), PlannerJsonWriter::writeVehicle);
+	}
+
+	@RequestMapping(value = "/customers", method = RequestMethod.POST)
+	public ResponseEntity<StreamingResponseBody> createCustomer(@RequestParam String firstName,
+			@RequestParam String lastName, @RequestParam String street, @RequestParam int houseNumber,
+			@RequestParam int postalCode, @RequestParam String city, @RequestParam String phoneNumber,
+			@RequestParam String email) {
+		return streamCreated(customerService.createAndAddNewCustomer(firstName, lastName, street, houseNumber,
+				postalCode, city, phoneNumber, email), PlannerJsonWriter::writeCustomer);
+	}
+
+	@RequestMapping(value = "/customers/{customerId}", method = RequestMethod.PUT)
+	public ResponseEntity<Void> updateCustomer(@PathVariable String customerId, @RequestParam String firstName,
+			@RequestParam String lastName, @RequestParam String street, @RequestParam int houseNumber,
+			@RequestParam int postalCode, @RequestParam String city, @RequestParam String phoneNumber,
+			@RequestParam String email) {
+		return noContent(customerService.updateWholeCustomer(customerId, firstName, lastName, street, houseNumber,
+				postalCode, city, phoneNumber, email));
+	}
+
+	@RequestMapping(value = "/customers/{customerId}", method = RequestMethod.DELETE)
+	public ResponseEntity<Void> removeCustomer(@PathVariable String customerId) {
+		return noContent(customerService.removeCustomer(customerId));
+	}
+
+	@RequestMapping(value = "/customers/{customerId}/vehicles/{vehicleLicensePlate}", method = RequestMethod.PUT)
+	public ResponseEntity<Void> addVehicleToCustomer(@PathVariable String customerId,
+			@PathVariable String vehicleLicensePlate) {
+		return noContent(customerService.addVehicleToCustomersVehicles(customerId, vehicleLicensePlate));
+	}
+
+	@RequestMapping(value = "/customers/{customerId}/vehicles/{vehicleLicensePlate}", method = RequestMethod.DELETE)
+	public ResponseEntity<Void> removeVehicleFromCustomer(@PathVariable String customerId,
+			@PathVariable String vehicleLicensePlate) {
+		return noContent(customerService.removeVehicleFromCustomersVehicles(customerId, vehicleLicensePlate));
+	}
+
+	/* ************************************************ */
+	/* * Fahrzeuge ************************************ */
 	/* ************************************************ */
 
+	@RequestMapping(value = "/vehicles", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getVehicles(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+		checkPageSize(limit);
+		Collection<Vehicle> vehicles = vehicleService
+				.getVehiclesOrderedByLicensePlateAfter(cursor == null ? null : decodeCursor(cursor));
+		return streamPage(vehicles.iterator(), limit, PlannerJsonWriter::writeVehicle,
+				Vehicle::getVehicleLicensePlate);
+	}
+
+	@RequestMapping(value = "/vehicles/{vehicleLicensePlate}", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getVehicle(@PathVariable String vehicleLicensePlate) {
+		return streamObject(vehicleService.getVehicleByLicensePlate(vehicleLicensePlate),
+				PlannerJsonWriter::writeVehicle);
+	}
+
+	/**
+	 * Alle abgeschlossenen Arbeitstermine eines Fahrzeugs, inklusive der
+	 * archivierten, sortiert nach Beginn.
+	 */
+	@RequestMapping(value = "/vehicles/{vehicleLicensePlate}/history", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getHistoryOfVehicle(@PathVariable String vehicleLicensePlate) {
+		if (!vehicleService.getVehicleByLicensePlate(vehicleLicensePlate)
+				.isPresent()) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		Iterator<WorkingAppointment> history = vehicleService
+				.getHistoryOfFinishedWorkingAppointments(vehicleLicensePlate)
+				.stream()
+				.sorted(new AppointmentComparator())
+				.iterator();
+		return streamArray(() -> history, PlannerJsonWriter::writeAppointment);
+	}
+
+	@RequestMapping(value = "/vehicles", method = RequestMethod.POST)
+	public ResponseEntity<StreamingResponseBody> createVehicle(@RequestParam String brand,
+			@RequestParam String model, @RequestParam int yearOfConstruction, @RequestParam String licensePlate,
+			@RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime dateOfAdmission) {
+		return streamCreated(
+				vehicleService.createAndAddNewVehicle(brand, model, yearOfConstruction, licensePlate, dateOfAdmission),
+				PlannerJsonWriter::writeVehicle);
+	}
+
+	@RequestMapping(value = "/vehicles/{vehicleLicensePlate}", method = RequestMethod.PUT)
+	public ResponseEntity<Void> updateVehicleLicensePlate(@PathVariable String vehicleLicensePlate,
+			@RequestParam String newLicensePlate) {
+		return noContent(vehicleService.updateVehicleLicensePlate(vehicleLicensePlate, newLicensePlate));
+	}
+
+	@RequestMapping(value = "/vehicles/{vehicleLicensePlate}", method = RequestMethod.DELETE)
+	public ResponseEntity<Void> removeVehicle(@PathVariable String vehicleLicensePlate) {
+		return noContent(vehicleService.removeVehicle(vehicleLicensePlate));
+	}
+
+	/* ************************************************ */
+	/* * Arbeiten ************************************* */
+	/* ************************************************ */
+
+	@RequestMapping(value = "/works", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getWorks(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+		checkPageSize(limit);
+		Collection<Work> works = workService.getWorksOrderedByIdAfter(cursor == null ? null : decodeCursor(cursor));
+		return streamPage(works.iterator(), limit, PlannerJsonWriter::writeWork, Work::getWorkId);
+	}
+
+	@RequestMapping(value = "/works/{workId}", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getWork(@PathVariable String workId) {
+		return streamObject(workService.getWorkById(workId), PlannerJsonWriter::writeWork);
+	}
+
+	@RequestMapping(value = "/works", method = RequestMethod.POST)
+	public ResponseEntity<StreamingResponseBody> createWork(@RequestParam String name, @RequestParam int duration) {
+		return streamCreated(workService.createAndAddNewWork(name, duration), PlannerJsonWriter::writeWork);
+	}
+
+	/**
+	 * Ändert den Namen und/oder die Dauer einer Arbeit.
+	 */
+	@RequestMapping(value = "/works/{workId}", method = RequestMethod.PUT)
+	public ResponseEntity<Void> updateWork(@PathVariable String workId, @RequestParam(required = false) String name,
+			@RequestParam(required = false) Integer duration) {
+		if (!workService.getWorkById(workId)
+				.isPresent()) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		if (name != null) {
+			checkAccepted(workService.updateWorkName(workId, name));
+		}
+		if (duration != null) {
+			checkAccepted(workService.updateWorkDuration(workId, duration));
+		}
+		return ResponseEntity.noContent()
+				.build();
+	}
+
+	@RequestMapping(value = "/works/{workId}", method = RequestMethod.DELETE)
+	public ResponseEntity<Void> removeWork(@PathVariable String workId) {
+		return noContent(workService.removeWork(workId));
+	}
+
+	/* ************************************************ */
+	/* * Arbeitsbühnen ******************************** */
+	/* ************************************************ */
+
+	@RequestMapping(value = "/workingPlatforms", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getWorkingPlatforms(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+		checkPageSize(limit);
+		Collection<WorkingPlatform> workingPlatforms = workingPlatformService
+				.getWorkingPlatformsOrderedByIdAfter(cursor == null ? null : decodeCursor(cursor));
+		return streamPage(workingPlatforms.iterator(), limit, PlannerJsonWriter::writeWorkingPlatform,
+				WorkingPlatform::getWorkingPlatformId);
+	}
+
+	@RequestMapping(value = "/workingPlatforms/{workingPlatformId}", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getWorkingPlatform(@PathVariable String workingPlatformId) {
+		return streamObject(workingPlatformService.getWorkingPlatformById(workingPlatformId),
+				PlannerJsonWriter::writeWorkingPlatform);
+	}
+
+	@RequestMapping(value = "/workingPlatforms", method = RequestMethod.POST)
+	public ResponseEntity<StreamingResponseBody> createWorkingPlatform(@RequestParam String name,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		return streamCreated(workingPlatformService.createAndAddNewWorkingPlatform(name, location),
+				PlannerJsonWriter::writeWorkingPlatform);
+	}
+
+	@RequestMapping(value = "/workingPlatforms/{workingPlatformId}", method = RequestMethod.PUT)
+	public ResponseEntity<Void> updateWorkingPlatform(@PathVariable String workingPlatformId,
+			@RequestParam String name) {
+		return noContent(workingPlatformService.updateWorkingPlatformName(workingPlatformId, name));
+	}
+
+	@RequestMapping(value = "/workingPlatforms/{workingPlatformId}", method = RequestMethod.DELETE)
+	public ResponseEntity<Void> removeWorkingPlatform(@PathVariable String workingPlatformId) {
+		return noContent(workingPlatformService.removeWorkingPlatform(workingPlatformId));
+	}
+
+	/* ************************************************ */
+	/* * Benutzer ************************************* */
+	/* ************************************************ */
+
+	@RequestMapping(value = "/users", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getUsers(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+		checkPageSize(limit);
+		Collection<User> users = userService
+				.getUsersOrderedByUsernameAfter(cursor == null ? null : decodeCursor(cursor));
+		return streamPage(users.iterator(), limit, PlannerJsonWriter::writeUser, User::getUsername);
+	}
+
+	@RequestMapping(value = "/users/{username}", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getUser(@PathVariable String username) {
+		return streamObject(userService.getUserByUsername(username), PlannerJsonWriter::writeUser);
+	}
+
+	/**
+	 * Alle offenen Arbeitstermine eines Mechanikers am heutigen Tag.
+	 */
+	@RequestMapping(value = "/users/{username}/appointments/today", method = RequestMethod.GET)
+	public ResponseEntity<StreamingResponseBody> getOpenWorkingAppointmentsOfToday(@PathVariable String username,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		PlannerService plannerService = getPlannerService(location);
+		if (!userService.getUserByUsername(username)
+				.isPresent()) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		return streamArray(plannerService.getAllOpenWorkingAppointmentsOfTodayFor(username),
+				PlannerJsonWriter::writeAppointment);
+	}
+
+	@RequestMapping(value = "/users", method = RequestMethod.POST)
+	public ResponseEntity<StreamingResponseBody> createUser(@RequestParam UserRole role,
+			@RequestParam String username, @RequestParam String firstName, @RequestParam String lastName,
+			@RequestParam(defaultValue = PlannerService.DEFAULT_LOCATION) String location) {
+		Outcome<User> outcome;
+		switch (role) {
+		case DISPATCHER:
+			outcome = userService.createAndAddNewDispatcherUser(username, firstName, lastName, location);
+			break;
+		case CLIENT_ADVISOR:
+			outcome = userService.createAndAddNewClientadvisorUser(username, firstName, lastName, location);
+			break;
+		default:
+			outcome = userService.createAndAddNewCarMechanicUser(username, firstName, lastName, location);
+			break;
+		}
+		return streamCreated(outcome, PlannerJsonWriter::writeUser);
+	}
+
+	/**
+	 * Ändert den Namen und/oder den Benutzernamen eines Benutzers.
+	 */
+	@RequestMapping(value = "/users/{username}", method = RequestMethod.PUT)
+	public ResponseEntity<Void> updateUser(@PathVariable String username,
+			@RequestParam(required = false) String firstName, @RequestParam(required = false) String lastName,
+			@RequestParam(required = false) String newUsername) {
+		Optional<User> optionalUser = userService.getUserByUsername(username);
+		if (!optionalUser.isPresent()) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		if (firstName != null || lastName != null) {
+			checkAccepted(userService.updateNameOfUser(username, firstName != null ? firstName
+					: optionalUser.get()
+							.getUserFirstName(),
+					lastName != null ? lastName
+							: optionalUser.get()
+									.getUserLastName()));
+		}
+		if (newUsername != null) {
+			checkAccepted(userService.updateUserNameOfUser(username, newUsername));
+		}
+		return ResponseEntity.noContent()
+				.build();
+	}
+
+	@RequestMapping(value = "/users/{username}", method = RequestMethod.DELETE)
+	public ResponseEntity<Void> removeUser(@PathVariable String username) {
+		return noContent(userService.removeUser(username));
+	}
+
+	/* ************************************************ */
+	/* * Hilfsmethoden ******************************** */
+	/* ************************************************ */
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+		return ResponseEntity.badRequest()
+				.body(e.getMessage());
+	}
+
+	private static boolean isAppointmentOfType(PlannerService plannerService, String appointmentId,
+			Class<? extends Appointment> typeOfAppointment) {
+		return plannerService.getAppointmentById(appointmentId)
+				.filter(typeOfAppointment::isInstance)
+				.isPresent();
+	}
+
+	/**
+	 * @return - the planner of the location
+	 * @throws ResponseStatusException - 404, if there is no planner for the
+	 *                                  location, so a typo never creates a new
+	 *                                  empty calendar
+	 */
+	private static PlannerService getPlannerService(String location) {
+		if (!location.equals(PlannerService.DEFAULT_LOCATION) && !PlannerService.getLocations()
+				.contains(location)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The location " + location + " does not exist.");
+		}
+		return PlannerService.getInstance(location);
+	}
+
+	private static void checkPageSize(int limit) {
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"limit has to be between 1 and " + MAX_PAGE_SIZE + ".");
+		}
+	}
+
+	private static String encodeCursor(String positionOfLastElement) {
+		return Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString(positionOfLastElement.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String decodeCursor(String cursor) {
+		try {
+			return new String(Base64.getUrlDecoder()
+					.decode(cursor), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + cursor + ".");
+		}
+	}
+
+	/**
+	 * @return - the result of the accepted outcome
+	 * @throws ResponseStatusException - with the status belonging to the kind of
+	 *                                  rejection and its message
+	 */
+	private static <T> T checkAccepted(Outcome<T> outcome) {
+		switch (outcome.getKind()) {
+		case NOT_FOUND:
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, outcome.getMessage());
+		case CONFLICT:
+			throw new ResponseStatusException(HttpStatus.CONFLICT, outcome.getMessage());
+		case INVALID:
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, outcome.getMessage());
+		default:
+			return outcome.getResult()
+					.get();
+		}
+	}
+
+	private static ResponseEntity<Void> noContent(Outcome<?> outcome) {
+		checkAccepted(outcome);
+		return ResponseEntity.noContent()
+				.build();
+	}
+
+	private static <T> ResponseEntity<StreamingResponseBody> streamCreated(Outcome<T> outcome,
+			ElementWriter<T> elementWriter) {
+		T createdElement = checkAccepted(outcome);
+		return streamJson(HttpStatus.CREATED, json -> elementWriter.write(json, createdElement));
+	}
+
+	private static <T> ResponseEntity<StreamingResponseBody> streamObject(Optional<T> optionalElement,
+			ElementWriter<T> elementWriter) {
+		if (!optionalElement.isPresent()) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		return streamJson(json -> elementWriter.write(json, optionalElement.get()));
+	}
+
+	private static <T> ResponseEntity<StreamingResponseBody> streamArray(Iterable<T> elements,
+			ElementWriter<T> elementWriter) {
+		return streamJson(json -> {
+			json.writeStartArray();
+			for (T element : elements) {
+				elementWriter.write(json, element);
+			}
+			json.writeEndArray();
+		});
+	}
+
+	/**
+	 * Writes at most limit elements as {"items": [...], "nextCursor": ...}. The
+	 * cursor points behind the last written element, or is null if there are no
+	 * more elements.
+	 */
+	private static <T> ResponseEntity<StreamingResponseBody> streamPage(Iterator<T> elements, int limit,
+			ElementWriter<T> elementWriter, Function<T, String> positionOfElement) {
+		return streamJson(json -> {
+			json.writeStartObject();
+			json.writeArrayFieldStart("items");
+			T lastElement = null;
+			for (int numberOfElements = 0; numberOfElements < limit && elements.hasNext(); numberOfElements++) {
+				lastElement = elements.next();
+				elementWriter.write(json, lastElement);
+			}
+			json.writeEndArray();
+			if (lastElement != null && elements.hasNext()) {
+				json.writeStringField("nextCursor", encodeCursor(positionOfElement.apply(lastElement)));
+			} else {
+				json.writeNullField("nextCursor");
+			}
+			json.writeEndObject();
+		});
+	}
+
+	private interface JsonContent {
+		void writeTo(JsonGenerator json) throws IOException;
+	}
+
+	private static ResponseEntity<StreamingResponseBody> streamJson(JsonContent jsonContent) {
+		return streamJson(HttpStatus.OK, jsonContent);
+	}
+
+	private static ResponseEntity<StreamingResponseBody> streamJson(HttpStatus status, JsonContent jsonContent) {
+		StreamingResponseBody body = outputStream -> {
+			try (JsonGenerator json = JSON_FACTORY.createGenerator(outputStream)) {
+				jsonContent.writeTo(json);
+			}
+		};
+		return ResponseEntity.status(status)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(body);
+	}
 }
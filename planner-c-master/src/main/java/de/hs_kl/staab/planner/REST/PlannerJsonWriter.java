@@ -0,0 +1,227 @@
+package de.hs_kl.staab.planner.REST;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.CarMechanicUser;
+import de.hs_kl.staab.planner.CleaningAppointment;
+import de.hs_kl.staab.planner.ClientAdvisorUser;
+import de.hs_kl.staab.planner.ConsultingAppointment;
+import de.hs_kl.staab.planner.Customer;
+import de.hs_kl.staab.planner.DispatcherUser;
+import de.hs_kl.staab.planner.User;
+import de.hs_kl.staab.planner.Vehicle;
+import de.hs_kl.staab.planner.Work;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.services.UtilizationReport;
+import de.hs_kl.staab.planner.services.UtilizationReport.ResourceUtilization;
+
+/**
+ * Writes the objects of the planner as JSON objects directly to a
+ * {@link JsonGenerator}, so a response never has to be built up in memory.
+ * Referenced objects are only written by their ID, so every object has a fixed
+ * size and there are no cycles (e.g. customer and vehicle).
+ */
+final class PlannerJsonWriter {
+
+	@FunctionalInterface
+	interface ElementWriter<T> {
+		void write(JsonGenerator json, T element) throws IOException;
+	}
+
+	private PlannerJsonWriter() {
+	}
+
+	static void writeAppointment(JsonGenerator json, Appointment appointment) throws IOException {
+		json.writeStartObject();
+		json.writeStringField("appointmentId", appointment.getAppointmentId());
+		json.writeStringField("begin", appointment.getAppointmentBeginDateAndTime()
+				.toString());
+		json.writeStringField("end", appointment.getAppointmentEndDateAndTime()
+				.toString());
+		if (appointment instanceof WorkingAppointment) {
+			WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+			json.writeStringField("type", "WORKING");
+			json.writeStringField("status", workingAppointment.getStatus()
+					.name());
+			json.writeStringField("workingPlatformId", workingAppointment.getWorkingPlatformRelatedToWorkingAppointment()
+					.getWorkingPlatformId());
+			json.writeStringField("customerId", workingAppointment.getCustomerRelatedToWorkingAppointment()
+					.getCustomerId());
+			json.writeStringField("vehicleLicensePlate", workingAppointment.getVehicleToWorkOn()
+					.getVehicleLicensePlate());
+			json.writeArrayFieldStart("workIds");
+			for (Work work : workingAppointment.getWorksToPerform()) {
+				json.writeString(work.getWorkId());
+			}
+			json.writeEndArray();
+			json.writeStringField("carMechanicUsername", workingAppointment.getResponsibleCarMechanicUser()
+					.getUsername());
+		} else if (appointment instanceof ConsultingAppointment) {
+			ConsultingAppointment consultingAppointment = (ConsultingAppointment) appointment;
+			json.writeStringField("type", "CONSULTING");
+			json.writeStringField("customerId", consultingAppointment.getCustomerRelatedToConsultingAppointment()
+					.getCustomerId());
+			json.writeNumberField("duration", consultingAppointment.getConsultingAppointmentDuration());
+			json.writeStringField("clientAdvisorUsername", consultingAppointment.getResponsibleClientAdvisorUser()
+					.getUsername());
+		} else if (appointment instanceof CleaningAppointment) {
+			CleaningAppointment cleaningAppointment = (CleaningAppointment) appointment;
+			json.writeStringField("type", "CLEANING");
+			json.writeStringField("cleaningAppointmentType", cleaningAppointment.getCleaningAppointmentType()
+					.toUpperCase());
+			json.writeStringField("workingPlatformId",
+					cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment()
+							.getWorkingPlatformId());
+			json.writeStringField("dispatcherUsername", cleaningAppointment.getResponsibleDispatcherUser()
+					.getUsername());
+		}
+		json.writeEndObject();
+	}
+
+	static void writeCustomer(JsonGenerator json, Customer customer) throws IOException {
+		json.writeStartObject();
+		json.writeStringField("customerId", customer.getCustomerId());
+		json.writeStringField("firstName", customer.getCustomerFirstName());
+		json.writeStringField("lastName", customer.getCustomerLastName());
+		json.writeStringField("street", customer.getStreet());
+		json.writeNumberField("houseNumber", customer.getHouseNumber());
+		json.writeNumberField("postalCode", customer.getPostalCode());
+		json.writeStringField("city", customer.getCity());
+		json.writeStringField("phoneNumber", customer.getPhoneNumber());
+		json.writeStringField("email", customer.getEmail());
+		json.writeArrayFieldStart("vehicleLicensePlates");
+		for (Vehicle vehicle : customer.getVehiclesOfCustomer()) {
+			json.writeString(vehicle.getVehicleLicensePlate());
+		}
+		json.writeEndArray();
+		json.writeEndObject();
+	}
+
+	static void writeVehicle(JsonGenerator json, Vehicle vehicle) throws IOException {
+		json.writeStartObject();
+		json.writeStringField("licensePlate", vehicle.getVehicleLicensePlate());
+		json.writeStringField("brand", vehicle.getVehicleBrand());
+		json.writeStringField("model", vehicle.getVehicleModel());
+		json.writeNumberField("yearOfConstruction", vehicle.getVehicleYearOfConstruction());
+		json.writeStringField("dateOfAdmission", vehicle.getDateOfAdmission()
+				.toString());
+		json.writeEndObject();
+	}
+
+	static void writeWork(JsonGenerator json, Work work) throws IOException {
+		json.writeStartObject();
+		json.writeStringField("workId", work.getWorkId());
+		json.writeStringField("name", work.getWorkName());
+		json.writeNumberField("duration", work.getWorkDuration());
+		json.writeEndObject();
+	}
+
+	static void writeWorkingPlatform(JsonGenerator json, WorkingPlatform workingPlatform) throws IOException {
+		json.writeStartObject();
+		json.writeStringField("workingPlatformId", workingPlatform.getWorkingPlatformId());
+		json.writeStringField("name", workingPlatform.getWorkingPlatformName());
+		json.writeStringField("location", workingPlatform.getLocation());
+		json.writeEndObject();
+	}
+
+	static void writeUser(JsonGenerator json, User user) throws IOException {
+		json.writeStartObject();
+		json.writeStringField("username", user.getUsername());
+		json.writeStringField("firstName", user.getUserFirstName());
+		json.writeStringField("lastName", user.getUserLastName());
+		if (user instanceof CarMechanicUser) {
+			json.writeStringField("role", PlannerController.UserRole.CAR_MECHANIC.name());
+		} else if (user instanceof DispatcherUser) {
+			json.writeStringField("role", PlannerController.UserRole.DISPATCHER.name());
+		} else if (user instanceof ClientAdvisorUser) {
+			json.writeStringField("role", PlannerController.UserRole.CLIENT_ADVISOR.name());
+		}
+		json.writeStringField("location", user.getLocation());
+		json.writeEndObject();
+	}
+
+	/**
+	 * Writes the values of the buckets as arrays next to each other instead of one
+	 * object per bucket, so a report of hours stays small.
+	 */
+	static void writeUtilizationReport(JsonGenerator json, UtilizationReport report) throws IOException {
+		json.writeStartObject();
+		json.writeStringField("from", report.getFirstDay()
+				.toString());
+		json.writeStringField("to", report.getLastDay()
+				.toString());
+		json.writeStringField("bucket", report.getBucket()
+				.name());
+		json.writeStringField("openingTime", report.getOpeningTime()
+				.toString());
+		if (report.getClosingTime() != null) {
+			json.writeStringField("closingTime", report.getClosingTime()
+					.toString());
+		} else {
+			json.writeNullField("closingTime");
+		}
+		json.writeArrayFieldStart("bucketBegins");
+		for (int i = 0; i < report.getNumberOfBuckets(); i++) {
+			json.writeString(report.getBeginOfBucket(i)
+					.toString());
+		}
+		json.writeEndArray();
+		json.writeArrayFieldStart("availableMinutes");
+		for (int i = 0; i < report.getNumberOfBuckets(); i++) {
+			json.writeNumber(report.getAvailableMinutes(i));
+		}
+		json.writeEndArray();
+		json.writeNumberField("totalAvailableMinutes", report.getTotalAvailableMinutes());
+		json.writeArrayFieldStart("longestIdleGapOfClass");
+		for (int i = 0; i < UtilizationReport.getNumberOfIdleGapClasses() - 1; i++) {
+			json.writeNumber(UtilizationReport.getLongestIdleGapOfClass(i));
+		}
+		json.writeNull();
+		json.writeEndArray();
+		json.writeArrayFieldStart("workingPlatforms");
+		for (ResourceUtilization workingPlatform : report.getWorkingPlatforms()) {
+			writeResourceUtilization(json, "workingPlatformId", workingPlatform, report.getNumberOfBuckets());
+		}
+		json.writeEndArray();
+		json.writeArrayFieldStart("carMechanics");
+		for (ResourceUtilization carMechanicUser : report.getCarMechanicUsers()) {
+			writeResourceUtilization(json, "carMechanicUsername", carMechanicUser, report.getNumberOfBuckets());
+		}
+		json.writeEndArray();
+		json.writeEndObject();
+	}
+
+	private static void writeResourceUtilization(JsonGenerator json, String nameOfId,
+			ResourceUtilization resourceUtilization, int numberOfBuckets) throws IOException {
+		json.writeStartObject();
+		json.writeStringField(nameOfId, resourceUtilization.getResourceId());
+		json.writeArrayFieldStart("bookedMinutes");
+		for (int i = 0; i < numberOfBuckets; i++) {
+			json.writeNumber(resourceUtilization.getBookedMinutes(i));
+		}
+		json.writeEndArray();
+		json.writeArrayFieldStart("freeMinutes");
+		for (int i = 0; i < numberOfBuckets; i++) {
+			json.writeNumber(resourceUtilization.getFreeMinutes(i));
+		}
+		json.writeEndArray();
+		json.writeArrayFieldStart("utilization");
+		for (int i = 0; i < numberOfBuckets; i++) {
+			json.writeNumber(resourceUtilization.getUtilization(i));
+		}
+		json.writeEndArray();
+		json.writeNumberField("totalBookedMinutes", resourceUtilization.getTotalBookedMinutes());
+		json.writeNumberField("totalFreeMinutes", resourceUtilization.getTotalFreeMinutes());
+		json.writeNumberField("totalUtilization", resourceUtilization.getTotalUtilization());
+		json.writeArrayFieldStart("idleGaps");
+		for (int i = 0; i < UtilizationReport.getNumberOfIdleGapClasses(); i++) {
+			json.writeNumber(resourceUtilization.getNumberOfIdleGaps(i));
+		}
+		json.writeEndArray();
+		json.writeEndObject();
+	}
+}
@@ -5,11 +5,14 @@ public class User {
 	protected String userName;
 	protected String userFirstName;
 	protected String userLastName;
+	// the location whose planner may book the user, users never change it
+	protected final String location;
 
-	protected User(String userName, String userFirstName, String userLastName) {
+	protected User(String userName, String userFirstName, String userLastName, String location) {
 		this.userName = userName;
 		this.userFirstName = userFirstName;
 		this.userLastName = userLastName;
+		this.location = location;
 	}
 
 	public String toString() {
@@ -39,4 +42,8 @@ public class User {
 	public void setUserLastName(String userLastName) {
 		this.userLastName = userLastName;
 	}
+
+	public String getLocation() {
+		return location;
+	}
 }
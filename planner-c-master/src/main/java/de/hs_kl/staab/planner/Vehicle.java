@@ -1,8 +1,9 @@
 package de.hs_kl.staab.planner;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Vehicle {
 
@@ -12,7 +13,7 @@ public class Vehicle {
 	private final LocalDateTime dateOfAdmission;
 
 	private String vehicleLicensePlate;
-	private Set<WorkingAppointment> historyOfWorks = new HashSet<>();
+	private Set<WorkingAppointment> historyOfWorks = ConcurrentHashMap.newKeySet();
 
 	public Vehicle(String vehicleBrand, String vehicleModel, int vehicleYearOfConstruction, String vehicleLicensePlate,
 			LocalDateTime dateOfAdmission) {
@@ -54,10 +55,19 @@ public class Vehicle {
 		return dateOfAdmission;
 	}
 
+	/**
+	 * @return - read-only view of the finished working appointments on this
+	 *         vehicle, which are still in a planning calendar (archived ones are
+	 *         not included)
+	 */
 	public Set<WorkingAppointment> getHistoryOfWorkingsAppointments() {
-		return historyOfWorks;
+		return Collections.unmodifiableSet(historyOfWorks);
 	}
 
+	/**
+	 * Only called by the planning calendar, which keeps the history up to date
+	 * when a working appointment is added, removed or finished.
+	 */
 	public void addWorkToVehiclesHistoryOfWorkingAppointments(WorkingAppointment workingAppointmentToAdd) {
 		this.historyOfWorks.add(workingAppointmentToAdd);
 	}
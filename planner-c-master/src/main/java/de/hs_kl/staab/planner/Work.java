@@ -1,9 +1,11 @@
 package de.hs_kl.staab.planner;
 
+import de.hs_kl.staab.planner.id.EntityIds;
+import de.hs_kl.staab.planner.id.IdGenerators;
+
 public class Work {
 
-	private static int WORK_ID_COUNTER = 1;
-	private static final String WORK_ID_PREFIX = "W-";
+	private static final EntityIds WORK_IDS = new EntityIds("W-", IdGenerators.newIdGenerator());
 
 	private final String workId;
 
@@ -11,7 +13,16 @@ public class Work {
 	private int workDurationMinutes;
 
 	public Work(String workName, int workDurationMinutes) {
-		this.workId = WORK_ID_PREFIX + WORK_ID_COUNTER++;
+		this(WORK_IDS.nextId(), workName, workDurationMinutes);
+	}
+
+	/**
+	 * Restores a work with an already existing ID (e.g. from the journal). No new
+	 * work will get the same ID afterwards.
+	 */
+	public Work(String workId, String workName, int workDurationMinutes) {
+		WORK_IDS.reserve(workId);
+		this.workId = workId;
 		this.workName = workName;
 		this.workDurationMinutes = workDurationMinutes;
 
@@ -11,25 +11,36 @@ public class WorkingAppointment extends Appointment {
 	private Vehicle vehicleToWorkOn;
 	private Set<Work> worksToPerform = new HashSet<>();
 	private CarMechanicUser responsibleCarMechanicUser;
-	private String status = "OPEN";
+	private WorkingAppointmentStatus status = WorkingAppointmentStatus.OPEN;
 	private int durationOfAllWorks;
 
 	public WorkingAppointment(Set<Work> worksToPerform, Customer customerRelatedToWorkingAppointment,
 			Vehicle vehicleToWorkOn, WorkingPlatform workingPlatformRelatedToWorkingAppointment,
 			LocalDateTime appointmentBeginDateAndTime, CarMechanicUser responsibleCarMechanicUser) {
-		super(appointmentBeginDateAndTime);
-		this.workingPlatformRelatedToWorkingAppointment = workingPlatformRelatedToWorkingAppointment;
-		this.customerRelatedToWorkingAppointment = customerRelatedToWorkingAppointment;
-		this.setWorksToPerform(worksToPerform);
-		if (this.customerRelatedToWorkingAppointment.getVehiclesOfCustomer()
-				.contains(vehicleToWorkOn)) {
-			this.vehicleToWorkOn = vehicleToWorkOn;
-			this.responsibleCarMechanicUser = responsibleCarMechanicUser;
-		} else {
+		this(generateAppointmentId(), worksToPerform, customerRelatedToWorkingAppointment, vehicleToWorkOn,
+				workingPlatformRelatedToWorkingAppointment, appointmentBeginDateAndTime, responsibleCarMechanicUser);
+		if (!customerRelatedToWorkingAppointment.getVehiclesOfCustomer().contains(vehicleToWorkOn)) {
 			throw new IllegalArgumentException(
 					"ERROR: The vehicle is not in the set of cars of the customer! Please add the car to the set first using the addCarToCarSet(Vehicle carToAddToSet) method of the customer.");
 		}
+	}
 
+	/**
+	 * Restores a working appointment with an already existing ID (e.g. from the
+	 * journal or the archive). The vehicle is not checked against the cars of the
+	 * customer, because it may have been removed from the customer after the
+	 * appointment was made.
+	 */
+	public WorkingAppointment(String appointmentId, Set<Work> worksToPerform,
+			Customer customerRelatedToWorkingAppointment, Vehicle vehicleToWorkOn,
+			WorkingPlatform workingPlatformRelatedToWorkingAppointment, LocalDateTime appointmentBeginDateAndTime,
+			CarMechanicUser responsibleCarMechanicUser) {
+		super(appointmentId, appointmentBeginDateAndTime);
+		this.workingPlatformRelatedToWorkingAppointment = workingPlatformRelatedToWorkingAppointment;
+		this.customerRelatedToWorkingAppointment = customerRelatedToWorkingAppointment;
+		this.setWorksToPerform(worksToPerform);
+		this.vehicleToWorkOn = vehicleToWorkOn;
+		this.responsibleCarMechanicUser = responsibleCarMechanicUser;
 	}
 
 	@Override
@@ -77,8 +88,9 @@ public class WorkingAppointment extends Appointment {
 	}
 
 	private void setEndDateAndTime() {
+		durationOfAllWorks = 0;
 		worksToPerform.forEach(work -> durationOfAllWorks += (work.getWorkDuration()));
-		this.appointmentEndDateAndTime = appointmentBeginDateAndTime.plusMinutes(durationOfAllWorks);
+		this.appointmentEndEpochMinute = appointmentBeginEpochMinute + durationOfAllWorks;
 	}
 
 	public CarMechanicUser getResponsibleCarMechanicUser() {
@@ -89,26 +101,21 @@ public class WorkingAppointment extends Appointment {
 		this.responsibleCarMechanicUser = responsibleCarMechanicUser;
 	}
 
-	public String getStatus() {
+	public WorkingAppointmentStatus getStatus() {
 		return status;
 	}
 
+	/**
+	 * The status of an appointment stored in a planning calendar is indexed, so it
+	 * has to be changed with
+	 * {@link de.hs_kl.staab.planner.data.PlanningCalendarData#changeStatusOfWorkingAppointment(WorkingAppointment, WorkingAppointmentStatus)}.
+	 */
 	public void setStatus(WorkingAppointmentStatus newWorkingAppointmentStatus) {
-		switch (newWorkingAppointmentStatus) {
-		case OPEN:
-			this.status = "OPEN";
-			break;
-		case CANCELLED:
-			this.status = "CANCELLED";
-			break;
-		case FINISHED:
-			this.status = "FINISHED";
-			break;
-		default:
+		if (newWorkingAppointmentStatus == null) {
 			throw new IllegalArgumentException(
 					"ERROR: Unspecified WorkingAppointment status! Use OPEN, FINISHED or CANCELLED instead.");
-
 		}
+		this.status = newWorkingAppointmentStatus;
 	}
 
 }
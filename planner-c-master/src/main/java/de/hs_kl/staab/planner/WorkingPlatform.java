@@ -1,17 +1,32 @@
 package de.hs_kl.staab.planner;
 
+import de.hs_kl.staab.planner.id.EntityIds;
+import de.hs_kl.staab.planner.id.IdGenerators;
+
 public class WorkingPlatform {
 
-	private static int WORKING_PLATFORM_ID_COUNTER = 1;
-	private static final String WORKING_PLATFORM_PREFIX = "WP-";
+	private static final EntityIds WORKING_PLATFORM_IDS = new EntityIds("WP-", IdGenerators.newIdGenerator());
 
 	private final String workingPlatformId;
 
 	private String workingPlatformName;
 
-	public WorkingPlatform(String workingPlatformName) {
-		this.workingPlatformId = WORKING_PLATFORM_PREFIX + WORKING_PLATFORM_ID_COUNTER++;
+	// the location whose planner may book the working platform
+	private final String location;
+
+	public WorkingPlatform(String workingPlatformName, String location) {
+		this(WORKING_PLATFORM_IDS.nextId(), workingPlatformName, location);
+	}
+
+	/**
+	 * Restores a working platform with an already existing ID (e.g. from the
+	 * journal). No new working platform will get the same ID afterwards.
+	 */
+	public WorkingPlatform(String workingPlatformId, String workingPlatformName, String location) {
+		WORKING_PLATFORM_IDS.reserve(workingPlatformId);
+		this.workingPlatformId = workingPlatformId;
 		this.workingPlatformName = workingPlatformName;
+		this.location = location;
 	}
 
 	@Override
@@ -30,4 +45,8 @@ public class WorkingPlatform {
 	public void setWorkingPlatformName(String newWorkingPlatformName) {
 		this.workingPlatformName = newWorkingPlatformName;
 	}
+
+	public String getLocation() {
+		return location;
+	}
 }
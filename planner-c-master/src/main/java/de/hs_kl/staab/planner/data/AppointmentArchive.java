@@ -0,0 +1,541 @@
+package de.hs_kl.staab.planner.data;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.CarMechanicUser;
+import de.hs_kl.staab.planner.Customer;
+import de.hs_kl.staab.planner.EpochMinutes;
+import de.hs_kl.staab.planner.Vehicle;
+import de.hs_kl.staab.planner.Work;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+import de.hs_kl.staab.planner.WorkingPlatform;
+
+/**
+ * Column store for finished and cancelled working appointments that are no
+ * longer needed in the planning calendar.
+ *
+ * The rows are kept outside of the heap in a memory mapped file, which is
+ * split into blocks of {@link #ROWS_PER_BLOCK} rows. Inside a block every
+ * column is stored contiguously: begin and end in epoch minutes, one
+ * code per referenced working platform, car mechanic, customer, vehicle and
+ * set of works, the 64-bit number of the appointment ID and a status byte. The codes
+ * are positions in small dictionaries on the heap, so every entity is only
+ * referenced once, no matter how many archived appointments use it.
+ *
+ * The dictionaries only exist on the heap, so the file can't be read again
+ * after a restart and is overwritten when the archive is opened. The
+ * {@link de.hs_kl.staab.planner.services.PersistenceService} journals every
+ * archived appointment and writes them to its snapshots, the recovery archives
+ * them again.
+ *
+ * Two small indexes on the heap lead to the rows of a vehicle and to the rows
+ * beginning on a day, so these queries don't have to scan all rows.
+ *
+ * Reading is possible from any thread without locking, rows are published
+ * after all of their columns have been written. Archived appointments are
+ * returned as new objects on every query, so changing them has no effect on
+ * the archive.
+ */
+public class AppointmentArchive implements AutoCloseable {
+
+	private static final int ROWS_PER_BLOCK = 1 << 16;
+	private static final int ROW_IN_BLOCK_MASK = ROWS_PER_BLOCK - 1;
+
+	private static final int BEGIN_COLUMN = 0;
+	private static final int END_COLUMN = 1;
+	private static final int WORKING_PLATFORM_COLUMN = 2;
+	private static final int CAR_MECHANIC_COLUMN = 3;
+	private static final int CUSTOMER_COLUMN = 4;
+	private static final int VEHICLE_COLUMN = 5;
+	private static final int WORKS_COLUMN = 6;
+	private static final int NUMBER_OF_INT_COLUMNS = 7;
+
+	private static final int APPOINTMENT_ID_COLUMN_OFFSET = NUMBER_OF_INT_COLUMNS * ROWS_PER_BLOCK * Integer.BYTES;
+	private static final int STATUS_COLUMN_OFFSET = APPOINTMENT_ID_COLUMN_OFFSET + ROWS_PER_BLOCK * Long.BYTES;
+	private static final int BLOCK_SIZE = STATUS_COLUMN_OFFSET + ROWS_PER_BLOCK;
+
+	private static final byte FINISHED_STATUS = 1;
+	private static final byte CANCELLED_STATUS = 2;
+
+	private final FileChannel archiveChannel;
+	private final List<MappedByteBuffer> blocks = new CopyOnWriteArrayList<>();
+	private volatile int numberOfRows = 0;
+
+	private final Dictionary<WorkingPlatform> workingPlatforms = new Dictionary<>();
+	private final Dictionary<CarMechanicUser> carMechanicUsers = new Dictionary<>();
+	private final Dictionary<Customer> customers = new Dictionary<>();
+	private final Dictionary<Vehicle> vehicles = new Dictionary<>();
+	// a set of works is stored as list sorted by ID, so equal sets get the same code
+	private final Dictionary<List<Work>> setsOfWorks = new Dictionary<>();
+
+	// the rows of every vehicle, at the position of the code of the vehicle
+	private final List<Rows> rowsOfVehicles = new CopyOnWriteArrayList<>();
+	// the rows beginning on a day, by the epoch day
+	private final ConcurrentNavigableMap<Long, Rows> rowsOfDays = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Creates an empty archive in the given file. An existing file is
+	 * overwritten.
+	 */
+	public AppointmentArchive(Path archiveFile) throws IOException {
+		this.archiveChannel = FileChannel.open(archiveFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Only finished and cancelled working appointments with a generated ID that
+	 * begin and end in the range of the int columns (about 4000 years around 1970)
+	 * can be archived.
+	 */
+	public static boolean isArchivable(WorkingAppointment workingAppointment) {
+		return getStatusCode(workingAppointment) != 0 && workingAppointment.getAppointmentIdNumber() > 0
+				&& fitsIntoIntColumn(workingAppointment.getAppointmentBeginEpochMinute())
+				&& fitsIntoIntColumn(workingAppointment.getAppointmentEndEpochMinute());
+	}
+
+	public int size() {
+		return numberOfRows;
+	}
+
+	/**
+	 * Only the rows beginning on the same day as the given appointment are read.
+	 * 
+	 * @return - true if an appointment with the ID of the given one is archived
+	 */
+	public boolean isArchived(WorkingAppointment workingAppointment) {
+		Rows rowsOfDay = rowsOfDays.get(
+				Math.floorDiv(workingAppointment.getAppointmentBeginEpochMinute(), EpochMinutes.MINUTES_PER_DAY));
+		if (rowsOfDay == null) {
+			return false;
+		}
+		int numberOfRowsOfDay = rowsOfDay.size();
+		int[] rows = rowsOfDay.get();
+		for (int i = 0; i < numberOfRowsOfDay; i++) {
+			if (getAppointmentIdNumber(rows[i]) == workingAppointment.getAppointmentIdNumber()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the working appointment as new row. The caller has to make sure that
+	 * the appointment is not archived twice.
+	 */
+	public synchronized void archiveWorkingAppointment(WorkingAppointment workingAppointment) throws IOException {
+		if (!isArchivable(workingAppointment)) {
+			throw new IllegalArgumentException(
+					"ERROR: The appointment " + workingAppointment.getAppointmentId() + " can't be archived.");
+		}
+		int row = numberOfRows;
+		int rowInBlock = row & ROW_IN_BLOCK_MASK;
+		if (rowInBlock == 0) {
+			blocks.add(archiveChannel.map(MapMode.READ_WRITE, (long) blocks.size() * BLOCK_SIZE, BLOCK_SIZE));
+		}
+		MappedByteBuffer block = blocks.get(row / ROWS_PER_BLOCK);
+		putInt(block, BEGIN_COLUMN, rowInBlock, (int) workingAppointment.getAppointmentBeginEpochMinute());
+		putInt(block, END_COLUMN, rowInBlock, (int) workingAppointment.getAppointmentEndEpochMinute());
+		putInt(block, WORKING_PLATFORM_COLUMN, rowInBlock,
+				workingPlatforms.encode(workingAppointment.getWorkingPlatformRelatedToWorkingAppointment()));
+		putInt(block, CAR_MECHANIC_COLUMN, rowInBlock,
+				carMechanicUsers.encode(workingAppointment.getResponsibleCarMechanicUser()));
+		putInt(block, CUSTOMER_COLUMN, rowInBlock,
+				customers.encode(workingAppointment.getCustomerRelatedToWorkingAppointment()));
+		int vehicleCode = vehicles.encode(workingAppointment.getVehicleToWorkOn());
+		putInt(block, VEHICLE_COLUMN, rowInBlock, vehicleCode);
+		putInt(block, WORKS_COLUMN, rowInBlock, setsOfWorks.encode(workingAppointment.getWorksToPerform()
+				.stream()
+				.sorted(Comparator.comparing(Work::getWorkId))
+				.collect(Collectors.toList())));
+		block.putLong(APPOINTMENT_ID_COLUMN_OFFSET + rowInBlock * Long.BYTES,
+				workingAppointment.getAppointmentIdNumber());
+		block.put(STATUS_COLUMN_OFFSET + rowInBlock, getStatusCode(workingAppointment));
+		numberOfRows = row + 1;
+		if (vehicleCode == rowsOfVehicles.size()) {
+			rowsOfVehicles.add(new Rows());
+		}
+		rowsOfVehicles.get(vehicleCode)
+				.add(row);
+		rowsOfDays.computeIfAbsent(
+				Math.floorDiv(workingAppointment.getAppointmentBeginEpochMinute(), EpochMinutes.MINUTES_PER_DAY),
+				day -> new Rows())
+				.add(row);
+	}
+
+	/**
+	 * @param status - status of the searched appointments or null for all
+	 *               archived appointments of the vehicle
+	 */
+	public List<WorkingAppointment> getArchivedWorkingAppointmentsOfVehicle(Vehicle vehicle,
+			WorkingAppointmentStatus status) {
+		List<WorkingAppointment> archivedWorkingAppointments = new ArrayList<>();
+		Rows rowsOfVehicle = getRowsOfVehicle(vehicle);
+		if (rowsOfVehicle == null) {
+			return archivedWorkingAppointments;
+		}
+		byte statusCode = status != null ? toStatusCode(status) : 0;
+		int numberOfRowsOfVehicle = rowsOfVehicle.size();
+		int[] rows = rowsOfVehicle.get();
+		for (int i = 0; i < numberOfRowsOfVehicle; i++) {
+			if (statusCode == 0 || getStatus(rows[i]) == statusCode) {
+				archivedWorkingAppointments.add(materialize(rows[i]));
+			}
+		}
+		return archivedWorkingAppointments;
+	}
+
+	public boolean hasArchivedWorkingAppointmentsOfVehicle(Vehicle vehicle) {
+		return getRowsOfVehicle(vehicle) != null;
+	}
+
+	/**
+	 * @return - the rows of the vehicle or null, if it has none
+	 */
+	private Rows getRowsOfVehicle(Vehicle vehicle) {
+		int vehicleCode = vehicles.lookup(vehicle);
+		// the code is encoded before the first row of the vehicle is added
+		if (vehicleCode < 0 || vehicleCode >= rowsOfVehicles.size()) {
+			return null;
+		}
+		return rowsOfVehicles.get(vehicleCode);
+	}
+
+	/**
+	 * Like {@link #getArchivedWorkingAppointmentsBeginningBetween(LocalDate, LocalDate, WorkingAppointmentStatus)}
+	 * for all archived appointments.
+	 */
+	public List<WorkingAppointment> getArchivedWorkingAppointmentsBeginningBetween(LocalDate firstDay,
+			LocalDate lastDay) {
+		return getArchivedWorkingAppointmentsBeginningBetween(firstDay, lastDay, null);
+	}
+
+	/**
+	 * Only the rows of the given days are read.
+	 * 
+	 * @param status - status of the searched appointments or null for all
+	 *               archived appointments beginning on these days
+	 * @return - List of the archived appointments beginning on one of the days
+	 *         from firstDay to lastDay (both inclusive), sorted by their begin
+	 */
+	public List<WorkingAppointment> getArchivedWorkingAppointmentsBeginningBetween(LocalDate firstDay,
+			LocalDate lastDay, WorkingAppointmentStatus status) {
+		byte statusCode = status != null ? toStatusCode(status) : 0;
+		long[] beginsAndRows = getBeginsAndRowsBeginningBetween(firstDay, lastDay);
+		List<WorkingAppointment> archivedWorkingAppointments = new ArrayList<>();
+		for (long beginAndRow : beginsAndRows) {
+			int row = (int) beginAndRow;
+			if (statusCode == 0 || getStatus(row) == statusCode) {
+				archivedWorkingAppointments.add(materialize(row));
+			}
+		}
+		return archivedWorkingAppointments;
+	}
+
+	/**
+	 * Like {@link #getArchivedWorkingAppointmentsBeginningBetween(LocalDate, LocalDate)},
+	 * but only the begin and the row of the matching rows are kept, 8 bytes per
+	 * row. The appointments are created one by one while iterating.
+	 * 
+	 * @return - Iterator over the archived appointments beginning on one of the
+	 *         days from firstDay to lastDay (both inclusive), sorted by their
+	 *         begin
+	 */
+	public Iterator<WorkingAppointment> iterateArchivedWorkingAppointmentsBeginningBetween(LocalDate firstDay,
+			LocalDate lastDay) {
+		long[] sortedBeginsAndRows = getBeginsAndRowsBeginningBetween(firstDay, lastDay);
+		return new Iterator<WorkingAppointment>() {
+
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < sortedBeginsAndRows.length;
+			}
+
+			@Override
+			public WorkingAppointment next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return materialize((int) sortedBeginsAndRows[next++]);
+			}
+		};
+	}
+
+	/**
+	 * Only the rows of the given days are read, using the index of the days.
+	 * 
+	 * @return - begin and row of the rows beginning on one of the days from
+	 *         firstDay to lastDay (both inclusive), packed into one long and
+	 *         sorted by the begin
+	 */
+	private long[] getBeginsAndRowsBeginningBetween(LocalDate firstDay, LocalDate lastDay) {
+		long[] beginsAndRows = new long[16];
+		int numberOfMatchingRows = 0;
+		for (Rows rowsOfDay : rowsOfDays.subMap(firstDay.toEpochDay(), true, lastDay.toEpochDay(), true)
+				.values()) {
+			int numberOfRowsOfDay = rowsOfDay.size();
+			int[] rows = rowsOfDay.get();
+			for (int i = 0; i < numberOfRowsOfDay; i++) {
+				if (numberOfMatchingRows == beginsAndRows.length) {
+					beginsAndRows = Arrays.copyOf(beginsAndRows, 2 * numberOfMatchingRows);
+				}
+				// sorting the begin in the upper half sorts the rows by begin
+				beginsAndRows[numberOfMatchingRows++] = (long) getInt(BEGIN_COLUMN, rows[i]) << 32 | rows[i];
+			}
+		}
+		Arrays.sort(beginsAndRows, 0, numberOfMatchingRows);
+		return Arrays.copyOf(beginsAndRows, numberOfMatchingRows);
+	}
+
+	/**
+	 * @return - the time spans of the finished archived appointments on every
+	 *         working platform, see
+	 *         {@link #getFinishedTimeSpansOverlapping(int, Dictionary, long, long)}
+	 */
+	public Map<WorkingPlatform, long[]> getFinishedTimeSpansOnWorkingPlatformsOverlapping(long begin, long end) {
+		return getFinishedTimeSpansOverlapping(WORKING_PLATFORM_COLUMN, workingPlatforms, begin, end);
+	}
+
+	/**
+	 * @return - the time spans of the finished archived appointments of every car
+	 *         mechanic, see
+	 *         {@link #getFinishedTimeSpansOverlapping(int, Dictionary, long, long)}
+	 */
+	public Map<CarMechanicUser, long[]> getFinishedTimeSpansOfCarMechanicUsersOverlapping(long begin, long end) {
+		return getFinishedTimeSpansOverlapping(CAR_MECHANIC_COLUMN, carMechanicUsers, begin, end);
+	}
+
+	/**
+	 * Only the begin, end, status and the given column are scanned, no
+	 * appointment is created. Begin and duration of a matching row are packed
+	 * into one long, so sorting the longs sorts the time spans by their begin.
+	 * 
+	 * @return - Map from the referenced entity to pairs of begin and end in epoch
+	 *         minutes, cut to the time span from begin to end, sorted and merged
+	 *         where they overlap or touch; entities without such a time span are
+	 *         missing
+	 */
+	private <T> Map<T, long[]> getFinishedTimeSpansOverlapping(int column, Dictionary<T> dictionary, long begin,
+			long end) {
+		// every code of a published row is already in the dictionary
+		int rows = numberOfRows;
+		int numberOfCodes = dictionary.getValues()
+				.size();
+		long[][] beginsAndDurations = new long[numberOfCodes][];
+		int[] numbersOfTimeSpans = new int[numberOfCodes];
+		for (int row = 0; row < rows; row++) {
+			int beginOfRow = getInt(BEGIN_COLUMN, row);
+			int endOfRow = getInt(END_COLUMN, row);
+			if (beginOfRow < end && endOfRow > begin && endOfRow > beginOfRow && getStatus(row) == FINISHED_STATUS) {
+				int code = getInt(column, row);
+				int numberOfTimeSpans = numbersOfTimeSpans[code];
+				if (numberOfTimeSpans == 0) {
+					beginsAndDurations[code] = new long[16];
+				} else if (numberOfTimeSpans == beginsAndDurations[code].length) {
+					beginsAndDurations[code] = Arrays.copyOf(beginsAndDurations[code], 2 * numberOfTimeSpans);
+				}
+				beginsAndDurations[code][numberOfTimeSpans] = (long) beginOfRow << 32 | (endOfRow - beginOfRow);
+				numbersOfTimeSpans[code] = numberOfTimeSpans + 1;
+			}
+		}
+		Map<T, long[]> timeSpans = new HashMap<>();
+		for (int code = 0; code < numberOfCodes; code++) {
+			if (numbersOfTimeSpans[code] > 0) {
+				timeSpans.put(dictionary.decode(code),
+						toMergedTimeSpans(beginsAndDurations[code], numbersOfTimeSpans[code], begin, end));
+			}
+		}
+		return timeSpans;
+	}
+
+	private static long[] toMergedTimeSpans(long[] beginsAndDurations, int numberOfTimeSpans, long begin, long end) {
+		Arrays.sort(beginsAndDurations, 0, numberOfTimeSpans);
+		long[] mergedTimeSpans = new long[2 * numberOfTimeSpans];
+		int length = 0;
+		for (int i = 0; i < numberOfTimeSpans; i++) {
+			long beginOfRow = beginsAndDurations[i] >> 32;
+			long beginOfTimeSpan = Math.max(begin, beginOfRow);
+			long endOfTimeSpan = Math.min(end, beginOfRow + (int) beginsAndDurations[i]);
+			if (length > 0 && beginOfTimeSpan <= mergedTimeSpans[length - 1]) {
+				mergedTimeSpans[length - 1] = Math.max(mergedTimeSpans[length - 1], endOfTimeSpan);
+			} else {
+				mergedTimeSpans[length++] = beginOfTimeSpan;
+				mergedTimeSpans[length++] = endOfTimeSpan;
+			}
+		}
+		return Arrays.copyOf(mergedTimeSpans, length);
+	}
+
+	public void forEachArchivedWorkingAppointment(Consumer<WorkingAppointment> action) {
+		int rows = numberOfRows;
+		for (int row = 0; row < rows; row++) {
+			action.accept(materialize(row));
+		}
+	}
+
+	public List<WorkingPlatform> getReferencedWorkingPlatforms() {
+		return workingPlatforms.getValues();
+	}
+
+	public List<CarMechanicUser> getReferencedCarMechanicUsers() {
+		return carMechanicUsers.getValues();
+	}
+
+	public List<Customer> getReferencedCustomers() {
+		return customers.getValues();
+	}
+
+	public List<Vehicle> getReferencedVehicles() {
+		return vehicles.getValues();
+	}
+
+	public Set<Work> getReferencedWorks() {
+		Set<Work> referencedWorks = new HashSet<>();
+		for (List<Work> works : setsOfWorks.getValues()) {
+			referencedWorks.addAll(works);
+		}
+		return referencedWorks;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		archiveChannel.close();
+	}
+
+	private WorkingAppointment materialize(int row) {
+		WorkingAppointment workingAppointment = new WorkingAppointment(
+				Appointment.formatAppointmentId(getAppointmentIdNumber(row)),
+				new HashSet<>(setsOfWorks.decode(getInt(WORKS_COLUMN, row))),
+				customers.decode(getInt(CUSTOMER_COLUMN, row)), vehicles.decode(getInt(VEHICLE_COLUMN, row)),
+				workingPlatforms.decode(getInt(WORKING_PLATFORM_COLUMN, row)),
+				EpochMinutes.toLocalDateTime(getInt(BEGIN_COLUMN, row)),
+				carMechanicUsers.decode(getInt(CAR_MECHANIC_COLUMN, row)));
+		workingAppointment.setStatus(getStatus(row) == FINISHED_STATUS ? WorkingAppointmentStatus.FINISHED
+				: WorkingAppointmentStatus.CANCELLED);
+		return workingAppointment;
+	}
+
+	private int getInt(int column, int row) {
+		return blocks.get(row / ROWS_PER_BLOCK)
+				.getInt((column * ROWS_PER_BLOCK + (row & ROW_IN_BLOCK_MASK)) * Integer.BYTES);
+	}
+
+	private long getAppointmentIdNumber(int row) {
+		return blocks.get(row / ROWS_PER_BLOCK)
+				.getLong(APPOINTMENT_ID_COLUMN_OFFSET + (row & ROW_IN_BLOCK_MASK) * Long.BYTES);
+	}
+
+	private byte getStatus(int row) {
+		return blocks.get(row / ROWS_PER_BLOCK)
+				.get(STATUS_COLUMN_OFFSET + (row & ROW_IN_BLOCK_MASK));
+	}
+
+	private static void putInt(MappedByteBuffer block, int column, int rowInBlock, int value) {
+		block.putInt((column * ROWS_PER_BLOCK + rowInBlock) * Integer.BYTES, value);
+	}
+
+	private static byte getStatusCode(WorkingAppointment workingAppointment) {
+		return toStatusCode(workingAppointment.getStatus());
+	}
+
+	private static byte toStatusCode(WorkingAppointmentStatus status) {
+		switch (status) {
+		case FINISHED:
+			return FINISHED_STATUS;
+		case CANCELLED:
+			return CANCELLED_STATUS;
+		default:
+			return 0;
+		}
+	}
+
+	private static boolean fitsIntoIntColumn(long epochMinute) {
+		return (int) epochMinute == epochMinute;
+	}
+
+	/**
+	 * Growing list of rows, written by the one thread archiving, read by any
+	 * thread: {@link #size()} has to be read before {@link #get()}, the array is
+	 * then at least that long and holds the rows up to that size.
+	 */
+	private static class Rows {
+
+		private volatile int[] rows = new int[4];
+		private volatile int size = 0;
+
+		void add(int row) {
+			if (size == rows.length) {
+				rows = Arrays.copyOf(rows, 2 * size);
+			}
+			rows[size] = row;
+			size = size + 1;
+		}
+
+		int size() {
+			return size;
+		}
+
+		int[] get() {
+			return rows;
+		}
+	}
+
+	/**
+	 * Assigns consecutive codes to the values. Only one thread may encode at a
+	 * time, decoding is possible from any thread.
+	 */
+	private static class Dictionary<T> {
+
+		private final List<T> values = new CopyOnWriteArrayList<>();
+		private final Map<T, Integer> codes = new ConcurrentHashMap<>();
+
+		int encode(T value) {
+			Integer code = codes.get(value);
+			if (code == null) {
+				code = values.size();
+				values.add(value);
+				codes.put(value, code);
+			}
+			return code;
+		}
+
+		int lookup(T value) {
+			Integer code = codes.get(value);
+			return code != null ? code : -1;
+		}
+
+		T decode(int code) {
+			return values.get(code);
+		}
+
+		List<T> getValues() {
+			return Collections.unmodifiableList(values);
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package de.hs_kl.staab.planner.data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.EpochMinutes;
+
+/**
+ * Interval index over all appointments of ONE resource (a working platform, a
+ * car mechanic, a dispatcher or a client advisor).
+ *
+ * The appointments are kept sorted by their begin. Besides, the durations of
+ * the stored appointments are counted, so the longest duration is known and
+ * shrinks again when the longest appointment is removed. Every appointment
+ * overlapping a given time span has to begin inside the span or at most that
+ * many minutes before it. So an overlap query only looks at a small range of
+ * the sorted map, O(log n + k) with k the appointments beginning in that range,
+ * instead of the whole calendar. All points in time are epoch minutes (see
+ * {@link EpochMinutes}), the end of a time span is exclusive.
+ *
+ * Reading is possible at any time without locking. Adding and removing
+ * appointments is only allowed while holding the lock of the resource (see
+ * {@link ResourceLocks}).
+ */
+public class AppointmentTimeline {
+
+	private final NavigableMap<Long, Set<Appointment>> appointmentsByBegin = new ConcurrentSkipListMap<>();
+	// duration in minutes -> number of stored appointments with that duration
+	private final NavigableMap<Long, Integer> numberOfAppointmentsByDuration = new ConcurrentSkipListMap<>();
+	private volatile int numberOfAppointments = 0;
+	private final FreeIntervalIndex freeIntervals = new FreeIntervalIndex();
+
+	public void addAppointment(Appointment appointmentToAdd) {
+		long begin = appointmentToAdd.getAppointmentBeginEpochMinute();
+		long end = appointmentToAdd.getAppointmentEndEpochMinute();
+		Set<Appointment> appointmentsWithSameBegin = appointmentsByBegin.computeIfAbsent(begin,
+				sameBegin -> ConcurrentHashMap.newKeySet());
+		if (appointmentsWithSameBegin.contains(appointmentToAdd)) {
+			return;
+		}
+		// counted before the appointment becomes visible, so a reader never sees an
+		// appointment longer than the longest duration
+		numberOfAppointmentsByDuration.merge(end - begin, 1, Integer::sum);
+		appointmentsWithSameBegin.add(appointmentToAdd);
+		numberOfAppointments++;
+		freeIntervals.occupy(begin, end);
+	}
+
+	/**
+	 * Removes the given appointment. The begin and the end of the appointment must
+	 * not have been changed since it was added, otherwise it can't be found anymore
+	 * or the wrong time span is released.
+	 */
+	public void removeAppointment(Appointment appointmentToRemove) {
+		long begin = appointmentToRemove.getAppointmentBeginEpochMinute();
+		Set<Appointment> appointmentsWithSameBegin = appointmentsByBegin.get(begin);
+		if (appointmentsWithSameBegin != null && appointmentsWithSameBegin.remove(appointmentToRemove)) {
+			numberOfAppointments--;
+			if (appointmentsWithSameBegin.isEmpty()) {
+				appointmentsByBegin.remove(begin);
+			}
+			long end = appointmentToRemove.getAppointmentEndEpochMinute();
+			numberOfAppointmentsByDuration.computeIfPresent(end - begin,
+					(duration, number) -> number > 1 ? number - 1 : null);
+			if (end > begin) {
+				freeIntervals.release(begin, end, getAppointmentsOverlapping(begin, end));
+			}
+		}
+	}
+
+	/**
+	 * Returns all appointments of this timeline that overlap the time span from
+	 * begin (inclusive) to end (exclusive). An empty time span (begin equals end)
+	 * is treated as a single point in time.
+	 *
+	 * @return - List of the overlapping appointments sorted by their begin (may be
+	 *         empty)
+	 */
+	public List<Appointment> getAppointmentsOverlapping(long begin, long end) {
+		List<Appointment> overlappingAppointments = new ArrayList<>();
+		long earliestPossibleBegin = begin - getLongestDurationInMinutes();
+		for (Map.Entry<Long, Set<Appointment>> entry : appointmentsByBegin
+				.subMap(earliestPossibleBegin, true, end, end <= begin)
+				.entrySet()) {
+			for (Appointment appointment : entry.getValue()) {
+				if (appointment.getAppointmentEndEpochMinute() > begin) {
+					overlappingAppointments.add(appointment);
+				}
+			}
+		}
+		return overlappingAppointments;
+	}
+
+	/**
+	 * @return - the latest end of all appointments overlapping the time span from
+	 *         begin to end, or Long.MIN_VALUE if the time span is free
+	 */
+	public long getLatestEndOfAppointmentsOverlapping(long begin, long end) {
+		long latestEnd = Long.MIN_VALUE;
+		for (Appointment appointment : getAppointmentsOverlapping(begin, end)) {
+			latestEnd = Math.max(latestEnd, appointment.getAppointmentEndEpochMinute());
+		}
+		return latestEnd;
+	}
+
+	/**
+	 * @return - the earliest begin at or after earliestBegin, from which on no
+	 *         appointment of this timeline overlaps the given number of minutes,
+	 *         or Long.MAX_VALUE if there is none
+	 */
+	public long getBeginOfFirstFreeTimeSpan(long earliestBegin, long durationInMinutes) {
+		return freeIntervals.getBeginOfFirstFreeTimeSpan(earliestBegin, durationInMinutes);
+	}
+
+	/**
+	 * Starts a {@link Sweep} over this timeline. The timeline must not be changed
+	 * while the sweep is used, so the lock of the resource has to be held.
+	 */
+	public Sweep startSweep() {
+		return new Sweep();
+	}
+
+	/**
+	 * Checks a series of time spans, sorted ascending by their begin, for
+	 * conflicts with the appointments of the timeline and with the time spans
+	 * occupied during the sweep. The appointments are read in one pass along the
+	 * time spans; only if the next time span begins far behind the current
+	 * position, the sweep jumps there in O(log n) instead of reading everything in
+	 * between.
+	 */
+	public class Sweep {
+
+		private Iterator<Appointment> upcomingAppointments;
+		private Appointment nextAppointment;
+		// the passed appointment with the latest end
+		private Appointment latestEndingAppointment;
+		private Appointment latestEndingOccupation;
+		private long lastBegin = Long.MIN_VALUE;
+
+		private Sweep() {
+		}
+
+		/**
+		 * @param begin - must not be before the begin of the previous call
+		 * @return - an appointment overlapping the time span from begin to end, either
+		 *         of the timeline or occupied during the sweep, or null if the time
+		 *         span is free
+		 */
+		public Appointment getConflictWith(long begin, long end) {
+			if (begin < lastBegin) {
+				throw new IllegalArgumentException("The time spans of a sweep have to be sorted by their begin.");
+			}
+			lastBegin = begin;
+			long earliestPossibleBegin = begin - getLongestDurationInMinutes();
+			if (upcomingAppointments == null || nextAppointment != null
+					&& nextAppointment.getAppointmentBeginEpochMinute() < earliestPossibleBegin) {
+				upcomingAppointments = appointmentsByBegin.tailMap(earliestPossibleBegin, true)
+						.values()
+						.stream()
+						.flatMap(Set::stream)
+						.iterator();
+				nextAppointment = upcomingAppointments.hasNext() ? upcomingAppointments.next() : null;
+			}
+			while (nextAppointment != null && nextAppointment.getAppointmentBeginEpochMinute() <= begin) {
+				latestEndingAppointment = getLatestEndingOf(latestEndingAppointment, nextAppointment);
+				nextAppointment = upcomingAppointments.hasNext() ? upcomingAppointments.next() : null;
+			}
+			if (latestEndingAppointment != null && latestEndingAppointment.getAppointmentEndEpochMinute() > begin) {
+				return latestEndingAppointment;
+			}
+			if (nextAppointment != null && nextAppointment.getAppointmentBeginEpochMinute() < end) {
+				return nextAppointment;
+			}
+			if (latestEndingOccupation != null && latestEndingOccupation.getAppointmentEndEpochMinute() > begin) {
+				return latestEndingOccupation;
+			}
+			return null;
+		}
+
+		/**
+		 * Occupies the time span of the given appointment for the rest of the sweep,
+		 * without adding it to the timeline.
+		 */
+		public void occupy(Appointment appointment) {
+			latestEndingOccupation = getLatestEndingOf(latestEndingOccupation, appointment);
+		}
+
+		private Appointment getLatestEndingOf(Appointment first, Appointment second) {
+			if (first == null || second.getAppointmentEndEpochMinute() > first.getAppointmentEndEpochMinute()) {
+				return second;
+			}
+			return first;
+		}
+	}
+
+	/**
+	 * @return - the duration of the longest stored appointment, or 0 if the
+	 *         timeline is empty
+	 */
+	long getLongestDurationInMinutes() {
+		Map.Entry<Long, Integer> longestDuration = numberOfAppointmentsByDuration.lastEntry();
+		return longestDuration == null ? 0 : longestDuration.getKey();
+	}
+
+	public boolean isEmpty() {
+		return numberOfAppointments == 0;
+	}
+
+	public int size() {
+		return numberOfAppointments;
+	}
+}
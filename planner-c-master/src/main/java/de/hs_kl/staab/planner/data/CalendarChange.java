@@ -0,0 +1,66 @@
+package de.hs_kl.staab.planner.data;
+
+import de.hs_kl.staab.planner.Appointment;
+
+/**
+ * A change of the planning calendar, published by the
+ * {@link PlanningCalendarData} to its listeners after the change was made.
+ */
+public final class CalendarChange {
+
+	public enum Kind {
+		CREATED, UPDATED, STATUS_CHANGED, REMOVED
+	}
+
+	private final long sequenceNumber;
+	private final Kind kind;
+	private final Appointment appointment;
+	private final Object[] affectedResources;
+
+	CalendarChange(long sequenceNumber, Kind kind, Appointment appointment, Object[] affectedResources) {
+		this.sequenceNumber = sequenceNumber;
+		this.kind = kind;
+		this.appointment = appointment;
+		this.affectedResources = affectedResources;
+	}
+
+	/**
+	 * @return - number of the change, counting from 1 since the start of the
+	 *         planner. Changes of the same appointment are published in the order
+	 *         of their numbers, changes of different resources may overtake each
+	 *         other.
+	 */
+	public long getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return - a copy of the changed appointment as it was right after the
+	 *         change, later changes of the appointment don't show up in it
+	 */
+	public Appointment getAppointment() {
+		return appointment;
+	}
+
+	/**
+	 * @return - true if the given working platform or user was occupied by the
+	 *         appointment before or after the change
+	 */
+	public boolean isAffecting(Object resource) {
+		for (Object affectedResource : affectedResources) {
+			if (affectedResource.equals(resource)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "Change " + sequenceNumber + ": " + kind + " " + appointment.getAppointmentId();
+	}
+}
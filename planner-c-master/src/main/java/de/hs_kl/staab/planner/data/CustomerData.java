@@ -1,23 +1,104 @@
 package de.hs_kl.staab.planner.data;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import de.hs_kl.staab.planner.Customer;
 
 public class CustomerData {
 
-	private Set<Customer> allCustomers = new HashSet<>();
+	private Set<Customer> allCustomers = ConcurrentHashMap.newKeySet();
+	private NavigableMap<String, Customer> customersById = new ConcurrentSkipListMap<>();
+	private final CustomerSearchIndex searchIndex = new CustomerSearchIndex();
 
 	public Set<Customer> getAllCustomers() {
-		return allCustomers;
+		return Collections.unmodifiableSet(allCustomers);
 	}
 
-	public void addCustomerToCustomerData(Customer customerToAdd) {
-		this.allCustomers.add(customerToAdd);
+	public Optional<Customer> getCustomerById(String customerId) {
+		return Optional.ofNullable(customersById.get(customerId));
 	}
 
-	public void removeCustomerFromCustomerData(Customer customerToRemove) {
-		this.allCustomers.remove(customerToRemove);
+	/**
+	 * @return - all customers with an ID greater than the given one (or all
+	 *         customers if it is null), ordered by their ID
+	 */
+	public Collection<Customer> getCustomersOrderedByIdAfter(String customerId) {
+		if (customerId == null) {
+			return Collections.unmodifiableCollection(customersById.values());
+		}
+		return Collections.unmodifiableCollection(customersById.tailMap(customerId, false)
+				.values());
+	}
+
+	/**
+	 * @return - the customers with the given postal code, e.g. to look for
+	 *         duplicates without scanning all customers
+	 */
+	public List<Customer> getCustomersWithPostalCode(int postalCode) {
+		return searchIndex.getCustomersWithPostalCode(postalCode);
+	}
+
+	/**
+	 * Type-ahead search over the names, the city, the postal code, the phone
+	 * number and the email address of the customers, see
+	 * {@link CustomerSearchIndex#search(String, int)}.
+	 * 
+	 * @return - at most maxNumberOfResults customers, the best match first
+	 */
+	public List<Customer> searchCustomers(String query, int maxNumberOfResults) {
+		return searchIndex.search(query, maxNumberOfResults);
+	}
+
+	public synchronized void addCustomerToCustomerData(Customer customerToAdd) {
+		if (this.allCustomers.add(customerToAdd)) {
+			this.customersById.put(customerToAdd.getCustomerId(), customerToAdd);
+			this.searchIndex.addCustomer(customerToAdd);
+		}
+	}
+
+	/**
+	 * Adds many customers at once, e.g. for an import. Indexing them for the
+	 * search takes most of the time, so they are added in parallel on the common
+	 * fork/join pool.
+	 */
+	public synchronized void addCustomersToCustomerData(Collection<Customer> customersToAdd) {
+		customersToAdd.parallelStream()
+				.forEach(customerToAdd -> {
+					if (this.allCustomers.add(customerToAdd)) {
+						this.customersById.put(customerToAdd.getCustomerId(), customerToAdd);
+						this.searchIndex.addCustomer(customerToAdd);
+					}
+				});
+	}
+
+	public synchronized void removeCustomerFromCustomerData(Customer customerToRemove) {
+		if (this.allCustomers.remove(customerToRemove)) {
+			this.customersById.remove(customerToRemove.getCustomerId());
+			this.searchIndex.removeCustomer(customerToRemove);
+		}
+	}
+
+	/**
+	 * Changes the name, the address or the contact details of a stored customer
+	 * and indexes it again afterwards.
+	 * 
+	 * @param change - changes the customer, e.g. by calling its setters
+	 */
+	public synchronized void updateCustomerInCustomerData(Customer customerToUpdate, Runnable change) {
+		boolean isStored = this.allCustomers.contains(customerToUpdate);
+		if (isStored) {
+			this.searchIndex.removeCustomer(customerToUpdate);
+		}
+		change.run();
+		if (isStored) {
+			this.searchIndex.addCustomer(customerToUpdate);
+		}
 	}
 }
@@ -0,0 +1,800 @@
+package de.hs_kl.staab.planner.data;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import de.hs_kl.staab.planner.Customer;
+
+/**
+ * Search index over the customers of a {@link CustomerData}, for the type-ahead
+ * search of the front desk and the duplicate check on creating a customer.
+ *
+ * The words of the names and the city are normalized (lower case, umlauts
+ * written out, other accents removed) and kept sorted, so all words beginning
+ * with a typed prefix are one range of the index. Misspelled words are found by
+ * the trigrams (groups of three letters) they share with the indexed words.
+ * Phone numbers (only their digits) and email addresses (lower case) are hash
+ * keys. The postal codes are sorted buckets, so they can be typed ahead too.
+ *
+ * The customers of every word, phone number, email address and postal code are
+ * sorted by their name, so a search reads them in the order of the results and
+ * stops as soon as no further customer can get into the results, instead of
+ * ranking all customers called "Müller". For a query of several terms, it skips
+ * ahead to the next customer matching all of them, as the matches of each term
+ * are sorted the same way.
+ *
+ * Reading is possible at any time without locking. Several customers can be
+ * added at once by different threads, but removing a customer or adding it
+ * again after a change is only allowed while holding the lock of the
+ * CustomerData and while nothing is added.
+ */
+final class CustomerSearchIndex {
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+	private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final Pattern TERM_SEPARATORS = Pattern.compile("[\\s,;]+");
+	private static final Pattern PHONE_NUMBER_CHARACTERS = Pattern.compile("[+\\d\\s/()-]+");
+
+	// shorter numbers are taken as (the beginning of) a postal code
+	private static final int MAX_LENGTH_OF_POSTAL_CODE = 5;
+	private static final int MIN_LENGTH_OF_FUZZY_SEARCHED_WORD = 3;
+	// Dice coefficient of the trigrams of two words
+	private static final double MIN_SIMILARITY_OF_FUZZY_MATCH = 0.5;
+
+	private static final double SCORE_OF_CONTACT_DETAIL = 100;
+	private static final double SCORE_OF_POSTAL_CODE = 10;
+	private static final double SCORE_OF_BEGINNING_OF_POSTAL_CODE = 5;
+	private static final double SCORE_OF_WORD = 3;
+	private static final double SCORE_OF_BEGINNING_OF_WORD = 2;
+	// a misspelled word scores its similarity
+	private static final double MAX_SCORE_OF_MISSPELLED_WORD = 1;
+
+	private static final Comparator<Entry> ORDER_OF_NAMES = (first, second) -> first.keyOfName.compareTo(
+			second.keyOfName);
+
+	private final NavigableMap<String, Postings> entriesByWord = new ConcurrentSkipListMap<>();
+	private final Map<String, Set<String>> wordsByTrigram = new ConcurrentHashMap<>();
+	private final Map<String, Postings> entriesByPhoneNumber = new ConcurrentHashMap<>();
+	private final Map<String, Postings> entriesByEmail = new ConcurrentHashMap<>();
+	private final NavigableMap<String, Postings> entriesByPostalCode = new ConcurrentSkipListMap<>();
+
+	// the entry of a customer holds the keys it was indexed with, so it can be
+	// removed after its fields were changed
+	private final Map<Customer, Entry> entriesOfCustomers = new ConcurrentHashMap<>();
+
+	void addCustomer(Customer customer) {
+		Entry entry = new Entry(customer);
+		if (entriesOfCustomers.putIfAbsent(customer, entry) != null) {
+			return;
+		}
+		for (String word : entry.words) {
+			Postings entriesWithWord = entriesByWord.get(word);
+			if (entriesWithWord == null) {
+				Postings newEntriesWithWord = new Postings();
+				entriesWithWord = entriesByWord.putIfAbsent(word, newEntriesWithWord);
+				if (entriesWithWord == null) {
+					// only the thread adding the word indexes its trigrams
+					entriesWithWord = newEntriesWithWord;
+					for (String trigram : getTrigramsOf(word)) {
+						wordsByTrigram.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet())
+								.add(word);
+					}
+				}
+			}
+			entriesWithWord.add(entry);
+		}
+		addToIndex(entriesByPhoneNumber, entry.phoneNumber, entry);
+		addToIndex(entriesByEmail, entry.email, entry);
+		addToIndex(entriesByPostalCode, entry.postalCode, entry);
+	}
+
+	void removeCustomer(Customer customer) {
+		Entry entry = entriesOfCustomers.remove(customer);
+		if (entry == null) {
+			return;
+		}
+		for (String word : entry.words) {
+			Postings entriesWithWord = entriesByWord.get(word);
+			if (entriesWithWord != null && entriesWithWord.remove(entry) && entriesWithWord.size() == 0) {
+				entriesByWord.remove(word);
+				for (String trigram : getTrigramsOf(word)) {
+					Set<String> wordsWithTrigram = wordsByTrigram.get(trigram);
+					if (wordsWithTrigram != null && wordsWithTrigram.remove(word) && wordsWithTrigram.isEmpty()) {
+						wordsByTrigram.remove(trigram);
+					}
+				}
+			}
+		}
+		removeFromIndex(entriesByPhoneNumber, entry.phoneNumber, entry);
+		removeFromIndex(entriesByEmail, entry.email, entry);
+		removeFromIndex(entriesByPostalCode, entry.postalCode, entry);
+	}
+
+	/**
+	 * @return - the customers with the given postal code (may be empty)
+	 */
+	List<Customer> getCustomersWithPostalCode(int postalCode) {
+		Postings entriesWithPostalCode = entriesByPostalCode.get(toPostalCodeKey(postalCode));
+		if (entriesWithPostalCode == null) {
+			return Collections.emptyList();
+		}
+		List<Customer> customersWithPostalCode = new ArrayList<>();
+		for (Entry entry : entriesWithPostalCode.entries) {
+			customersWithPostalCode.add(entry.customer);
+		}
+		return customersWithPostalCode;
+	}
+
+	/**
+	 * Every term of the query (separated by spaces or commas) has to match: a
+	 * word or the beginning of a word of the names or the city, also if it is
+	 * misspelled a little, the beginning of the postal code, the phone number or
+	 * the email address. A phone number may contain spaces.
+	 *
+	 * @return - the best matching customers, best first; exact matches rank
+	 *         before beginnings of words and these before misspelled words,
+	 *         equally good matches are sorted by their name
+	 */
+	List<Customer> search(String query, int maxNumberOfResults) {
+		List<Term> terms = parseQuery(query);
+		if (terms.isEmpty() || maxNumberOfResults < 1) {
+			return Collections.emptyList();
+		}
+		// the candidates are read from the term matching the fewest customers
+		Term leadingTerm = terms.get(0);
+		for (Term term : terms) {
+			if (term.getNumberOfMatches() < leadingTerm.getNumberOfMatches()) {
+				leadingTerm = term;
+			}
+		}
+		Ranking ranking = new Ranking(terms, leadingTerm, maxNumberOfResults);
+		for (Matches matches : leadingTerm.getMatches()) {
+			ranking.addCandidates(matches);
+		}
+		if (ranking.canBeImprovedBy(MAX_SCORE_OF_MISSPELLED_WORD)) {
+			for (Matches matches : leadingTerm.getMatchesOfMisspellings()) {
+				ranking.addCandidates(matches);
+			}
+		}
+		return ranking.getCustomers();
+	}
+
+	private List<Term> parseQuery(String query) {
+		List<Term> terms = new ArrayList<>();
+		if (query == null) {
+			return terms;
+		}
+		String trimmedQuery = query.trim();
+		if (PHONE_NUMBER_CHARACTERS.matcher(trimmedQuery)
+				.matches() && normalizePhoneNumber(trimmedQuery).length() > MAX_LENGTH_OF_POSTAL_CODE) {
+			terms.add(new NumberTerm(normalizePhoneNumber(trimmedQuery)));
+			return terms;
+		}
+		for (String part : TERM_SEPARATORS.split(trimmedQuery)) {
+			if (part.isEmpty()) {
+				continue;
+			}
+			if (part.indexOf('@') >= 0) {
+				terms.add(new EmailTerm(normalizeEmail(part)));
+			} else if (PHONE_NUMBER_CHARACTERS.matcher(part)
+					.matches() && !normalizePhoneNumber(part).isEmpty()) {
+				terms.add(new NumberTerm(normalizePhoneNumber(part)));
+			} else {
+				for (String word : getWordsOf(part)) {
+					terms.add(new WordTerm(word));
+				}
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * @return - the indexed words sharing enough trigrams with the given word,
+	 *         with their similarity, except the words beginning with it
+	 */
+	private Map<String, Double> findSimilarWords(String word) {
+		if (word.length() < MIN_LENGTH_OF_FUZZY_SEARCHED_WORD) {
+			return Collections.emptyMap();
+		}
+		Map<String, Integer> numbersOfSharedTrigrams = new HashMap<>();
+		for (String trigram : getTrigramsOf(word)) {
+			Set<String> wordsWithTrigram = wordsByTrigram.get(trigram);
+			if (wordsWithTrigram != null) {
+				for (String wordWithTrigram : wordsWithTrigram) {
+					numbersOfSharedTrigrams.merge(wordWithTrigram, 1, Integer::sum);
+				}
+			}
+		}
+		Map<String, Double> similarWords = new HashMap<>();
+		for (Map.Entry<String, Integer> numberOfSharedTrigrams : numbersOfSharedTrigrams.entrySet()) {
+			String similarWord = numberOfSharedTrigrams.getKey();
+			// a word of n letters has n trigrams, including the ones with the padding
+			double similarity = 2.0 * numberOfSharedTrigrams.getValue() / (word.length() + similarWord.length());
+			if (similarity >= MIN_SIMILARITY_OF_FUZZY_MATCH && !similarWord.startsWith(word)) {
+				similarWords.put(similarWord, Math.min(similarity, MAX_SCORE_OF_MISSPELLED_WORD));
+			}
+		}
+		return similarWords;
+	}
+
+	private static void addToIndex(Map<String, Postings> index, String key, Entry entry) {
+		if (key != null) {
+			index.computeIfAbsent(key, newKey -> new Postings())
+					.add(entry);
+		}
+	}
+
+	private static void removeFromIndex(Map<String, Postings> index, String key, Entry entry) {
+		if (key == null) {
+			return;
+		}
+		Postings entries = index.get(key);
+		if (entries != null && entries.remove(entry) && entries.size() == 0) {
+			index.remove(key);
+		}
+	}
+
+	private static String normalize(String text) {
+		String lowerCaseText = text.toLowerCase(Locale.GERMAN)
+				.replace("ä", "ae")
+				.replace("ö", "oe")
+				.replace("ü", "ue")
+				.replace("ß", "ss");
+		return MARKS.matcher(Normalizer.normalize(lowerCaseText, Normalizer.Form.NFD))
+				.replaceAll("");
+	}
+
+	private static List<String> getWordsOf(String text) {
+		List<String> words = new ArrayList<>();
+		if (text == null) {
+			return words;
+		}
+		for (String word : WORD_SEPARATORS.split(normalize(text))) {
+			if (!word.isEmpty()) {
+				words.add(word);
+			}
+		}
+		return words;
+	}
+
+	private static Set<String> getTrigramsOf(String word) {
+		String paddedWord = " " + word + " ";
+		Set<String> trigrams = new HashSet<>();
+		for (int i = 0; i + 3 <= paddedWord.length(); i++) {
+			trigrams.add(paddedWord.substring(i, i + 3));
+		}
+		return trigrams;
+	}
+
+	/**
+	 * German numbers with the country code are normalized to the national form,
+	 * so "+49 631 12345" and "0631/12345" are the same number.
+	 */
+	private static String normalizePhoneNumber(String phoneNumber) {
+		StringBuilder digits = new StringBuilder();
+		for (int i = 0; i < phoneNumber.length(); i++) {
+			char character = phoneNumber.charAt(i);
+			if (character >= '0' && character <= '9') {
+				digits.append(character);
+			}
+		}
+		String trimmedPhoneNumber = phoneNumber.trim();
+		if (trimmedPhoneNumber.startsWith("+49") || trimmedPhoneNumber.startsWith("0049")) {
+			return "0" + digits.substring(trimmedPhoneNumber.startsWith("+") ? 2 : 4);
+		}
+		return digits.toString();
+	}
+
+	private static String normalizeEmail(String email) {
+		return email.trim()
+				.toLowerCase(Locale.ROOT);
+	}
+
+	private static String toPostalCodeKey(int postalCode) {
+		String digits = Integer.toString(postalCode);
+		if (digits.length() >= MAX_LENGTH_OF_POSTAL_CODE) {
+			return digits;
+		}
+		// e.g. 01067 (Dresden) is stored as 1067
+		return "00000".substring(digits.length()) + digits;
+	}
+
+	/**
+	 * A customer as it was indexed.
+	 */
+	private static final class Entry {
+
+		private final Customer customer;
+		private final Set<String> words = new LinkedHashSet<>();
+		private final String phoneNumber;
+		private final String email;
+		private final String postalCode;
+		// last name, first name and ID, separated by a character sorted before all others
+		private final String keyOfName;
+
+		Entry(Customer customer) {
+			this.customer = customer;
+			List<String> wordsOfFirstName = getWordsOf(customer.getCustomerFirstName());
+			List<String> wordsOfLastName = getWordsOf(customer.getCustomerLastName());
+			words.addAll(wordsOfFirstName);
+			words.addAll(wordsOfLastName);
+			words.addAll(getWordsOf(customer.getCity()));
+			String normalizedPhoneNumber = customer.getPhoneNumber() == null ? ""
+					: normalizePhoneNumber(customer.getPhoneNumber());
+			this.phoneNumber = normalizedPhoneNumber.isEmpty() ? null : normalizedPhoneNumber;
+			this.email = customer.getEmail() == null || customer.getEmail()
+					.trim()
+					.isEmpty() ? null : normalizeEmail(customer.getEmail());
+			this.postalCode = toPostalCodeKey(customer.getPostalCode());
+			this.keyOfName = String.join(" ", wordsOfLastName) + '\u0000' + String.join(" ", wordsOfFirstName)
+					+ '\u0000' + customer.getCustomerId();
+		}
+	}
+
+	private static final class Result {
+
+		static final Comparator<Result> BEST_FIRST = Comparator.<Result>comparingDouble(result -> -result.score)
+				.thenComparing(result -> result.entry, ORDER_OF_NAMES);
+
+		private final Entry entry;
+		private final double score;
+
+		Result(Entry entry, double score) {
+			this.entry = entry;
+			this.score = score;
+		}
+
+		/**
+		 * @return - true if an entry with the given score, or a lower one, could
+		 *         rank before this result
+		 */
+		boolean canBeBeatenBy(double maxScore, Entry entry) {
+			return maxScore > score || maxScore == score && ORDER_OF_NAMES.compare(entry, this.entry) < 0;
+		}
+	}
+
+	/**
+	 * The best results of a query so far.
+	 */
+	private static final class Ranking {
+
+		private final List<Term> terms;
+		private final List<Term> otherTerms;
+		private final double maxScoreOfOtherTerms;
+		private final int maxNumberOfResults;
+		// worst of the best results on top, so it can be replaced by a better one
+		private final PriorityQueue<Result> bestResults = new PriorityQueue<>(Result.BEST_FIRST.reversed());
+		private final Set<Entry> checkedEntries = new HashSet<>();
+
+		Ranking(List<Term> terms, Term leadingTerm, int maxNumberOfResults) {
+			this.terms = terms;
+			this.otherTerms = new ArrayList<>(terms);
+			this.otherTerms.remove(leadingTerm);
+			double maxScore = 0;
+			for (Term term : otherTerms) {
+				maxScore += term.getMaxScore();
+			}
+			this.maxScoreOfOtherTerms = maxScore;
+			this.maxNumberOfResults = maxNumberOfResults;
+		}
+
+		boolean canBeImprovedBy(double maxScoreOfLeadingTerm) {
+			return bestResults.size() < maxNumberOfResults
+					|| bestResults.peek().score <= maxScoreOfLeadingTerm + maxScoreOfOtherTerms;
+		}
+
+		/**
+		 * Ranks the candidates matching all other terms too, in the order of their
+		 * names, until no further candidate can get into the results.
+		 */
+		void addCandidates(Matches matchesOfLeadingTerm) {
+			if (!canBeImprovedBy(matchesOfLeadingTerm.score)) {
+				return;
+			}
+			double maxScore = matchesOfLeadingTerm.score + maxScoreOfOtherTerms;
+			SortedEntries candidates = new SortedEntries(matchesOfLeadingTerm.entries);
+			List<SortedEntries> entriesMatchingOtherTerms = new ArrayList<>();
+			for (Term term : otherTerms) {
+				entriesMatchingOtherTerms.add(new SortedEntries(term.getAllEntries()));
+			}
+			Entry candidate;
+			while ((candidate = candidates.current()) != null) {
+				if (bestResults.size() == maxNumberOfResults && !bestResults.peek()
+						.canBeBeatenBy(maxScore, candidate)) {
+					// the following candidates come later by name, so none of them can win
+					return;
+				}
+				Entry nextEntryMatchingAllTerms = candidate;
+				for (SortedEntries entriesMatchingTerm : entriesMatchingOtherTerms) {
+					entriesMatchingTerm.skipTo(nextEntryMatchingAllTerms);
+					if (entriesMatchingTerm.current() == null) {
+						return;
+					}
+					if (ORDER_OF_NAMES.compare(entriesMatchingTerm.current(), nextEntryMatchingAllTerms) > 0) {
+						nextEntryMatchingAllTerms = entriesMatchingTerm.current();
+					}
+				}
+				if (nextEntryMatchingAllTerms != candidate) {
+					candidates.skipTo(nextEntryMatchingAllTerms);
+					continue;
+				}
+				candidates.advance();
+				if (checkedEntries.add(candidate)) {
+					rank(candidate);
+				}
+			}
+		}
+
+		private void rank(Entry entry) {
+			double score = 0;
+			for (Term term : terms) {
+				double scoreOfTerm = term.score(entry);
+				if (scoreOfTerm == 0) {
+					return;
+				}
+				score += scoreOfTerm;
+			}
+			bestResults.add(new Result(entry, score));
+			if (bestResults.size() > maxNumberOfResults) {
+				bestResults.poll();
+			}
+		}
+
+		List<Customer> getCustomers() {
+			List<Result> results = new ArrayList<>(bestResults);
+			results.sort(Result.BEST_FIRST);
+			List<Customer> customers = new ArrayList<>(results.size());
+			for (Result result : results) {
+				customers.add(result.entry.customer);
+			}
+			return customers;
+		}
+	}
+
+	/**
+	 * The entries of one key, sorted by name. The size is counted, because the
+	 * sorted set would have to count its elements.
+	 */
+	private static final class Postings {
+
+		private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER_OF_NAMES);
+		private final AtomicInteger size = new AtomicInteger();
+
+		void add(Entry entry) {
+			if (entries.add(entry)) {
+				size.incrementAndGet();
+			}
+		}
+
+		boolean remove(Entry entry) {
+			if (entries.remove(entry)) {
+				size.decrementAndGet();
+				return true;
+			}
+			return false;
+		}
+
+		int size() {
+			return size.get();
+		}
+	}
+
+	/**
+	 * Entries matching a term with the same score (at most).
+	 */
+	private static final class Matches {
+
+		private final double score;
+		private final List<Postings> entries;
+
+		Matches(double score, List<Postings> entries) {
+			this.score = score;
+			this.entries = entries;
+		}
+
+		int size() {
+			int size = 0;
+			for (Postings entriesOfKey : entries) {
+				size += entriesOfKey.size();
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Reads the entries of several postings merged in the order of their names.
+	 * An entry contained in more than one of them is read more than once.
+	 */
+	private static final class SortedEntries {
+
+		private final PriorityQueue<Cursor> cursors;
+
+		SortedEntries(List<Postings> postings) {
+			cursors = new PriorityQueue<>(Math.max(1, postings.size()),
+					(first, second) -> ORDER_OF_NAMES.compare(first.entry, second.entry));
+			for (Postings entriesOfKey : postings) {
+				Cursor cursor = new Cursor(entriesOfKey.entries);
+				if (cursor.advance()) {
+					cursors.add(cursor);
+				}
+			}
+		}
+
+		/**
+		 * @return - the current entry, null after the last one
+		 */
+		Entry current() {
+			Cursor cursor = cursors.peek();
+			return cursor == null ? null : cursor.entry;
+		}
+
+		void advance() {
+			Cursor cursor = cursors.poll();
+			if (cursor != null && cursor.advance()) {
+				cursors.add(cursor);
+			}
+		}
+
+		/**
+		 * Skips the entries before the given one by name.
+		 */
+		void skipTo(Entry entry) {
+			while (!cursors.isEmpty() && ORDER_OF_NAMES.compare(cursors.peek().entry, entry) < 0) {
+				Cursor cursor = cursors.poll();
+				if (cursor.skipTo(entry)) {
+					cursors.add(cursor);
+				}
+			}
+		}
+	}
+
+	private static final class Cursor {
+
+		private final NavigableSet<Entry> entries;
+		private Iterator<Entry> iterator;
+		private Entry entry;
+
+		Cursor(NavigableSet<Entry> entries) {
+			this.entries = entries;
+			this.iterator = entries.iterator();
+		}
+
+		boolean advance() {
+			entry = iterator.hasNext() ? iterator.next() : null;
+			return entry != null;
+		}
+
+		boolean skipTo(Entry entry) {
+			iterator = entries.tailSet(entry, true)
+					.iterator();
+			return advance();
+		}
+	}
+
+	private interface Term {
+
+		/**
+		 * @return - the entries matching the term, the best matches first, but
+		 *         without the misspellings of it
+		 */
+		List<Matches> getMatches();
+
+		/**
+		 * @return - the entries matching a misspelling of the term, which are only
+		 *         looked for if they are needed
+		 */
+		default List<Matches> getMatchesOfMisspellings() {
+			return Collections.emptyList();
+		}
+
+		default List<Postings> getAllEntries() {
+			List<Postings> allEntries = new ArrayList<>();
+			for (Matches matches : getMatches()) {
+				allEntries.addAll(matches.entries);
+			}
+			for (Matches matches : getMatchesOfMisspellings()) {
+				allEntries.addAll(matches.entries);
+			}
+			return allEntries;
+		}
+
+		/**
+		 * @return - the number of customers matching the term, only counting the
+		 *         misspellings if nothing else matches
+		 */
+		default int getNumberOfMatches() {
+			int numberOfMatches = 0;
+			for (Matches matches : getMatches()) {
+				numberOfMatches += matches.size();
+			}
+			if (numberOfMatches == 0) {
+				for (Matches matches : getMatchesOfMisspellings()) {
+					numberOfMatches += matches.size();
+				}
+			}
+			return numberOfMatches;
+		}
+
+		/**
+		 * @return - the best score any indexed customer gets for the term
+		 */
+		default double getMaxScore() {
+			List<Matches> matches = getMatches().isEmpty() ? getMatchesOfMisspellings() : getMatches();
+			return matches.isEmpty() ? 0 : matches.get(0).score;
+		}
+
+		/**
+		 * @return - how well the given entry matches the term, 0 if it doesn't
+		 */
+		double score(Entry entry);
+	}
+
+	private final class WordTerm implements Term {
+
+		private final String word;
+		private final List<Matches> matches = new ArrayList<>();
+		private final int numberOfMatches;
+		private Map<String, Double> similarWords;
+		private List<Matches> matchesOfMisspellings;
+
+		WordTerm(String word) {
+			this.word = word;
+			Postings entriesWithWord = entriesByWord.get(word);
+			if (entriesWithWord != null) {
+				matches.add(new Matches(SCORE_OF_WORD, Collections.singletonList(entriesWithWord)));
+			}
+			List<Postings> entriesWithWordsBeginningWithIt = new ArrayList<>(entriesByWord
+					.subMap(word, false, word + Character.MAX_VALUE, false)
+					.values());
+			if (!entriesWithWordsBeginningWithIt.isEmpty()) {
+				matches.add(new Matches(SCORE_OF_BEGINNING_OF_WORD, entriesWithWordsBeginningWithIt));
+			}
+			this.numberOfMatches = Term.super.getNumberOfMatches();
+		}
+
+		@Override
+		public List<Matches> getMatches() {
+			return matches;
+		}
+
+		@Override
+		public List<Matches> getMatchesOfMisspellings() {
+			if (matchesOfMisspellings == null) {
+				// the most similar words first, so the less similar ones are often not read
+				NavigableMap<Double, List<Postings>> entriesBySimilarity = new TreeMap<>(Collections.reverseOrder());
+				for (Map.Entry<String, Double> similarWord : getSimilarWords().entrySet()) {
+					Postings entriesWithSimilarWord = entriesByWord.get(similarWord.getKey());
+					if (entriesWithSimilarWord != null) {
+						entriesBySimilarity.computeIfAbsent(similarWord.getValue(), similarity -> new ArrayList<>())
+								.add(entriesWithSimilarWord);
+					}
+				}
+				matchesOfMisspellings = new ArrayList<>();
+				for (Map.Entry<Double, List<Postings>> entriesWithSimilarity : entriesBySimilarity.entrySet()) {
+					matchesOfMisspellings.add(new Matches(entriesWithSimilarity.getKey(), entriesWithSimilarity
+							.getValue()));
+				}
+			}
+			return matchesOfMisspellings;
+		}
+
+		@Override
+		public int getNumberOfMatches() {
+			return numberOfMatches;
+		}
+
+		@Override
+		public double score(Entry entry) {
+			double bestScore = 0;
+			for (String wordOfCustomer : entry.words) {
+				if (wordOfCustomer.equals(word)) {
+					return SCORE_OF_WORD;
+				} else if (wordOfCustomer.startsWith(word)) {
+					bestScore = SCORE_OF_BEGINNING_OF_WORD;
+				}
+			}
+			if (bestScore > 0) {
+				return bestScore;
+			}
+			for (String wordOfCustomer : entry.words) {
+				bestScore = Math.max(bestScore, getSimilarWords().getOrDefault(wordOfCustomer, 0.0));
+			}
+			return bestScore;
+		}
+
+		private Map<String, Double> getSimilarWords() {
+			if (similarWords == null) {
+				similarWords = findSimilarWords(word);
+			}
+			return similarWords;
+		}
+	}
+
+	private final class NumberTerm implements Term {
+
+		private final String digits;
+		private final List<Matches> matches = new ArrayList<>();
+
+		NumberTerm(String digits) {
+			this.digits = digits;
+			Postings entriesWithPhoneNumber = entriesByPhoneNumber.get(digits);
+			if (entriesWithPhoneNumber != null) {
+				matches.add(new Matches(SCORE_OF_CONTACT_DETAIL, Collections.singletonList(entriesWithPhoneNumber)));
+			}
+			if (digits.length() <= MAX_LENGTH_OF_POSTAL_CODE) {
+				Postings entriesWithPostalCode = entriesByPostalCode.get(digits);
+				if (entriesWithPostalCode != null) {
+					matches.add(new Matches(SCORE_OF_POSTAL_CODE, Collections.singletonList(entriesWithPostalCode)));
+				}
+				List<Postings> entriesWithPostalCodesBeginningWithIt = new ArrayList<>(entriesByPostalCode
+						.subMap(digits, false, digits + Character.MAX_VALUE, false)
+						.values());
+				if (!entriesWithPostalCodesBeginningWithIt.isEmpty()) {
+					matches.add(new Matches(SCORE_OF_BEGINNING_OF_POSTAL_CODE, entriesWithPostalCodesBeginningWithIt));
+				}
+			}
+		}
+
+		@Override
+		public List<Matches> getMatches() {
+			return matches;
+		}
+
+		@Override
+		public double score(Entry entry) {
+			if (digits.equals(entry.phoneNumber)) {
+				return SCORE_OF_CONTACT_DETAIL;
+			} else if (digits.length() > MAX_LENGTH_OF_POSTAL_CODE) {
+				return 0;
+			} else if (entry.postalCode.equals(digits)) {
+				return SCORE_OF_POSTAL_CODE;
+			} else if (entry.postalCode.startsWith(digits)) {
+				return SCORE_OF_BEGINNING_OF_POSTAL_CODE;
+			}
+			return 0;
+		}
+	}
+
+	private final class EmailTerm implements Term {
+
+		private final String email;
+		private final List<Matches> matches;
+
+		EmailTerm(String email) {
+			this.email = email;
+			Postings entriesWithEmail = entriesByEmail.get(email);
+			this.matches = entriesWithEmail == null ? Collections.emptyList()
+					: Collections.singletonList(new Matches(SCORE_OF_CONTACT_DETAIL,
+							Collections.singletonList(entriesWithEmail)));
+		}
+
+		@Override
+		public List<Matches> getMatches() {
+			return matches;
+		}
+
+		@Override
+		public double score(Entry entry) {
+			return email.equals(entry.email) ? SCORE_OF_CONTACT_DETAIL : 0;
+		}
+	}
+}
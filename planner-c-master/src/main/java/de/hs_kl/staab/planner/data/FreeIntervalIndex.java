@@ -0,0 +1,166 @@
+package de.hs_kl.staab.planner.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.EpochMinutes;
+
+/**
+ * Index over the free time spans of ONE resource, i.e. the gaps between the
+ * appointments of an {@link AppointmentTimeline}. The first free time span is
+ * open to the past and the last one to the future. All points in time are
+ * epoch minutes (see {@link EpochMinutes}).
+ *
+ * Besides by their begin, the free time spans are grouped by their length into
+ * classes of powers of two. Every free time span of a class longer than the
+ * class of a searched duration is long enough, so searching the first free time
+ * span of a given length only has to look at the first entry of these classes
+ * and scan the class of the duration itself.
+ *
+ * Reading is possible at any time without locking, but while another thread
+ * changes the index, a free time span may be missing for a moment. Changing is
+ * only allowed while holding the lock of the resource, like for the timeline.
+ */
+class FreeIntervalIndex {
+
+	private static final int NUMBER_OF_LENGTH_CLASSES = Long.SIZE + 1;
+
+	// begin -> end of every free time span
+	private final NavigableMap<Long, Long> freeTimeSpans = new ConcurrentSkipListMap<>();
+	private final List<NavigableMap<Long, Long>> freeTimeSpansByLengthClass = new ArrayList<>(
+			NUMBER_OF_LENGTH_CLASSES);
+
+	FreeIntervalIndex() {
+		for (int lengthClass = 0; lengthClass < NUMBER_OF_LENGTH_CLASSES; lengthClass++) {
+			freeTimeSpansByLengthClass.add(new ConcurrentSkipListMap<>());
+		}
+		addFreeTimeSpan(EpochMinutes.MIN, EpochMinutes.MAX);
+	}
+
+	/**
+	 * @return - the earliest begin at or after earliestBegin, from which on the
+	 *         resource is free for the given number of minutes, or
+	 *         Long.MAX_VALUE if there is none
+	 */
+	long getBeginOfFirstFreeTimeSpan(long earliestBegin, long durationInMinutes) {
+		Map.Entry<Long, Long> freeTimeSpanAtEarliestBegin = freeTimeSpans.floorEntry(earliestBegin);
+		if (freeTimeSpanAtEarliestBegin != null
+				&& isLongEnough(earliestBegin, freeTimeSpanAtEarliestBegin.getValue(), durationInMinutes)) {
+			return earliestBegin;
+		}
+		long firstBegin = Long.MAX_VALUE;
+		int lengthClassOfDuration = getLengthClass(durationInMinutes);
+		for (int lengthClass = lengthClassOfDuration + 1; lengthClass < NUMBER_OF_LENGTH_CLASSES; lengthClass++) {
+			Long begin = freeTimeSpansByLengthClass.get(lengthClass)
+					.ceilingKey(earliestBegin);
+			if (begin != null && begin < firstBegin) {
+				firstBegin = begin;
+			}
+		}
+		for (Map.Entry<Long, Long> freeTimeSpan : freeTimeSpansByLengthClass.get(lengthClassOfDuration)
+				.tailMap(earliestBegin, true)
+				.entrySet()) {
+			if (freeTimeSpan.getKey() >= firstBegin) {
+				break;
+			}
+			if (isLongEnough(freeTimeSpan.getKey(), freeTimeSpan.getValue(), durationInMinutes)) {
+				firstBegin = freeTimeSpan.getKey();
+				break;
+			}
+		}
+		return firstBegin;
+	}
+
+	/**
+	 * Marks the time span from begin to end as occupied.
+	 */
+	void occupy(long begin, long end) {
+		if (end <= begin) {
+			return;
+		}
+		long beginOfFirstAffectedFreeTimeSpan = begin;
+		Map.Entry<Long, Long> freeTimeSpanBeforeBegin = freeTimeSpans.lowerEntry(begin);
+		if (freeTimeSpanBeforeBegin != null && freeTimeSpanBeforeBegin.getValue() > begin) {
+			beginOfFirstAffectedFreeTimeSpan = freeTimeSpanBeforeBegin.getKey();
+		}
+		for (Map.Entry<Long, Long> freeTimeSpan : new ArrayList<>(
+				freeTimeSpans.subMap(beginOfFirstAffectedFreeTimeSpan, true, end, false)
+						.entrySet())) {
+			removeFreeTimeSpan(freeTimeSpan.getKey(), freeTimeSpan.getValue());
+			if (freeTimeSpan.getKey() < begin) {
+				addFreeTimeSpan(freeTimeSpan.getKey(), begin);
+			}
+			if (freeTimeSpan.getValue() > end) {
+				addFreeTimeSpan(end, freeTimeSpan.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Marks the time span from begin to end as free, except for the parts still
+	 * occupied by the given appointments.
+	 *
+	 * @param stillOccupyingAppointments - the remaining appointments overlapping
+	 *                                   the time span, sorted by their begin
+	 */
+	void release(long begin, long end, List<Appointment> stillOccupyingAppointments) {
+		long beginOfNextFreePart = begin;
+		for (Appointment appointment : stillOccupyingAppointments) {
+			if (beginOfNextFreePart >= end) {
+				break;
+			}
+			if (appointment.getAppointmentBeginEpochMinute() > beginOfNextFreePart) {
+				mergeFreeTimeSpan(beginOfNextFreePart, Math.min(appointment.getAppointmentBeginEpochMinute(), end));
+			}
+			if (appointment.getAppointmentEndEpochMinute() > beginOfNextFreePart) {
+				beginOfNextFreePart = appointment.getAppointmentEndEpochMinute();
+			}
+		}
+		if (beginOfNextFreePart < end) {
+			mergeFreeTimeSpan(beginOfNextFreePart, end);
+		}
+	}
+
+	private void mergeFreeTimeSpan(long begin, long end) {
+		Map.Entry<Long, Long> freeTimeSpanBefore = freeTimeSpans.lowerEntry(begin);
+		if (freeTimeSpanBefore != null && freeTimeSpanBefore.getValue() >= begin) {
+			removeFreeTimeSpan(freeTimeSpanBefore.getKey(), freeTimeSpanBefore.getValue());
+			begin = freeTimeSpanBefore.getKey();
+			end = Math.max(end, freeTimeSpanBefore.getValue());
+		}
+		for (Map.Entry<Long, Long> freeTimeSpanAfter : new ArrayList<>(freeTimeSpans.subMap(begin, true, end, true)
+				.entrySet())) {
+			removeFreeTimeSpan(freeTimeSpanAfter.getKey(), freeTimeSpanAfter.getValue());
+			end = Math.max(end, freeTimeSpanAfter.getValue());
+		}
+		addFreeTimeSpan(begin, end);
+	}
+
+	private void addFreeTimeSpan(long begin, long end) {
+		freeTimeSpans.put(begin, end);
+		freeTimeSpansByLengthClass.get(getLengthClass(end - begin))
+				.put(begin, end);
+	}
+
+	private void removeFreeTimeSpan(long begin, long end) {
+		freeTimeSpans.remove(begin);
+		freeTimeSpansByLengthClass.get(getLengthClass(end - begin))
+				.remove(begin);
+	}
+
+	/**
+	 * Class 0 would hold empty time spans, which are never stored, class k > 0
+	 * time spans from 2^(k-1) to 2^k - 1 minutes.
+	 */
+	private static int getLengthClass(long lengthInMinutes) {
+		return Long.SIZE - Long.numberOfLeadingZeros(lengthInMinutes);
+	}
+
+	private static boolean isLongEnough(long begin, long end, long durationInMinutes) {
+		return durationInMinutes <= end - begin;
+	}
+}
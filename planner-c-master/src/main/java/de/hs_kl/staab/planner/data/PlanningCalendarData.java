@@ -7,24 +7,964 @@ package de.hs_kl.staab.planner.data;
 /* * mit den Terminen, etc. ***************************** * */
 /* ******************************************************** */
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.CleaningAppointment;
+import de.hs_kl.staab.planner.CleaningAppointmentType;
+import de.hs_kl.staab.planner.ConsultingAppointment;
+import de.hs_kl.staab.planner.EpochMinutes;
+import de.hs_kl.staab.planner.User;
+import de.hs_kl.staab.planner.Vehicle;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.data.ResourceLocks.LockedResources;
 
+/**
+ * Holds all appointments of the calendar. Reading is possible from any thread
+ * without locking. Adding or removing an appointment is only allowed while
+ * holding the locks of all resources it occupies (see
+ * {@link #lockResourcesOf(Appointment, Object...)}), so checking for conflicts
+ * and adding the appointment afterwards happens atomically.
+ *
+ * Every change is published as {@link CalendarChange} to the listeners added
+ * with {@link #addChangeListener(Consumer)}, so nobody has to poll the
+ * calendar to keep a view of it up to date.
+ */
 public class PlanningCalendarData {
 
-	private Set<Appointment> allAppointments = new HashSet<>();
+	private Set<Appointment> allAppointments = ConcurrentHashMap.newKeySet();
+	private Map<String, Appointment> appointmentsById = new ConcurrentHashMap<>();
+
+	// secondary indexes by type and by status of the working appointments, so
+	// nobody has to filter all appointments with instanceof; the read-only views
+	// are created once and handed out without copying
+	private final Set<WorkingAppointment> workingAppointments = ConcurrentHashMap.newKeySet();
+	private final Set<ConsultingAppointment> consultingAppointments = ConcurrentHashMap.newKeySet();
+	private final Set<CleaningAppointment> cleaningAppointments = ConcurrentHashMap.newKeySet();
+	private final Map<WorkingAppointmentStatus, Set<WorkingAppointment>> workingAppointmentsByStatus = new EnumMap<>(
+			WorkingAppointmentStatus.class);
+	private final Set<WorkingAppointment> viewOfWorkingAppointments = Collections
+			.unmodifiableSet(workingAppointments);
+	private final Set<ConsultingAppointment> viewOfConsultingAppointments = Collections
+			.unmodifiableSet(consultingAppointments);
+	private final Set<CleaningAppointment> viewOfCleaningAppointments = Collections
+			.unmodifiableSet(cleaningAppointments);
+	private final Map<WorkingAppointmentStatus, Set<WorkingAppointment>> viewsOfStatusIndexes = new EnumMap<>(
+			WorkingAppointmentStatus.class);
+
+	// reverse index from a vehicle to its working appointments in this calendar;
+	// like the buckets of the days, a set is never removed once created. The
+	// finished ones are also kept in the history of the vehicle itself, which
+	// collects them from the calendars of all locations.
+	private final Map<Vehicle, Set<WorkingAppointment>> workingAppointmentsByVehicle = new ConcurrentHashMap<>();
+
+	// every day has its own bucket of appointments beginning on that day, always
+	// sorted by begin (the ID only separates appointments with the same begin), so
+	// the daily and weekly overviews only have to read the buckets they show. The
+	// days are sorted too, so all appointments can be read in order page by page.
+	// A bucket is never removed once created, otherwise an appointment added to it
+	// concurrently could get lost.
+	private static final Comparator<Appointment> ORDER_OF_DAY = Comparator
+			.comparingLong(Appointment::getAppointmentBeginEpochMinute)
+			.thenComparing(Appointment::getAppointmentId);
+	private NavigableMap<LocalDate, NavigableSet<Appointment>> appointmentsByDay = new ConcurrentSkipListMap<>();
+
+	// every resource has its own timeline, so conflict checks only have to look at
+	// the appointments of the affected working platform or user
+	private Map<WorkingPlatform, AppointmentTimeline> timelinesOfWorkingPlatforms = new ConcurrentHashMap<>();
+	private Map<User, AppointmentTimeline> timelinesOfUsers = new ConcurrentHashMap<>();
+
+	private final ResourceLocks resourceLocks = new ResourceLocks();
+
+	private final List<Consumer<CalendarChange>> changeListeners = new CopyOnWriteArrayList<>();
+	private final AtomicLong numberOfChanges = new AtomicLong();
+
+	public PlanningCalendarData() {
+		for (WorkingAppointmentStatus status : WorkingAppointmentStatus.values()) {
+			Set<WorkingAppointment> workingAppointmentsWithStatus = ConcurrentHashMap.newKeySet();
+			workingAppointmentsByStatus.put(status, workingAppointmentsWithStatus);
+			viewsOfStatusIndexes.put(status, Collections.unmodifiableSet(workingAppointmentsWithStatus));
+		}
+	}
 
 	public Set<Appointment> getAllAppointments() {
-		return allAppointments;
+		return Collections.unmodifiableSet(allAppointments);
+	}
+
+	/**
+	 * @return - read-only view of all working appointments, it shows later
+	 *         changes of the calendar and must not be modified
+	 */
+	public Set<WorkingAppointment> getAllWorkingAppointments() {
+		return viewOfWorkingAppointments;
+	}
+
+	/**
+	 * @return - read-only view of all consulting appointments
+	 */
+	public Set<ConsultingAppointment> getAllConsultingAppointments() {
+		return viewOfConsultingAppointments;
+	}
+
+	/**
+	 * @return - read-only view of all cleaning appointments
+	 */
+	public Set<CleaningAppointment> getAllCleaningAppointments() {
+		return viewOfCleaningAppointments;
+	}
+
+	/**
+	 * @return - read-only view of the working appointments on the given vehicle,
+	 *         of any status (may be empty)
+	 */
+	public Set<WorkingAppointment> getWorkingAppointmentsOfVehicle(Vehicle vehicle) {
+		Set<WorkingAppointment> workingAppointmentsOfVehicle = workingAppointmentsByVehicle.get(vehicle);
+		if (workingAppointmentsOfVehicle == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(workingAppointmentsOfVehicle);
+	}
+
+	/**
+	 * @return - read-only view of the working appointments with the given status
+	 */
+	public Set<WorkingAppointment> getWorkingAppointmentsWithStatus(WorkingAppointmentStatus status) {
+		return viewsOfStatusIndexes.get(status);
+	}
+
+	public Optional<Appointment> getAppointmentById(String appointmentId) {
+		return Optional.ofNullable(appointmentsById.get(appointmentId));
+	}
+
+	/**
+	 * @return - List of all appointments beginning on the given day, sorted by
+	 *         their begin (may be empty)
+	 */
+	public List<Appointment> getAppointmentsOfDay(LocalDate day) {
+		NavigableSet<Appointment> appointmentsOfDay = appointmentsByDay.get(day);
+		if (appointmentsOfDay == null) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(appointmentsOfDay);
+	}
+
+	/**
+	 * Reads the appointments lazily day by day, so it is cheap to stop after the
+	 * first few of them.
+	 * 
+	 * @param begin         - begin of the last appointment already read, or null
+	 *                      to start with the first appointment
+	 * @param appointmentId - ID of the last appointment already read
+	 * @return - Stream of all appointments after the given one, sorted by their
+	 *         begin and ID
+	 */
+	public Stream<Appointment> getAppointmentsInOrderAfter(LocalDateTime begin, String appointmentId) {
+		if (begin == null) {
+			return appointmentsByDay.values()
+					.stream()
+					.flatMap(NavigableSet::stream);
+		}
+		long beginEpochMinute = EpochMinutes.of(begin);
+		return appointmentsByDay.tailMap(begin.toLocalDate(), true)
+				.values()
+				.stream()
+				.flatMap(NavigableSet::stream)
+				.filter(appointment -> appointment.getAppointmentBeginEpochMinute() > beginEpochMinute
+						|| appointment.getAppointmentBeginEpochMinute() == beginEpochMinute
+								&& appointment.getAppointmentId()
+										.compareTo(appointmentId) > 0);
+	}
+
+	/**
+	 * Reads the appointments lazily day by day like
+	 * {@link #getAppointmentsInOrderAfter(LocalDateTime, String)}, so a long
+	 * range never has to be copied at once.
+	 * 
+	 * @return - Stream of the appointments beginning on one of the days from
+	 *         firstDay to lastDay (both inclusive), sorted by their begin and ID
+	 */
+	public Stream<Appointment> getAppointmentsBeginningBetween(LocalDate firstDay, LocalDate lastDay) {
+		return appointmentsByDay.subMap(firstDay, true, lastDay, true)
+				.values()
+				.stream()
+				.flatMap(NavigableSet::stream);
 	}
 
+	/**
+	 * @param weekBasedYear - the year the ISO week belongs to, which differs from
+	 *                      the calendar year for some days around new year
+	 * @param isoWeek       - week of the year according to ISO 8601, beginning on
+	 *                      Monday
+	 * @return - List of all appointments beginning in the given week, sorted by
+	 *         their begin (may be empty)
+	 * @throws DateTimeException if the year has no such week
+	 */
+	public List<Appointment> getAppointmentsOfWeek(int weekBasedYear, int isoWeek) {
+		LocalDate mondayOfWeek = getMondayOfWeek(weekBasedYear, isoWeek);
+		List<Appointment> appointmentsOfWeek = new ArrayList<>();
+		for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+			NavigableSet<Appointment> appointmentsOfDay = appointmentsByDay.get(mondayOfWeek.plusDays(dayOfWeek));
+			if (appointmentsOfDay != null) {
+				appointmentsOfWeek.addAll(appointmentsOfDay);
+			}
+		}
+		return appointmentsOfWeek;
+	}
+
+	/**
+	 * @throws DateTimeException if the year has no such week
+	 */
+	public static LocalDate getMondayOfWeek(int weekBasedYear, int isoWeek) {
+		// the 4th of January always belongs to the first week of its year
+		LocalDate dayOfFirstWeek = LocalDate.of(weekBasedYear, 1, 4);
+		// with(...) would silently move week 53 of a year with 52 weeks into the next
+		dayOfFirstWeek.range(WeekFields.ISO.weekOfWeekBasedYear())
+				.checkValidValue(isoWeek, WeekFields.ISO.weekOfWeekBasedYear());
+		return dayOfFirstWeek.with(WeekFields.ISO.weekOfWeekBasedYear(), isoWeek)
+				.with(WeekFields.ISO.dayOfWeek(), 1);
+	}
+
+	/**
+	 * Adds the appointment to the calendar, to the timelines of all resources it
+	 * occupies and to the bucket of its day. If the begin, the end or a resource
+	 * of a stored appointment should be changed, use
+	 * {@link #updateAppointmentInPlanningCalendar(Appointment, Runnable)}.
+	 */
 	public void addAppointmentToPlanningCalendar(Appointment appointmentToAdd) {
-		this.allAppointments.add(appointmentToAdd);
+		if (addAppointment(appointmentToAdd)) {
+			publishChange(CalendarChange.Kind.CREATED, appointmentToAdd, getResourcesOf(appointmentToAdd));
+		}
+	}
+
+	/**
+	 * Removes the appointment from the calendar. The caller has to hold the locks
+	 * of its resources.
+	 * 
+	 * @return - false if the appointment isn't stored (anymore), e.g. because it
+	 *         was removed or archived by another thread in the meantime
+	 */
+	public boolean removeAppointmentFromAppointmentData(Appointment appointmentToRemove) {
+		if (removeAppointment(appointmentToRemove)) {
+			publishChange(CalendarChange.Kind.REMOVED, appointmentToRemove, getResourcesOf(appointmentToRemove));
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Changes the begin, the end or the resources of a stored appointment. The
+	 * appointment is removed while the change is made and added again afterwards,
+	 * so the timelines and the buckets of the days stay sorted. The caller has to
+	 * hold the locks of the old and the new resources.
+	 * 
+	 * @param change - changes the appointment, e.g. by calling its setters
+	 * @return - false if the appointment isn't stored (anymore), the change is not
+	 *         made then
+	 */
+	public boolean updateAppointmentInPlanningCalendar(Appointment appointmentToUpdate, Runnable change) {
+		Object[] resourcesBeforeChange = getResourcesOf(appointmentToUpdate);
+		if (!removeAppointment(appointmentToUpdate)) {
+			return false;
+		}
+		change.run();
+		if (addAppointment(appointmentToUpdate)) {
+			Object[] resourcesAfterChange = getResourcesOf(appointmentToUpdate);
+			Object[] affectedResources = Arrays.copyOf(resourcesBeforeChange,
+					resourcesBeforeChange.length + resourcesAfterChange.length);
+			System.arraycopy(resourcesAfterChange, 0, affectedResources, resourcesBeforeChange.length,
+					resourcesAfterChange.length);
+			publishChange(CalendarChange.Kind.UPDATED, appointmentToUpdate, affectedResources);
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the status of a stored working appointment, moves it to the index of
+	 * its new status, adds it to or removes it from the history of its vehicle
+	 * and publishes the change. The caller has to hold the locks of its
+	 * resources.
+	 * 
+	 * @return - false if the appointment isn't stored (anymore), its status is
+	 *         not changed then
+	 */
+	public boolean changeStatusOfWorkingAppointment(WorkingAppointment workingAppointment,
+			WorkingAppointmentStatus newStatus) {
+		if (!allAppointments.contains(workingAppointment)) {
+			return false;
+		}
+		workingAppointmentsByStatus.get(workingAppointment.getStatus())
+				.remove(workingAppointment);
+		workingAppointment.setStatus(newStatus);
+		workingAppointmentsByStatus.get(newStatus)
+				.add(workingAppointment);
+		updateHistoryOfVehicle(workingAppointment);
+		publishChange(CalendarChange.Kind.STATUS_CHANGED, workingAppointment, getResourcesOf(workingAppointment));
+		return true;
+	}
+
+	/**
+	 * The listener is called by the thread that changed the calendar, while it
+	 * still holds the locks of the changed resources. So it must return quickly
+	 * and must not change the calendar itself. Changes of different resources
+	 * are published concurrently.
+	 */
+	public void addChangeListener(Consumer<CalendarChange> listener) {
+		changeListeners.add(listener);
+	}
+
+	public void removeChangeListener(Consumer<CalendarChange> listener) {
+		changeListeners.remove(listener);
+	}
+
+	/**
+	 * Copies the appointment while the locks of its resources are still held, so
+	 * listeners can read the copy later from any thread without seeing a half
+	 * done change or a later one.
+	 */
+	private static Appointment copyOf(Appointment appointment) {
+		if (appointment instanceof WorkingAppointment) {
+			WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+			WorkingAppointment workingAppointmentCopy = new WorkingAppointment(workingAppointment.getAppointmentId(),
+					new HashSet<>(workingAppointment.getWorksToPerform()),
+					workingAppointment.getCustomerRelatedToWorkingAppointment(), workingAppointment.getVehicleToWorkOn(),
+					workingAppointment.getWorkingPlatformRelatedToWorkingAppointment(),
+					workingAppointment.getAppointmentBeginDateAndTime(),
+					workingAppointment.getResponsibleCarMechanicUser());
+			workingAppointmentCopy.setStatus(workingAppointment.getStatus());
+			return workingAppointmentCopy;
+		} else if (appointment instanceof ConsultingAppointment) {
+			ConsultingAppointment consultingAppointment = (ConsultingAppointment) appointment;
+			return new ConsultingAppointment(consultingAppointment.getAppointmentId(),
+					consultingAppointment.getCustomerRelatedToConsultingAppointment(),
+					consultingAppointment.getConsultingAppointmentDuration(),
+					consultingAppointment.getAppointmentBeginDateAndTime(),
+					consultingAppointment.getResponsibleClientAdvisorUser());
+		} else if (appointment instanceof CleaningAppointment) {
+			CleaningAppointment cleaningAppointment = (CleaningAppointment) appointment;
+			return new CleaningAppointment(cleaningAppointment.getAppointmentId(),
+					CleaningAppointmentType.valueOf(cleaningAppointment.getCleaningAppointmentType()
+							.toUpperCase()),
+					cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment(),
+					cleaningAppointment.getAppointmentBeginDateAndTime(),
+					cleaningAppointment.getResponsibleDispatcherUser());
+		} else {
+			throw new IllegalArgumentException("ERROR: Unknown type of appointment " + appointment.getAppointmentId());
+		}
+	}
+
+	private void publishChange(CalendarChange.Kind kind, Appointment appointment, Object[] affectedResources) {
+		if (changeListeners.isEmpty()) {
+			return;
+		}
+		CalendarChange change = new CalendarChange(numberOfChanges.incrementAndGet(), kind, copyOf(appointment),
+				affectedResources);
+		for (Consumer<CalendarChange> listener : changeListeners) {
+			try {
+				listener.accept(change);
+			} catch (RuntimeException e) {
+				// the calendar is already changed, a broken listener must not hide that
+				System.err.println("ERROR: A listener failed on " + change + ": " + e);
+			}
+		}
+	}
+
+	private boolean addAppointment(Appointment appointmentToAdd) {
+		if (this.allAppointments.add(appointmentToAdd)) {
+			this.appointmentsById.put(appointmentToAdd.getAppointmentId(), appointmentToAdd);
+			this.appointmentsByDay.computeIfAbsent(getDayOf(appointmentToAdd),
+					day -> new ConcurrentSkipListSet<>(ORDER_OF_DAY))
+					.add(appointmentToAdd);
+			for (AppointmentTimeline timeline : getTimelinesOf(appointmentToAdd, true)) {
+				timeline.addAppointment(appointmentToAdd);
+			}
+			if (appointmentToAdd instanceof WorkingAppointment) {
+				WorkingAppointment workingAppointmentToAdd = (WorkingAppointment) appointmentToAdd;
+				this.workingAppointments.add(workingAppointmentToAdd);
+				this.workingAppointmentsByStatus.get(workingAppointmentToAdd.getStatus())
+						.add(workingAppointmentToAdd);
+				this.workingAppointmentsByVehicle.computeIfAbsent(workingAppointmentToAdd.getVehicleToWorkOn(),
+						vehicle -> ConcurrentHashMap.newKeySet())
+						.add(workingAppointmentToAdd);
+				updateHistoryOfVehicle(workingAppointmentToAdd);
+			} else if (appointmentToAdd instanceof ConsultingAppointment) {
+				this.consultingAppointments.add((ConsultingAppointment) appointmentToAdd);
+			} else if (appointmentToAdd instanceof CleaningAppointment) {
+				this.cleaningAppointments.add((CleaningAppointment) appointmentToAdd);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private boolean removeAppointment(Appointment appointmentToRemove) {
+		if (this.allAppointments.remove(appointmentToRemove)) {
+			this.appointmentsById.remove(appointmentToRemove.getAppointmentId());
+			NavigableSet<Appointment> appointmentsOfDay = this.appointmentsByDay.get(getDayOf(appointmentToRemove));
+			if (appointmentsOfDay != null) {
+				appointmentsOfDay.remove(appointmentToRemove);
+			}
+			for (AppointmentTimeline timeline : getTimelinesOf(appointmentToRemove, false)) {
+				timeline.removeAppointment(appointmentToRemove);
+			}
+			if (appointmentToRemove instanceof WorkingAppointment) {
+				WorkingAppointment workingAppointmentToRemove = (WorkingAppointment) appointmentToRemove;
+				this.workingAppointments.remove(workingAppointmentToRemove);
+				this.workingAppointmentsByStatus.get(workingAppointmentToRemove.getStatus())
+						.remove(workingAppointmentToRemove);
+				Set<WorkingAppointment> workingAppointmentsOfVehicle = this.workingAppointmentsByVehicle
+						.get(workingAppointmentToRemove.getVehicleToWorkOn());
+				if (workingAppointmentsOfVehicle != null) {
+					workingAppointmentsOfVehicle.remove(workingAppointmentToRemove);
+				}
+				workingAppointmentToRemove.getVehicleToWorkOn()
+						.removeWorkFromVehiclesHistoryOfWorkingAppointments(workingAppointmentToRemove);
+			} else if (appointmentToRemove instanceof ConsultingAppointment) {
+				this.consultingAppointments.remove(appointmentToRemove);
+			} else if (appointmentToRemove instanceof CleaningAppointment) {
+				this.cleaningAppointments.remove(appointmentToRemove);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * The history of a vehicle contains exactly its finished working appointments,
+	 * so it is read without scanning the calendar.
+	 */
+	private static void updateHistoryOfVehicle(WorkingAppointment workingAppointment) {
+		if (workingAppointment.getStatus() == WorkingAppointmentStatus.FINISHED) {
+			workingAppointment.getVehicleToWorkOn()
+					.addWorkToVehiclesHistoryOfWorkingAppointments(workingAppointment);
+		} else {
+			workingAppointment.getVehicleToWorkOn()
+					.removeWorkFromVehiclesHistoryOfWorkingAppointments(workingAppointment);
+		}
+	}
+
+	private static LocalDate getDayOf(Appointment appointment) {
+		return EpochMinutes.toLocalDate(appointment.getAppointmentBeginEpochMinute());
+	}
+
+	/**
+	 * Locks the given working platforms and users. Only bookings of the same
+	 * resources have to wait for each other.
+	 */
+	public LockedResources lockResources(Object... resources) {
+		return resourceLocks.lock(resources);
+	}
+
+	/**
+	 * Locks all resources occupied by the given appointment and the additional
+	 * resources. If the resources of the appointment were changed by another
+	 * thread in the meantime, the locks are taken again for the new resources.
+	 */
+	public LockedResources lockResourcesOf(Appointment appointment, Object... additionalResources) {
+		while (true) {
+			Object[] resourcesOfAppointment = getResourcesOf(appointment);
+			Object[] resourcesToLock = Arrays.copyOf(resourcesOfAppointment,
+					resourcesOfAppointment.length + additionalResources.length);
+			System.arraycopy(additionalResources, 0, resourcesToLock, resourcesOfAppointment.length,
+					additionalResources.length);
+			LockedResources lockedResources = resourceLocks.lock(resourcesToLock);
+			if (Arrays.equals(resourcesOfAppointment, getResourcesOf(appointment))) {
+				return lockedResources;
+			}
+			lockedResources.close();
+		}
+	}
+
+	/**
+	 * @return - List of all working and cleaning appointments on the given working
+	 *         platform that overlap the time span from begin to end, both in
+	 *         epoch minutes (may be empty)
+	 */
+	public List<Appointment> getAppointmentsOnWorkingPlatformOverlapping(WorkingPlatform workingPlatform, long begin,
+			long end) {
+		AppointmentTimeline timeline = timelinesOfWorkingPlatforms.get(workingPlatform);
+		if (timeline == null) {
+			return Collections.emptyList();
+		}
+		return timeline.getAppointmentsOverlapping(begin, end);
+	}
+
+	/**
+	 * @return - List of all appointments the given user is responsible for that
+	 *         overlap the time span from begin to end, both in epoch minutes (may
+	 *         be empty)
+	 */
+	public List<Appointment> getAppointmentsOfUserOverlapping(User user, long begin, long end) {
+		AppointmentTimeline timeline = timelinesOfUsers.get(user);
+		if (timeline == null) {
+			return Collections.emptyList();
+		}
+		return timeline.getAppointmentsOverlapping(begin, end);
+	}
+
+	/**
+	 * @return - the time spans from begin to end in which the working platform is
+	 *         occupied by a working or cleaning appointment that isn't cancelled,
+	 *         see {@link #getBookedTimeSpans(AppointmentTimeline, long, long)}
+	 */
+	public long[] getBookedTimeSpansOnWorkingPlatform(WorkingPlatform workingPlatform, long begin, long end) {
+		return getBookedTimeSpans(timelinesOfWorkingPlatforms.get(workingPlatform), begin, end);
+	}
+
+	/**
+	 * @return - the time spans from begin to end in which the user is responsible
+	 *         for an appointment that isn't cancelled, see
+	 *         {@link #getBookedTimeSpans(AppointmentTimeline, long, long)}
+	 */
+	public long[] getBookedTimeSpansOfUser(User user, long begin, long end) {
+		return getBookedTimeSpans(timelinesOfUsers.get(user), begin, end);
+	}
+
+	/**
+	 * Cancelled working appointments still block their time span for new
+	 * appointments, but nobody works during them, so they are left out here.
+	 *
+	 * @return - pairs of begin and end in epoch minutes, cut to the time span from
+	 *         begin to end, sorted and merged where they overlap or touch (may be
+	 *         empty)
+	 */
+	private static long[] getBookedTimeSpans(AppointmentTimeline timeline, long begin, long end) {
+		if (timeline == null) {
+			return new long[0];
+		}
+		long[] bookedTimeSpans = new long[16];
+		int length = 0;
+		for (Appointment appointment : timeline.getAppointmentsOverlapping(begin, end)) {
+			if (appointment instanceof WorkingAppointment
+					&& ((WorkingAppointment) appointment).getStatus() == WorkingAppointmentStatus.CANCELLED) {
+				continue;
+			}
+			long beginOfBooking = Math.max(begin, appointment.getAppointmentBeginEpochMinute());
+			long endOfBooking = Math.min(end, appointment.getAppointmentEndEpochMinute());
+			if (endOfBooking <= beginOfBooking) {
+				continue;
+			}
+			if (length > 0 && beginOfBooking <= bookedTimeSpans[length - 1]) {
+				bookedTimeSpans[length - 1] = Math.max(bookedTimeSpans[length - 1], endOfBooking);
+			} else {
+				if (length == bookedTimeSpans.length) {
+					bookedTimeSpans = Arrays.copyOf(bookedTimeSpans, 2 * length);
+				}
+				bookedTimeSpans[length++] = beginOfBooking;
+				bookedTimeSpans[length++] = endOfBooking;
+			}
+		}
+		return Arrays.copyOf(bookedTimeSpans, length);
+	}
+
+	/**
+	 * @return - a sweep over the appointments on the given working platform, see
+	 *         {@link AppointmentTimeline.Sweep}
+	 */
+	public AppointmentTimeline.Sweep startSweepOnWorkingPlatform(WorkingPlatform workingPlatform) {
+		return timelinesOfWorkingPlatforms.getOrDefault(workingPlatform, new AppointmentTimeline())
+				.startSweep();
+	}
+
+	/**
+	 * @return - a sweep over the appointments the given user is responsible for,
+	 *         see {@link AppointmentTimeline.Sweep}
+	 */
+	public AppointmentTimeline.Sweep startSweepOfUser(User user) {
+		return timelinesOfUsers.getOrDefault(user, new AppointmentTimeline())
+				.startSweep();
+	}
+
+	/**
+	 * Searches free time spans of the given duration on the working platform,
+	 * during which at least one of the given users is free as well. Every timeline
+	 * knows its free time spans (see {@link FreeIntervalIndex}), so the search
+	 * jumps from the first free time span of the working platform to the first
+	 * free time span of the users and back until both agree, instead of looking at
+	 * every booked appointment in between.
+	 * 
+	 * The result is only a suggestion, another thread may book the time span
+	 * before the caller does.
+	 * 
+	 * @param users          - the users of which at least one has to be free
+	 * @param earliestBegin  - no time span begins before this epoch minute
+	 * @param latestEnd      - no time span ends after this epoch minute,
+	 *                       Long.MAX_VALUE for no limit
+	 * @param numberOfSlots  - maximum number of returned time spans
+	 * @return - the begins of the free time spans in epoch minutes, sorted
+	 *         ascending and not overlapping each other (may be empty)
+	 */
+	public long[] findFreeSlotsOnWorkingPlatform(WorkingPlatform workingPlatform, Collection<? extends User> users,
+			long durationInMinutes, long earliestBegin, long latestEnd, int numberOfSlots) {
+		if (durationInMinutes <= 0 || users.isEmpty()) {
+			return new long[0];
+		}
+		return findFreeSlots(timelinesOfWorkingPlatforms.get(workingPlatform), getTimelinesOfUsers(users),
+				durationInMinutes, earliestBegin, latestEnd, numberOfSlots);
+	}
+
+	/**
+	 * Searches free time spans like
+	 * {@link #findFreeSlotsOnWorkingPlatform(WorkingPlatform, Collection, long, long, long, int)}
+	 * on all given working platforms at once. The timelines already divide the
+	 * calendar by working platform, so the working platforms are split into
+	 * groups that are searched in parallel by the common fork/join pool.
+	 *
+	 * @return - Map with the free time spans of every given working platform
+	 */
+	public Map<WorkingPlatform, long[]> findFreeSlotsOnWorkingPlatforms(Collection<WorkingPlatform> workingPlatforms,
+			Collection<? extends User> users, long durationInMinutes, long earliestBegin, long latestEnd,
+			int numberOfSlots) {
+		if (durationInMinutes <= 0 || users.isEmpty()) {
+			Map<WorkingPlatform, long[]> freeSlotsOfWorkingPlatforms = new HashMap<>();
+			workingPlatforms.forEach(workingPlatform -> freeSlotsOfWorkingPlatforms.put(workingPlatform, new long[0]));
+			return freeSlotsOfWorkingPlatforms;
+		}
+		return ForkJoinPool.commonPool()
+				.invoke(new FreeSlotSearch(new ArrayList<>(workingPlatforms), 0, workingPlatforms.size(),
+						getTimelinesOfUsers(users), durationInMinutes, earliestBegin, latestEnd, numberOfSlots));
+	}
+
+	/**
+	 * Searches the earliest time span of the given duration, during which one of
+	 * the working platforms and one of the users are free together. The first free
+	 * time span of a working platform alone is a lower bound of its result, so the
+	 * working platforms are searched in the order of this bound and the search
+	 * stops as soon as no remaining working platform can begin earlier than the
+	 * best time span found so far. Every later working platform only searches up
+	 * to the end of that time span.
+	 *
+	 * The result is only a suggestion, another thread may book the time span
+	 * before the caller does.
+	 *
+	 * @param users         - the users to choose from; if several users are free,
+	 *                      the first of them in this order is chosen
+	 * @param earliestBegin - the time span doesn't begin before this epoch minute
+	 * @param latestEnd     - the time span doesn't end after this epoch minute,
+	 *                      Long.MAX_VALUE for no limit
+	 * @return - the earliest free time span; if several working platforms are
+	 *         free at the same time, the one free alone first wins; empty if there
+	 *         is none
+	 */
+	public <U extends User> Optional<FreeSlot<U>> findEarliestFreeSlot(List<WorkingPlatform> workingPlatforms,
+			List<U> users, long durationInMinutes, long earliestBegin, long latestEnd) {
+		if (durationInMinutes <= 0 || users.isEmpty()) {
+			return Optional.empty();
+		}
+		long beginOfSearch = earliestBegin;
+		while (true) {
+			List<AppointmentTimeline> timelinesOfGivenUsers = getTimelinesOfUsers(users);
+			long[] lowerBounds = new long[workingPlatforms.size()];
+			List<Integer> order = new ArrayList<>(workingPlatforms.size());
+			for (int i = 0; i < lowerBounds.length; i++) {
+				AppointmentTimeline timelineOfWorkingPlatform = timelinesOfWorkingPlatforms
+						.get(workingPlatforms.get(i));
+				lowerBounds[i] = timelineOfWorkingPlatform == null ? beginOfSearch
+						: timelineOfWorkingPlatform.getBeginOfFirstFreeTimeSpan(beginOfSearch, durationInMinutes);
+				order.add(i);
+			}
+			order.sort(Comparator.comparingLong((Integer i) -> lowerBounds[i])
+					.thenComparingInt(i -> i));
+			WorkingPlatform bestWorkingPlatform = null;
+			long bestBegin = Long.MAX_VALUE;
+			for (int i : order) {
+				if (lowerBounds[i] >= bestBegin || lowerBounds[i] > latestEnd - durationInMinutes) {
+					break;
+				}
+				long latestEndOfEarlierSlot = bestWorkingPlatform == null ? latestEnd
+						: bestBegin - 1 + durationInMinutes;
+				long[] freeSlots = findFreeSlots(timelinesOfWorkingPlatforms.get(workingPlatforms.get(i)),
+						timelinesOfGivenUsers, durationInMinutes, lowerBounds[i], latestEndOfEarlierSlot, 1);
+				if (freeSlots.length > 0) {
+					bestWorkingPlatform = workingPlatforms.get(i);
+					bestBegin = freeSlots[0];
+					if (bestBegin == beginOfSearch) {
+						break;
+					}
+				}
+			}
+			if (bestWorkingPlatform == null) {
+				return Optional.empty();
+			}
+			for (U user : users) {
+				AppointmentTimeline timelineOfUser = timelinesOfUsers.get(user);
+				if (timelineOfUser == null || timelineOfUser.getLatestEndOfAppointmentsOverlapping(bestBegin,
+						bestBegin + durationInMinutes) == Long.MIN_VALUE) {
+					return Optional.of(new FreeSlot<>(bestWorkingPlatform, user, bestBegin));
+				}
+			}
+			// the last free user was booked by another thread in the meantime, nothing
+			// earlier was free before
+			beginOfSearch = bestBegin;
+		}
+	}
+
+	/**
+	 * @return - the timelines of the users or an empty list, if one of the users
+	 *         has no appointments and is always free
+	 */
+	private List<AppointmentTimeline> getTimelinesOfUsers(Collection<? extends User> users) {
+		List<AppointmentTimeline> timelinesOfGivenUsers = new ArrayList<>(users.size());
+		for (User user : users) {
+			AppointmentTimeline timelineOfUser = timelinesOfUsers.get(user);
+			if (timelineOfUser == null || timelineOfUser.isEmpty()) {
+				timelinesOfGivenUsers.clear();
+				break;
+			}
+			timelinesOfGivenUsers.add(timelineOfUser);
+		}
+		return timelinesOfGivenUsers;
+	}
+
+	/**
+	 * @param timelineOfWorkingPlatform - null if nothing was ever booked on the
+	 *                                  working platform
+	 * @param timelinesOfGivenUsers     - empty if one of the users is always free
+	 */
+	private static long[] findFreeSlots(AppointmentTimeline timelineOfWorkingPlatform,
+			List<AppointmentTimeline> timelinesOfGivenUsers, long durationInMinutes, long earliestBegin,
+			long latestEnd, int numberOfSlots) {
+		long[] freeSlots = new long[Math.max(numberOfSlots, 0)];
+		int numberOfFreeSlots = 0;
+		long begin = earliestBegin;
+		while (numberOfFreeSlots < freeSlots.length) {
+			long beginOnWorkingPlatform = timelineOfWorkingPlatform == null ? begin
+					: timelineOfWorkingPlatform.getBeginOfFirstFreeTimeSpan(begin, durationInMinutes);
+			long beginOfAnyUser = getBeginOfFirstFreeTimeSpanOfAnyUser(timelinesOfGivenUsers, beginOnWorkingPlatform,
+					durationInMinutes);
+			if (beginOfAnyUser > beginOnWorkingPlatform) {
+				begin = beginOfAnyUser;
+				continue;
+			}
+			// no free time span at all, or none ending in time
+			if (beginOnWorkingPlatform > latestEnd - durationInMinutes) {
+				break;
+			}
+			long end = beginOnWorkingPlatform + durationInMinutes;
+			// the free time spans may be in the middle of an update by another thread, so
+			// the appointments have the final say
+			long endOfOverlappingAppointments = getEndOfOverlappingAppointments(timelineOfWorkingPlatform,
+					timelinesOfGivenUsers, beginOnWorkingPlatform, end);
+			if (endOfOverlappingAppointments != Long.MIN_VALUE) {
+				begin = endOfOverlappingAppointments;
+				continue;
+			}
+			freeSlots[numberOfFreeSlots++] = beginOnWorkingPlatform;
+			begin = end;
+		}
+		return Arrays.copyOf(freeSlots, numberOfFreeSlots);
+	}
+
+	private static long getBeginOfFirstFreeTimeSpanOfAnyUser(List<AppointmentTimeline> timelinesOfUsers,
+			long earliestBegin, long durationInMinutes) {
+		long firstBegin = earliestBegin;
+		for (int i = 0; i < timelinesOfUsers.size(); i++) {
+			long beginOfUser = timelinesOfUsers.get(i)
+					.getBeginOfFirstFreeTimeSpan(earliestBegin, durationInMinutes);
+			if (beginOfUser == earliestBegin) {
+				return earliestBegin;
+			}
+			if (i == 0 || beginOfUser < firstBegin) {
+				firstBegin = beginOfUser;
+			}
+		}
+		return firstBegin;
+	}
+
+	/**
+	 * @return - Long.MIN_VALUE if the working platform and one of the users are
+	 *         free from begin to end, otherwise the earliest time all conflicts
+	 *         might be over
+	 */
+	private static long getEndOfOverlappingAppointments(AppointmentTimeline timelineOfWorkingPlatform,
+			List<AppointmentTimeline> timelinesOfUsers, long begin, long end) {
+		if (timelineOfWorkingPlatform != null) {
+			long endOnWorkingPlatform = timelineOfWorkingPlatform.getLatestEndOfAppointmentsOverlapping(begin, end);
+			if (endOnWorkingPlatform != Long.MIN_VALUE) {
+				return endOnWorkingPlatform;
+			}
+		}
+		long endOfAnyUser = Long.MIN_VALUE;
+		for (AppointmentTimeline timelineOfUser : timelinesOfUsers) {
+			long endOfUser = timelineOfUser.getLatestEndOfAppointmentsOverlapping(begin, end);
+			if (endOfUser == Long.MIN_VALUE) {
+				return Long.MIN_VALUE;
+			}
+			if (endOfAnyUser == Long.MIN_VALUE || endOfUser < endOfAnyUser) {
+				endOfAnyUser = endOfUser;
+			}
+		}
+		return endOfAnyUser;
+	}
+
+	/**
+	 * Searches the free time spans of a range of working platforms and splits the
+	 * range in halves as long as it is larger than
+	 * {@link #WORKING_PLATFORMS_PER_TASK}.
+	 */
+	private class FreeSlotSearch extends RecursiveTask<Map<WorkingPlatform, long[]>> {
+
+		private static final long serialVersionUID = 1L;
+		private static final int WORKING_PLATFORMS_PER_TASK = 8;
+
+		private final List<WorkingPlatform> workingPlatforms;
+		private final int fromIndex;
+		private final int toIndex;
+		private final List<AppointmentTimeline> timelinesOfGivenUsers;
+		private final long durationInMinutes;
+		private final long earliestBegin;
+		private final long latestEnd;
+		private final int numberOfSlots;
+
+		FreeSlotSearch(List<WorkingPlatform> workingPlatforms, int fromIndex, int toIndex,
+				List<AppointmentTimeline> timelinesOfGivenUsers, long durationInMinutes, long earliestBegin,
+				long latestEnd, int numberOfSlots) {
+			this.workingPlatforms = workingPlatforms;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+			this.timelinesOfGivenUsers = timelinesOfGivenUsers;
+			this.durationInMinutes = durationInMinutes;
+			this.earliestBegin = earliestBegin;
+			this.latestEnd = latestEnd;
+			this.numberOfSlots = numberOfSlots;
+		}
+
+		@Override
+		protected Map<WorkingPlatform, long[]> compute() {
+			if (toIndex - fromIndex > WORKING_PLATFORMS_PER_TASK) {
+				int middleIndex = (fromIndex + toIndex) >>> 1;
+				FreeSlotSearch firstHalf = createSubtask(fromIndex, middleIndex);
+				firstHalf.fork();
+				Map<WorkingPlatform, long[]> freeSlotsOfWorkingPlatforms = createSubtask(middleIndex, toIndex)
+						.compute();
+				freeSlotsOfWorkingPlatforms.putAll(firstHalf.join());
+				return freeSlotsOfWorkingPlatforms;
+			}
+			Map<WorkingPlatform, long[]> freeSlotsOfWorkingPlatforms = new HashMap<>();
+			for (WorkingPlatform workingPlatform : workingPlatforms.subList(fromIndex, toIndex)) {
+				freeSlotsOfWorkingPlatforms.put(workingPlatform,
+						findFreeSlots(timelinesOfWorkingPlatforms.get(workingPlatform), timelinesOfGivenUsers,
+								durationInMinutes, earliestBegin, latestEnd, numberOfSlots));
+			}
+			return freeSlotsOfWorkingPlatforms;
+		}
+
+		private FreeSlotSearch createSubtask(int fromIndexOfSubtask, int toIndexOfSubtask) {
+			return new FreeSlotSearch(workingPlatforms, fromIndexOfSubtask, toIndexOfSubtask, timelinesOfGivenUsers,
+					durationInMinutes, earliestBegin, latestEnd, numberOfSlots);
+		}
+	}
+
+	/**
+	 * A time span found by
+	 * {@link PlanningCalendarData#findEarliestFreeSlot(List, List, long, long, long)},
+	 * during which the working platform and the user are both free.
+	 */
+	public static final class FreeSlot<U extends User> {
+
+		private final WorkingPlatform workingPlatform;
+		private final U user;
+		private final long begin;
+
+		FreeSlot(WorkingPlatform workingPlatform, U user, long begin) {
+			this.workingPlatform = workingPlatform;
+			this.user = user;
+			this.begin = begin;
+		}
+
+		public WorkingPlatform getWorkingPlatform() {
+			return workingPlatform;
+		}
+
+		public U getUser() {
+			return user;
+		}
+
+		/**
+		 * @return - the begin in epoch minutes
+		 */
+		public long getBegin() {
+			return begin;
+		}
+	}
+
+	private static Object[] getResourcesOf(Appointment appointment) {
+		if (appointment instanceof WorkingAppointment) {
+			WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+			return new Object[] { workingAppointment.getWorkingPlatformRelatedToWorkingAppointment(),
+					workingAppointment.getResponsibleCarMechanicUser() };
+		} else if (appointment instanceof CleaningAppointment) {
+			CleaningAppointment cleaningAppointment = (CleaningAppointment) appointment;
+			return new Object[] { cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment(),
+					cleaningAppointment.getResponsibleDispatcherUser() };
+		} else if (appointment instanceof ConsultingAppointment) {
+			return new Object[] { ((ConsultingAppointment) appointment).getResponsibleClientAdvisorUser() };
+		}
+		return new Object[0];
+	}
+
+	private List<AppointmentTimeline> getTimelinesOf(Appointment appointment, boolean createMissingTimelines) {
+		List<AppointmentTimeline> timelines = new ArrayList<>(2);
+		if (appointment instanceof WorkingAppointment) {
+			WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+			addTimelineOfWorkingPlatform(timelines, workingAppointment.getWorkingPlatformRelatedToWorkingAppointment(),
+					createMissingTimelines);
+			addTimelineOfUser(timelines, workingAppointment.getResponsibleCarMechanicUser(), createMissingTimelines);
+		} else if (appointment instanceof CleaningAppointment) {
+			CleaningAppointment cleaningAppointment = (CleaningAppointment) appointment;
+			addTimelineOfWorkingPlatform(timelines,
+					cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment(), createMissingTimelines);
+			addTimelineOfUser(timelines, cleaningAppointment.getResponsibleDispatcherUser(), createMissingTimelines);
+		} else if (appointment instanceof ConsultingAppointment) {
+			addTimelineOfUser(timelines, ((ConsultingAppointment) appointment).getResponsibleClientAdvisorUser(),
+					createMissingTimelines);
+		}
+		return timelines;
+	}
+
+	private void addTimelineOfWorkingPlatform(List<AppointmentTimeline> timelines, WorkingPlatform workingPlatform,
+			boolean createMissingTimeline) {
+		AppointmentTimeline timeline = createMissingTimeline
+				? timelinesOfWorkingPlatforms.computeIfAbsent(workingPlatform, platform -> new AppointmentTimeline())
+				: timelinesOfWorkingPlatforms.get(workingPlatform);
+		if (timeline != null) {
+			timelines.add(timeline);
+		}
 	}
 
-	public void removeAppointmentFromAppointmentData(Appointment appointmentToRemove) {
-		this.allAppointments.remove(appointmentToRemove);
+	private void addTimelineOfUser(List<AppointmentTimeline> timelines, User user, boolean createMissingTimeline) {
+		AppointmentTimeline timeline = createMissingTimeline
+				? timelinesOfUsers.computeIfAbsent(user, responsibleUser -> new AppointmentTimeline())
+				: timelinesOfUsers.get(user);
+		if (timeline != null) {
+			timelines.add(timeline);
+		}
 	}
 }
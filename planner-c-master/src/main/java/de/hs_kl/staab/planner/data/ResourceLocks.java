@@ -0,0 +1,78 @@
+package de.hs_kl.staab.planner.data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One lock per resource (working platform or user) of the planning calendar.
+ *
+ * Everybody who wants to check and change the appointments of some resources
+ * locks exactly these resources, so bookings for unrelated resources never
+ * block each other. The locks are always taken in the order in which they were
+ * created, which rules out deadlocks between two threads locking the same
+ * resources in a different order.
+ */
+public class ResourceLocks {
+
+	private final ConcurrentMap<Object, OrderedLock> locksOfResources = new ConcurrentHashMap<>();
+	private final AtomicLong lockOrderCounter = new AtomicLong();
+
+	/**
+	 * Locks all given resources (null values are ignored) and blocks until all of
+	 * them are available. Use it with try-with-resources, so the locks are
+	 * released again in any case.
+	 */
+	public LockedResources lock(Object... resources) {
+		List<OrderedLock> locksToTake = new ArrayList<>(resources.length);
+		for (Object resource : resources) {
+			if (resource != null) {
+				OrderedLock lock = locksOfResources.computeIfAbsent(resource,
+						newResource -> new OrderedLock(lockOrderCounter.getAndIncrement()));
+				if (!locksToTake.contains(lock)) {
+					locksToTake.add(lock);
+				}
+			}
+		}
+		locksToTake.sort(Comparator.comparingLong(lock -> lock.order));
+		for (OrderedLock lock : locksToTake) {
+			lock.lock();
+		}
+		return new LockedResources(locksToTake);
+	}
+
+	private static class OrderedLock extends ReentrantLock {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long order;
+
+		private OrderedLock(long order) {
+			this.order = order;
+		}
+	}
+
+	/**
+	 * Handle of a set of locked resources. Closing it unlocks them again.
+	 */
+	public static class LockedResources implements AutoCloseable {
+
+		private final List<OrderedLock> lockedLocks;
+
+		private LockedResources(List<OrderedLock> lockedLocks) {
+			this.lockedLocks = lockedLocks;
+		}
+
+		@Override
+		public void close() {
+			for (int i = lockedLocks.size() - 1; i >= 0; i--) {
+				lockedLocks.get(i)
+						.unlock();
+			}
+		}
+	}
+}
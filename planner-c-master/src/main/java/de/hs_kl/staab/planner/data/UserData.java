@@ -1,24 +1,64 @@
 package de.hs_kl.staab.planner.data;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import de.hs_kl.staab.planner.User;
 
 public class UserData {
 
-	private Set<User> allUsers = new HashSet<>();
+	private Set<User> allUsers = ConcurrentHashMap.newKeySet();
+	private NavigableMap<String, User> usersByUsername = new ConcurrentSkipListMap<>();
 
 	public Set<User> getAllUsers() {
-		return allUsers;
+		return Collections.unmodifiableSet(allUsers);
 	}
 
-	public void addUserToUserData(User userToAdd) {
+	public Optional<User> getUserByUsername(String userName) {
+		return Optional.ofNullable(usersByUsername.get(userName));
+	}
+
+	/**
+	 * @return - all users with a username greater than the given one (or all
+	 *         users if it is null), ordered by their username
+	 */
+	public Collection<User> getUsersOrderedByUsernameAfter(String userName) {
+		if (userName == null) {
+			return Collections.unmodifiableCollection(usersByUsername.values());
+		}
+		return Collections.unmodifiableCollection(usersByUsername.tailMap(userName, false)
+				.values());
+	}
+
+	public synchronized void addUserToUserData(User userToAdd) {
 		this.allUsers.add(userToAdd);
+		this.usersByUsername.put(userToAdd.getUsername(), userToAdd);
+	}
+
+	public synchronized void removeUserFromUserData(User userToRemove) {
+		if (this.allUsers.remove(userToRemove)) {
+			this.usersByUsername.remove(userToRemove.getUsername());
+		}
 	}
 
-	public void removeUserFromUserData(User userToRemove) {
-		this.allUsers.remove(userToRemove);
+	/**
+	 * Changes the username of a stored user. Always use this method instead of
+	 * {@link User#setUserName(String)}, otherwise the user can't be found by the
+	 * new username.
+	 */
+	public synchronized void updateUsernameOfUser(User userToUpdate, String newUserName) {
+		if (this.allUsers.contains(userToUpdate)) {
+			this.usersByUsername.remove(userToUpdate.getUsername());
+			userToUpdate.setUserName(newUserName);
+			this.usersByUsername.put(newUserName, userToUpdate);
+		} else {
+			userToUpdate.setUserName(newUserName);
+		}
 	}
 
 }
@@ -1,25 +1,77 @@
 package de.hs_kl.staab.planner.data;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import de.hs_kl.staab.planner.Vehicle;
 
 public class VehicleData {
 
-	private Set<Vehicle> allVehicles = new HashSet<>();
+	private Set<Vehicle> allVehicles = ConcurrentHashMap.newKeySet();
+	private NavigableMap<String, Vehicle> vehiclesByLicensePlate = new ConcurrentSkipListMap<>();
 
 	public Set<Vehicle> getAllVehicles() {
-		return allVehicles;
+		return Collections.unmodifiableSet(allVehicles);
 	}
 
-	public void addVehicleToVehicleData(Vehicle vehicleToAdd) {
+	public Optional<Vehicle> getVehicleByLicensePlate(String vehicleLicensePlate) {
+		return Optional.ofNullable(vehiclesByLicensePlate.get(vehicleLicensePlate));
+	}
+
+	/**
+	 * @return - all vehicles with a license plate greater than the given one (or
+	 *         all vehicles if it is null), ordered by their license plate
+	 */
+	public Collection<Vehicle> getVehiclesOrderedByLicensePlateAfter(String vehicleLicensePlate) {
+		if (vehicleLicensePlate == null) {
+			return Collections.unmodifiableCollection(vehiclesByLicensePlate.values());
+		}
+		return Collections.unmodifiableCollection(vehiclesByLicensePlate.tailMap(vehicleLicensePlate, false)
+				.values());
+	}
+
+	public synchronized void addVehicleToVehicleData(Vehicle vehicleToAdd) {
 		this.allVehicles.add(vehicleToAdd);
+		this.vehiclesByLicensePlate.put(vehicleToAdd.getVehicleLicensePlate(), vehicleToAdd);
 	}
 
-	public void removeVehicleFromVehicleData(Vehicle vehicleToRemove) {
-		this.allVehicles.remove(vehicleToRemove);
+	/**
+	 * Adds many vehicles at once, e.g. for an import, in parallel on the common
+	 * fork/join pool.
+	 */
+	public synchronized void addVehiclesToVehicleData(Collection<Vehicle> vehiclesToAdd) {
+		vehiclesToAdd.parallelStream()
+				.forEach(vehicleToAdd -> {
+					this.allVehicles.add(vehicleToAdd);
+					this.vehiclesByLicensePlate.put(vehicleToAdd.getVehicleLicensePlate(), vehicleToAdd);
+				});
+	}
+
+	public synchronized void removeVehicleFromVehicleData(Vehicle vehicleToRemove) {
+		if (this.allVehicles.remove(vehicleToRemove)) {
+			this.vehiclesByLicensePlate.remove(vehicleToRemove.getVehicleLicensePlate());
+		}
+
+	}
 
+	/**
+	 * Changes the license plate of a stored vehicle. Always use this method instead
+	 * of {@link Vehicle#setVehicleLicensePlate(String)}, otherwise the vehicle
+	 * can't be found by its new license plate.
+	 */
+	public synchronized void updateLicensePlateOfVehicle(Vehicle vehicleToUpdate, String newVehicleLicensePlate) {
+		if (this.allVehicles.contains(vehicleToUpdate)) {
+			this.vehiclesByLicensePlate.remove(vehicleToUpdate.getVehicleLicensePlate());
+			vehicleToUpdate.setVehicleLicensePlate(newVehicleLicensePlate);
+			this.vehiclesByLicensePlate.put(newVehicleLicensePlate, vehicleToUpdate);
+		} else {
+			vehicleToUpdate.setVehicleLicensePlate(newVehicleLicensePlate);
+		}
 	}
 
 }
@@ -1,23 +1,104 @@
 package de.hs_kl.staab.planner.data;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import de.hs_kl.staab.planner.Work;
 
 public class WorkData {
 
-	private Set<Work> allWorks = new HashSet<>();
+	private Set<Work> allWorks = ConcurrentHashMap.newKeySet();
+	private NavigableMap<String, Work> worksById = new ConcurrentSkipListMap<>();
+	// a renamed work may get the name and duration of another one, so there may be
+	// more than one work per key
+	private Map<String, Set<Work>> worksByNameAndDuration = new ConcurrentHashMap<>();
 
 	public Set<Work> getAllWorks() {
-		return allWorks;
+		return Collections.unmodifiableSet(allWorks);
 	}
 
-	public void addWorkToWorkData(Work workToAdd) {
-		this.allWorks.add(workToAdd);
+	public Optional<Work> getWorkById(String workId) {
+		return Optional.ofNullable(worksById.get(workId));
 	}
 
-	public void removeWorkFromWorkData(Work workToRemove) {
-		this.allWorks.remove(workToRemove);
+	/**
+	 * @return - a work with the given name and duration, e.g. to look for
+	 *         duplicates without scanning all works
+	 */
+	public Optional<Work> getWorkByNameAndDuration(String workName, int workDurationMinutes) {
+		Set<Work> worksWithNameAndDuration = worksByNameAndDuration.get(keyOf(workName, workDurationMinutes));
+		if (worksWithNameAndDuration == null) {
+			return Optional.empty();
+		}
+		return worksWithNameAndDuration.stream()
+				.findFirst();
+	}
+
+	/**
+	 * @return - all works with an ID greater than the given one (or all works if
+	 *         it is null), ordered by their ID
+	 */
+	public Collection<Work> getWorksOrderedByIdAfter(String workId) {
+		if (workId == null) {
+			return Collections.unmodifiableCollection(worksById.values());
+		}
+		return Collections.unmodifiableCollection(worksById.tailMap(workId, false)
+				.values());
+	}
+
+	public synchronized void addWorkToWorkData(Work workToAdd) {
+		if (this.allWorks.add(workToAdd)) {
+			this.worksById.put(workToAdd.getWorkId(), workToAdd);
+			addToNameAndDurationIndex(workToAdd);
+		}
+	}
+
+	public synchronized void removeWorkFromWorkData(Work workToRemove) {
+		if (this.allWorks.remove(workToRemove)) {
+			this.worksById.remove(workToRemove.getWorkId());
+			removeFromNameAndDurationIndex(workToRemove);
+		}
+	}
+
+	/**
+	 * Changes the name or the duration of a stored work and indexes it again
+	 * afterwards.
+	 * 
+	 * @param change - changes the work, e.g. by calling its setters
+	 */
+	public synchronized void updateWorkInWorkData(Work workToUpdate, Runnable change) {
+		boolean isStored = this.allWorks.contains(workToUpdate);
+		if (isStored) {
+			removeFromNameAndDurationIndex(workToUpdate);
+		}
+		change.run();
+		if (isStored) {
+			addToNameAndDurationIndex(workToUpdate);
+		}
+	}
+
+	private void addToNameAndDurationIndex(Work work) {
+		this.worksByNameAndDuration.computeIfAbsent(keyOf(work.getWorkName(), work.getWorkDuration()),
+				key -> ConcurrentHashMap.newKeySet())
+				.add(work);
+	}
+
+	private void removeFromNameAndDurationIndex(Work work) {
+		String key = keyOf(work.getWorkName(), work.getWorkDuration());
+		Set<Work> worksWithNameAndDuration = this.worksByNameAndDuration.get(key);
+		if (worksWithNameAndDuration != null && worksWithNameAndDuration.remove(work)
+				&& worksWithNameAndDuration.isEmpty()) {
+			this.worksByNameAndDuration.remove(key);
+		}
+	}
+
+	private static String keyOf(String workName, int workDurationMinutes) {
+		return workDurationMinutes + ":" + workName;
 	}
 }
@@ -1,23 +1,48 @@
 package de.hs_kl.staab.planner.data;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import de.hs_kl.staab.planner.WorkingPlatform;
 
 public class WorkingPlatformData {
 
-	private Set<WorkingPlatform> allWorkingPlatforms = new HashSet<>();
+	private Set<WorkingPlatform> allWorkingPlatforms = ConcurrentHashMap.newKeySet();
+	private NavigableMap<String, WorkingPlatform> workingPlatformsById = new ConcurrentSkipListMap<>();
 
 	public Set<WorkingPlatform> getAllWorkingPlatforms() {
-		return allWorkingPlatforms;
+		return Collections.unmodifiableSet(allWorkingPlatforms);
 	}
 
-	public void addWorkingPlatformToWorkingPlatformData(WorkingPlatform workingPlatformToAdd) {
+	public Optional<WorkingPlatform> getWorkingPlatformById(String workingPlatformId) {
+		return Optional.ofNullable(workingPlatformsById.get(workingPlatformId));
+	}
+
+	/**
+	 * @return - all working platforms with an ID greater than the given one (or
+	 *         all working platforms if it is null), ordered by their ID
+	 */
+	public Collection<WorkingPlatform> getWorkingPlatformsOrderedByIdAfter(String workingPlatformId) {
+		if (workingPlatformId == null) {
+			return Collections.unmodifiableCollection(workingPlatformsById.values());
+		}
+		return Collections.unmodifiableCollection(workingPlatformsById.tailMap(workingPlatformId, false)
+				.values());
+	}
+
+	public synchronized void addWorkingPlatformToWorkingPlatformData(WorkingPlatform workingPlatformToAdd) {
 		this.allWorkingPlatforms.add(workingPlatformToAdd);
+		this.workingPlatformsById.put(workingPlatformToAdd.getWorkingPlatformId(), workingPlatformToAdd);
 	}
 
-	public void removeWorkingPlatformFromWorkingPlatformData(WorkingPlatform workingPlatformToRemove) {
-		this.allWorkingPlatforms.remove(workingPlatformToRemove);
+	public synchronized void removeWorkingPlatformFromWorkingPlatformData(WorkingPlatform workingPlatformToRemove) {
+		if (this.allWorkingPlatforms.remove(workingPlatformToRemove)) {
+			this.workingPlatformsById.remove(workingPlatformToRemove.getWorkingPlatformId());
+		}
 	}
 }
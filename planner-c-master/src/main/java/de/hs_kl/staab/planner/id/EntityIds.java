@@ -0,0 +1,55 @@
+package de.hs_kl.staab.planner.id;
+
+/**
+ * IDs of one kind of entity: a prefix followed by a number of an
+ * {@link IdGenerator}, e.g. "WP-3". Only this class turns numbers into IDs and
+ * back.
+ */
+public final class EntityIds {
+
+	private final String prefix;
+	private final IdGenerator idGenerator;
+
+	public EntityIds(String prefix, IdGenerator idGenerator) {
+		this.prefix = prefix;
+		this.idGenerator = idGenerator;
+	}
+
+	public String nextId() {
+		return format(idGenerator.nextId());
+	}
+
+	public String format(long idNumber) {
+		return prefix + idNumber;
+	}
+
+	/**
+	 * @return - the number of a generated ID, or -1 if the ID was not generated
+	 *         (e.g. "A-01" or "A-x")
+	 */
+	public long parse(String id) {
+		if (id.startsWith(prefix)) {
+			try {
+				long idNumber = Long.parseLong(id.substring(prefix.length()));
+				// "A-01" would not be formatted to the same ID again
+				if (idNumber > 0 && id.equals(format(idNumber))) {
+					return idNumber;
+				}
+			} catch (NumberFormatException e) {
+				// not a generated ID
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Reserves the number of an existing ID, so no new ID will be the same. IDs
+	 * that were not generated can't collide with new ones and are ignored.
+	 */
+	public void reserve(String id) {
+		long idNumber = parse(id);
+		if (idNumber > 0) {
+			idGenerator.reserve(idNumber);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package de.hs_kl.staab.planner.id;
+
+/**
+ * Source of the numbers in the IDs of one kind of entity (e.g. "A-17" for an
+ * appointment). Implementations have to be thread-safe and must never return
+ * the same number twice.
+ *
+ * @see IdGenerators
+ */
+public interface IdGenerator {
+
+	/**
+	 * @return - a positive number that was neither returned nor reserved before
+	 */
+	long nextId();
+
+	/**
+	 * Makes sure that {@link #nextId()} never returns the number of an ID that
+	 * already exists, e.g. of an entity restored from the journal.
+	 */
+	void reserve(long id);
+}
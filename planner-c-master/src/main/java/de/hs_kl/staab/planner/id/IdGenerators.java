@@ -0,0 +1,47 @@
+package de.hs_kl.staab.planner.id;
+
+/**
+ * Creates the {@link IdGenerator}s of the entities as configured when the
+ * planner is started:
+ *
+ * <ul>
+ * <li>{@code -Dplanner.idGenerator=sequential} (default): 1, 2, 3, ... with
+ * the {@link SequentialIdGenerator}</li>
+ * <li>{@code -Dplanner.idGenerator=timeOrdered}: the
+ * {@link TimeOrderedIdGenerator}, with {@code -Dplanner.nodeId=<0..1023>}
+ * (default 0) different for every instance</li>
+ * <li>{@code -Dplanner.idGenerator=<class name>}: an own implementation of
+ * {@link IdGenerator} with a public constructor without parameters</li>
+ * </ul>
+ *
+ * The entities ask for their generator when they are used for the first time,
+ * so the properties have to be set before.
+ */
+public final class IdGenerators {
+
+	public static final String GENERATOR_PROPERTY = "planner.idGenerator";
+	public static final String NODE_ID_PROPERTY = "planner.nodeId";
+
+	private static final String SEQUENTIAL = "sequential";
+	private static final String TIME_ORDERED = "timeOrdered";
+
+	private IdGenerators() {
+	}
+
+	public static IdGenerator newIdGenerator() {
+		String generator = System.getProperty(GENERATOR_PROPERTY, SEQUENTIAL);
+		if (SEQUENTIAL.equals(generator)) {
+			return new SequentialIdGenerator();
+		} else if (TIME_ORDERED.equals(generator)) {
+			return new TimeOrderedIdGenerator(Integer.getInteger(NODE_ID_PROPERTY, 0));
+		}
+		try {
+			return Class.forName(generator)
+					.asSubclass(IdGenerator.class)
+					.getDeclaredConstructor()
+					.newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalStateException("ERROR: " + generator + " is no IdGenerator.", e);
+		}
+	}
+}
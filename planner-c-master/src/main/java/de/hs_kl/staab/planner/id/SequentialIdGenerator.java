@@ -0,0 +1,23 @@
+package de.hs_kl.staab.planner.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts 1, 2, 3, ... without locking. The numbers are only unique inside one
+ * running planner, for several instances sharing their data use the
+ * {@link TimeOrderedIdGenerator} with a node ID per instance.
+ */
+public class SequentialIdGenerator implements IdGenerator {
+
+	private final AtomicLong lastId = new AtomicLong();
+
+	@Override
+	public long nextId() {
+		return lastId.incrementAndGet();
+	}
+
+	@Override
+	public void reserve(long id) {
+		lastId.accumulateAndGet(id, Math::max);
+	}
+}
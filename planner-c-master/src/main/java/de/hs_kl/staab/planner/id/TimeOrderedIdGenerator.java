@@ -0,0 +1,65 @@
+package de.hs_kl.staab.planner.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates 64-bit numbers that are sorted by the time of their creation, in
+ * the style of Twitter's Snowflake IDs:
+ *
+ * <pre>
+ * | 0 | 41 bits milliseconds since 2021-01-01 | 10 bits node ID | 12 bits sequence |
+ * </pre>
+ *
+ * Several planner instances with different node IDs can create IDs at the same
+ * time without coordination. Inside one instance, more than 4096 IDs in one
+ * millisecond or a clock that goes backwards just make the following IDs use
+ * the milliseconds after the last ID, so the numbers keep growing. The state
+ * is one {@link AtomicLong}, no lock is needed.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+	public static final int NODE_ID_BITS = 10;
+	public static final int MAX_NODE_ID = (1 << NODE_ID_BITS) - 1;
+
+	private static final int SEQUENCE_BITS = 12;
+	private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+	private static final int TIME_SHIFT = NODE_ID_BITS + SEQUENCE_BITS;
+	private static final long EPOCH_MILLIS = Instant.parse("2021-01-01T00:00:00Z")
+			.toEpochMilli();
+
+	private final long nodeIdBits;
+	private final LongSupplier clock;
+	// milliseconds since the epoch and sequence of the last ID, without the node ID
+	private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+	public TimeOrderedIdGenerator(int nodeId) {
+		this(nodeId, System::currentTimeMillis);
+	}
+
+	/**
+	 * @param clock - current time in milliseconds since 1970-01-01
+	 */
+	public TimeOrderedIdGenerator(int nodeId, LongSupplier clock) {
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("The node ID has to be between 0 and " + MAX_NODE_ID + ".");
+		}
+		this.nodeIdBits = (long) nodeId << SEQUENCE_BITS;
+		this.clock = clock;
+	}
+
+	@Override
+	public long nextId() {
+		long firstOfCurrentMillisecond = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+		long timeAndSequence = lastTimeAndSequence
+				.updateAndGet(last -> Math.max(firstOfCurrentMillisecond, last + 1));
+		return (timeAndSequence >>> SEQUENCE_BITS) << TIME_SHIFT | nodeIdBits | (timeAndSequence & SEQUENCE_MASK);
+	}
+
+	@Override
+	public void reserve(long id) {
+		long timeAndSequence = (id >>> TIME_SHIFT) << SEQUENCE_BITS | (id & SEQUENCE_MASK);
+		lastTimeAndSequence.accumulateAndGet(timeAndSequence, Math::max);
+	}
+}
@@ -0,0 +1,490 @@
+package de.hs_kl.staab.planner.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal, split into numbered segment files
+ * ("journal-&lt;n&gt;.log") and compact snapshots ("snapshot-&lt;n&gt;.snap").
+ * A snapshot with the number n contains the complete state described by all
+ * segments before n, so only the newest snapshot and the segments from n on are
+ * needed for recovery.
+ *
+ * Every record is stored in a frame of its length, its CRC32 and the record
+ * itself. A frame that is cut off or damaged at the end of the last segment
+ * (e.g. after a crash while writing) is truncated during recovery.
+ *
+ * {@link #append(byte[])} only hands the record to the writer thread and
+ * returns immediately. The writer thread writes all records handed over in the
+ * meantime in one go and makes them durable with one fsync (group commit). Use
+ * {@link #awaitDurable(long)} to wait until a record has reached the disk.
+ */
+public class Journal implements Closeable {
+
+	private static final String SEGMENT_PREFIX = "journal-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".snap";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private static final int FRAME_HEADER_SIZE = 8;
+	private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+	private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+	// marks the switch to the next segment in the list of pending frames
+	private static final byte[] SEGMENT_SWITCH = new byte[0];
+
+	/**
+	 * Receives the records of the journal during recovery in the order they were
+	 * appended.
+	 */
+	public interface RecordHandler {
+		void handle(byte[] record) throws IOException;
+	}
+
+	private final Path directory;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition framesPending = lock.newCondition();
+	private final Condition framesDurable = lock.newCondition();
+	private List<byte[]> pendingFrames = new ArrayList<>();
+	private long appendedSequence = 0;
+	private long durableSequence = 0;
+	private long currentSegment;
+	private long currentSegmentSize = 0;
+	private IOException writeFailure;
+	private boolean closed = false;
+
+	// only used by the writer thread
+	private FileChannel segmentChannel;
+	private long writtenSegment;
+	private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+
+	private final Object snapshotMonitor = new Object();
+	private final Thread writerThread;
+
+	private Journal(Path directory, long firstSegment) throws IOException {
+		this.directory = directory;
+		this.currentSegment = firstSegment;
+		this.writtenSegment = firstSegment;
+		this.segmentChannel = FileChannel.open(getSegmentPath(firstSegment), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE);
+		this.writerThread = new Thread(this::writePendingFrames, "planner-journal-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	/**
+	 * Replays the newest snapshot and all following segments of the journal in the
+	 * given directory and opens a new segment for the records appended from now
+	 * on.
+	 */
+	public static Journal open(Path directory, RecordHandler recordHandler) throws IOException {
+		Files.createDirectories(directory);
+		List<Long> snapshots = listNumbersOfFiles(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+		List<Long> segments = listNumbersOfFiles(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+
+		long firstSegmentToReplay = 0;
+		if (!snapshots.isEmpty()) {
+			firstSegmentToReplay = snapshots.get(snapshots.size() - 1);
+			Path snapshot = directory.resolve(SNAPSHOT_PREFIX + firstSegmentToReplay + SNAPSHOT_SUFFIX);
+			if (readFrames(snapshot, recordHandler) != Files.size(snapshot)) {
+				throw new IOException("The snapshot " + snapshot + " is damaged.");
+			}
+		}
+		long lastSegment = firstSegmentToReplay - 1;
+		for (int i = 0; i < segments.size(); i++) {
+			long segmentNumber = segments.get(i);
+			if (segmentNumber < firstSegmentToReplay) {
+				continue;
+			}
+			Path segment = directory.resolve(SEGMENT_PREFIX + segmentNumber + SEGMENT_SUFFIX);
+			long validLength = readFrames(segment, recordHandler);
+			long length = Files.size(segment);
+			if (validLength != length) {
+				if (i != segments.size() - 1) {
+					throw new IOException("The journal segment " + segment + " is damaged at position " + validLength
+							+ ", but it is not the last one.");
+				}
+				System.err.println("WARNING: Discarding " + (length - validLength)
+						+ " bytes of an incomplete record at the end of " + segment + ".");
+				try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+					channel.truncate(validLength);
+					channel.force(true);
+				}
+			}
+			if (validLength == 0) {
+				// nothing to keep, e.g. the segment opened by the last run which was never used
+				Files.delete(segment);
+			} else {
+				lastSegment = segmentNumber;
+			}
+		}
+		// never append to an existing segment, its end may be damaged
+		return new Journal(directory, lastSegment + 1);
+	}
+
+	/**
+	 * Hands the record to the writer thread.
+	 *
+	 * @return - sequence number of the record for {@link #awaitDurable(long)}
+	 */
+	public long append(byte[] record) {
+		byte[] frame = frame(record);
+		lock.lock();
+		try {
+			checkWritable();
+			pendingFrames.add(frame);
+			currentSegmentSize += frame.length;
+			appendedSequence++;
+			framesPending.signal();
+			return appendedSequence;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Every record appended afterwards goes to a new segment.
+	 *
+	 * @return - number of the new segment
+	 */
+	public long startNewSegment() {
+		lock.lock();
+		try {
+			checkWritable();
+			pendingFrames.add(SEGMENT_SWITCH);
+			currentSegment++;
+			currentSegmentSize = 0;
+			framesPending.signal();
+			return currentSegment;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return - number of bytes appended to the current segment so far
+	 */
+	public long getCurrentSegmentSize() {
+		lock.lock();
+		try {
+			return currentSegmentSize;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return - sequence number of the last appended record
+	 */
+	public long getAppendedSequence() {
+		lock.lock();
+		try {
+			return appendedSequence;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return - sequence number of the last record that is durable
+	 */
+	public long getDurableSequence() {
+		lock.lock();
+		try {
+			return durableSequence;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Blocks until the record with the given sequence number and all records
+	 * before it are durable.
+	 */
+	public void awaitDurable(long sequence) throws IOException {
+		lock.lock();
+		try {
+			while (durableSequence < sequence && writeFailure == null) {
+				framesDurable.await();
+			}
+			if (durableSequence < sequence) {
+				throw new IOException("Writing the journal failed.", writeFailure);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the journal.");
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes a snapshot replacing all segments before the given one. The snapshot
+	 * is only visible after it was written completely, afterwards the replaced
+	 * segments and older snapshots are deleted.
+	 *
+	 * @param segment - number returned by {@link #startNewSegment()} when the
+	 *                state of the records was taken
+	 */
+	public void writeSnapshot(long segment, List<byte[]> records) throws IOException {
+		synchronized (snapshotMonitor) {
+			Path snapshot = directory.resolve(SNAPSHOT_PREFIX + segment + SNAPSHOT_SUFFIX);
+			Path temporarySnapshot = directory.resolve(SNAPSHOT_PREFIX + segment + SNAPSHOT_SUFFIX + TEMPORARY_SUFFIX);
+			try (FileChannel channel = FileChannel.open(temporarySnapshot, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE));
+				for (byte[] record : records) {
+					out.write(frame(record));
+				}
+				out.flush();
+				channel.force(true);
+			}
+			Files.move(temporarySnapshot, snapshot, StandardCopyOption.ATOMIC_MOVE);
+			forceDirectory();
+
+			for (long olderSnapshot : listNumbersOfFiles(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+				if (olderSnapshot < segment) {
+					Files.deleteIfExists(directory.resolve(SNAPSHOT_PREFIX + olderSnapshot + SNAPSHOT_SUFFIX));
+				}
+			}
+			for (long replacedSegment : listNumbersOfFiles(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+				if (replacedSegment < segment) {
+					Files.deleteIfExists(getSegmentPath(replacedSegment));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes all pending records and stops the writer thread.
+	 */
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			closed = true;
+			framesPending.signal();
+		} finally {
+			lock.unlock();
+		}
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+			throw new InterruptedIOException("Interrupted while closing the journal.");
+		}
+		lock.lock();
+		try {
+			if (writeFailure != null) {
+				throw new IOException("Writing the journal failed.", writeFailure);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void checkWritable() {
+		if (closed) {
+			throw new IllegalStateException("The journal is already closed.");
+		}
+		if (writeFailure != null) {
+			throw new UncheckedIOException("Writing the journal failed.", writeFailure);
+		}
+	}
+
+	private void writePendingFrames() {
+		try {
+			while (true) {
+				List<byte[]> framesToWrite;
+				long lastSequenceToWrite;
+				lock.lock();
+				try {
+					while (pendingFrames.isEmpty() && !closed) {
+						framesPending.await();
+					}
+					if (pendingFrames.isEmpty()) {
+						return;
+					}
+					framesToWrite = pendingFrames;
+					pendingFrames = new ArrayList<>();
+					lastSequenceToWrite = appendedSequence;
+				} finally {
+					lock.unlock();
+				}
+
+				for (byte[] frame : framesToWrite) {
+					if (frame == SEGMENT_SWITCH) {
+						flushWriteBuffer();
+						segmentChannel.force(false);
+						segmentChannel.close();
+						writtenSegment++;
+						segmentChannel = FileChannel.open(getSegmentPath(writtenSegment),
+								StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+					} else {
+						write(frame);
+					}
+				}
+				flushWriteBuffer();
+				segmentChannel.force(false);
+
+				lock.lock();
+				try {
+					durableSequence = lastSequenceToWrite;
+					framesDurable.signalAll();
+				} finally {
+					lock.unlock();
+				}
+			}
+		} catch (IOException e) {
+			failWriting(e);
+		} catch (InterruptedException e) {
+			failWriting(new InterruptedIOException("The journal writer was interrupted."));
+		} finally {
+			try {
+				segmentChannel.close();
+			} catch (IOException e) {
+				failWriting(e);
+			}
+		}
+	}
+
+	private void failWriting(IOException cause) {
+		lock.lock();
+		try {
+			if (writeFailure == null) {
+				writeFailure = cause;
+			}
+			framesDurable.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void write(byte[] frame) throws IOException {
+		if (frame.length > writeBuffer.remaining()) {
+			flushWriteBuffer();
+		}
+		if (frame.length > writeBuffer.capacity()) {
+			ByteBuffer largeFrame = ByteBuffer.wrap(frame);
+			while (largeFrame.hasRemaining()) {
+				segmentChannel.write(largeFrame);
+			}
+		} else {
+			writeBuffer.put(frame);
+		}
+	}
+
+	private void flushWriteBuffer() throws IOException {
+		writeBuffer.flip();
+		while (writeBuffer.hasRemaining()) {
+			segmentChannel.write(writeBuffer);
+		}
+		writeBuffer.clear();
+	}
+
+	private void forceDirectory() {
+		// makes the renamed snapshot durable, not supported on every platform
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// the rename is still durable after the next sync of the file system
+		}
+	}
+
+	private Path getSegmentPath(long segment) {
+		return directory.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+	}
+
+	private static byte[] frame(byte[] record) {
+		if (record.length > MAX_RECORD_SIZE) {
+			throw new IllegalArgumentException("A journal record must not be larger than " + MAX_RECORD_SIZE
+					+ " bytes, but it has " + record.length + " bytes.");
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(record, 0, record.length);
+		ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + record.length);
+		frame.putInt(record.length);
+		frame.putInt((int) checksum.getValue());
+		frame.put(record);
+		return frame.array();
+	}
+
+	/**
+	 * Hands all intact records of the file to the record handler.
+	 *
+	 * @return - length of the intact part at the beginning of the file
+	 */
+	private static long readFrames(Path file, RecordHandler recordHandler) throws IOException {
+		long validLength = 0;
+		CRC32 checksum = new CRC32();
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(file), WRITE_BUFFER_SIZE))) {
+			while (true) {
+				byte[] record;
+				int expectedChecksum;
+				try {
+					int recordLength = in.readInt();
+					expectedChecksum = in.readInt();
+					if (recordLength < 0 || recordLength > MAX_RECORD_SIZE) {
+						return validLength;
+					}
+					record = new byte[recordLength];
+					in.readFully(record);
+				} catch (EOFException e) {
+					return validLength;
+				}
+				checksum.reset();
+				checksum.update(record, 0, record.length);
+				if ((int) checksum.getValue() != expectedChecksum) {
+					return validLength;
+				}
+				recordHandler.handle(record);
+				validLength += FRAME_HEADER_SIZE + record.length;
+			}
+		}
+	}
+
+	private static List<Long> listNumbersOfFiles(Path directory, String prefix, String suffix) throws IOException {
+		List<Long> numbers = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+			for (Path file : files) {
+				String fileName = file.getFileName()
+						.toString();
+				try {
+					numbers.add(
+							Long.parseLong(fileName.substring(prefix.length(), fileName.length() - suffix.length())));
+				} catch (NumberFormatException e) {
+					// not one of our files
+				}
+			}
+		}
+		Collections.sort(numbers);
+		return numbers;
+	}
+}
@@ -0,0 +1,155 @@
+package de.hs_kl.staab.planner.services;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.CarMechanicUser;
+import de.hs_kl.staab.planner.CleaningAppointment;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.data.AppointmentArchive;
+import de.hs_kl.staab.planner.data.PlanningCalendarData;
+
+/**
+ * Result of
+ * {@link PlannerService#createAppointmentExport(LocalDate, LocalDate, String, String, WorkingAppointmentStatus)}:
+ * the appointments of some days, including the archived ones, optionally only
+ * those on one working platform, of one car mechanic or with one status. They
+ * are only read while writing them with
+ * {@link #writeTo(WritableByteChannel, ExportFormat)}, sorted by their begin:
+ * the appointments of the calendar day by day, of the archived ones only the
+ * begin and the row are kept meanwhile. So an export of years needs hardly more
+ * memory than one of a day.
+ */
+public class AppointmentExport {
+
+	private static final Comparator<Appointment> ORDER_OF_EXPORT = Comparator
+			.comparingLong(Appointment::getAppointmentBeginEpochMinute)
+			.thenComparing(Appointment::getAppointmentId);
+
+	private final PlannerService plannerService;
+	private final LocalDate firstDay;
+	private final LocalDate lastDay;
+	// null if the appointments are not filtered by it
+	private final WorkingPlatform workingPlatform;
+	private final CarMechanicUser carMechanicUser;
+	private final WorkingAppointmentStatus status;
+
+	AppointmentExport(PlannerService plannerService, LocalDate firstDay, LocalDate lastDay,
+			WorkingPlatform workingPlatform, CarMechanicUser carMechanicUser, WorkingAppointmentStatus status) {
+		this.plannerService = plannerService;
+		this.firstDay = firstDay;
+		this.lastDay = lastDay;
+		this.workingPlatform = workingPlatform;
+		this.carMechanicUser = carMechanicUser;
+		this.status = status;
+	}
+
+	@Override
+	public String toString() {
+		return "Appointments from " + firstDay + " to " + lastDay
+				+ (workingPlatform != null ? " on " + workingPlatform.getWorkingPlatformId() : "")
+				+ (carMechanicUser != null ? " of " + carMechanicUser.getUsername() : "")
+				+ (status != null ? " with status " + status : "");
+	}
+
+	public LocalDate getFirstDay() {
+		return firstDay;
+	}
+
+	public LocalDate getLastDay() {
+		return lastDay;
+	}
+
+	/**
+	 * Writes the appointments in the given format to the channel. The channel is
+	 * not closed.
+	 *
+	 * @return - number of written appointments
+	 */
+	public long writeTo(WritableByteChannel channel, ExportFormat format) throws IOException {
+		AppointmentExportWriter writer = AppointmentExportWriter.open(channel, format);
+		long numberOfAppointments = 0;
+		Iterator<Appointment> appointments = getAppointments();
+		while (appointments.hasNext()) {
+			writer.write(appointments.next());
+			numberOfAppointments++;
+		}
+		writer.finish();
+		return numberOfAppointments;
+	}
+
+	/**
+	 * @return - the appointments of the calendar merged with the archived ones,
+	 *         both already sorted by their begin
+	 */
+	private Iterator<Appointment> getAppointments() {
+		PlanningCalendarData planningCalendarData = plannerService.getPlanningCalendarData();
+		Iterator<Appointment> appointmentsOfCalendar = planningCalendarData
+				.getAppointmentsBeginningBetween(firstDay, lastDay)
+				.iterator();
+		AppointmentArchive appointmentArchive = plannerService.getAppointmentArchive();
+		Iterator<WorkingAppointment> archivedAppointments = appointmentArchive == null ? Collections.emptyIterator()
+				: appointmentArchive.iterateArchivedWorkingAppointmentsBeginningBetween(firstDay, lastDay);
+		return new Iterator<Appointment>() {
+
+			private Appointment nextOfCalendar = nextOf(appointmentsOfCalendar);
+			private Appointment nextOfArchive = nextOf(archivedAppointments);
+
+			@Override
+			public boolean hasNext() {
+				return nextOfCalendar != null || nextOfArchive != null;
+			}
+
+			@Override
+			public Appointment next() {
+				Appointment next;
+				if (nextOfArchive == null
+						|| nextOfCalendar != null && ORDER_OF_EXPORT.compare(nextOfCalendar, nextOfArchive) <= 0) {
+					next = nextOfCalendar;
+					nextOfCalendar = nextOf(appointmentsOfCalendar);
+				} else {
+					next = nextOfArchive;
+					nextOfArchive = nextOf(archivedAppointments);
+				}
+				return next;
+			}
+		};
+	}
+
+	/**
+	 * @return - the next appointment to export, null if there is none
+	 */
+	private Appointment nextOf(Iterator<? extends Appointment> appointments) {
+		while (appointments.hasNext()) {
+			Appointment appointment = appointments.next();
+			if (isExported(appointment)) {
+				return appointment;
+			}
+		}
+		return null;
+	}
+
+	private boolean isExported(Appointment appointment) {
+		if (appointment instanceof WorkingAppointment) {
+			WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+			return (workingPlatform == null || workingPlatform
+					.equals(workingAppointment.getWorkingPlatformRelatedToWorkingAppointment()))
+					&& (carMechanicUser == null
+							|| carMechanicUser.equals(workingAppointment.getResponsibleCarMechanicUser()))
+					&& (status == null || status == workingAppointment.getStatus());
+		} else if (appointment instanceof CleaningAppointment) {
+			CleaningAppointment cleaningAppointment = (CleaningAppointment) appointment;
+			return carMechanicUser == null && status == null && (workingPlatform == null
+					|| workingPlatform.equals(cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment()));
+		} else {
+			return workingPlatform == null && carMechanicUser == null && status == null;
+		}
+	}
+}
@@ -0,0 +1,394 @@
+package de.hs_kl.staab.planner.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.CleaningAppointment;
+import de.hs_kl.staab.planner.ConsultingAppointment;
+import de.hs_kl.staab.planner.Work;
+import de.hs_kl.staab.planner.WorkingAppointment;
+
+/**
+ * Writes appointments one after the other into a buffer of fixed size, which
+ * is written to the channel whenever it is full. So the memory needed doesn't
+ * depend on the number of appointments.
+ */
+abstract class AppointmentExportWriter {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	// the text of the current appointment, encoded at once
+	protected final StringBuilder text = new StringBuilder();
+
+	private AppointmentExportWriter(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	static AppointmentExportWriter open(WritableByteChannel channel, ExportFormat format) throws IOException {
+		AppointmentExportWriter writer;
+		switch (format) {
+		case CSV:
+			writer = new CsvWriter(channel);
+			break;
+		case NDJSON:
+			writer = new NdjsonWriter(channel);
+			break;
+		default:
+			writer = new BinaryWriter(channel);
+		}
+		writer.writeHeader();
+		return writer;
+	}
+
+	void writeHeader() throws IOException {
+	}
+
+	abstract void write(Appointment appointment) throws IOException;
+
+	void writeTrailer() throws IOException {
+	}
+
+	/**
+	 * Writes the trailer and everything still in the buffer.
+	 */
+	final void finish() throws IOException {
+		writeTrailer();
+		flush();
+	}
+
+	final void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Encodes the text as UTF-8 and empties it afterwards.
+	 */
+	final void writeText() throws IOException {
+		CharBuffer characters = CharBuffer.wrap(text);
+		encoder.reset();
+		while (true) {
+			CoderResult result = characters.hasRemaining() ? encoder.encode(characters, buffer, true)
+					: encoder.flush(buffer);
+			if (result.isOverflow()) {
+				flush();
+			} else if (!characters.hasRemaining()) {
+				break;
+			}
+		}
+		text.setLength(0);
+	}
+
+	/**
+	 * @return - the buffer with at least the given number of bytes free
+	 */
+	final ByteBuffer reserve(int numberOfBytes) throws IOException {
+		if (buffer.remaining() < numberOfBytes) {
+			flush();
+		}
+		return buffer;
+	}
+
+	private static final class CsvWriter extends AppointmentExportWriter {
+
+		CsvWriter(WritableByteChannel channel) {
+			super(channel);
+		}
+
+		@Override
+		void writeHeader() throws IOException {
+			text.append("appointmentId,type,begin,end,status,workingPlatformId,customerId,vehicleLicensePlate,workIds,"
+					+ "duration,cleaningAppointmentType,carMechanicUsername,clientAdvisorUsername,"
+					+ "dispatcherUsername\n");
+			writeText();
+		}
+
+		@Override
+		void write(Appointment appointment) throws IOException {
+			appendValue(appointment.getAppointmentId());
+			if (appointment instanceof WorkingAppointment) {
+				WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+				appendBeginEndAndType(appointment, "WORKING");
+				appendValue(workingAppointment.getStatus()
+						.name());
+				appendValue(workingAppointment.getWorkingPlatformRelatedToWorkingAppointment()
+						.getWorkingPlatformId());
+				appendValue(workingAppointment.getCustomerRelatedToWorkingAppointment()
+						.getCustomerId());
+				appendValue(workingAppointment.getVehicleToWorkOn()
+						.getVehicleLicensePlate());
+				StringBuilder workIds = new StringBuilder();
+				for (Work work : workingAppointment.getWorksToPerform()) {
+					workIds.append(workIds.length() == 0 ? "" : " ")
+							.append(work.getWorkId());
+				}
+				appendValue(workIds.toString());
+				appendValue(null);
+				appendValue(null);
+				appendValue(workingAppointment.getResponsibleCarMechanicUser()
+						.getUsername());
+				appendValue(null);
+				appendValue(null);
+			} else if (appointment instanceof ConsultingAppointment) {
+				ConsultingAppointment consultingAppointment = (ConsultingAppointment) appointment;
+				appendBeginEndAndType(appointment, "CONSULTING");
+				appendValue(null);
+				appendValue(null);
+				appendValue(consultingAppointment.getCustomerRelatedToConsultingAppointment()
+						.getCustomerId());
+				appendValue(null);
+				appendValue(null);
+				appendValue(String.valueOf(consultingAppointment.getConsultingAppointmentDuration()));
+				appendValue(null);
+				appendValue(null);
+				appendValue(consultingAppointment.getResponsibleClientAdvisorUser()
+						.getUsername());
+				appendValue(null);
+			} else if (appointment instanceof CleaningAppointment) {
+				CleaningAppointment cleaningAppointment = (CleaningAppointment) appointment;
+				appendBeginEndAndType(appointment, "CLEANING");
+				appendValue(null);
+				appendValue(cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment()
+						.getWorkingPlatformId());
+				appendValue(null);
+				appendValue(null);
+				appendValue(null);
+				appendValue(null);
+				appendValue(cleaningAppointment.getCleaningAppointmentType()
+						.toUpperCase());
+				appendValue(null);
+				appendValue(null);
+				appendValue(cleaningAppointment.getResponsibleDispatcherUser()
+						.getUsername());
+			}
+			// the last value is followed by the end of the line instead of a comma
+			text.setCharAt(text.length() - 1, '\n');
+			writeText();
+		}
+
+		private void appendBeginEndAndType(Appointment appointment, String type) {
+			appendValue(type);
+			appendValue(appointment.getAppointmentBeginDateAndTime()
+					.toString());
+			appendValue(appointment.getAppointmentEndDateAndTime()
+					.toString());
+		}
+
+		/**
+		 * Appends the value and a comma, in double quotes if it contains a comma,
+		 * a double quote or a line break. Null is an empty value.
+		 */
+		private void appendValue(String value) {
+			if (value != null) {
+				boolean isQuoted = false;
+				for (int i = 0; i < value.length() && !isQuoted; i++) {
+					char character = value.charAt(i);
+					isQuoted = character == ',' || character == '"' || character == '\n' || character == '\r';
+				}
+				if (isQuoted) {
+					text.append('"')
+							.append(value.replace("\"", "\"\""))
+							.append('"');
+				} else {
+					text.append(value);
+				}
+			}
+			text.append(',');
+		}
+	}
+
+	private static final class NdjsonWriter extends AppointmentExportWriter {
+
+		NdjsonWriter(WritableByteChannel channel) {
+			super(channel);
+		}
+
+		@Override
+		void write(Appointment appointment) throws IOException {
+			text.append('{');
+			appendField("appointmentId", appointment.getAppointmentId());
+			appendField("begin", appointment.getAppointmentBeginDateAndTime()
+					.toString());
+			appendField("end", appointment.getAppointmentEndDateAndTime()
+					.toString());
+			if (appointment instanceof WorkingAppointment) {
+				WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+				appendField("type", "WORKING");
+				appendField("status", workingAppointment.getStatus()
+						.name());
+				appendField("workingPlatformId", workingAppointment.getWorkingPlatformRelatedToWorkingAppointment()
+						.getWorkingPlatformId());
+				appendField("customerId", workingAppointment.getCustomerRelatedToWorkingAppointment()
+						.getCustomerId());
+				appendField("vehicleLicensePlate", workingAppointment.getVehicleToWorkOn()
+						.getVehicleLicensePlate());
+				text.append("\"workIds\":[");
+				for (Work work : workingAppointment.getWorksToPerform()) {
+					appendString(work.getWorkId());
+					text.append(',');
+				}
+				if (!workingAppointment.getWorksToPerform()
+						.isEmpty()) {
+					text.setLength(text.length() - 1);
+				}
+				text.append("],");
+				appendField("carMechanicUsername", workingAppointment.getResponsibleCarMechanicUser()
+						.getUsername());
+			} else if (appointment instanceof ConsultingAppointment) {
+				ConsultingAppointment consultingAppointment = (ConsultingAppointment) appointment;
+				appendField("type", "CONSULTING");
+				appendField("customerId", consultingAppointment.getCustomerRelatedToConsultingAppointment()
+						.getCustomerId());
+				text.append("\"duration\":")
+						.append(consultingAppointment.getConsultingAppointmentDuration())
+						.append(',');
+				appendField("clientAdvisorUsername", consultingAppointment.getResponsibleClientAdvisorUser()
+						.getUsername());
+			} else if (appointment instanceof CleaningAppointment) {
+				CleaningAppointment cleaningAppointment = (CleaningAppointment) appointment;
+				appendField("type", "CLEANING");
+				appendField("cleaningAppointmentType", cleaningAppointment.getCleaningAppointmentType()
+						.toUpperCase());
+				appendField("workingPlatformId", cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment()
+						.getWorkingPlatformId());
+				appendField("dispatcherUsername", cleaningAppointment.getResponsibleDispatcherUser()
+						.getUsername());
+			}
+			// the last field is followed by the end of the object instead of a comma
+			text.setLength(text.length() - 1);
+			text.append("}\n");
+			writeText();
+		}
+
+		private void appendField(String name, String value) {
+			text.append('"')
+					.append(name)
+					.append("\":");
+			appendString(value);
+			text.append(',');
+		}
+
+		private void appendString(String value) {
+			if (value == null) {
+				text.append("null");
+				return;
+			}
+			text.append('"');
+			for (int i = 0; i < value.length(); i++) {
+				char character = value.charAt(i);
+				if (character == '"' || character == '\\') {
+					text.append('\\')
+							.append(character);
+				} else if (character < ' ') {
+					text.append(String.format("\\u%04x", (int) character));
+				} else {
+					text.append(character);
+				}
+			}
+			text.append('"');
+		}
+	}
+
+	private static final class BinaryWriter extends AppointmentExportWriter {
+
+		private static final byte[] MAGIC = { 'P', 'L', 'N', 'X' };
+		private static final byte VERSION = 1;
+		private static final byte END = 0;
+		private static final byte WORKING = 1;
+		private static final byte CONSULTING = 2;
+		private static final byte CLEANING = 3;
+
+		BinaryWriter(WritableByteChannel channel) {
+			super(channel);
+		}
+
+		@Override
+		void writeHeader() throws IOException {
+			reserve(MAGIC.length + 1).put(MAGIC)
+					.put(VERSION);
+		}
+
+		@Override
+		void write(Appointment appointment) throws IOException {
+			byte type = appointment instanceof WorkingAppointment ? WORKING
+					: appointment instanceof ConsultingAppointment ? CONSULTING : CLEANING;
+			reserve(1).put(type);
+			writeString(appointment.getAppointmentId());
+			reserve(Long.BYTES + Integer.BYTES).putLong(appointment.getAppointmentBeginEpochMinute())
+					.putInt((int) (appointment.getAppointmentEndEpochMinute()
+							- appointment.getAppointmentBeginEpochMinute()));
+			if (appointment instanceof WorkingAppointment) {
+				WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+				reserve(1).put((byte) workingAppointment.getStatus()
+						.ordinal());
+				writeString(workingAppointment.getWorkingPlatformRelatedToWorkingAppointment()
+						.getWorkingPlatformId());
+				writeString(workingAppointment.getCustomerRelatedToWorkingAppointment()
+						.getCustomerId());
+				writeString(workingAppointment.getVehicleToWorkOn()
+						.getVehicleLicensePlate());
+				writeNumber(workingAppointment.getWorksToPerform()
+						.size());
+				for (Work work : workingAppointment.getWorksToPerform()) {
+					writeString(work.getWorkId());
+				}
+				writeString(workingAppointment.getResponsibleCarMechanicUser()
+						.getUsername());
+			} else if (appointment instanceof ConsultingAppointment) {
+				ConsultingAppointment consultingAppointment = (ConsultingAppointment) appointment;
+				writeString(consultingAppointment.getCustomerRelatedToConsultingAppointment()
+						.getCustomerId());
+				writeString(consultingAppointment.getResponsibleClientAdvisorUser()
+						.getUsername());
+			} else {
+				CleaningAppointment cleaningAppointment = (CleaningAppointment) appointment;
+				writeString(cleaningAppointment.getCleaningAppointmentType()
+						.toUpperCase());
+				writeString(cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment()
+						.getWorkingPlatformId());
+				writeString(cleaningAppointment.getResponsibleDispatcherUser()
+						.getUsername());
+			}
+		}
+
+		@Override
+		void writeTrailer() throws IOException {
+			reserve(1).put(END);
+		}
+
+		private void writeString(String value) throws IOException {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeNumber(bytes.length);
+			if (bytes.length <= BUFFER_SIZE) {
+				reserve(bytes.length).put(bytes);
+			} else {
+				text.append(value);
+				writeText();
+			}
+		}
+
+		private void writeNumber(int value) throws IOException {
+			ByteBuffer buffer = reserve(5);
+			while ((value & ~0x7F) != 0) {
+				buffer.put((byte) (value & 0x7F | 0x80));
+				value >>>= 7;
+			}
+			buffer.put((byte) value);
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package de.hs_kl.staab.planner.services;
+
+import java.util.Optional;
+
+import de.hs_kl.staab.planner.WorkingAppointment;
+
+/**
+ * Result of booking one {@link WorkingAppointmentRequest} of a batch: the
+ * request together with the {@link Outcome} of its booking.
+ */
+public class BookingResult {
+
+	private final WorkingAppointmentRequest request;
+	private final Outcome<WorkingAppointment> outcome;
+
+	BookingResult(WorkingAppointmentRequest request, Outcome<WorkingAppointment> outcome) {
+		this.request = request;
+		this.outcome = outcome;
+	}
+
+	@Override
+	public String toString() {
+		return request + " -> " + outcome;
+	}
+
+	public WorkingAppointmentRequest getRequest() {
+		return request;
+	}
+
+	public Outcome<WorkingAppointment> getOutcome() {
+		return outcome;
+	}
+
+	public boolean isAccepted() {
+		return outcome.isAccepted();
+	}
+
+	public Optional<WorkingAppointment> getBookedWorkingAppointment() {
+		return outcome.getResult();
+	}
+}
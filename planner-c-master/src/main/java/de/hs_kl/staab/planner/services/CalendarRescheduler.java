@@ -0,0 +1,507 @@
+package de.hs_kl.staab.planner.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.EpochMinutes;
+import de.hs_kl.staab.planner.User;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.data.PlanningCalendarData;
+import de.hs_kl.staab.planner.services.ReschedulingPlan.Move;
+
+/**
+ * Plans new places for open appointments after working platforms or users
+ * became unavailable, see
+ * {@link PlannerService#planRescheduling(java.time.LocalDate, java.time.LocalDate, Set, Set)}.
+ *
+ * The appointments are placed one after another, each at the earliest time not
+ * before its original begin, at which one of its candidate working platforms
+ * and one of its candidate users are free; on equal times it stays with as many
+ * of its original resources as possible. Which appointment gets a contested
+ * time depends on the order of placing, so a local search moves delayed
+ * appointments to earlier positions of the order and keeps every change that
+ * doesn't make the plan worse. A plan is better if fewer appointments leave
+ * their original day, and then if the total delay is smaller. Several searches
+ * from different orders run in parallel on the common fork/join pool and the
+ * best plan wins.
+ */
+final class CalendarRescheduler {
+
+	// one search per thread of the common pool, but at least this many
+	private static final int MIN_NUMBER_OF_SEARCHES = 4;
+	private static final int NUMBER_OF_PLACEMENTS_PER_SEARCH = 20_000;
+	private static final int MIN_NUMBER_OF_ITERATIONS_PER_SEARCH = 10;
+
+	private final List<Task> tasks = new ArrayList<>();
+	private final List<Appointment> appointmentsLeftOnUnavailableResources = new ArrayList<>();
+	// appointments not being rescheduled, per candidate resource
+	private final Map<Object, BusyTimes> fixedBusyTimes = new HashMap<>();
+
+	/**
+	 * @param appointmentsToReschedule - open working and cleaning appointments,
+	 *                                 none beginning before beginOfRescheduling
+	 * @param workingPlatforms         - the available working platforms, in the
+	 *                                 order to choose from on equal times
+	 * @param carMechanics             - the available car mechanics, likewise
+	 * @param dispatchers              - the available dispatchers, likewise
+	 */
+	CalendarRescheduler(PlanningCalendarData planningCalendarData, List<Appointment> appointmentsToReschedule,
+			List<WorkingPlatform> workingPlatforms, List<? extends User> carMechanics,
+			List<? extends User> dispatchers, long beginOfRescheduling) {
+		List<Appointment> sortedAppointments = new ArrayList<>(appointmentsToReschedule);
+		sortedAppointments.sort(Comparator.comparingLong(Appointment::getAppointmentBeginEpochMinute)
+				.thenComparingLong(Appointment::getAppointmentIdNumber));
+		for (Appointment appointment : sortedAppointments) {
+			List<WorkingPlatform> candidateWorkingPlatforms;
+			List<User> candidateUsers;
+			if (appointment instanceof WorkingAppointment) {
+				candidateWorkingPlatforms = originalFirst(workingPlatforms,
+						Move.getWorkingPlatformOf(appointment));
+				candidateUsers = originalFirst(carMechanics, Move.getResponsibleUserOf(appointment));
+			} else {
+				// a cleaning belongs to its working platform
+				WorkingPlatform workingPlatform = Move.getWorkingPlatformOf(appointment);
+				candidateWorkingPlatforms = workingPlatforms.contains(workingPlatform)
+						? Collections.singletonList(workingPlatform)
+						: Collections.emptyList();
+				candidateUsers = originalFirst(dispatchers, Move.getResponsibleUserOf(appointment));
+			}
+			if (candidateWorkingPlatforms.isEmpty() || candidateUsers.isEmpty()) {
+				appointmentsLeftOnUnavailableResources.add(appointment);
+			} else {
+				tasks.add(new Task(appointment, candidateWorkingPlatforms, candidateUsers));
+			}
+		}
+		Set<Appointment> rescheduledAppointments = Collections.newSetFromMap(new IdentityHashMap<>());
+		tasks.forEach(task -> rescheduledAppointments.add(task.appointment));
+		for (WorkingPlatform workingPlatform : workingPlatforms) {
+			fixedBusyTimes.put(workingPlatform,
+					new BusyTimes(planningCalendarData.getAppointmentsOnWorkingPlatformOverlapping(workingPlatform,
+							beginOfRescheduling, EpochMinutes.MAX), rescheduledAppointments));
+		}
+		List<User> users = new ArrayList<>(carMechanics);
+		users.addAll(dispatchers);
+		for (User user : users) {
+			fixedBusyTimes.put(user, new BusyTimes(planningCalendarData.getAppointmentsOfUserOverlapping(user,
+					beginOfRescheduling, EpochMinutes.MAX), rescheduledAppointments));
+		}
+	}
+
+	private static <T> List<T> originalFirst(List<? extends T> candidates, T original) {
+		List<T> sortedCandidates = new ArrayList<>(candidates.size());
+		if (candidates.contains(original)) {
+			sortedCandidates.add(original);
+		}
+		for (T candidate : candidates) {
+			if (candidate != original) {
+				sortedCandidates.add(candidate);
+			}
+		}
+		return sortedCandidates;
+	}
+
+	ReschedulingPlan plan() {
+		List<Move> moves = new ArrayList<>();
+		if (!tasks.isEmpty()) {
+			int numberOfSearches = Math.max(MIN_NUMBER_OF_SEARCHES, ForkJoinPool.getCommonPoolParallelism());
+			Search best = ForkJoinPool.commonPool()
+					.invoke(new ParallelSearch(0, numberOfSearches));
+			for (int i = 0; i < tasks.size(); i++) {
+				Placement placement = best.placements[i];
+				if (placement.isMoving()) {
+					moves.add(new Move(tasks.get(i).appointment, placement.begin, placement.workingPlatform,
+							placement.user));
+				}
+			}
+			moves.sort(Comparator.comparingLong(Move::getNewBeginEpochMinute));
+		}
+		return new ReschedulingPlan(moves, appointmentsLeftOnUnavailableResources);
+	}
+
+	/**
+	 * Runs the searches with the seeds from fromSeed to toSeed, the ones of the
+	 * first half in another thread, and returns the best of them.
+	 */
+	private class ParallelSearch extends RecursiveTask<Search> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int fromSeed;
+		private final int toSeed;
+
+		ParallelSearch(int fromSeed, int toSeed) {
+			this.fromSeed = fromSeed;
+			this.toSeed = toSeed;
+		}
+
+		@Override
+		protected Search compute() {
+			if (toSeed - fromSeed == 1) {
+				Search search = new Search(fromSeed);
+				search.run();
+				return search;
+			}
+			int middleSeed = (fromSeed + toSeed) >>> 1;
+			ParallelSearch firstHalf = new ParallelSearch(fromSeed, middleSeed);
+			firstHalf.fork();
+			Search bestOfSecondHalf = new ParallelSearch(middleSeed, toSeed).compute();
+			Search bestOfFirstHalf = firstHalf.join();
+			// on equal plans the lower seed wins, so the result doesn't depend on timing
+			return bestOfSecondHalf.isBetterThan(bestOfFirstHalf) ? bestOfSecondHalf : bestOfFirstHalf;
+		}
+	}
+
+	/**
+	 * One local search, starting from the order of the original begins, shuffled
+	 * a bit for every seed but the first.
+	 */
+	private class Search {
+
+		private final Random random;
+		private int[] order;
+		private Placement[] placements;
+		private int numberOfDayChanges;
+		private long totalDelay;
+
+		Search(int seed) {
+			random = new Random(seed);
+			order = new int[tasks.size()];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			for (int swap = 0; seed > 0 && swap < order.length; swap++) {
+				int i = random.nextInt(order.length);
+				int j = random.nextInt(order.length);
+				int task = order[i];
+				order[i] = order[j];
+				order[j] = task;
+			}
+			setPlacements(place(order));
+		}
+
+		void run() {
+			int numberOfIterations = Math.max(MIN_NUMBER_OF_ITERATIONS_PER_SEARCH,
+					NUMBER_OF_PLACEMENTS_PER_SEARCH / order.length);
+			for (int iteration = 0; iteration < numberOfIterations && (numberOfDayChanges > 0 || totalDelay > 0);
+					iteration++) {
+				int[] changedOrder = moveDelayedTaskForward();
+				if (changedOrder == null) {
+					continue;
+				}
+				Placement[] changedPlacements = place(changedOrder);
+				int changedNumberOfDayChanges = countDayChanges(changedPlacements);
+				long changedTotalDelay = sumDelays(changedPlacements);
+				// equal plans are accepted too, so the search can cross plateaus
+				if (changedNumberOfDayChanges < numberOfDayChanges || changedNumberOfDayChanges == numberOfDayChanges
+						&& changedTotalDelay <= totalDelay) {
+					order = changedOrder;
+					setPlacements(changedPlacements);
+				}
+			}
+		}
+
+		/**
+		 * @return - a copy of the order with a random delayed task moved to a random
+		 *         earlier position, or null if the chosen task is first already
+		 */
+		private int[] moveDelayedTaskForward() {
+			int numberOfDelayedTasks = 0;
+			for (int task : order) {
+				if (placements[task].begin > tasks.get(task).originalBegin) {
+					numberOfDelayedTasks++;
+				}
+			}
+			int delayedTaskToMove = random.nextInt(numberOfDelayedTasks);
+			int position = 0;
+			while (placements[order[position]].begin == tasks.get(order[position]).originalBegin
+					|| delayedTaskToMove-- > 0) {
+				position++;
+			}
+			if (position == 0) {
+				return null;
+			}
+			int newPosition = random.nextInt(position);
+			int[] changedOrder = order.clone();
+			System.arraycopy(order, newPosition, changedOrder, newPosition + 1, position - newPosition);
+			changedOrder[newPosition] = order[position];
+			return changedOrder;
+		}
+
+		private void setPlacements(Placement[] placements) {
+			this.placements = placements;
+			this.numberOfDayChanges = countDayChanges(placements);
+			this.totalDelay = sumDelays(placements);
+		}
+
+		boolean isBetterThan(Search other) {
+			if (numberOfDayChanges != other.numberOfDayChanges) {
+				return numberOfDayChanges < other.numberOfDayChanges;
+			}
+			return totalDelay < other.totalDelay;
+		}
+	}
+
+	private int countDayChanges(Placement[] placements) {
+		int numberOfDayChanges = 0;
+		for (int i = 0; i < placements.length; i++) {
+			if (EpochMinutes.toLocalDate(placements[i].begin)
+					.toEpochDay() != tasks.get(i).originalDay) {
+				numberOfDayChanges++;
+			}
+		}
+		return numberOfDayChanges;
+	}
+
+	private long sumDelays(Placement[] placements) {
+		long totalDelay = 0;
+		for (int i = 0; i < placements.length; i++) {
+			totalDelay += placements[i].begin - tasks.get(i).originalBegin;
+		}
+		return totalDelay;
+	}
+
+	/**
+	 * Places the tasks in the given order, each one at its earliest possible time.
+	 *
+	 * @return - the placements, indexed like the tasks
+	 */
+	private Placement[] place(int[] order) {
+		Map<Object, NavigableMap<Long, Long>> placedBusyTimes = new HashMap<>();
+		Placement[] placements = new Placement[tasks.size()];
+		for (int taskIndex : order) {
+			Task task = tasks.get(taskIndex);
+			Placement placement = placeEarliest(task, placedBusyTimes);
+			placements[taskIndex] = placement;
+			if (task.durationInMinutes == 0) {
+				// blocks nothing, but would replace a time span beginning at the same time
+				continue;
+			}
+			placedBusyTimes.computeIfAbsent(placement.workingPlatform, workingPlatform -> new TreeMap<>())
+					.put(placement.begin, placement.begin + task.durationInMinutes);
+			placedBusyTimes.computeIfAbsent(placement.user, user -> new TreeMap<>())
+					.put(placement.begin, placement.begin + task.durationInMinutes);
+		}
+		return placements;
+	}
+
+	/**
+	 * The first free time of a single resource is a lower bound for every pair
+	 * with it, so the pairs are visited in the order of these bounds and the
+	 * search stops as soon as no remaining pair can beat the best one.
+	 */
+	private Placement placeEarliest(Task task, Map<Object, NavigableMap<Long, Long>> placedBusyTimes) {
+		long[] boundsOfWorkingPlatforms = new long[task.workingPlatforms.size()];
+		for (int i = 0; i < boundsOfWorkingPlatforms.length; i++) {
+			boundsOfWorkingPlatforms[i] = getBeginOfFirstFreeTimeSpan(task.workingPlatforms.get(i),
+					task.originalBegin, task.durationInMinutes, placedBusyTimes);
+		}
+		long[] boundsOfUsers = new long[task.users.size()];
+		for (int i = 0; i < boundsOfUsers.length; i++) {
+			boundsOfUsers[i] = getBeginOfFirstFreeTimeSpan(task.users.get(i), task.originalBegin,
+					task.durationInMinutes, placedBusyTimes);
+		}
+		Integer[] usersSortedByBound = sortedByBound(boundsOfUsers);
+		Placement best = null;
+		for (int i : sortedByBound(boundsOfWorkingPlatforms)) {
+			if (best != null && !best.canBeBeatenFrom(boundsOfWorkingPlatforms[i])) {
+				break;
+			}
+			for (int j : usersSortedByBound) {
+				long lowerBound = Math.max(boundsOfWorkingPlatforms[i], boundsOfUsers[j]);
+				if (best != null && !best.canBeBeatenFrom(lowerBound)) {
+					break;
+				}
+				WorkingPlatform workingPlatform = task.workingPlatforms.get(i);
+				User user = task.users.get(j);
+				long begin = getBeginOfFirstFreeTimeSpanOfBoth(workingPlatform, user, lowerBound,
+						task.durationInMinutes, placedBusyTimes);
+				Placement placement = new Placement(task, begin, workingPlatform, user);
+				if (best == null || placement.isBetterThan(best)) {
+					best = placement;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return - the indexes of the bounds, sorted by bound; on equal bounds the
+	 *         lower index comes first, so the original resource is tried first
+	 */
+	private static Integer[] sortedByBound(long[] bounds) {
+		Integer[] indexes = new Integer[bounds.length];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = i;
+		}
+		Arrays.sort(indexes, Comparator.comparingLong(i -> bounds[i]));
+		return indexes;
+	}
+
+	private long getBeginOfFirstFreeTimeSpanOfBoth(WorkingPlatform workingPlatform, User user, long earliestBegin,
+			long durationInMinutes, Map<Object, NavigableMap<Long, Long>> placedBusyTimes) {
+		long begin = earliestBegin;
+		while (true) {
+			long beginOnWorkingPlatform = getBeginOfFirstFreeTimeSpan(workingPlatform, begin, durationInMinutes,
+					placedBusyTimes);
+			long beginOfUser = getBeginOfFirstFreeTimeSpan(user, beginOnWorkingPlatform, durationInMinutes,
+					placedBusyTimes);
+			if (beginOfUser == beginOnWorkingPlatform) {
+				return beginOfUser;
+			}
+			begin = beginOfUser;
+		}
+	}
+
+	private long getBeginOfFirstFreeTimeSpan(Object resource, long earliestBegin, long durationInMinutes,
+			Map<Object, NavigableMap<Long, Long>> placedBusyTimes) {
+		BusyTimes fixed = fixedBusyTimes.get(resource);
+		NavigableMap<Long, Long> placed = placedBusyTimes.get(resource);
+		long begin = earliestBegin;
+		while (true) {
+			long end = begin + durationInMinutes;
+			long endOfOverlapping = Math.max(fixed.getEndOfOverlapping(begin, end),
+					getEndOfOverlapping(placed, begin, end));
+			if (endOfOverlapping == Long.MIN_VALUE) {
+				return begin;
+			}
+			begin = endOfOverlapping;
+		}
+	}
+
+	/**
+	 * @param busyTimes - begin -> end of time spans not overlapping each other
+	 * @return - the end of the time span overlapping begin to end, or
+	 *         Long.MIN_VALUE if there is none
+	 */
+	private static long getEndOfOverlapping(NavigableMap<Long, Long> busyTimes, long begin, long end) {
+		if (busyTimes != null) {
+			Map.Entry<Long, Long> lastBusyTimeBeginningBeforeEnd = busyTimes.lowerEntry(end);
+			if (lastBusyTimeBeginningBeforeEnd != null && lastBusyTimeBeginningBeforeEnd.getValue() > begin) {
+				return lastBusyTimeBeginningBeforeEnd.getValue();
+			}
+		}
+		return Long.MIN_VALUE;
+	}
+
+	/**
+	 * An appointment to reschedule with the resources it may get.
+	 */
+	private static final class Task {
+
+		private final Appointment appointment;
+		private final long originalBegin;
+		private final long originalDay;
+		private final long durationInMinutes;
+		private final List<WorkingPlatform> workingPlatforms;
+		private final List<User> users;
+
+		Task(Appointment appointment, List<WorkingPlatform> workingPlatforms, List<User> users) {
+			this.appointment = appointment;
+			this.originalBegin = appointment.getAppointmentBeginEpochMinute();
+			this.originalDay = EpochMinutes.toLocalDate(originalBegin)
+					.toEpochDay();
+			this.durationInMinutes = appointment.getAppointmentEndEpochMinute() - originalBegin;
+			this.workingPlatforms = workingPlatforms;
+			this.users = users;
+		}
+	}
+
+	private static final class Placement {
+
+		private final Task task;
+		private final long begin;
+		private final WorkingPlatform workingPlatform;
+		private final User user;
+		private final int numberOfChangedResources;
+
+		Placement(Task task, long begin, WorkingPlatform workingPlatform, User user) {
+			this.task = task;
+			this.begin = begin;
+			this.workingPlatform = workingPlatform;
+			this.user = user;
+			this.numberOfChangedResources = (workingPlatform != Move.getWorkingPlatformOf(task.appointment) ? 1 : 0)
+					+ (user != Move.getResponsibleUserOf(task.appointment) ? 1 : 0);
+		}
+
+		boolean isMoving() {
+			return begin != task.originalBegin || numberOfChangedResources > 0;
+		}
+
+		boolean isBetterThan(Placement other) {
+			return begin < other.begin
+					|| begin == other.begin && numberOfChangedResources < other.numberOfChangedResources;
+		}
+
+		/**
+		 * @return - true if a placement beginning at or after the given time might
+		 *         still be better than this one
+		 */
+		boolean canBeBeatenFrom(long earliestBegin) {
+			return earliestBegin < begin || earliestBegin == begin && numberOfChangedResources > 0;
+		}
+	}
+
+	/**
+	 * The time spans during which a resource is occupied by appointments, merged
+	 * where they overlap or touch.
+	 */
+	private static final class BusyTimes {
+
+		private final long[] begins;
+		private final long[] ends;
+
+		BusyTimes(List<Appointment> appointments, Set<Appointment> ignoredAppointments) {
+			List<Appointment> sortedAppointments = new ArrayList<>(appointments.size());
+			for (Appointment appointment : appointments) {
+				if (!ignoredAppointments.contains(appointment)) {
+					sortedAppointments.add(appointment);
+				}
+			}
+			sortedAppointments.sort(Comparator.comparingLong(Appointment::getAppointmentBeginEpochMinute));
+			long[] mergedBegins = new long[sortedAppointments.size()];
+			long[] mergedEnds = new long[sortedAppointments.size()];
+			int numberOfBusyTimes = 0;
+			for (Appointment appointment : sortedAppointments) {
+				if (numberOfBusyTimes > 0
+						&& appointment.getAppointmentBeginEpochMinute() <= mergedEnds[numberOfBusyTimes - 1]) {
+					mergedEnds[numberOfBusyTimes - 1] = Math.max(mergedEnds[numberOfBusyTimes - 1],
+							appointment.getAppointmentEndEpochMinute());
+				} else {
+					mergedBegins[numberOfBusyTimes] = appointment.getAppointmentBeginEpochMinute();
+					mergedEnds[numberOfBusyTimes] = appointment.getAppointmentEndEpochMinute();
+					numberOfBusyTimes++;
+				}
+			}
+			this.begins = Arrays.copyOf(mergedBegins, numberOfBusyTimes);
+			this.ends = Arrays.copyOf(mergedEnds, numberOfBusyTimes);
+		}
+
+		/**
+		 * @return - the end of the time span overlapping begin to end, or
+		 *         Long.MIN_VALUE if there is none
+		 */
+		long getEndOfOverlapping(long begin, long end) {
+			// index of the last time span beginning before end
+			int index = Arrays.binarySearch(begins, end);
+			index = index >= 0 ? index - 1 : -index - 2;
+			if (index >= 0 && ends[index] > begin) {
+				return ends[index];
+			}
+			return Long.MIN_VALUE;
+		}
+	}
+}
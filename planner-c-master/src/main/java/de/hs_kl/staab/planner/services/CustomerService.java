@@ -1,19 +1,33 @@
 package de.hs_kl.staab.planner.services;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import de.hs_kl.staab.planner.Customer;
 import de.hs_kl.staab.planner.Vehicle;
 import de.hs_kl.staab.planner.data.CustomerData;
+import de.hs_kl.staab.planner.services.PersistenceService.StateChange;
 
 public class CustomerService {
 
 	private static CustomerService CUSTOMER_SERVICE;
 	private final static CustomerData CUSTOMER_DATA = new CustomerData();
+	private final static PersistenceService PERSISTENCE_SERVICE = PersistenceService.getInstance();
 	private final static VehicleService VEHICLE_SERVICE = VehicleService.getInstance();
 
+	public static final int MAX_NUMBER_OF_SEARCH_RESULTS = 100;
+
+	private static final String DUPLICATE_OF_CUSTOMER = "Customer with the same name and the same address already exists. Please choose different details or check if the customer you want to create already exists by using getAllCustomers()";
+
 	/**
 	 * Singleton-Pattern: Der Konstruktor kann nicht aufgerufen werden, sondern
 	 * {@link #getInstance()} muss aufgerufen werden. So kann sichergestellt werden,
@@ -27,22 +41,42 @@ public class CustomerService {
 	 * 
 	 * @return Die einzige Instanz des CustomerService.
 	 */
-	public static CustomerService getInstance() {
+	public static synchronized CustomerService getInstance() {
 		if (CUSTOMER_SERVICE == null) {
 			CUSTOMER_SERVICE = new CustomerService();
 		}
 		return CUSTOMER_SERVICE;
 	}
 
+	static CustomerData getCustomerData() {
+		return CUSTOMER_DATA;
+	}
+
 	public Set<Customer> getAllCustomers() {
 		return CUSTOMER_DATA.getAllCustomers();
 	}
 
-	private boolean checkIfCustomerDuplicateAlreadyExists(String customerFirstName, String customerLastName,
+	public Collection<Customer> getCustomersOrderedByIdAfter(String customerId) {
+		return CUSTOMER_DATA.getCustomersOrderedByIdAfter(customerId);
+	}
+
+	/**
+	 * Type-ahead search for the front desk: every word of the query has to match
+	 * the beginning of a name or the city (small typos are tolerated), the
+	 * beginning of the postal code, the phone number or the email address.
+	 * 
+	 * @param maxNumberOfResults - at most MAX_NUMBER_OF_SEARCH_RESULTS
+	 * @return - the best matching customers, the best match first
+	 */
+	public List<Customer> searchCustomers(String query, int maxNumberOfResults) {
+		return CUSTOMER_DATA.searchCustomers(query, Math.min(maxNumberOfResults, MAX_NUMBER_OF_SEARCH_RESULTS));
+	}
+
+	private Optional<Customer> getDuplicateOfCustomer(String customerFirstName, String customerLastName,
 			String street, int houseNumber, int postalCode, String city) {
-		Set<Customer> allCustomers = CUSTOMER_DATA.getAllCustomers();
-		Boolean customerDetailsAlreadyExist = false;
-		for (Customer customer : allCustomers) {
+		// a duplicate has the same address, so only the customers with the same
+		// postal code have to be compared
+		for (Customer customer : CUSTOMER_DATA.getCustomersWithPostalCode(postalCode)) {
 			if (customer.getCustomerFirstName()
 					.equals(customerFirstName)
 					&& customer.getCustomerLastName()
@@ -52,37 +86,81 @@ public class CustomerService {
 					&& customer.getHouseNumber() == houseNumber && customer.getPostalCode() == postalCode
 					&& customer.getCity()
 							.equals(city)) {
-				customerDetailsAlreadyExist = true;
-				break;
+				return Optional.of(customer);
 			}
 		}
-		return customerDetailsAlreadyExist;
+		return Optional.empty();
 	}
 
-	public void createAndAddNewCustomer(String customerFirstName, String customerLastName, String street,
-			int houseNumber, int postalCode, String city, String phoneNumber, String email) {
-		if (!checkIfCustomerDuplicateAlreadyExists(customerFirstName, customerLastName, street, houseNumber, postalCode,
-				city)) {
-			CUSTOMER_DATA.addCustomerToCustomerData(new Customer(customerFirstName, customerLastName, street,
-					houseNumber, postalCode, city, phoneNumber, email));
+	public synchronized Outcome<Customer> createAndAddNewCustomer(String customerFirstName, String customerLastName,
+			String street, int houseNumber, int postalCode, String city, String phoneNumber, String email) {
+		Optional<Customer> duplicateOfCustomer = getDuplicateOfCustomer(customerFirstName, customerLastName, street,
+				houseNumber, postalCode, city);
+		if (!duplicateOfCustomer.isPresent()) {
+			Customer newCustomer = new Customer(customerFirstName, customerLastName, street, houseNumber, postalCode,
+					city, phoneNumber, email);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				CUSTOMER_DATA.addCustomerToCustomerData(newCustomer);
+				stateChange.journalCustomer(newCustomer);
+			}
+			return Outcome.accepted(newCustomer);
 		} else {
-			System.err.println(
-					"ERROR: Customer with the same name and the same address already exists. Please choose different details or check if the customer you want to create already exists by using getAllCustomers()");
+			return Outcome.conflict(duplicateOfCustomer.get(), DUPLICATE_OF_CUSTOMER);
 		}
-
 	}
 
-	public Optional<Customer> getCustomerById(String customerId) {
-		Set<Customer> allCustomers = CUSTOMER_DATA.getAllCustomers();
-		Customer foundCustomer = null;
-		for (Customer customer : allCustomers) {
-			if (customer.getCustomerId()
-					.equals(customerId)) {
-				foundCustomer = customer;
-				break;
+	/**
+	 * Adds many new customers at once, e.g. for an import. Every customer is
+	 * checked like in
+	 * {@link #createAndAddNewCustomer(String, String, String, int, int, String, String, String)}
+	 * and against the customers before it in the list, and its ID must not be
+	 * used yet. The accepted customers are added together.
+	 * 
+	 * @param newCustomers - customers which are not stored yet
+	 * @return - List of the outcomes in the order of the customers
+	 */
+	synchronized List<Outcome<Customer>> addNewCustomers(List<Customer> newCustomers) {
+		List<Outcome<Customer>> outcomes = new ArrayList<>(newCustomers.size());
+		List<Customer> acceptedCustomers = new ArrayList<>(newCustomers.size());
+		Map<List<Object>, Customer> acceptedCustomersByNameAndAddress = new HashMap<>();
+		Map<String, Customer> acceptedCustomersById = new HashMap<>();
+		for (Customer newCustomer : newCustomers) {
+			List<Object> nameAndAddress = Arrays.asList(newCustomer.getCustomerFirstName(),
+					newCustomer.getCustomerLastName(), newCustomer.getStreet(), newCustomer.getHouseNumber(),
+					newCustomer.getPostalCode(), newCustomer.getCity());
+			Optional<Customer> duplicateOfCustomer = getDuplicateOfCustomer(newCustomer.getCustomerFirstName(),
+					newCustomer.getCustomerLastName(), newCustomer.getStreet(), newCustomer.getHouseNumber(),
+					newCustomer.getPostalCode(), newCustomer.getCity());
+			if (!duplicateOfCustomer.isPresent()) {
+				duplicateOfCustomer = Optional.ofNullable(acceptedCustomersByNameAndAddress.get(nameAndAddress));
+			}
+			Optional<Customer> customerWithSameId = getCustomerById(newCustomer.getCustomerId());
+			if (!customerWithSameId.isPresent()) {
+				customerWithSameId = Optional.ofNullable(acceptedCustomersById.get(newCustomer.getCustomerId()));
+			}
+			if (duplicateOfCustomer.isPresent()) {
+				outcomes.add(Outcome.conflict(duplicateOfCustomer.get(), DUPLICATE_OF_CUSTOMER));
+			} else if (customerWithSameId.isPresent()) {
+				outcomes.add(Outcome.conflict(customerWithSameId.get(), "The customer ID %s is already used.",
+						newCustomer.getCustomerId()));
+			} else {
+				acceptedCustomers.add(newCustomer);
+				acceptedCustomersByNameAndAddress.put(nameAndAddress, newCustomer);
+				acceptedCustomersById.put(newCustomer.getCustomerId(), newCustomer);
+				outcomes.add(Outcome.accepted(newCustomer));
+			}
+		}
+		try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+			CUSTOMER_DATA.addCustomersToCustomerData(acceptedCustomers);
+			for (Customer acceptedCustomer : acceptedCustomers) {
+				stateChange.journalCustomer(acceptedCustomer);
 			}
 		}
-		return Optional.ofNullable(foundCustomer);
+		return outcomes;
+	}
+
+	public Optional<Customer> getCustomerById(String customerId) {
+		return CUSTOMER_DATA.getCustomerById(customerId);
 	}
 
 	public Customer getCustomerToUpdate(String customerIdOfCustomerToUpdate) {
@@ -94,78 +172,142 @@ public class CustomerService {
 		}
 	}
 
-	public void updateWholeCustomer(String customerIdOfCustomerToUpdate, String newCustomerFirstName,
+	private static Outcome<Customer> customerNotFound(String customerId) {
+		return Outcome.notFound(
+				"Customer with the ID: %s was not found. Use getAllCustomers() to see all the customers with their ID.",
+				customerId);
+	}
+
+	public Outcome<Customer> updateWholeCustomer(String customerIdOfCustomerToUpdate, String newCustomerFirstName,
 			String newCustomerLastName, String newStreet, int newHouseNumber, int newPostalCode, String newCity,
 			String newPhoneNumber, String newEmail) {
 		Optional<Customer> optionalCustomerToUpdate = getCustomerById(customerIdOfCustomerToUpdate);
 		if (optionalCustomerToUpdate.isPresent()) {
 			Customer customerToUpdate = optionalCustomerToUpdate.get();
-			customerToUpdate.setCustomerFirstName(newCustomerFirstName);
-			customerToUpdate.setCustomerLastName(newCustomerLastName);
-			customerToUpdate.setStreet(newStreet);
-			customerToUpdate.setHouseNumber(newHouseNumber);
-			customerToUpdate.setPostalCode(newPostalCode);
-			customerToUpdate.setCity(newCity);
-			customerToUpdate.setPhoneNumber(newPhoneNumber);
-			customerToUpdate.setEmail(newEmail);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				CUSTOMER_DATA.updateCustomerInCustomerData(customerToUpdate, () -> {
+					customerToUpdate.setCustomerFirstName(newCustomerFirstName);
+					customerToUpdate.setCustomerLastName(newCustomerLastName);
+					customerToUpdate.setStreet(newStreet);
+					customerToUpdate.setHouseNumber(newHouseNumber);
+					customerToUpdate.setPostalCode(newPostalCode);
+					customerToUpdate.setCity(newCity);
+					customerToUpdate.setPhoneNumber(newPhoneNumber);
+					customerToUpdate.setEmail(newEmail);
+				});
+				stateChange.journalCustomer(customerToUpdate);
+			}
+			return Outcome.accepted(customerToUpdate);
 		} else {
-			System.err.println("ERROR: Customer with the ID: " + customerIdOfCustomerToUpdate
-					+ " was not found. Use getAllCustomers() to see all the customers with their ID.");
+			return customerNotFound(customerIdOfCustomerToUpdate);
 		}
 	}
 
-	public void updateNameOfCustomer(String customerIdOfCustomerToUpdate, String newCustomerFirstName,
+	public Outcome<Customer> updateNameOfCustomer(String customerIdOfCustomerToUpdate, String newCustomerFirstName,
 			String newCustomerLastName) {
 		Optional<Customer> optionalCustomerToUpdate = getCustomerById(customerIdOfCustomerToUpdate);
 		if (optionalCustomerToUpdate.isPresent()) {
 			Customer customerToUpdate = optionalCustomerToUpdate.get();
-			customerToUpdate.setCustomerFirstName(newCustomerFirstName);
-			customerToUpdate.setCustomerLastName(newCustomerLastName);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				CUSTOMER_DATA.updateCustomerInCustomerData(customerToUpdate, () -> {
+					customerToUpdate.setCustomerFirstName(newCustomerFirstName);
+					customerToUpdate.setCustomerLastName(newCustomerLastName);
+				});
+				stateChange.journalCustomer(customerToUpdate);
+			}
+			return Outcome.accepted(customerToUpdate);
 		} else {
-			System.err.println("ERROR: Customer with the ID: " + customerIdOfCustomerToUpdate
-					+ " was not found. Use getAllCustomers() to see all the customers with their ID.");
+			return customerNotFound(customerIdOfCustomerToUpdate);
 		}
 	}
 
-	public void updateAddressOfCustomer(String customerIdOfCustomerToUpdate, String newStreet, int newHouseNumber,
-			int newPostalCode, String newCity) {
+	public Outcome<Customer> updateAddressOfCustomer(String customerIdOfCustomerToUpdate, String newStreet,
+			int newHouseNumber, int newPostalCode, String newCity) {
 		Optional<Customer> optionalCustomerToUpdate = getCustomerById(customerIdOfCustomerToUpdate);
 		if (optionalCustomerToUpdate.isPresent()) {
 			Customer customerToUpdate = optionalCustomerToUpdate.get();
-			customerToUpdate.setStreet(newStreet);
-			customerToUpdate.setHouseNumber(newHouseNumber);
-			customerToUpdate.setPostalCode(newPostalCode);
-			customerToUpdate.setCity(newCity);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				CUSTOMER_DATA.updateCustomerInCustomerData(customerToUpdate, () -> {
+					customerToUpdate.setStreet(newStreet);
+					customerToUpdate.setHouseNumber(newHouseNumber);
+					customerToUpdate.setPostalCode(newPostalCode);
+					customerToUpdate.setCity(newCity);
+				});
+				stateChange.journalCustomer(customerToUpdate);
+			}
+			return Outcome.accepted(customerToUpdate);
 		} else {
-			System.err.println("ERROR: Customer with the ID: " + customerIdOfCustomerToUpdate
-					+ " was not found. Use getAllCustomers() to see all the customers with their ID.");
+			return customerNotFound(customerIdOfCustomerToUpdate);
 		}
 	}
 
-	public void updateContactDetailsOfCustomer(String customerIdOfCustomerToUpdate, String newPhoneNumber,
+	public Outcome<Customer> updateContactDetailsOfCustomer(String customerIdOfCustomerToUpdate, String newPhoneNumber,
 			String newEmail) {
 		Optional<Customer> optionalCustomerToUpdate = getCustomerById(customerIdOfCustomerToUpdate);
 		if (optionalCustomerToUpdate.isPresent()) {
 			Customer customerToUpdate = optionalCustomerToUpdate.get();
-			customerToUpdate.setPhoneNumber(newPhoneNumber);
-			customerToUpdate.setEmail(newEmail);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				CUSTOMER_DATA.updateCustomerInCustomerData(customerToUpdate, () -> {
+					customerToUpdate.setPhoneNumber(newPhoneNumber);
+					customerToUpdate.setEmail(newEmail);
+				});
+				stateChange.journalCustomer(customerToUpdate);
+			}
+			return Outcome.accepted(customerToUpdate);
 		} else {
-			System.err.println("ERROR: Customer with the ID: " + customerIdOfCustomerToUpdate
-					+ " was not found. Use getAllCustomers() to see all the customers with their ID.");
+			return customerNotFound(customerIdOfCustomerToUpdate);
 		}
 	}
 
-	public void removeCustomer(String customerIdOfCustomerToRemove) {
+	public Outcome<Customer> removeCustomer(String customerIdOfCustomerToRemove) {
 		Optional<Customer> optionalCustomerToRemove = getCustomerById(customerIdOfCustomerToRemove);
 		if (optionalCustomerToRemove.isPresent()) {
-			CUSTOMER_DATA.removeCustomerFromCustomerData(optionalCustomerToRemove.get());
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				CUSTOMER_DATA.removeCustomerFromCustomerData(optionalCustomerToRemove.get());
+				stateChange.journalCustomerRemoved(customerIdOfCustomerToRemove);
+			}
+			return Outcome.accepted(optionalCustomerToRemove.get());
 		} else {
-			System.err.println("ERROR: The Customer with the ID: " + customerIdOfCustomerToRemove
-					+ " does not exist in the CustomerData. Try a different ID or use getAllCustomers() to see all the customers with their ID.");
+			return Outcome.notFound(
+					"The Customer with the ID: %s does not exist in the CustomerData. Try a different ID or use getAllCustomers() to see all the customers with their ID.",
+					customerIdOfCustomerToRemove);
+		}
+	}
+
+	public Outcome<Customer> addVehicleToCustomersVehicles(String customerIdToAddVehicleTo,
+			String vehicleLicensePlateOfVehicleToAdd) {
+		return addVehiclesToCustomersVehicles(Collections.singletonList(customerIdToAddVehicleTo),
+				Collections.singletonList(vehicleLicensePlateOfVehicleToAdd)).get(0);
+	}
+
+	/**
+	 * Adds many vehicles to the vehicles of their customers at once, e.g. for an
+	 * import. Every customer changed is journaled only once.
+	 * 
+	 * @param customerIds          - the customer of every vehicle
+	 * @param vehicleLicensePlates - the vehicles, as many as customer IDs
+	 * @return - List of the outcomes in the order of the vehicles
+	 */
+	List<Outcome<Customer>> addVehiclesToCustomersVehicles(List<String> customerIds,
+			List<String> vehicleLicensePlates) {
+		List<Outcome<Customer>> outcomes = new ArrayList<>(customerIds.size());
+		Set<Customer> changedCustomers = new LinkedHashSet<>();
+		try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+			for (int i = 0; i < customerIds.size(); i++) {
+				Outcome<Customer> outcome = addVehicleToCustomersVehiclesWithoutJournal(customerIds.get(i),
+						vehicleLicensePlates.get(i));
+				outcome.getResult()
+						.ifPresent(changedCustomers::add);
+				outcomes.add(outcome);
+			}
+			for (Customer changedCustomer : changedCustomers) {
+				stateChange.journalCustomer(changedCustomer);
+			}
 		}
+		return outcomes;
 	}
 
-	public void addVehicleToCustomersVehicles(String customerIdToAddVehicleTo,
+	private Outcome<Customer> addVehicleToCustomersVehiclesWithoutJournal(String customerIdToAddVehicleTo,
 			String vehicleLicensePlateOfVehicleToAdd) {
 		Optional<Customer> optionalCustomerToAddVehicleTo = getCustomerById(customerIdToAddVehicleTo);
 		if (optionalCustomerToAddVehicleTo.isPresent()) {
@@ -176,21 +318,22 @@ public class CustomerService {
 				if (!customerToAddVehicleTo.getVehiclesOfCustomer()
 						.contains(optionalVehicleToAdd.get())) {
 					customerToAddVehicleTo.addVehicleToVehicleSet(optionalVehicleToAdd.get());
+					return Outcome.accepted(customerToAddVehicleTo);
 				} else {
-					System.err.println(
-							"ERROR: The Vehicle you wanted to add to the customers vehicles is already listed as an vehicle of this customer.");
+					return Outcome.conflict(optionalVehicleToAdd.get(),
+							"The Vehicle you wanted to add to the customers vehicles is already listed as an vehicle of this customer.");
 				}
 			} else {
-				System.err.println("ERROR: Vehicle with the license plate: " + vehicleLicensePlateOfVehicleToAdd
-						+ " was not found. Use the getAllVehicles of the VehicleService to see all the vehicles with their license plate or create the vehicle first.");
+				return Outcome.notFound(
+						"Vehicle with the license plate: %s was not found. Use the getAllVehicles of the VehicleService to see all the vehicles with their license plate or create the vehicle first.",
+						vehicleLicensePlateOfVehicleToAdd);
 			}
 		} else {
-			System.err.println("ERROR: Customer with the ID: " + customerIdToAddVehicleTo
-					+ " was not found. Use getAllCustomers() to see all the customers with their ID.");
+			return customerNotFound(customerIdToAddVehicleTo);
 		}
 	}
 
-	public void removeVehicleFromCustomersVehicles(String customerIdToRemoveVehicleFrom,
+	public Outcome<Customer> removeVehicleFromCustomersVehicles(String customerIdToRemoveVehicleFrom,
 			String vehicleLicensePlateOfVehicleToRemove) {
 		Optional<Customer> optionalCustomerToRemoveVehicleFrom = getCustomerById(customerIdToRemoveVehicleFrom);
 		if (optionalCustomerToRemoveVehicleFrom.isPresent()) {
@@ -198,14 +341,18 @@ public class CustomerService {
 			Optional<Vehicle> optionalVehicleToRemove = VEHICLE_SERVICE
 					.getVehicleByLicensePlate(vehicleLicensePlateOfVehicleToRemove);
 			if (optionalVehicleToRemove.isPresent()) {
-				customerToRemoveVehicleFrom.removeVehicleFromVehicleSet(optionalVehicleToRemove.get());
+				try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+					customerToRemoveVehicleFrom.removeVehicleFromVehicleSet(optionalVehicleToRemove.get());
+					stateChange.journalCustomer(customerToRemoveVehicleFrom);
+				}
+				return Outcome.accepted(customerToRemoveVehicleFrom);
 			} else {
-				System.err.println("ERROR: Vehicle with the license plate: " + vehicleLicensePlateOfVehicleToRemove
-						+ " was not found. Use the getAllVehicles of the VehicleService to see all the vehicles with their license plate.");
+				return Outcome.notFound(
+						"Vehicle with the license plate: %s was not found. Use the getAllVehicles of the VehicleService to see all the vehicles with their license plate.",
+						vehicleLicensePlateOfVehicleToRemove);
 			}
 		} else {
-			System.err.println("ERROR: Customer with the ID: " + customerIdToRemoveVehicleFrom
-					+ " was not found. Use getAllCustomers() to see all the customers with their ID.");
+			return customerNotFound(customerIdToRemoveVehicleFrom);
 		}
 	}
 
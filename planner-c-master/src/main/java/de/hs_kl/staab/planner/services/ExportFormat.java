@@ -0,0 +1,54 @@
+package de.hs_kl.staab.planner.services;
+
+/**
+ * Formats of the exports of appointments, see {@link AppointmentExport}. The
+ * fields have the same names and values as in the JSON of the REST interface.
+ */
+public enum ExportFormat {
+	/**
+	 * A header line with the names of the columns and one line per appointment,
+	 * separated by commas. Columns that don't belong to the type of an
+	 * appointment stay empty, the IDs of the works are separated by spaces.
+	 */
+	CSV("text/csv", "csv"),
+	/**
+	 * One JSON object per line, like the appointments of the REST interface.
+	 */
+	NDJSON("application/x-ndjson", "ndjson"),
+	/**
+	 * The bytes "PLNX" and the version 1, then one record per appointment and a 0
+	 * at the end. A record begins with the type (1 working, 2 consulting, 3
+	 * cleaning), the ID, the begin in minutes since 1970 (8 bytes) and the
+	 * duration in minutes (4 bytes), followed by
+	 * <ul>
+	 * <li>working: the status (1 byte, position in
+	 * {@link de.hs_kl.staab.planner.WorkingAppointmentStatus}), the working
+	 * platform ID, the customer ID, the license plate, the number of works and
+	 * their IDs and the username of the car mechanic,</li>
+	 * <li>consulting: the customer ID and the username of the client
+	 * advisor,</li>
+	 * <li>cleaning: the type of cleaning, the working platform ID and the username
+	 * of the dispatcher.</li>
+	 * </ul>
+	 * Numbers are big-endian, a string is its length in bytes as variable-length
+	 * number (7 bits per byte, lowest first) followed by its UTF-8 bytes, the
+	 * number of works is a variable-length number too.
+	 */
+	BINARY("application/octet-stream", "bin");
+
+	private final String mediaType;
+	private final String fileExtension;
+
+	private ExportFormat(String mediaType, String fileExtension) {
+		this.mediaType = mediaType;
+		this.fileExtension = fileExtension;
+	}
+
+	public String getMediaType() {
+		return mediaType;
+	}
+
+	public String getFileExtension() {
+		return fileExtension;
+	}
+}
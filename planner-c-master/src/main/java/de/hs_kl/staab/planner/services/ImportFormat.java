@@ -0,0 +1,21 @@
+package de.hs_kl.staab.planner.services;
+
+/**
+ * Formats of the files read by the {@link ImportService}. The fields of a
+ * record have the same names as in the JSON of the REST interface, e.g.
+ * firstName, lastName, street, ... for a customer. Unknown fields are ignored.
+ */
+public enum ImportFormat {
+	/**
+	 * One record per line, the first line names the columns. The values are
+	 * separated by commas or by semicolons, whichever comes first in the first
+	 * line. Values in double quotes may contain separators, line breaks and
+	 * doubled double quotes.
+	 */
+	CSV,
+	/**
+	 * An array of objects, or objects one after the other (e.g. one per line).
+	 * The values have to be strings, numbers, true, false or null.
+	 */
+	JSON
+}
@@ -0,0 +1,395 @@
+package de.hs_kl.staab.planner.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the records of an import file one after the other, so only the current
+ * record is in memory. The values of a record are returned in the order of the
+ * requested fields, a missing field is null.
+ */
+abstract class ImportRecordReader {
+
+	private static final int END_OF_INPUT = -1;
+
+	private final Reader reader;
+	private final char[] buffer = new char[64 * 1024];
+	private int position;
+	private int limit;
+	private long lineNumber = 1;
+	private long lineNumberOfRecord;
+	// position of every requested field by its name in lower case
+	protected final Map<String, Integer> indexesOfFields = new HashMap<>();
+	protected final int numberOfFields;
+
+	private ImportRecordReader(Reader reader, List<String> fields) {
+		this.reader = reader;
+		for (String field : fields) {
+			indexesOfFields.put(field.toLowerCase(Locale.ROOT), indexesOfFields.size());
+		}
+		this.numberOfFields = fields.size();
+	}
+
+	static ImportRecordReader open(Reader reader, ImportFormat format, List<String> fields) throws IOException {
+		ImportRecordReader recordReader = format == ImportFormat.CSV ? new CsvRecordReader(reader, fields)
+				: new JsonRecordReader(reader, fields);
+		if (recordReader.peek() == '\uFEFF') {
+			recordReader.read();
+		}
+		recordReader.readHeader();
+		return recordReader;
+	}
+
+	/**
+	 * @return - the line the record returned last begins in
+	 */
+	final long getLineNumberOfRecord() {
+		return lineNumberOfRecord;
+	}
+
+	void readHeader() throws IOException {
+	}
+
+	/**
+	 * @return - the values of the next record, null at the end of the file
+	 */
+	abstract String[] readRecord() throws IOException;
+
+	final void beginRecord() {
+		lineNumberOfRecord = lineNumber;
+	}
+
+	final int peek() throws IOException {
+		if (position == limit) {
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return END_OF_INPUT;
+			}
+		}
+		return buffer[position];
+	}
+
+	final int read() throws IOException {
+		int character = peek();
+		if (character != END_OF_INPUT) {
+			position++;
+			if (character == '\n') {
+				lineNumber++;
+			}
+		}
+		return character;
+	}
+
+	final IOException malformed(String message) {
+		return new IOException("Line " + lineNumber + ": " + message);
+	}
+
+	/**
+	 * For an error found after the whole record was read, when the current line
+	 * may already be the next one.
+	 */
+	final IOException malformedRecord(String message) {
+		return new IOException("Line " + lineNumberOfRecord + ": " + message);
+	}
+
+	private static final class CsvRecordReader extends ImportRecordReader {
+
+		private final StringBuilder value = new StringBuilder();
+		private char separator = ',';
+		// for every column the position of its field, -1 if it is not requested
+		private int[] indexesOfColumns;
+
+		CsvRecordReader(Reader reader, List<String> fields) {
+			super(reader, fields);
+		}
+
+		@Override
+		void readHeader() throws IOException {
+			List<String> columns = readLine(true);
+			if (columns == null) {
+				indexesOfColumns = new int[0];
+				return;
+			}
+			indexesOfColumns = new int[columns.size()];
+			for (int i = 0; i < columns.size(); i++) {
+				Integer indexOfField = indexesOfFields.get(columns.get(i)
+						.trim()
+						.toLowerCase(Locale.ROOT));
+				indexesOfColumns[i] = indexOfField == null ? -1 : indexOfField;
+			}
+		}
+
+		@Override
+		String[] readRecord() throws IOException {
+			List<String> columns = readLine(false);
+			if (columns == null) {
+				return null;
+			}
+			if (columns.size() > indexesOfColumns.length) {
+				throw malformedRecord("The record has " + columns.size() + " values, but there are only "
+						+ indexesOfColumns.length + " columns.");
+			}
+			String[] values = new String[numberOfFields];
+			for (int i = 0; i < columns.size(); i++) {
+				if (indexesOfColumns[i] >= 0) {
+					values[indexesOfColumns[i]] = columns.get(i);
+				}
+			}
+			return values;
+		}
+
+		/**
+		 * @param isHeader - true to detect the separator from the line
+		 * @return - the values of the next line which isn't empty, null at the end
+		 */
+		private List<String> readLine(boolean isHeader) throws IOException {
+			while (peek() == '\r' || peek() == '\n') {
+				read();
+			}
+			if (peek() == END_OF_INPUT) {
+				return null;
+			}
+			beginRecord();
+			List<String> values = new ArrayList<>();
+			boolean separatorFound = false;
+			value.setLength(0);
+			while (true) {
+				int character = read();
+				if (character == '"' && value.length() == 0) {
+					readQuotedValue();
+				} else if (character == separator || isHeader && !separatorFound && character == ';') {
+					if (isHeader && !separatorFound) {
+						separator = (char) character;
+						separatorFound = true;
+					}
+					values.add(value.toString());
+					value.setLength(0);
+				} else if (character == '\r' || character == '\n' || character == END_OF_INPUT) {
+					values.add(value.toString());
+					return values;
+				} else {
+					value.append((char) character);
+				}
+			}
+		}
+
+		private void readQuotedValue() throws IOException {
+			while (true) {
+				int character = read();
+				if (character == END_OF_INPUT) {
+					throw malformed("A quoted value isn't closed.");
+				} else if (character == '"') {
+					if (peek() != '"') {
+						return;
+					}
+					read();
+				}
+				value.append((char) character);
+			}
+		}
+	}
+
+	private static final class JsonRecordReader extends ImportRecordReader {
+
+		private final StringBuilder value = new StringBuilder();
+		private boolean insideArray;
+
+		JsonRecordReader(Reader reader, List<String> fields) {
+			super(reader, fields);
+		}
+
+		@Override
+		void readHeader() throws IOException {
+			if (skipWhitespace() == '[') {
+				read();
+				insideArray = true;
+			}
+		}
+
+		@Override
+		String[] readRecord() throws IOException {
+			int character = skipWhitespace();
+			if (insideArray && character == ',') {
+				read();
+				character = skipWhitespace();
+			}
+			if (insideArray && character == ']') {
+				read();
+				insideArray = false;
+				character = skipWhitespace();
+			}
+			if (character == END_OF_INPUT) {
+				return null;
+			}
+			if (character != '{') {
+				throw malformed("An object was expected, but found '" + (char) character + "'.");
+			}
+			beginRecord();
+			read();
+			String[] values = new String[numberOfFields];
+			if (skipWhitespace() == '}') {
+				read();
+				return values;
+			}
+			while (true) {
+				if (skipWhitespace() != '"') {
+					throw malformed("The name of a field was expected.");
+				}
+				read();
+				String field = readString();
+				expect(':');
+				Integer indexOfField = indexesOfFields.get(field.toLowerCase(Locale.ROOT));
+				if (indexOfField != null) {
+					values[indexOfField] = readScalar(field);
+				} else {
+					skipValue();
+				}
+				character = skipWhitespace();
+				read();
+				if (character == '}') {
+					return values;
+				} else if (character != ',') {
+					throw malformed("',' or '}' was expected after the value of " + field + ".");
+				}
+			}
+		}
+
+		private int skipWhitespace() throws IOException {
+			int character = peek();
+			while (character == ' ' || character == '\t' || character == '\r' || character == '\n') {
+				read();
+				character = peek();
+			}
+			return character;
+		}
+
+		private void expect(char expectedCharacter) throws IOException {
+			if (skipWhitespace() != expectedCharacter) {
+				throw malformed("'" + expectedCharacter + "' was expected.");
+			}
+			read();
+		}
+
+		/**
+		 * @return - the value as text, null for null
+		 */
+		private String readScalar(String field) throws IOException {
+			int character = skipWhitespace();
+			if (character == '"') {
+				read();
+				return readString();
+			} else if (character == '{' || character == '[') {
+				throw malformed("The value of " + field + " has to be a string or a number.");
+			}
+			String literal = readLiteral();
+			return literal.equals("null") ? null : literal;
+		}
+
+		private void skipValue() throws IOException {
+			int character = skipWhitespace();
+			if (character == '"') {
+				read();
+				readString();
+			} else if (character == '{' || character == '[') {
+				read();
+				int depth = 1;
+				while (depth > 0) {
+					character = read();
+					if (character == '"') {
+						readString();
+					} else if (character == '{' || character == '[') {
+						depth++;
+					} else if (character == '}' || character == ']') {
+						depth--;
+					} else if (character == END_OF_INPUT) {
+						throw malformed("An object or array isn't closed.");
+					}
+				}
+			} else {
+				readLiteral();
+			}
+		}
+
+		/**
+		 * Reads a number, true, false or null.
+		 */
+		private String readLiteral() throws IOException {
+			value.setLength(0);
+			int character = peek();
+			while (character != END_OF_INPUT && character != ',' && character != '}' && character != ']'
+					&& !Character.isWhitespace(character)) {
+				value.append((char) read());
+				character = peek();
+			}
+			if (value.length() == 0) {
+				throw malformed("A value was expected.");
+			}
+			return value.toString();
+		}
+
+		/**
+		 * Reads the rest of a string after its opening quote.
+		 */
+		private String readString() throws IOException {
+			value.setLength(0);
+			while (true) {
+				int character = read();
+				if (character == '"') {
+					return value.toString();
+				} else if (character == END_OF_INPUT) {
+					throw malformed("A string isn't closed.");
+				} else if (character == '\\') {
+					readEscapedCharacter();
+				} else {
+					value.append((char) character);
+				}
+			}
+		}
+
+		private void readEscapedCharacter() throws IOException {
+			int character = read();
+			switch (character) {
+			case 'b':
+				value.append('\b');
+				break;
+			case 'f':
+				value.append('\f');
+				break;
+			case 'n':
+				value.append('\n');
+				break;
+			case 'r':
+				value.append('\r');
+				break;
+			case 't':
+				value.append('\t');
+				break;
+			case 'u':
+				int codeUnit = 0;
+				for (int i = 0; i < 4; i++) {
+					int digit = Character.digit(read(), 16);
+					if (digit < 0) {
+						throw malformed("\\u has to be followed by 4 hexadecimal digits.");
+					}
+					codeUnit = codeUnit * 16 + digit;
+				}
+				value.append((char) codeUnit);
+				break;
+			case '"':
+			case '\\':
+			case '/':
+				value.append((char) character);
+				break;
+			default:
+				throw malformed("Unknown escape sequence in a string.");
+			}
+		}
+	}
+}
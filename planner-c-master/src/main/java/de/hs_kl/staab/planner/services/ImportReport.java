@@ -0,0 +1,105 @@
+package de.hs_kl.staab.planner.services;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of an import of the {@link ImportService}: how many records were read
+ * and imported, how fast, and why the others were rejected. Only the first
+ * rejections are kept with their line, the others are only counted.
+ */
+public class ImportReport {
+
+	private final String nameOfImport;
+	private final long numberOfRecords;
+	private final long numberOfImportedRecords;
+	private final Map<Outcome.Kind, Long> numbersOfRejectedRecords;
+	private final List<Rejection> rejections;
+	private final long durationInNanoseconds;
+
+	ImportReport(String nameOfImport, long numberOfRecords, Map<Outcome.Kind, Long> numbersOfRejectedRecords,
+			List<Rejection> rejections, long durationInNanoseconds) {
+		this.nameOfImport = nameOfImport;
+		this.numberOfRecords = numberOfRecords;
+		long numberOfRejectedRecords = 0;
+		for (long numberOfRejectedRecordsOfKind : numbersOfRejectedRecords.values()) {
+			numberOfRejectedRecords += numberOfRejectedRecordsOfKind;
+		}
+		this.numberOfImportedRecords = numberOfRecords - numberOfRejectedRecords;
+		this.numbersOfRejectedRecords = Collections.unmodifiableMap(new EnumMap<>(numbersOfRejectedRecords));
+		this.rejections = Collections.unmodifiableList(rejections);
+		this.durationInNanoseconds = durationInNanoseconds;
+	}
+
+	@Override
+	public String toString() {
+		return "Import of " + nameOfImport + ": " + numberOfRecords + " records, " + numberOfImportedRecords
+				+ " imported, " + getNumberOfRejectedRecords() + " rejected " + numbersOfRejectedRecords + " in "
+				+ TimeUnit.NANOSECONDS.toMillis(durationInNanoseconds) + " ms (" + Math.round(getRecordsPerSecond())
+				+ " records/s)";
+	}
+
+	public long getNumberOfRecords() {
+		return numberOfRecords;
+	}
+
+	public long getNumberOfImportedRecords() {
+		return numberOfImportedRecords;
+	}
+
+	public long getNumberOfRejectedRecords() {
+		return numberOfRecords - numberOfImportedRecords;
+	}
+
+	/**
+	 * @return - number of rejected records by the kind of their rejection
+	 */
+	public Map<Outcome.Kind, Long> getNumbersOfRejectedRecords() {
+		return numbersOfRejectedRecords;
+	}
+
+	/**
+	 * @return - the first rejected records in the order of the file
+	 */
+	public List<Rejection> getRejections() {
+		return rejections;
+	}
+
+	public long getDurationInMilliseconds() {
+		return TimeUnit.NANOSECONDS.toMillis(durationInNanoseconds);
+	}
+
+	public double getRecordsPerSecond() {
+		return durationInNanoseconds == 0 ? 0 : numberOfRecords * 1e9 / durationInNanoseconds;
+	}
+
+	/**
+	 * A rejected record with the line of the file it begins in.
+	 */
+	public static class Rejection {
+
+		private final long lineNumber;
+		private final Outcome<?> outcome;
+
+		Rejection(long lineNumber, Outcome<?> outcome) {
+			this.lineNumber = lineNumber;
+			this.outcome = outcome;
+		}
+
+		@Override
+		public String toString() {
+			return "Line " + lineNumber + ": " + outcome.getMessage();
+		}
+
+		public long getLineNumber() {
+			return lineNumber;
+		}
+
+		public Outcome<?> getOutcome() {
+			return outcome;
+		}
+	}
+}
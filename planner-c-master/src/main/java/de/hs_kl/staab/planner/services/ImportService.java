@@ -0,0 +1,376 @@
+package de.hs_kl.staab.planner.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import de.hs_kl.staab.planner.Customer;
+import de.hs_kl.staab.planner.Vehicle;
+import de.hs_kl.staab.planner.Work;
+
+/**
+ * Imports customers, vehicles, works and the vehicles of the customers from
+ * files with millions of records. The file is read in batches; the records of a
+ * batch are converted on the common fork/join pool while the next batches are
+ * read, and every batch is added at once and journaled in one state change. The
+ * batches are added in the order of the file, so a record may refer to records
+ * before it. Every record is checked like a single one added by the other
+ * services, a rejected record doesn't stop the import.
+ */
+public class ImportService {
+
+	private static ImportService IMPORT_SERVICE;
+	private final static CustomerService CUSTOMER_SERVICE = CustomerService.getInstance();
+	private final static VehicleService VEHICLE_SERVICE = VehicleService.getInstance();
+	private final static WorkService WORK_SERVICE = WorkService.getInstance();
+
+	static final int BATCH_SIZE = 10_000;
+	// enough batches to keep every thread of the pool busy while one is added
+	private static final int MAX_NUMBER_OF_BATCHES_IN_FLIGHT = Math.max(2,
+			2 * ForkJoinPool.getCommonPoolParallelism());
+	public static final int MAX_NUMBER_OF_REPORTED_REJECTIONS = 1000;
+
+	private static final List<String> CUSTOMER_FIELDS = Arrays.asList("customerId", "firstName", "lastName", "street",
+			"houseNumber", "postalCode", "city", "phoneNumber", "email");
+	private static final List<String> VEHICLE_FIELDS = Arrays.asList("licensePlate", "brand", "model",
+			"yearOfConstruction", "dateOfAdmission");
+	private static final List<String> WORK_FIELDS = Arrays.asList("workId", "name", "duration");
+	private static final List<String> VEHICLE_OF_CUSTOMER_FIELDS = Arrays.asList("customerId", "licensePlate");
+
+	/**
+	 * Singleton-Pattern: Der Konstruktor kann nicht aufgerufen werden, sondern
+	 * {@link #getInstance()} muss aufgerufen werden. So kann sichergestellt werden,
+	 * dass nur eine einzige Instanz dieser Klasse erstellt wird.
+	 */
+	private ImportService() {
+	}
+
+	/**
+	 * Teil des Singleton-Patterns
+	 * 
+	 * @return Die einzige Instanz des ImportService.
+	 */
+	public static synchronized ImportService getInstance() {
+		if (IMPORT_SERVICE == null) {
+			IMPORT_SERVICE = new ImportService();
+		}
+		return IMPORT_SERVICE;
+	}
+
+	/**
+	 * Imports customers with the fields customerId (optional, a new ID is
+	 * generated without it), firstName, lastName, street, houseNumber, postalCode,
+	 * city, phoneNumber and email.
+	 * 
+	 * @throws IOException - if the file can't be read or is malformed; the
+	 *                     batches before are imported anyway
+	 */
+	public ImportReport importCustomers(Reader reader, ImportFormat format) throws IOException {
+		return importRecords("customers", reader, format, CUSTOMER_FIELDS, ImportService::toCustomer,
+				CUSTOMER_SERVICE::addNewCustomers);
+	}
+
+	/**
+	 * Imports vehicles with the fields licensePlate, brand, model,
+	 * yearOfConstruction and dateOfAdmission (ISO date or date-time).
+	 * 
+	 * @throws IOException - if the file can't be read or is malformed; the
+	 *                     batches before are imported anyway
+	 */
+	public ImportReport importVehicles(Reader reader, ImportFormat format) throws IOException {
+		return importRecords("vehicles", reader, format, VEHICLE_FIELDS, ImportService::toVehicle,
+				VEHICLE_SERVICE::addNewVehicles);
+	}
+
+	/**
+	 * Imports works with the fields workId (optional, a new ID is generated
+	 * without it), name and duration in minutes.
+	 * 
+	 * @throws IOException - if the file can't be read or is malformed; the
+	 *                     batches before are imported anyway
+	 */
+	public ImportReport importWorks(Reader reader, ImportFormat format) throws IOException {
+		return importRecords("works", reader, format, WORK_FIELDS, ImportService::toWork, WORK_SERVICE::addNewWorks);
+	}
+
+	/**
+	 * Adds vehicles to the vehicles of customers, one per record with the fields
+	 * customerId and licensePlate. The customers and vehicles have to exist, e.g.
+	 * imported before.
+	 * 
+	 * @throws IOException - if the file can't be read or is malformed; the
+	 *                     batches before are imported anyway
+	 */
+	public ImportReport importVehiclesOfCustomers(Reader reader, ImportFormat format) throws IOException {
+		return importRecords("vehicles of customers", reader, format, VEHICLE_OF_CUSTOMER_FIELDS,
+				ImportService::toVehicleOfCustomer, vehiclesOfCustomers -> {
+					List<String> customerIds = new ArrayList<>(vehiclesOfCustomers.size());
+					List<String> vehicleLicensePlates = new ArrayList<>(vehiclesOfCustomers.size());
+					for (String[] vehicleOfCustomer : vehiclesOfCustomers) {
+						customerIds.add(vehicleOfCustomer[0]);
+						vehicleLicensePlates.add(vehicleOfCustomer[1]);
+					}
+					return CUSTOMER_SERVICE.addVehiclesToCustomersVehicles(customerIds, vehicleLicensePlates);
+				});
+	}
+
+	/**
+	 * @param conversion - checks the values of a record and returns how to create
+	 *                   its object; it runs in parallel, so it must not change
+	 *                   anything
+	 * @param addition   - adds the objects of a batch, in the order of the file
+	 */
+	private <T> ImportReport importRecords(String nameOfImport, Reader reader, ImportFormat format,
+			List<String> fields, Function<String[], Outcome<Supplier<T>>> conversion,
+			Function<List<T>, List<? extends Outcome<?>>> addition) throws IOException {
+		long begin = System.nanoTime();
+		ImportRecordReader recordReader = ImportRecordReader.open(reader, format, fields);
+		Rejections rejections = new Rejections();
+		Deque<Batch<T>> batchesInFlight = new ArrayDeque<>();
+		long numberOfRecords = 0;
+		try {
+			while (true) {
+				Batch<T> batch = Batch.read(recordReader);
+				if (batch == null) {
+					break;
+				}
+				numberOfRecords += batch.lineNumbers.length;
+				batch.convert(conversion);
+				batchesInFlight.addLast(batch);
+				if (batchesInFlight.size() >= MAX_NUMBER_OF_BATCHES_IN_FLIGHT) {
+					batchesInFlight.removeFirst()
+							.add(addition, rejections);
+				}
+			}
+			while (!batchesInFlight.isEmpty()) {
+				batchesInFlight.removeFirst()
+						.add(addition, rejections);
+			}
+		} finally {
+			// don't leave conversions of a malformed file running
+			for (Batch<T> batch : batchesInFlight) {
+				batch.convertedRecords.cancel(false);
+			}
+		}
+		return new ImportReport(nameOfImport, numberOfRecords, rejections.numbersOfRejectedRecords,
+				rejections.firstRejections, System.nanoTime() - begin);
+	}
+
+	private static final class Batch<T> {
+
+		private final long[] lineNumbers;
+		private final List<String[]> records;
+		private CompletableFuture<List<Outcome<Supplier<T>>>> convertedRecords;
+
+		private Batch(long[] lineNumbers, List<String[]> records) {
+			this.lineNumbers = lineNumbers;
+			this.records = records;
+		}
+
+		/**
+		 * @return - the next records of the file, null at its end
+		 */
+		static <T> Batch<T> read(ImportRecordReader recordReader) throws IOException {
+			long[] lineNumbers = new long[BATCH_SIZE];
+			List<String[]> records = new ArrayList<>(BATCH_SIZE);
+			String[] record;
+			while (records.size() < BATCH_SIZE && (record = recordReader.readRecord()) != null) {
+				lineNumbers[records.size()] = recordReader.getLineNumberOfRecord();
+				records.add(record);
+			}
+			if (records.isEmpty()) {
+				return null;
+			}
+			return new Batch<>(Arrays.copyOf(lineNumbers, records.size()), records);
+		}
+
+		void convert(Function<String[], Outcome<Supplier<T>>> conversion) {
+			convertedRecords = CompletableFuture.supplyAsync(() -> {
+				List<Outcome<Supplier<T>>> outcomes = new ArrayList<>(records.size());
+				for (String[] record : records) {
+					outcomes.add(conversion.apply(record));
+				}
+				return outcomes;
+			}, ForkJoinPool.commonPool());
+		}
+
+		/**
+		 * Waits for the conversion, creates the objects of the valid records and
+		 * adds them. Creating them here keeps the generated IDs in the order of the
+		 * file.
+		 */
+		void add(Function<List<T>, List<? extends Outcome<?>>> addition, Rejections rejections) {
+			List<Outcome<Supplier<T>>> conversions = convertedRecords.join();
+			Outcome<?>[] rejectedOutcomes = new Outcome<?>[conversions.size()];
+			List<T> validObjects = new ArrayList<>(conversions.size());
+			int[] indexesOfValidObjects = new int[conversions.size()];
+			for (int i = 0; i < conversions.size(); i++) {
+				Outcome<Supplier<T>> conversion = conversions.get(i);
+				if (conversion.isAccepted()) {
+					indexesOfValidObjects[validObjects.size()] = i;
+					validObjects.add(conversion.getResult()
+							.get()
+							.get());
+				} else {
+					rejectedOutcomes[i] = conversion;
+				}
+			}
+			List<? extends Outcome<?>> additions = addition.apply(validObjects);
+			for (int i = 0; i < additions.size(); i++) {
+				if (!additions.get(i)
+						.isAccepted()) {
+					rejectedOutcomes[indexesOfValidObjects[i]] = additions.get(i);
+				}
+			}
+			for (int i = 0; i < rejectedOutcomes.length; i++) {
+				if (rejectedOutcomes[i] != null) {
+					rejections.add(lineNumbers[i], rejectedOutcomes[i]);
+				}
+			}
+		}
+	}
+
+	private static final class Rejections {
+
+		private final Map<Outcome.Kind, Long> numbersOfRejectedRecords = new EnumMap<>(Outcome.Kind.class);
+		private final List<ImportReport.Rejection> firstRejections = new ArrayList<>();
+
+		void add(long lineNumber, Outcome<?> outcome) {
+			numbersOfRejectedRecords.merge(outcome.getKind(), 1L, Long::sum);
+			if (firstRejections.size() < MAX_NUMBER_OF_REPORTED_REJECTIONS) {
+				firstRejections.add(new ImportReport.Rejection(lineNumber, outcome));
+			}
+		}
+	}
+
+	private static Outcome<Supplier<Customer>> toCustomer(String[] values) {
+		String customerId = values[0];
+		String firstName = values[1];
+		String lastName = values[2];
+		String street = values[3];
+		String city = values[6];
+		String phoneNumber = values[7];
+		String email = values[8];
+		Outcome<Supplier<Customer>> missingValue = checkPresent(values, CUSTOMER_FIELDS, 1, 2, 3, 4, 5, 6, 7, 8);
+		if (missingValue != null) {
+			return missingValue;
+		}
+		Integer houseNumber = parseNumber(values[4]);
+		Integer postalCode = parseNumber(values[5]);
+		if (houseNumber == null) {
+			return notANumber(CUSTOMER_FIELDS.get(4), values[4]);
+		} else if (postalCode == null) {
+			return notANumber(CUSTOMER_FIELDS.get(5), values[5]);
+		} else if (customerId == null || customerId.isEmpty()) {
+			return Outcome.accepted(() -> new Customer(firstName, lastName, street, houseNumber, postalCode, city,
+					phoneNumber, email));
+		} else {
+			return Outcome.accepted(() -> new Customer(customerId, firstName, lastName, street, houseNumber,
+					postalCode, city, phoneNumber, email));
+		}
+	}
+
+	private static Outcome<Supplier<Vehicle>> toVehicle(String[] values) {
+		String licensePlate = values[0];
+		String brand = values[1];
+		String model = values[2];
+		Outcome<Supplier<Vehicle>> missingValue = checkPresent(values, VEHICLE_FIELDS, 0, 1, 2, 3, 4);
+		if (missingValue != null) {
+			return missingValue;
+		}
+		Integer yearOfConstruction = parseNumber(values[3]);
+		LocalDateTime dateOfAdmission = parseDateTime(values[4]);
+		if (yearOfConstruction == null) {
+			return notANumber(VEHICLE_FIELDS.get(3), values[3]);
+		} else if (dateOfAdmission == null) {
+			return Outcome.invalid("The value of %s has to be an ISO date or date-time, but is %s.",
+					VEHICLE_FIELDS.get(4), values[4]);
+		} else {
+			return Outcome
+					.accepted(() -> new Vehicle(brand, model, yearOfConstruction, licensePlate, dateOfAdmission));
+		}
+	}
+
+	private static Outcome<Supplier<Work>> toWork(String[] values) {
+		String workId = values[0];
+		String name = values[1];
+		Outcome<Supplier<Work>> missingValue = checkPresent(values, WORK_FIELDS, 1, 2);
+		if (missingValue != null) {
+			return missingValue;
+		}
+		Integer duration = parseNumber(values[2]);
+		if (duration == null) {
+			return notANumber(WORK_FIELDS.get(2), values[2]);
+		} else if (workId == null || workId.isEmpty()) {
+			return Outcome.accepted(() -> new Work(name, duration));
+		} else {
+			return Outcome.accepted(() -> new Work(workId, name, duration));
+		}
+	}
+
+	private static Outcome<Supplier<String[]>> toVehicleOfCustomer(String[] values) {
+		Outcome<Supplier<String[]>> missingValue = checkPresent(values, VEHICLE_OF_CUSTOMER_FIELDS, 0, 1);
+		if (missingValue != null) {
+			return missingValue;
+		}
+		return Outcome.accepted(() -> values);
+	}
+
+	/**
+	 * @return - an invalid outcome for the first of the required fields without a
+	 *         value, null if all have one
+	 */
+	private static <T> Outcome<T> checkPresent(String[] values, List<String> fields, int... indexesOfRequiredFields) {
+		for (int indexOfField : indexesOfRequiredFields) {
+			if (values[indexOfField] == null || values[indexOfField].isEmpty()) {
+				return Outcome.invalid("The value of %s is missing.", fields.get(indexOfField));
+			}
+		}
+		return null;
+	}
+
+	private static <T> Outcome<T> notANumber(String field, String value) {
+		return Outcome.invalid("The value of %s has to be a whole number, but is %s.", field, value);
+	}
+
+	/**
+	 * @return - the number, null if the value isn't a number
+	 */
+	private static Integer parseNumber(String value) {
+		try {
+			return Integer.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return - the date-time, the beginning of the day for a date, null if the
+	 *         value is neither
+	 */
+	private static LocalDateTime parseDateTime(String value) {
+		String trimmedValue = value.trim();
+		try {
+			if (trimmedValue.length() == 10) {
+				return LocalDate.parse(trimmedValue)
+						.atStartOfDay();
+			}
+			return LocalDateTime.parse(trimmedValue);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+}
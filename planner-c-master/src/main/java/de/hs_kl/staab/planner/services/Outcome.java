@@ -0,0 +1,127 @@
+package de.hs_kl.staab.planner.services;
+
+import java.util.Optional;
+
+/**
+ * Outcome of an operation that creates, updates or removes something in the
+ * planner. A rejected operation keeps the reason as a message pattern together
+ * with its arguments. The message is only built when {@link #getMessage()} is
+ * called, so a rejection costs neither string building nor console output
+ * unless somebody shows it.
+ *
+ * @param <T> - type of the created, updated or removed object
+ */
+public final class Outcome<T> {
+
+	public enum Kind {
+		/** The operation was done. */
+		ACCEPTED,
+		/** The operation collides with an existing object (see {@link Outcome#getConflictingWith()}). */
+		CONFLICT,
+		/** An object referenced by the operation does not exist. */
+		NOT_FOUND,
+		/** The operation is not allowed with the given values. */
+		INVALID
+	}
+
+	private final Kind kind;
+	private final T result;
+	private final Object conflictingWith;
+	private final String messagePattern;
+	private final Object[] messageArguments;
+
+	private Outcome(Kind kind, T result, Object conflictingWith, String messagePattern, Object[] messageArguments) {
+		this.kind = kind;
+		this.result = result;
+		this.conflictingWith = conflictingWith;
+		this.messagePattern = messagePattern;
+		this.messageArguments = messageArguments;
+	}
+
+	static <T> Outcome<T> accepted(T result) {
+		return new Outcome<>(Kind.ACCEPTED, result, null, null, null);
+	}
+
+	/**
+	 * @param messagePattern - format string of {@link String#format(String, Object...)}
+	 */
+	static <T> Outcome<T> conflict(Object conflictingWith, String messagePattern, Object... messageArguments) {
+		return new Outcome<>(Kind.CONFLICT, null, conflictingWith, messagePattern, messageArguments);
+	}
+
+	static <T> Outcome<T> notFound(String messagePattern, Object... messageArguments) {
+		return new Outcome<>(Kind.NOT_FOUND, null, null, messagePattern, messageArguments);
+	}
+
+	static <T> Outcome<T> invalid(String messagePattern, Object... messageArguments) {
+		return new Outcome<>(Kind.INVALID, null, null, messagePattern, messageArguments);
+	}
+
+	/**
+	 * The same rejection for an operation with another type of result, e.g. when
+	 * a rejected check is passed on as the outcome of the whole operation.
+	 */
+	@SuppressWarnings("unchecked")
+	<U> Outcome<U> asRejection() {
+		if (isAccepted()) {
+			throw new IllegalStateException("An accepted outcome is no rejection.");
+		}
+		return (Outcome<U>) this;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public boolean isAccepted() {
+		return kind == Kind.ACCEPTED;
+	}
+
+	/**
+	 * @return - the created, updated or removed object, empty if the operation was
+	 *         rejected
+	 */
+	public Optional<T> getResult() {
+		return Optional.ofNullable(result);
+	}
+
+	/**
+	 * @return - the existing object the operation collides with (e.g. an
+	 *         overlapping appointment or a customer with the same name and
+	 *         address), empty if there is none
+	 */
+	public Optional<Object> getConflictingWith() {
+		return Optional.ofNullable(conflictingWith);
+	}
+
+	/**
+	 * @return - why the operation was rejected, an empty string if it was accepted
+	 */
+	public String getMessage() {
+		if (messagePattern == null) {
+			return "";
+		}
+		return String.format(messagePattern, messageArguments);
+	}
+
+	/**
+	 * Prints the message to System.err like the console programs of the planner
+	 * do, if the operation was rejected.
+	 *
+	 * @return - this outcome
+	 */
+	public Outcome<T> printIfRejected() {
+		if (!isAccepted()) {
+			System.err.println("ERROR: " + getMessage());
+		}
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		if (isAccepted()) {
+			return kind + ": " + result;
+		}
+		return kind + ": " + getMessage();
+	}
+}
@@ -0,0 +1,1161 @@
+package de.hs_kl.staab.planner.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.CarMechanicUser;
+import de.hs_kl.staab.planner.CleaningAppointment;
+import de.hs_kl.staab.planner.CleaningAppointmentType;
+import de.hs_kl.staab.planner.ClientAdvisorUser;
+import de.hs_kl.staab.planner.ConsultingAppointment;
+import de.hs_kl.staab.planner.Customer;
+import de.hs_kl.staab.planner.DispatcherUser;
+import de.hs_kl.staab.planner.User;
+import de.hs_kl.staab.planner.Vehicle;
+import de.hs_kl.staab.planner.Work;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.data.AppointmentArchive;
+import de.hs_kl.staab.planner.data.PlanningCalendarData;
+import de.hs_kl.staab.planner.data.ResourceLocks.LockedResources;
+import de.hs_kl.staab.planner.persistence.Journal;
+
+/**
+ * Makes the state of all services durable. Every change made by a service is
+ * written to the {@link Journal} as a record holding the complete new state of
+ * the changed object, so replaying a record twice does no harm. From time to
+ * time the complete state is written as a snapshot and the journal before it is
+ * deleted, so recovery only has to read the snapshot and the few records
+ * written after it. The snapshot is read while the services go on changing the
+ * state (see {@link #takeSnapshot()}). Archiving a working appointment is
+ * journaled as well, recovery moves it into the archive of its location again,
+ * whose file is kept in the subdirectory archive of the data directory.
+ *
+ * Persistence is disabled until {@link #enablePersistence(Path)} is called.
+ * Afterwards a change only returns when its records are on the disk, see
+ * {@link StateChange}.
+ */
+public class PersistenceService {
+
+	private static final byte WORK_RECORD = 1;
+	private static final byte WORK_REMOVED_RECORD = 2;
+	private static final byte WORKING_PLATFORM_RECORD = 3;
+	private static final byte WORKING_PLATFORM_REMOVED_RECORD = 4;
+	private static final byte USER_RECORD = 5;
+	private static final byte USER_REMOVED_RECORD = 6;
+	private static final byte USERNAME_CHANGED_RECORD = 7;
+	private static final byte VEHICLE_RECORD = 8;
+	private static final byte VEHICLE_REMOVED_RECORD = 9;
+	private static final byte LICENSE_PLATE_CHANGED_RECORD = 10;
+	private static final byte CUSTOMER_RECORD = 11;
+	private static final byte CUSTOMER_REMOVED_RECORD = 12;
+	private static final byte WORKING_APPOINTMENT_RECORD = 13;
+	private static final byte CONSULTING_APPOINTMENT_RECORD = 14;
+	private static final byte CLEANING_APPOINTMENT_RECORD = 15;
+	private static final byte APPOINTMENT_REMOVED_RECORD = 16;
+	private static final byte WORKING_APPOINTMENT_ARCHIVED_RECORD = 17;
+
+	private static final byte CAR_MECHANIC_ROLE = 1;
+	private static final byte DISPATCHER_ROLE = 2;
+	private static final byte CLIENT_ADVISOR_ROLE = 3;
+
+	private static final long SNAPSHOT_AFTER_JOURNAL_BYTES = 64L * 1024 * 1024;
+
+	private static PersistenceService PERSISTENCE_SERVICE;
+
+	// every change holds the read lock, a snapshot holds the write lock while it
+	// switches to a new segment, so every change is journaled either completely
+	// before or completely after the switch
+	private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+	// the last record appended by a thread during its current state change
+	private final ThreadLocal<AppendedRecord> lastAppendedRecord = ThreadLocal.withInitial(AppendedRecord::new);
+	private final AtomicBoolean snapshotScheduled = new AtomicBoolean(false);
+	private volatile Journal journal;
+	// the archives of the locations are kept next to the journal
+	private volatile Path archiveDirectory;
+	private ExecutorService snapshotExecutor;
+	private Thread shutdownHook;
+
+	// all objects restored during recovery, including removed ones which are still
+	// referenced by later records
+	private Map<String, Work> restoredWorks;
+	private Map<String, WorkingPlatform> restoredWorkingPlatforms;
+	private Map<String, User> restoredUsers;
+	private Map<String, Vehicle> restoredVehicles;
+	private Map<String, Customer> restoredCustomers;
+
+	/**
+	 * Singleton-Pattern: Der Konstruktor kann nicht aufgerufen werden, sondern
+	 * {@link #getInstance()} muss aufgerufen werden. So kann sichergestellt werden,
+	 * dass nur eine einzige Instanz dieser Klasse erstellt wird.
+	 */
+	private PersistenceService() {
+	}
+
+	/**
+	 * Teil des Singleton-Patterns
+	 *
+	 * @return Die einzige Instanz des PersistenceService.
+	 */
+	public static synchronized PersistenceService getInstance() {
+		if (PERSISTENCE_SERVICE == null) {
+			PERSISTENCE_SERVICE = new PersistenceService();
+		}
+		return PERSISTENCE_SERVICE;
+	}
+
+	/**
+	 * Restores the state stored in the given directory and writes every following
+	 * change to it. Has to be called before any object is created.
+	 */
+	public synchronized void enablePersistence(Path dataDirectory) throws IOException {
+		if (journal != null) {
+			throw new IllegalStateException("ERROR: Persistence is already enabled.");
+		}
+		long beginOfRecovery = System.nanoTime();
+		int[] numberOfRecords = new int[1];
+		restoredWorks = new HashMap<>();
+		restoredWorkingPlatforms = new HashMap<>();
+		restoredUsers = new HashMap<>();
+		restoredVehicles = new HashMap<>();
+		restoredCustomers = new HashMap<>();
+		stateLock.writeLock()
+				.lock();
+		try {
+			// the archived working appointments are archived again while replaying
+			archiveDirectory = dataDirectory.resolve("archive");
+			journal = Journal.open(dataDirectory, record -> {
+				applyRecord(record);
+				numberOfRecords[0]++;
+			});
+		} catch (IOException | RuntimeException e) {
+			archiveDirectory = null;
+			throw e;
+		} finally {
+			restoredWorks = null;
+			restoredWorkingPlatforms = null;
+			restoredUsers = null;
+			restoredVehicles = null;
+			restoredCustomers = null;
+			stateLock.writeLock()
+					.unlock();
+		}
+		System.out.println("Restored " + numberOfRecords[0] + " records from " + dataDirectory + " in "
+				+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - beginOfRecovery) + " ms.");
+
+		snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread snapshotThread = new Thread(runnable, "planner-snapshot-writer");
+			snapshotThread.setDaemon(true);
+			return snapshotThread;
+		});
+		shutdownHook = new Thread(this::closeJournalOnShutdown, "planner-journal-shutdown");
+		Runtime.getRuntime()
+				.addShutdownHook(shutdownHook);
+	}
+
+	/**
+	 * Writes all pending changes and stops writing the journal.
+	 */
+	public synchronized void disablePersistence() throws IOException {
+		if (journal == null) {
+			return;
+		}
+		Runtime.getRuntime()
+				.removeShutdownHook(shutdownHook);
+		closeJournal();
+	}
+
+	public boolean isPersistenceEnabled() {
+		return journal != null;
+	}
+
+	/**
+	 * @return - the directory of the archives of old working appointments, see
+	 *         {@link PlannerService#archiveFinishedAndCancelledWorkingAppointmentsOlderThan(java.time.Period)},
+	 *         or null if persistence is disabled
+	 */
+	Path getArchiveDirectory() {
+		return archiveDirectory;
+	}
+
+	/**
+	 * Blocks until all changes made so far are durable.
+	 */
+	public void awaitDurable() throws IOException {
+		Journal currentJournal = journal;
+		if (currentJournal != null) {
+			currentJournal.awaitDurable(currentJournal.getAppendedSequence());
+		}
+	}
+
+	/**
+	 * @return - true if all changes made so far are durable, or if persistence is
+	 *         disabled
+	 */
+	boolean isDurable() {
+		Journal currentJournal = journal;
+		return currentJournal == null || currentJournal.getDurableSequence() == currentJournal.getAppendedSequence();
+	}
+
+	/**
+	 * Writes the complete state as a snapshot and deletes the journal before it.
+	 * Changes only have to wait while the journal switches to a new segment, the
+	 * state is read afterwards while they go on (fuzzy snapshot). So the snapshot
+	 * may contain some changes journaled in the new segment already, or an object
+	 * in the middle of such a change. The recovery replays the new segment over
+	 * the snapshot, and every record holds the complete state of its object, so
+	 * both end with the state of the last record.
+	 */
+	public void takeSnapshot() throws IOException {
+		Journal currentJournal = journal;
+		if (currentJournal == null) {
+			throw new IllegalStateException("ERROR: Persistence is not enabled.");
+		}
+		long snapshotSegment;
+		stateLock.writeLock()
+				.lock();
+		try {
+			snapshotSegment = currentJournal.startNewSegment();
+		} finally {
+			stateLock.writeLock()
+					.unlock();
+		}
+		currentJournal.writeSnapshot(snapshotSegment, encodeCompleteState());
+	}
+
+	/**
+	 * Has to be held while changing objects and writing the corresponding records,
+	 * use it with try-with-resources. The records are journaled through the
+	 * returned state change.
+	 */
+	StateChange beginStateChange() {
+		return beginStateChange(null);
+	}
+
+	/**
+	 * Like {@link #beginStateChange()}, but the state change takes over the given
+	 * resource locks and releases them when it is closed, after the change is
+	 * durable. So a conflicting booking only sees the change once it would
+	 * survive a crash.
+	 *
+	 * @param lockedResources - may be null
+	 */
+	StateChange beginStateChange(LockedResources lockedResources) {
+		stateLock.readLock()
+				.lock();
+		return new StateChange(lockedResources);
+	}
+
+	/**
+	 * Scope of a change of the state. All records of the change are journaled
+	 * through it, so they can't be written without holding the read lock.
+	 *
+	 * Closing the outermost state change of a thread waits until the last record
+	 * it appended is durable, so a change is never reported as done before it
+	 * would survive a crash. The writer thread of the journal makes the records
+	 * of all threads waiting at the same time durable with one fsync.
+	 */
+	final class StateChange implements AutoCloseable {
+
+		private final LockedResources lockedResources;
+
+		private StateChange(LockedResources lockedResources) {
+			this.lockedResources = lockedResources;
+		}
+
+		void journalWork(Work work) {
+			if (journal != null) {
+				append(encodeWork(work));
+			}
+		}
+
+		void journalWorkRemoved(String workId) {
+			if (journal != null) {
+				append(encodeRecord(WORK_REMOVED_RECORD, record -> writeString(record, workId)));
+			}
+		}
+
+		void journalWorkingPlatform(WorkingPlatform workingPlatform) {
+			if (journal != null) {
+				append(encodeWorkingPlatform(workingPlatform));
+			}
+		}
+
+		void journalWorkingPlatformRemoved(String workingPlatformId) {
+			if (journal != null) {
+				append(encodeRecord(WORKING_PLATFORM_REMOVED_RECORD, record -> writeString(record, workingPlatformId)));
+			}
+		}
+
+		void journalUser(User user) {
+			if (journal != null) {
+				append(encodeUser(user));
+			}
+		}
+
+		void journalUserRemoved(String username) {
+			if (journal != null) {
+				append(encodeRecord(USER_REMOVED_RECORD, record -> writeString(record, username)));
+			}
+		}
+
+		void journalUsernameChanged(String oldUsername, String newUsername) {
+			if (journal != null) {
+				append(encodeRecord(USERNAME_CHANGED_RECORD, record -> {
+					writeString(record, oldUsername);
+					writeString(record, newUsername);
+				}));
+			}
+		}
+
+		void journalVehicle(Vehicle vehicle) {
+			if (journal != null) {
+				append(encodeVehicle(vehicle));
+			}
+		}
+
+		void journalVehicleRemoved(String vehicleLicensePlate) {
+			if (journal != null) {
+				append(encodeRecord(VEHICLE_REMOVED_RECORD, record -> writeString(record, vehicleLicensePlate)));
+			}
+		}
+
+		void journalLicensePlateChanged(String oldLicensePlate, String newLicensePlate) {
+			if (journal != null) {
+				append(encodeRecord(LICENSE_PLATE_CHANGED_RECORD, record -> {
+					writeString(record, oldLicensePlate);
+					writeString(record, newLicensePlate);
+				}));
+			}
+		}
+
+		void journalCustomer(Customer customer) {
+			if (journal != null) {
+				append(encodeCustomer(customer));
+			}
+		}
+
+		void journalCustomerRemoved(String customerId) {
+			if (journal != null) {
+				append(encodeRecord(CUSTOMER_REMOVED_RECORD, record -> writeString(record, customerId)));
+			}
+		}
+
+		void journalAppointment(String location, Appointment appointment) {
+			if (journal != null) {
+				append(encodeAppointment(location, appointment));
+			}
+		}
+
+		void journalAppointmentRemoved(String appointmentId) {
+			if (journal != null) {
+				append(encodeRecord(APPOINTMENT_REMOVED_RECORD, record -> writeString(record, appointmentId)));
+			}
+		}
+
+		void journalWorkingAppointmentArchived(String location, WorkingAppointment workingAppointment) {
+			if (journal != null) {
+				append(encodeWorkingAppointment(WORKING_APPOINTMENT_ARCHIVED_RECORD, location, workingAppointment));
+			}
+		}
+
+		/**
+		 * @throws UncheckedIOException if the journal could not be written, the
+		 *                              change is made in memory then, but it may
+		 *                              be lost
+		 */
+		@Override
+		public void close() {
+			try {
+				stateLock.readLock()
+						.unlock();
+				if (stateLock.getReadHoldCount() > 0) {
+					return;
+				}
+				AppendedRecord appendedRecord = lastAppendedRecord.get();
+				Journal journalOfRecord = appendedRecord.journal;
+				if (journalOfRecord == null) {
+					return;
+				}
+				appendedRecord.journal = null;
+				try {
+					journalOfRecord.awaitDurable(appendedRecord.sequence);
+				} catch (IOException e) {
+					throw new UncheckedIOException("ERROR: The change could not be written to the journal.", e);
+				}
+			} finally {
+				if (lockedResources != null) {
+					lockedResources.close();
+				}
+			}
+		}
+	}
+
+	private static class AppendedRecord {
+		private Journal journal;
+		private long sequence;
+	}
+
+	private void append(byte[] record) {
+		Journal currentJournal = journal;
+		long sequence = currentJournal.append(record);
+		AppendedRecord appendedRecord = lastAppendedRecord.get();
+		appendedRecord.journal = currentJournal;
+		appendedRecord.sequence = sequence;
+		if (currentJournal.getCurrentSegmentSize() >= SNAPSHOT_AFTER_JOURNAL_BYTES
+				&& snapshotScheduled.compareAndSet(false, true)) {
+			snapshotExecutor.execute(this::takeScheduledSnapshot);
+		}
+	}
+
+	private void takeScheduledSnapshot() {
+		try {
+			takeSnapshot();
+		} catch (IOException | RuntimeException e) {
+			System.err.println("ERROR: Writing the snapshot failed: " + e);
+		} finally {
+			snapshotScheduled.set(false);
+		}
+	}
+
+	private void closeJournalOnShutdown() {
+		try {
+			closeJournal();
+		} catch (IOException e) {
+			System.err.println("ERROR: Closing the journal failed: " + e);
+		}
+	}
+
+	private synchronized void closeJournal() throws IOException {
+		Journal currentJournal = journal;
+		if (currentJournal == null) {
+			return;
+		}
+		snapshotExecutor.shutdown();
+		try {
+			snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+		}
+		stateLock.writeLock()
+				.lock();
+		try {
+			journal = null;
+			archiveDirectory = null;
+		} finally {
+			stateLock.writeLock()
+					.unlock();
+		}
+		currentJournal.close();
+		// the archives are restored from the journal when persistence is enabled again
+		for (PlannerService plannerService : PlannerService.getAllInstances()) {
+			plannerService.closeAppointmentArchive();
+		}
+	}
+
+	/**
+	 * Encodes all objects of all services. Objects which were removed from their
+	 * service but are still referenced by a customer or an appointment are
+	 * written too, followed by a record removing them again. Only reads
+	 * concurrent collections, so it can run while the state is changed.
+	 */
+	private List<byte[]> encodeCompleteState() {
+		Set<Work> works = newIdentitySet(WorkService.getWorkData()
+				.getAllWorks());
+		Set<WorkingPlatform> workingPlatforms = newIdentitySet(WorkingPlatformService.getWorkingPlatformData()
+				.getAllWorkingPlatforms());
+		Set<User> users = newIdentitySet(UserService.getUserData()
+				.getAllUsers());
+		Set<Vehicle> vehicles = newIdentitySet(VehicleService.getVehicleData()
+				.getAllVehicles());
+		Set<Customer> customers = newIdentitySet(CustomerService.getCustomerData()
+				.getAllCustomers());
+
+		List<byte[]> removedRecords = new ArrayList<>();
+		Set<Vehicle> referencedVehicles = newIdentitySet(Collections.<Vehicle>emptySet());
+		for (Customer customer : customers) {
+			referencedVehicles.addAll(customer.getVehiclesOfCustomer());
+		}
+		List<Customer> removedCustomers = new ArrayList<>();
+		List<byte[]> appointmentRecords = new ArrayList<>();
+		for (PlannerService plannerService : PlannerService.getAllInstances()) {
+			String location = plannerService.getLocation();
+			for (Appointment appointment : plannerService.getPlanningCalendarData()
+					.getAllAppointments()) {
+				if (appointment instanceof WorkingAppointment) {
+					WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+					for (Work work : workingAppointment.getWorksToPerform()) {
+						addRemovedWork(work, works, removedRecords);
+					}
+					addRemovedWorkingPlatform(workingAppointment.getWorkingPlatformRelatedToWorkingAppointment(),
+							workingPlatforms, removedRecords);
+					addRemovedUser(workingAppointment.getResponsibleCarMechanicUser(), users, removedRecords);
+					referencedVehicles.add(workingAppointment.getVehicleToWorkOn());
+					if (customers.add(workingAppointment.getCustomerRelatedToWorkingAppointment())) {
+						removedCustomers.add(workingAppointment.getCustomerRelatedToWorkingAppointment());
+					}
+				} else if (appointment instanceof CleaningAppointment) {
+					CleaningAppointment cleaningAppointment = (CleaningAppointment) appointment;
+					addRemovedWorkingPlatform(cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment(),
+							workingPlatforms, removedRecords);
+					addRemovedUser(cleaningAppointment.getResponsibleDispatcherUser(), users, removedRecords);
+				} else if (appointment instanceof ConsultingAppointment) {
+					ConsultingAppointment consultingAppointment = (ConsultingAppointment) appointment;
+					addRemovedUser(consultingAppointment.getResponsibleClientAdvisorUser(), users, removedRecords);
+					if (customers.add(consultingAppointment.getCustomerRelatedToConsultingAppointment())) {
+						removedCustomers.add(consultingAppointment.getCustomerRelatedToConsultingAppointment());
+					}
+				}
+				appointmentRecords.add(encodeAppointment(location, appointment));
+			}
+			// the archive only holds working appointments, its dictionaries contain every
+			// entity referenced by one of them
+			AppointmentArchive appointmentArchive = plannerService.getAppointmentArchive();
+			if (appointmentArchive != null) {
+				for (Work work : appointmentArchive.getReferencedWorks()) {
+					addRemovedWork(work, works, removedRecords);
+				}
+				for (WorkingPlatform workingPlatform : appointmentArchive.getReferencedWorkingPlatforms()) {
+					addRemovedWorkingPlatform(workingPlatform, workingPlatforms, removedRecords);
+				}
+				for (User carMechanicUser : appointmentArchive.getReferencedCarMechanicUsers()) {
+					addRemovedUser(carMechanicUser, users, removedRecords);
+				}
+				referencedVehicles.addAll(appointmentArchive.getReferencedVehicles());
+				for (Customer customer : appointmentArchive.getReferencedCustomers()) {
+					if (customers.add(customer)) {
+						removedCustomers.add(customer);
+					}
+				}
+				appointmentArchive.forEachArchivedWorkingAppointment(
+						archivedAppointment -> appointmentRecords.add(encodeWorkingAppointment(
+								WORKING_APPOINTMENT_ARCHIVED_RECORD, location, archivedAppointment)));
+			}
+		}
+		for (Customer removedCustomer : removedCustomers) {
+			referencedVehicles.addAll(removedCustomer.getVehiclesOfCustomer());
+			removedRecords.add(encodeRecord(CUSTOMER_REMOVED_RECORD,
+					record -> writeString(record, removedCustomer.getCustomerId())));
+		}
+		for (Vehicle referencedVehicle : referencedVehicles) {
+			if (vehicles.add(referencedVehicle)) {
+				removedRecords.add(encodeRecord(VEHICLE_REMOVED_RECORD,
+						record -> writeString(record, referencedVehicle.getVehicleLicensePlate())));
+			}
+		}
+
+		List<byte[]> records = new ArrayList<>(works.size() + workingPlatforms.size() + users.size() + vehicles.size()
+				+ customers.size() + appointmentRecords.size() + removedRecords.size());
+		works.forEach(work -> records.add(encodeWork(work)));
+		workingPlatforms.forEach(workingPlatform -> records.add(encodeWorkingPlatform(workingPlatform)));
+		users.forEach(user -> records.add(encodeUser(user)));
+		vehicles.forEach(vehicle -> records.add(encodeVehicle(vehicle)));
+		customers.forEach(customer -> records.add(encodeCustomer(customer)));
+		records.addAll(appointmentRecords);
+		records.addAll(removedRecords);
+		return records;
+	}
+
+	private void addRemovedWork(Work work, Set<Work> works, List<byte[]> removedRecords) {
+		if (works.add(work)) {
+			removedRecords.add(encodeRecord(WORK_REMOVED_RECORD, record -> writeString(record, work.getWorkId())));
+		}
+	}
+
+	private void addRemovedWorkingPlatform(WorkingPlatform workingPlatform, Set<WorkingPlatform> workingPlatforms,
+			List<byte[]> removedRecords) {
+		if (workingPlatforms.add(workingPlatform)) {
+			removedRecords.add(encodeRecord(WORKING_PLATFORM_REMOVED_RECORD,
+					record -> writeString(record, workingPlatform.getWorkingPlatformId())));
+		}
+	}
+
+	private void addRemovedUser(User user, Set<User> users, List<byte[]> removedRecords) {
+		if (users.add(user)) {
+			removedRecords.add(encodeRecord(USER_REMOVED_RECORD, record -> writeString(record, user.getUsername())));
+		}
+	}
+
+	private static <T> Set<T> newIdentitySet(Set<T> elements) {
+		Set<T> identitySet = Collections.newSetFromMap(new IdentityHashMap<>());
+		identitySet.addAll(elements);
+		return identitySet;
+	}
+
+	private interface RecordContent {
+		void writeTo(DataOutputStream record) throws IOException;
+	}
+
+	private static byte[] encodeRecord(byte recordType, RecordContent recordContent) {
+		ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(128);
+		try (DataOutputStream record = new DataOutputStream(recordBytes)) {
+			record.writeByte(recordType);
+			recordContent.writeTo(record);
+		} catch (IOException e) {
+			// can't happen when writing to memory
+			throw new UncheckedIOException(e);
+		}
+		return recordBytes.toByteArray();
+	}
+
+	private static byte[] encodeWork(Work work) {
+		return encodeRecord(WORK_RECORD, record -> {
+			writeString(record, work.getWorkId());
+			writeString(record, work.getWorkName());
+			record.writeInt(work.getWorkDuration());
+		});
+	}
+
+	/**
+	 * The location is written last like in the records of the appointments (see
+	 * {@link #encodeAppointment(String, Appointment)}).
+	 */
+	private static byte[] encodeWorkingPlatform(WorkingPlatform workingPlatform) {
+		return encodeRecord(WORKING_PLATFORM_RECORD, record -> {
+			writeString(record, workingPlatform.getWorkingPlatformId());
+			writeString(record, workingPlatform.getWorkingPlatformName());
+			writeString(record, workingPlatform.getLocation());
+		});
+	}
+
+	/**
+	 * The location is written last, see {@link #encodeWorkingPlatform(WorkingPlatform)}.
+	 */
+	private static byte[] encodeUser(User user) {
+		byte role;
+		if (user instanceof CarMechanicUser) {
+			role = CAR_MECHANIC_ROLE;
+		} else if (user instanceof DispatcherUser) {
+			role = DISPATCHER_ROLE;
+		} else if (user instanceof ClientAdvisorUser) {
+			role = CLIENT_ADVISOR_ROLE;
+		} else {
+			throw new IllegalArgumentException("ERROR: Unknown type of user " + user.getUsername() + ".");
+		}
+		return encodeRecord(USER_RECORD, record -> {
+			record.writeByte(role);
+			writeString(record, user.getUsername());
+			writeString(record, user.getUserFirstName());
+			writeString(record, user.getUserLastName());
+			writeString(record, user.getLocation());
+		});
+	}
+
+	private static byte[] encodeVehicle(Vehicle vehicle) {
+		return encodeRecord(VEHICLE_RECORD, record -> {
+			writeString(record, vehicle.getVehicleLicensePlate());
+			writeString(record, vehicle.getVehicleBrand());
+			writeString(record, vehicle.getVehicleModel());
+			record.writeInt(vehicle.getVehicleYearOfConstruction());
+			writeDateTime(record, vehicle.getDateOfAdmission());
+		});
+	}
+
+	private static byte[] encodeCustomer(Customer customer) {
+		return encodeRecord(CUSTOMER_RECORD, record -> {
+			writeString(record, customer.getCustomerId());
+			writeString(record, customer.getCustomerFirstName());
+			writeString(record, customer.getCustomerLastName());
+			writeString(record, customer.getStreet());
+			record.writeInt(customer.getHouseNumber());
+			record.writeInt(customer.getPostalCode());
+			writeString(record, customer.getCity());
+			writeString(record, customer.getPhoneNumber());
+			writeString(record, customer.getEmail());
+			List<Vehicle> vehiclesOfCustomer = new ArrayList<>(customer.getVehiclesOfCustomer());
+			record.writeInt(vehiclesOfCustomer.size());
+			for (Vehicle vehicle : vehiclesOfCustomer) {
+				writeString(record, vehicle.getVehicleLicensePlate());
+			}
+		});
+	}
+
+	/**
+	 * The location is written last, so records written before there were
+	 * locations are read as records of the {@link PlannerService#DEFAULT_LOCATION}.
+	 */
+	private static byte[] encodeAppointment(String location, Appointment appointment) {
+		if (appointment instanceof WorkingAppointment) {
+			return encodeWorkingAppointment(WORKING_APPOINTMENT_RECORD, location, (WorkingAppointment) appointment);
+		} else if (appointment instanceof ConsultingAppointment) {
+			ConsultingAppointment consultingAppointment = (ConsultingAppointment) appointment;
+			return encodeRecord(CONSULTING_APPOINTMENT_RECORD, record -> {
+				writeString(record, consultingAppointment.getAppointmentId());
+				writeDateTime(record, consultingAppointment.getAppointmentBeginDateAndTime());
+				writeString(record, consultingAppointment.getCustomerRelatedToConsultingAppointment()
+						.getCustomerId());
+				record.writeInt(consultingAppointment.getConsultingAppointmentDuration());
+				writeString(record, consultingAppointment.getResponsibleClientAdvisorUser()
+						.getUsername());
+				writeString(record, location);
+			});
+		} else if (appointment instanceof CleaningAppointment) {
+			CleaningAppointment cleaningAppointment = (CleaningAppointment) appointment;
+			return encodeRecord(CLEANING_APPOINTMENT_RECORD, record -> {
+				writeString(record, cleaningAppointment.getAppointmentId());
+				writeDateTime(record, cleaningAppointment.getAppointmentBeginDateAndTime());
+				writeString(record, cleaningAppointment.getCleaningAppointmentType());
+				writeString(record, cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment()
+						.getWorkingPlatformId());
+				writeString(record, cleaningAppointment.getResponsibleDispatcherUser()
+						.getUsername());
+				writeString(record, location);
+			});
+		}
+		throw new IllegalArgumentException(
+				"ERROR: Unknown type of appointment " + appointment.getAppointmentId() + ".");
+	}
+
+	/**
+	 * Working appointments in the planning calendar and archived ones are written
+	 * with the same content, only the type of the record differs.
+	 */
+	private static byte[] encodeWorkingAppointment(byte recordType, String location,
+			WorkingAppointment workingAppointment) {
+		return encodeRecord(recordType, record -> {
+			writeString(record, workingAppointment.getAppointmentId());
+			writeDateTime(record, workingAppointment.getAppointmentBeginDateAndTime());
+			writeString(record, workingAppointment.getWorkingPlatformRelatedToWorkingAppointment()
+					.getWorkingPlatformId());
+			writeString(record, workingAppointment.getCustomerRelatedToWorkingAppointment()
+					.getCustomerId());
+			writeString(record, workingAppointment.getVehicleToWorkOn()
+					.getVehicleLicensePlate());
+			record.writeInt(workingAppointment.getWorksToPerform()
+					.size());
+			for (Work work : workingAppointment.getWorksToPerform()) {
+				writeString(record, work.getWorkId());
+			}
+			writeString(record, workingAppointment.getResponsibleCarMechanicUser()
+					.getUsername());
+			writeString(record, workingAppointment.getStatus()
+					.name());
+			writeString(record, location);
+		});
+	}
+
+	/**
+	 * Applies a record of the journal during recovery. Records referencing objects
+	 * which don't exist are skipped with a warning.
+	 */
+	private void applyRecord(byte[] recordBytes) throws IOException {
+		DataInputStream record = new DataInputStream(new ByteArrayInputStream(recordBytes));
+		byte recordType = record.readByte();
+		switch (recordType) {
+		case WORK_RECORD:
+			restoreWork(record);
+			break;
+		case WORK_REMOVED_RECORD:
+			WorkService.getWorkData()
+					.getWorkById(readString(record))
+					.ifPresent(work -> WorkService.getWorkData()
+							.removeWorkFromWorkData(work));
+			break;
+		case WORKING_PLATFORM_RECORD:
+			restoreWorkingPlatform(record);
+			break;
+		case WORKING_PLATFORM_REMOVED_RECORD:
+			WorkingPlatformService.getWorkingPlatformData()
+					.getWorkingPlatformById(readString(record))
+					.ifPresent(workingPlatform -> WorkingPlatformService.getWorkingPlatformData()
+							.removeWorkingPlatformFromWorkingPlatformData(workingPlatform));
+			break;
+		case USER_RECORD:
+			restoreUser(record);
+			break;
+		case USER_REMOVED_RECORD:
+			UserService.getUserData()
+					.getUserByUsername(readString(record))
+					.ifPresent(user -> UserService.getUserData()
+							.removeUserFromUserData(user));
+			break;
+		case USERNAME_CHANGED_RECORD:
+			restoreUsernameChange(readString(record), readString(record));
+			break;
+		case VEHICLE_RECORD:
+			restoreVehicle(record);
+			break;
+		case VEHICLE_REMOVED_RECORD:
+			VehicleService.getVehicleData()
+					.getVehicleByLicensePlate(readString(record))
+					.ifPresent(vehicle -> VehicleService.getVehicleData()
+							.removeVehicleFromVehicleData(vehicle));
+			break;
+		case LICENSE_PLATE_CHANGED_RECORD:
+			restoreLicensePlateChange(readString(record), readString(record));
+			break;
+		case CUSTOMER_RECORD:
+			restoreCustomer(record);
+			break;
+		case CUSTOMER_REMOVED_RECORD:
+			CustomerService.getCustomerData()
+					.getCustomerById(readString(record))
+					.ifPresent(customer -> CustomerService.getCustomerData()
+							.removeCustomerFromCustomerData(customer));
+			break;
+		case WORKING_APPOINTMENT_RECORD:
+			restoreWorkingAppointment(record, false);
+			break;
+		case CONSULTING_APPOINTMENT_RECORD:
+			restoreConsultingAppointment(record);
+			break;
+		case CLEANING_APPOINTMENT_RECORD:
+			restoreCleaningAppointment(record);
+			break;
+		case APPOINTMENT_REMOVED_RECORD:
+			removeRestoredAppointment(readString(record));
+			break;
+		case WORKING_APPOINTMENT_ARCHIVED_RECORD:
+			restoreWorkingAppointment(record, true);
+			break;
+		default:
+			throw new IOException("Unknown type of journal record: " + recordType);
+		}
+	}
+
+	private void restoreWork(DataInputStream record) throws IOException {
+		String workId = readString(record);
+		String workName = readString(record);
+		int workDuration = record.readInt();
+		Optional<Work> optionalWork = WorkService.getWorkData()
+				.getWorkById(workId);
+		Work work;
+		if (optionalWork.isPresent()) {
+			work = optionalWork.get();
+			WorkService.getWorkData()
+					.updateWorkInWorkData(work, () -> {
+						work.setWorkName(workName);
+						work.setWorkDuration(workDuration);
+					});
+		} else {
+			work = new Work(workId, workName, workDuration);
+			WorkService.getWorkData()
+					.addWorkToWorkData(work);
+		}
+		restoredWorks.put(workId, work);
+	}
+
+	private void restoreWorkingPlatform(DataInputStream record) throws IOException {
+		String workingPlatformId = readString(record);
+		String workingPlatformName = readString(record);
+		String location = readLocation(record);
+		Optional<WorkingPlatform> optionalWorkingPlatform = WorkingPlatformService.getWorkingPlatformData()
+				.getWorkingPlatformById(workingPlatformId);
+		WorkingPlatform workingPlatform;
+		if (optionalWorkingPlatform.isPresent()) {
+			workingPlatform = optionalWorkingPlatform.get();
+			workingPlatform.setWorkingPlatformName(workingPlatformName);
+		} else {
+			workingPlatform = new WorkingPlatform(workingPlatformId, workingPlatformName, location);
+			WorkingPlatformService.getWorkingPlatformData()
+					.addWorkingPlatformToWorkingPlatformData(workingPlatform);
+		}
+		restoredWorkingPlatforms.put(workingPlatformId, workingPlatform);
+	}
+
+	private void restoreUser(DataInputStream record) throws IOException {
+		byte role = record.readByte();
+		String username = readString(record);
+		String userFirstName = readString(record);
+		String userLastName = readString(record);
+		String location = readLocation(record);
+		Optional<User> optionalUser = UserService.getUserData()
+				.getUserByUsername(username);
+		User user;
+		if (optionalUser.isPresent()) {
+			user = optionalUser.get();
+			user.setUserFirstName(userFirstName);
+			user.setUserLastName(userLastName);
+		} else {
+			switch (role) {
+			case CAR_MECHANIC_ROLE:
+				user = new CarMechanicUser(username, userFirstName, userLastName, location);
+				break;
+			case DISPATCHER_ROLE:
+				user = new DispatcherUser(username, userFirstName, userLastName, location);
+				break;
+			case CLIENT_ADVISOR_ROLE:
+				user = new ClientAdvisorUser(username, userFirstName, userLastName, location);
+				break;
+			default:
+				throw new IOException("Unknown role of user " + username + ": " + role);
+			}
+			UserService.getUserData()
+					.addUserToUserData(user);
+		}
+		restoredUsers.put(username, user);
+	}
+
+	private void restoreUsernameChange(String oldUsername, String newUsername) {
+		// a fuzzy snapshot may already contain the user with the new username, the
+		// user with the old one is another user created after the change then
+		if (UserService.getUserData()
+				.getUserByUsername(newUsername)
+				.isPresent()) {
+			return;
+		}
+		User user = restoredUsers.remove(oldUsername);
+		if (user != null) {
+			if (UserService.getUserData()
+					.getUserByUsername(oldUsername)
+					.isPresent()) {
+				UserService.getUserData()
+						.updateUsernameOfUser(user, newUsername);
+			} else {
+				user.setUserName(newUsername);
+			}
+			restoredUsers.put(newUsername, user);
+		}
+	}
+
+	private void restoreVehicle(DataInputStream record) throws IOException {
+		String vehicleLicensePlate = readString(record);
+		String vehicleBrand = readString(record);
+		String vehicleModel = readString(record);
+		int vehicleYearOfConstruction = record.readInt();
+		LocalDateTime dateOfAdmission = readDateTime(record);
+		Optional<Vehicle> optionalVehicle = VehicleService.getVehicleData()
+				.getVehicleByLicensePlate(vehicleLicensePlate);
+		Vehicle vehicle;
+		if (optionalVehicle.isPresent()) {
+			vehicle = optionalVehicle.get();
+		} else {
+			vehicle = new Vehicle(vehicleBrand, vehicleModel, vehicleYearOfConstruction, vehicleLicensePlate,
+					dateOfAdmission);
+			VehicleService.getVehicleData()
+					.addVehicleToVehicleData(vehicle);
+		}
+		restoredVehicles.put(vehicleLicensePlate, vehicle);
+	}
+
+	private void restoreLicensePlateChange(String oldLicensePlate, String newLicensePlate) {
+		// already contained in a fuzzy snapshot, like a change of a username
+		if (VehicleService.getVehicleData()
+				.getVehicleByLicensePlate(newLicensePlate)
+				.isPresent()) {
+			return;
+		}
+		Vehicle vehicle = restoredVehicles.remove(oldLicensePlate);
+		if (vehicle != null) {
+			if (VehicleService.getVehicleData()
+					.getVehicleByLicensePlate(oldLicensePlate)
+					.isPresent()) {
+				VehicleService.getVehicleData()
+						.updateLicensePlateOfVehicle(vehicle, newLicensePlate);
+			} else {
+				vehicle.setVehicleLicensePlate(newLicensePlate);
+			}
+			restoredVehicles.put(newLicensePlate, vehicle);
+		}
+	}
+
+	private void restoreCustomer(DataInputStream record) throws IOException {
+		String customerId = readString(record);
+		String customerFirstName = readString(record);
+		String customerLastName = readString(record);
+		String street = readString(record);
+		int houseNumber = record.readInt();
+		int postalCode = record.readInt();
+		String city = readString(record);
+		String phoneNumber = readString(record);
+		String email = readString(record);
+		int numberOfVehicles = record.readInt();
+		Set<Vehicle> vehiclesOfCustomer = new HashSet<>();
+		for (int i = 0; i < numberOfVehicles; i++) {
+			String vehicleLicensePlate = readString(record);
+			Vehicle vehicle = restoredVehicles.get(vehicleLicensePlate);
+			if (vehicle != null) {
+				vehiclesOfCustomer.add(vehicle);
+			} else {
+				System.err.println("WARNING: The vehicle with the license plate " + vehicleLicensePlate
+						+ " of the customer " + customerId + " was not found in the journal.");
+			}
+		}
+
+		Optional<Customer> optionalCustomer = CustomerService.getCustomerData()
+				.getCustomerById(customerId);
+		Customer customer;
+		if (optionalCustomer.isPresent()) {
+			customer = optionalCustomer.get();
+			CustomerService.getCustomerData()
+					.updateCustomerInCustomerData(customer, () -> {
+						customer.setCustomerFirstName(customerFirstName);
+						customer.setCustomerLastName(customerLastName);
+						customer.setStreet(street);
+						customer.setHouseNumber(houseNumber);
+						customer.setPostalCode(postalCode);
+						customer.setCity(city);
+						customer.setPhoneNumber(phoneNumber);
+						customer.setEmail(email);
+					});
+			customer.getVehiclesOfCustomer()
+					.retainAll(vehiclesOfCustomer);
+		} else {
+			customer = new Customer(customerId, customerFirstName, customerLastName, street, houseNumber, postalCode,
+					city, phoneNumber, email);
+			CustomerService.getCustomerData()
+					.addCustomerToCustomerData(customer);
+		}
+		restoredCustomers.put(customerId, customer);
+		vehiclesOfCustomer.forEach(vehicle -> customer.addVehicleToVehicleSet(vehicle));
+	}
+
+	/**
+	 * @param archived - true if the working appointment was moved into the
+	 *                 archive of its location, it's removed from the planning
+	 *                 calendar then and only archived if the archive doesn't
+	 *                 contain it yet, because a fuzzy snapshot may contain it
+	 *                 already
+	 */
+	private void restoreWorkingAppointment(DataInputStream record, boolean archived) throws IOException {
+		String appointmentId = readString(record);
+		LocalDateTime appointmentBeginDateAndTime = readDateTime(record);
+		String workingPlatformId = readString(record);
+		String customerId = readString(record);
+		String vehicleLicensePlate = readString(record);
+		int numberOfWorks = record.readInt();
+		Set<Work> worksToPerform = new HashSet<>();
+		boolean allWorksFound = true;
+		for (int i = 0; i < numberOfWorks; i++) {
+			Work work = restoredWorks.get(readString(record));
+			if (work != null) {
+				worksToPerform.add(work);
+			} else {
+				allWorksFound = false;
+			}
+		}
+		String carMechanicUsername = readString(record);
+		String status = readString(record);
+		String location = readLocation(record);
+
+		WorkingPlatform workingPlatform = restoredWorkingPlatforms.get(workingPlatformId);
+		Customer customer = restoredCustomers.get(customerId);
+		Vehicle vehicle = restoredVehicles.get(vehicleLicensePlate);
+		User carMechanicUser = restoredUsers.get(carMechanicUsername);
+		if (!allWorksFound || workingPlatform == null || customer == null || vehicle == null
+				|| !(carMechanicUser instanceof CarMechanicUser)) {
+			warnAboutSkippedAppointment(appointmentId);
+			return;
+		}
+		WorkingAppointment workingAppointment = new WorkingAppointment(appointmentId, worksToPerform, customer,
+				vehicle, workingPlatform, appointmentBeginDateAndTime, (CarMechanicUser) carMechanicUser);
+		workingAppointment.setStatus(WorkingAppointmentStatus.valueOf(status));
+		if (archived) {
+			removeRestoredAppointment(appointmentId);
+			PlannerService.getInstance(location)
+					.restoreArchivedWorkingAppointment(workingAppointment);
+		} else {
+			replaceAppointment(location, workingAppointment);
+		}
+	}
+
+	private void restoreConsultingAppointment(DataInputStream record) throws IOException {
+		String appointmentId = readString(record);
+		LocalDateTime appointmentBeginDateAndTime = readDateTime(record);
+		Customer customer = restoredCustomers.get(readString(record));
+		int consultingAppointmentDuration = record.readInt();
+		User clientAdvisorUser = restoredUsers.get(readString(record));
+		String location = readLocation(record);
+		if (customer == null || !(clientAdvisorUser instanceof ClientAdvisorUser)) {
+			warnAboutSkippedAppointment(appointmentId);
+			return;
+		}
+		replaceAppointment(location, new ConsultingAppointment(appointmentId, customer, consultingAppointmentDuration,
+				appointmentBeginDateAndTime, (ClientAdvisorUser) clientAdvisorUser));
+	}
+
+	private void restoreCleaningAppointment(DataInputStream record) throws IOException {
+		String appointmentId = readString(record);
+		LocalDateTime appointmentBeginDateAndTime = readDateTime(record);
+		CleaningAppointmentType cleaningAppointmentType = CleaningAppointmentType.valueOf(readString(record)
+				.toUpperCase());
+		WorkingPlatform workingPlatform = restoredWorkingPlatforms.get(readString(record));
+		User dispatcherUser = restoredUsers.get(readString(record));
+		String location = readLocation(record);
+		if (workingPlatform == null || !(dispatcherUser instanceof DispatcherUser)) {
+			warnAboutSkippedAppointment(appointmentId);
+			return;
+		}
+		replaceAppointment(location, new CleaningAppointment(appointmentId, cleaningAppointmentType, workingPlatform,
+				appointmentBeginDateAndTime, (DispatcherUser) dispatcherUser));
+	}
+
+	private void replaceAppointment(String location, Appointment restoredAppointment) {
+		removeRestoredAppointment(restoredAppointment.getAppointmentId());
+		PlannerService.getInstance(location)
+				.getPlanningCalendarData()
+				.addAppointmentToPlanningCalendar(restoredAppointment);
+	}
+
+	// the IDs of the appointments are unique over all locations
+	private void removeRestoredAppointment(String appointmentId) {
+		for (PlannerService plannerService : PlannerService.getAllInstances()) {
+			PlanningCalendarData planningCalendarData = plannerService.getPlanningCalendarData();
+			planningCalendarData.getAppointmentById(appointmentId)
+					.ifPresent(appointment -> planningCalendarData.removeAppointmentFromAppointmentData(appointment));
+		}
+	}
+
+	private static String readLocation(DataInputStream record) throws IOException {
+		if (record.available() == 0) {
+			return PlannerService.DEFAULT_LOCATION;
+		}
+		return readString(record);
+	}
+
+	private static void warnAboutSkippedAppointment(String appointmentId) {
+		System.err.println("WARNING: The appointment " + appointmentId
+				+ " references an object which was not found in the journal. The appointment was skipped.");
+	}
+
+	private static void writeString(DataOutputStream record, String value) throws IOException {
+		record.writeBoolean(value != null);
+		if (value != null) {
+			record.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream record) throws IOException {
+		return record.readBoolean() ? record.readUTF() : null;
+	}
+
+	private static void writeDateTime(DataOutputStream record, LocalDateTime value) throws IOException {
+		record.writeBoolean(value != null);
+		if (value != null) {
+			record.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+			record.writeInt(value.getNano());
+		}
+	}
+
+	private static LocalDateTime readDateTime(DataInputStream record) throws IOException {
+		if (!record.readBoolean()) {
+			return null;
+		}
+		long epochSecond = record.readLong();
+		return LocalDateTime.ofEpochSecond(epochSecond, record.readInt(), ZoneOffset.UTC);
+	}
+}
@@ -1,15 +1,36 @@
 package de.hs_kl.staab.planner.services;
 
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoField;
-import java.time.temporal.ChronoUnit;
+import java.time.temporal.WeekFields;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -22,52 +43,174 @@ import de.hs_kl.staab.planner.ClientAdvisorUser;
 import de.hs_kl.staab.planner.ConsultingAppointment;
 import de.hs_kl.staab.planner.Customer;
 import de.hs_kl.staab.planner.DispatcherUser;
+import de.hs_kl.staab.planner.EpochMinutes;
 import de.hs_kl.staab.planner.User;
 import de.hs_kl.staab.planner.Vehicle;
 import de.hs_kl.staab.planner.Work;
 import de.hs_kl.staab.planner.WorkingAppointment;
 import de.hs_kl.staab.planner.WorkingAppointmentStatus;
 import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.data.AppointmentArchive;
+import de.hs_kl.staab.planner.data.AppointmentTimeline;
+import de.hs_kl.staab.planner.data.CalendarChange;
 import de.hs_kl.staab.planner.data.PlanningCalendarData;
+import de.hs_kl.staab.planner.data.PlanningCalendarData.FreeSlot;
+import de.hs_kl.staab.planner.services.PersistenceService.StateChange;
 
 /**
- * Verwaltet den Planungskalender
+ * Verwaltet den Planungskalender eines Standorts (einer Werkstatt). Jeder
+ * Standort hat seinen eigenen Kalender mit eigenen Indizes und Sperren, so
+ * warten Buchungen an einem Standort nie auf die eines anderen. Kunden,
+ * Fahrzeuge und Arbeiten gelten für alle Standorte. Arbeitsbühnen und Benutzer
+ * gehören zu genau einem Standort und werden nur von dessen Planer eingeplant,
+ * da Überschneidungen nur innerhalb eines Standorts geprüft werden.
  */
-
 public class PlannerService {
 
-	private static PlannerService PLANNER_SERVICE;
-	private final static PlanningCalendarData PLANNING_CALENDAR_DATA = new PlanningCalendarData();
+	public static final String DEFAULT_LOCATION = "default";
+
+	// one planner per location, each with its own calendar and locks
+	private final static Map<String, PlannerService> PLANNER_SERVICES = new ConcurrentHashMap<>();
+	private final static PersistenceService PERSISTENCE_SERVICE = PersistenceService.getInstance();
 	private final static CustomerService CUSTOMER_Service = CustomerService.getInstance();
 	private final static WorkingPlatformService PLATFORM_SERVICE = WorkingPlatformService.getInstance();
 	private final static VehicleService VEHICLE_SERVICE = VehicleService.getInstance();
 	private final static WorkService WORK_SERVICE = WorkService.getInstance();
 	private final static UserService USER_SERVICE = UserService.getInstance();
 
+	// another thread may book a found date before us, but not forever
+	private final static int MAX_NUMBER_OF_SEARCHES_FOR_EARLIEST_DATE = 5;
+	private final static int MAX_NUMBER_OF_DAYS_TO_RESCHEDULE = 31;
+	// about eleven years of hours, every resource keeps one int per bucket
+	private final static int MAX_NUMBER_OF_UTILIZATION_BUCKETS = 100_000;
+
+	private final String location;
+	private final PlanningCalendarData planningCalendarData = new PlanningCalendarData();
+	private volatile AppointmentArchive appointmentArchive;
+
+	private ScheduledExecutorService archivingExecutor;
+	private ScheduledFuture<?> scheduledArchiving;
+
 	/**
-	 * Singleton-Pattern: Der Konstruktor kann nicht aufgerufen werden, sondern
-	 * {@link #getInstance()} muss aufgerufen werden. So kann sichergestellt werden,
-	 * dass nur eine einzige Instanz dieser Klasse erstellt wird.
+	 * Singleton-Pattern je Standort: Der Konstruktor kann nicht aufgerufen werden,
+	 * sondern {@link #getInstance(String)} muss aufgerufen werden. So kann
+	 * sichergestellt werden, dass es für jeden Standort nur eine Instanz gibt.
 	 */
 
-	public PlannerService() {
+	private PlannerService(String location) {
+		this.location = location;
 	}
 
 	/**
 	 * Teil des Singleton-Patterns
 	 * 
-	 * @return Die einzige Instanz des PlannerService.
+	 * @return Die Instanz des PlannerService für den Standort
+	 *         {@link #DEFAULT_LOCATION}.
 	 */
 	public static PlannerService getInstance() {
-		if (PLANNER_SERVICE == null) {
-			PLANNER_SERVICE = new PlannerService();
+		return getInstance(DEFAULT_LOCATION);
+	}
+
+	/**
+	 * Teil des Singleton-Patterns
+	 * 
+	 * @return Die einzige Instanz des PlannerService für den Standort, beim ersten
+	 *         Aufruf wird sie mit einem leeren Kalender angelegt.
+	 */
+	public static PlannerService getInstance(String location) {
+		return PLANNER_SERVICES.computeIfAbsent(location, PlannerService::new);
+	}
+
+	/**
+	 * @return - the locations which have a planner, including the ones only
+	 *         restored from the journal
+	 */
+	public static Set<String> getLocations() {
+		return Collections.unmodifiableSet(PLANNER_SERVICES.keySet());
+	}
+
+	static Collection<PlannerService> getAllInstances() {
+		return Collections.unmodifiableCollection(PLANNER_SERVICES.values());
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	PlanningCalendarData getPlanningCalendarData() {
+		return planningCalendarData;
+	}
+
+	/**
+	 * @return - the archive of old working appointments or null, if nothing was
+	 *         archived yet
+	 */
+	AppointmentArchive getAppointmentArchive() {
+		return appointmentArchive;
+	}
+
+	/**
+	 * The archive is stored in the archive directory of the
+	 * {@link PersistenceService}, in a file named after the location.
+	 */
+	private synchronized AppointmentArchive getOrCreateAppointmentArchive() throws IOException {
+		if (appointmentArchive == null) {
+			Path archiveDirectory = PERSISTENCE_SERVICE.getArchiveDirectory();
+			if (archiveDirectory == null) {
+				throw new IllegalStateException("ERROR: Working appointments can only be archived with persistence.");
+			}
+			Files.createDirectories(archiveDirectory);
+			appointmentArchive = new AppointmentArchive(
+					archiveDirectory.resolve(URLEncoder.encode(location, StandardCharsets.UTF_8) + ".col"));
+		}
+		return appointmentArchive;
+	}
 
+	/**
+	 * Archives a working appointment read from the journal, unless it is archived
+	 * already.
+	 */
+	void restoreArchivedWorkingAppointment(WorkingAppointment workingAppointment) throws IOException {
+		AppointmentArchive appointmentArchive = getOrCreateAppointmentArchive();
+		if (!appointmentArchive.isArchived(workingAppointment)) {
+			appointmentArchive.archiveWorkingAppointment(workingAppointment);
+		}
+	}
+
+	/**
+	 * Closes the archive when persistence is disabled. It is restored from the
+	 * journal when persistence is enabled again.
+	 */
+	synchronized void closeAppointmentArchive() throws IOException {
+		if (appointmentArchive != null) {
+			appointmentArchive.close();
+			appointmentArchive = null;
 		}
-		return PLANNER_SERVICE;
 	}
 
 	public Set<Appointment> getAllAppointments() {
-		return PLANNING_CALENDAR_DATA.getAllAppointments();
+		return planningCalendarData.getAllAppointments();
+	}
+
+	/**
+	 * @return - Stream of the appointments in the calendar after the given one,
+	 *         sorted by their begin and ID (see
+	 *         {@link PlanningCalendarData#getAppointmentsInOrderAfter(LocalDateTime, String)})
+	 */
+	public Stream<Appointment> getAppointmentsInOrderAfter(LocalDateTime begin, String appointmentId) {
+		return planningCalendarData.getAppointmentsInOrderAfter(begin, appointmentId);
+	}
+
+	/**
+	 * Calls the listener on every change of the planning calendar, see
+	 * {@link PlanningCalendarData#addChangeListener(Consumer)}.
+	 */
+	public void addCalendarChangeListener(Consumer<CalendarChange> listener) {
+		planningCalendarData.addChangeListener(listener);
+	}
+
+	public void removeCalendarChangeListener(Consumer<CalendarChange> listener) {
+		planningCalendarData.removeChangeListener(listener);
 	}
 
 	public void printAppointmentsDetailedFor(Set<Appointment> appointments) {
@@ -75,40 +218,30 @@ public class PlannerService {
 	}
 
 	public void printAllAppointmentsDetailed() {
-		this.printAppointmentsDetailedFor(PLANNING_CALENDAR_DATA.getAllAppointments());
+		this.printAppointmentsDetailedFor(planningCalendarData.getAllAppointments());
 	}
 
+	/**
+	 * @return - read-only view of all working appointments, not a copy, so it
+	 *         shows later changes of the calendar
+	 */
 	public Set<WorkingAppointment> getAllWorkingAppointments() {
-		Set<Appointment> allAppointments = PLANNING_CALENDAR_DATA.getAllAppointments();
-		Set<WorkingAppointment> allWorkingAppointments = new HashSet<>();
-		for (Appointment appointment : allAppointments) {
-			if (appointment instanceof WorkingAppointment) {
-				allWorkingAppointments.add((WorkingAppointment) appointment);
-			}
-		}
-		return allWorkingAppointments;
+		return planningCalendarData.getAllWorkingAppointments();
 	}
 
 	public Set<ConsultingAppointment> getAllConsultingAppointments() {
-		Set<Appointment> allAppointments = PLANNING_CALENDAR_DATA.getAllAppointments();
-		Set<ConsultingAppointment> allConsultingAppointments = new HashSet<>();
-		for (Appointment appointment : allAppointments) {
-			if (appointment instanceof ConsultingAppointment) {
-				allConsultingAppointments.add((ConsultingAppointment) appointment);
-			}
-		}
-		return allConsultingAppointments;
+		return planningCalendarData.getAllConsultingAppointments();
 	}
 
 	public Set<CleaningAppointment> getAllCleaningAppointments() {
-		Set<Appointment> allAppointments = PLANNING_CALENDAR_DATA.getAllAppointments();
-		Set<CleaningAppointment> allCleaningAppointments = new HashSet<>();
-		for (Appointment appointment : allAppointments) {
-			if (appointment instanceof CleaningAppointment) {
-				allCleaningAppointments.add((CleaningAppointment) appointment);
-			}
-		}
-		return allCleaningAppointments;
+		return planningCalendarData.getAllCleaningAppointments();
+	}
+
+	/**
+	 * @return - read-only view of all working appointments with the given status
+	 */
+	public Set<WorkingAppointment> getWorkingAppointmentsWithStatus(WorkingAppointmentStatus status) {
+		return planningCalendarData.getWorkingAppointmentsWithStatus(status);
 	}
 
 	/**
@@ -116,169 +249,380 @@ public class PlannerService {
 	 * 
 	 * This method intercepts that appointments overlap and its purpose is to check
 	 * if a given working appointment is available. If check fails, the method
-	 * returns a negative value of boolean and prints an ERORR message.
+	 * returns a conflict with the overlapping appointment.
 	 * 
 	 * 
 	 * 
-	 * @param desiredWorksToPerform               - A set<Work> of works to perform
 	 * @param desiredWorkingPlatform              - Desired working platform of
 	 *                                            WorkingPlatform
-	 * @param beginOfNewDesiredWorkingAppointment - LocalDateTime value of begin of
+	 * @param beginOfNewDesiredWorkingAppointment - epoch minute of begin of
+	 *                                            desired working appointment
+	 * @param endOfNewDesiredWorkingAppointment   - epoch minute of end of
 	 *                                            desired working appointment
 	 * @param desiredResponsibleCarMechanicUser   - A username of CarMechanicUser
 	 *                                            performing the work
+	 * @param appointmentToUpdate                 - the appointment moved to the
+	 *                                            desired place, or null for a
+	 *                                            new appointment
 	 * 
-	 * @return - Boolean value if working appointment is available
+	 * @return - accepted Outcome if working appointment is available
 	 */
-	private boolean checkIfWorkingAppointmentIsAvailable(Set<Work> desiredWorksToPerform,
-			WorkingPlatform desiredWorkingPlatform, LocalDateTime beginOfNewDesiredWorkingAppointment,
-			CarMechanicUser desiredResponsibleCarMechanicUser) {
-		boolean workingAppointmentIsAvailable = true;
-		int durationOfAllWorks = 0;
-		for (Work work : desiredWorksToPerform) {
-			durationOfAllWorks += work.getWorkDuration();
-		}
-		LocalDateTime endOfNewDesiredWorkingAppointment = beginOfNewDesiredWorkingAppointment
-				.plusMinutes(durationOfAllWorks);
-		Set<WorkingAppointment> allWorkingAppointments = this.getAllWorkingAppointments();
-		LocalDateTime beginOfExistingAppointment;
-		LocalDateTime endOfExistingAppointment;
-		CarMechanicUser responsibleCarMechanicUserOfExistingWorkingAppointment;
-		WorkingPlatform workingPlatformOfExistingAppointment;
-
-		for (WorkingAppointment workingAppointment : allWorkingAppointments) {
-			beginOfExistingAppointment = workingAppointment.getAppointmentBeginDateAndTime();
-			endOfExistingAppointment = workingAppointment.getAppointmentEndDateAndTime();
-			responsibleCarMechanicUserOfExistingWorkingAppointment = workingAppointment.getResponsibleCarMechanicUser();
-			workingPlatformOfExistingAppointment = workingAppointment.getWorkingPlatformRelatedToWorkingAppointment();
-			if ((beginOfNewDesiredWorkingAppointment.isEqual(beginOfExistingAppointment)
-					|| beginOfNewDesiredWorkingAppointment.isAfter(beginOfExistingAppointment))
-					&& beginOfNewDesiredWorkingAppointment.isBefore(endOfExistingAppointment)
-					&& (desiredResponsibleCarMechanicUser.equals(responsibleCarMechanicUserOfExistingWorkingAppointment)
-							|| desiredWorkingPlatform.equals(workingPlatformOfExistingAppointment))) {
-				workingAppointmentIsAvailable = false;
-				System.err.println(
-						"ERROR: New working appointment consolidates (beginning) with another one either with the same car mechanic or the same working platform or both of them. Please check the calendar of all appointments.");
-				break;
-			} else if (endOfNewDesiredWorkingAppointment.isAfter(beginOfExistingAppointment)
-					&& (endOfNewDesiredWorkingAppointment.isBefore(endOfExistingAppointment)
-							|| endOfNewDesiredWorkingAppointment.isEqual(endOfExistingAppointment))
-					&& (desiredResponsibleCarMechanicUser.equals(responsibleCarMechanicUserOfExistingWorkingAppointment)
-							|| desiredWorkingPlatform.equals(workingPlatformOfExistingAppointment))) {
-				workingAppointmentIsAvailable = false;
-				System.err.println(
-						"ERROR: New working appointment consolidates (ends) with another one either with the same car mechanic or the same working platform or both of them. Please check the calendar of all appointments.");
-				break;
-			}
+	private Outcome<Void> checkIfWorkingAppointmentIsAvailable(WorkingPlatform desiredWorkingPlatform,
+			long beginOfNewDesiredWorkingAppointment, long endOfNewDesiredWorkingAppointment,
+			CarMechanicUser desiredResponsibleCarMechanicUser, Appointment appointmentToUpdate) {
+		// Check if car mechanic is already occupied
+		Appointment overlappingAppointmentOfUser = getFirstOverlappingAppointmentExcept(appointmentToUpdate,
+				planningCalendarData.getAppointmentsOfUserOverlapping(desiredResponsibleCarMechanicUser,
+						beginOfNewDesiredWorkingAppointment, endOfNewDesiredWorkingAppointment));
+		if (overlappingAppointmentOfUser != null) {
+			return conflictOfWorkingAppointmentWithCarMechanic(beginOfNewDesiredWorkingAppointment,
+					overlappingAppointmentOfUser);
 		}
-		// Check if working platform is already occupied for cleaning appointments
-		if (!workingAppointmentIsAvailable) {
-			Set<CleaningAppointment> allCleaningAppointments = this.getAllCleaningAppointments();
-			for (CleaningAppointment cleaningAppointment : allCleaningAppointments) {
-				beginOfExistingAppointment = cleaningAppointment.getAppointmentBeginDateAndTime();
-				endOfExistingAppointment = cleaningAppointment.getAppointmentEndDateAndTime();
-				workingPlatformOfExistingAppointment = cleaningAppointment
-						.getWorkingPlatformRelatedToCleaningAppointment();
-				if ((beginOfNewDesiredWorkingAppointment.isAfter(beginOfExistingAppointment)
-						|| beginOfNewDesiredWorkingAppointment.isEqual(beginOfExistingAppointment))
-						&& beginOfNewDesiredWorkingAppointment.isBefore(endOfExistingAppointment)
-						&& desiredWorkingPlatform.equals(workingPlatformOfExistingAppointment)) {
-					workingAppointmentIsAvailable = false;
-					System.err.println(
-							"ERROR: New working appointment consolidates (beginning) with a cleaning appointment, that occupies the same working platform. Please check the calendar of all appointments.");
-					break;
-				} else if (endOfNewDesiredWorkingAppointment.isAfter(beginOfExistingAppointment)
-						&& (endOfNewDesiredWorkingAppointment.isBefore(endOfExistingAppointment)
-								|| endOfNewDesiredWorkingAppointment.isEqual(endOfExistingAppointment))
-						&& desiredWorkingPlatform.equals(workingPlatformOfExistingAppointment)) {
-					workingAppointmentIsAvailable = false;
-					System.err.println(
-							"ERROR: New working appointment consolidates (end) with a cleaning appointment, that occupies the same working platform. Please check the calendar of all appointments.");
-					break;
-				}
+		// Check if working platform is already occupied for working or cleaning
+		// appointments
+		Appointment overlappingAppointmentOnWorkingPlatform = getFirstOverlappingAppointmentExcept(
+				appointmentToUpdate, planningCalendarData.getAppointmentsOnWorkingPlatformOverlapping(
+						desiredWorkingPlatform, beginOfNewDesiredWorkingAppointment, endOfNewDesiredWorkingAppointment));
+		if (overlappingAppointmentOnWorkingPlatform != null) {
+			return conflictOfWorkingAppointmentOnWorkingPlatform(beginOfNewDesiredWorkingAppointment,
+					overlappingAppointmentOnWorkingPlatform);
+		}
+		return Outcome.accepted(null);
+	}
+
+	/**
+	 * An appointment that is updated still occupies its old place while the new
+	 * one is checked, so it must not conflict with itself.
+	 * 
+	 * @param appointmentToUpdate     - appointment to skip, or null
+	 * @param overlappingAppointments - result of an overlap query of the
+	 *                                planning calendar
+	 * @return - the first overlapping appointment other than appointmentToUpdate,
+	 *         or null if there is none
+	 */
+	private static Appointment getFirstOverlappingAppointmentExcept(Appointment appointmentToUpdate,
+			List<Appointment> overlappingAppointments) {
+		for (Appointment overlappingAppointment : overlappingAppointments) {
+			if (overlappingAppointment != appointmentToUpdate) {
+				return overlappingAppointment;
 			}
 		}
-		return workingAppointmentIsAvailable;
+		return null;
+	}
+
+	private static <T> Outcome<T> conflictOfWorkingAppointmentWithCarMechanic(long beginOfNewAppointment,
+			Appointment overlappingAppointment) {
+		return Outcome.conflict(overlappingAppointment,
+				"New working appointment consolidates (%s) with another one with the same car mechanic. Please check the calendar of all appointments.",
+				getOverlappingPartOf(beginOfNewAppointment, overlappingAppointment));
+	}
+
+	private static <T> Outcome<T> conflictOfWorkingAppointmentOnWorkingPlatform(long beginOfNewAppointment,
+			Appointment overlappingAppointment) {
+		if (overlappingAppointment instanceof CleaningAppointment) {
+			return Outcome.conflict(overlappingAppointment,
+					"New working appointment consolidates (%s) with a cleaning appointment, that occupies the same working platform. Please check the calendar of all appointments.",
+					getOverlappingPartOf(beginOfNewAppointment, overlappingAppointment));
+		}
+		return Outcome.conflict(overlappingAppointment,
+				"New working appointment consolidates (%s) with another one on the same working platform. Please check the calendar of all appointments.",
+				getOverlappingPartOf(beginOfNewAppointment, overlappingAppointment));
+	}
 
+	/**
+	 * Returns which part of a new appointment overlaps the given existing one:
+	 * "beginning" if the new appointment begins during the existing one, "end"
+	 * otherwise.
+	 */
+	private static String getOverlappingPartOf(long beginOfNewAppointment, Appointment existingAppointment) {
+		if (beginOfNewAppointment < existingAppointment.getAppointmentBeginEpochMinute()) {
+			return "end";
+		}
+		return "beginning";
 	}
 
-	public void createAndAddNewWorkingAppointment(Set<String> idsOfworksToPerform,
+	public Outcome<WorkingAppointment> createAndAddNewWorkingAppointment(Set<String> idsOfworksToPerform,
 			String customerIdRelatedToWorkingAppointment, String vehicleLicensePlateOfVehicleToWorkOn,
 			String workingPlatformIdRelatedToWorkingAppointment, LocalDateTime appointmentBeginDateAndTime,
 			String usernameOfResponsibleCarMechanic) {
-		Optional<WorkingPlatform> optionalWorkingPlatformRelatedToAppointment = PLATFORM_SERVICE
-				.getWorkingPlatformById(workingPlatformIdRelatedToWorkingAppointment);
-		if (optionalWorkingPlatformRelatedToAppointment.isPresent()) {
-			WorkingPlatform workingPlatformRelatedToAppointment = optionalWorkingPlatformRelatedToAppointment.get();
-			Optional<Customer> optionalCustomerRelatedToAppointment = CUSTOMER_Service
-					.getCustomerById(customerIdRelatedToWorkingAppointment);
-			if (optionalCustomerRelatedToAppointment.isPresent()) {
-				Customer customerRelatedToAppointment = optionalCustomerRelatedToAppointment.get();
-				Optional<Vehicle> optionalVehicleRelatedToAppointment = VEHICLE_SERVICE
-						.getVehicleByLicensePlate(vehicleLicensePlateOfVehicleToWorkOn);
-				if (optionalVehicleRelatedToAppointment.isPresent()) {
-					Vehicle vehicleRelatedToAppointment = optionalVehicleRelatedToAppointment.get();
-					if (customerRelatedToAppointment.getVehiclesOfCustomer()
-							.contains(vehicleRelatedToAppointment)) {
-						Set<Work> worksToPerform = new HashSet<>();
-						boolean workInWorkSetIncorrect = false;
-						Optional<Work> optionalWorkToPerform;
-						for (String string : idsOfworksToPerform) {
-							optionalWorkToPerform = WORK_SERVICE.getWorkById(string);
-							if (optionalWorkToPerform.isPresent()) {
-								worksToPerform.add(optionalWorkToPerform.get());
-							} else {
-								System.err.println("ERROR: A work with the ID(" + string
-										+ ") of your set of works doesn´t exist. Working appointment NOT created!");
-								workInWorkSetIncorrect = true;
-								break;
-							}
-						}
-						if (!workInWorkSetIncorrect) {
-							Optional<User> optionalResponsibleCarMechanicUser = USER_SERVICE
-									.getUserByUsername(usernameOfResponsibleCarMechanic);
-							if (optionalResponsibleCarMechanicUser.isPresent()) {
-								if (optionalResponsibleCarMechanicUser.get() instanceof CarMechanicUser) {
-									CarMechanicUser responsibleCarMechanicUser = (CarMechanicUser) optionalResponsibleCarMechanicUser
-											.get();
-									if (checkIfWorkingAppointmentIsAvailable(worksToPerform,
-											workingPlatformRelatedToAppointment, appointmentBeginDateAndTime,
-											responsibleCarMechanicUser)) {
-										PLANNING_CALENDAR_DATA.addAppointmentToPlanningCalendar(new WorkingAppointment(
-												worksToPerform, customerRelatedToAppointment,
-												vehicleRelatedToAppointment, workingPlatformRelatedToAppointment,
-												appointmentBeginDateAndTime, responsibleCarMechanicUser));
-									}
-								} else {
-									System.err.println("ERROR: User with the username "
-											+ usernameOfResponsibleCarMechanic
-											+ " isn´t a CarMechanic, please choose a username realted to a CarMechanic.");
-								}
-							} else {
-								System.err.println("ERROR: User with the username " + usernameOfResponsibleCarMechanic
-										+ " does not exist.");
-							}
+		Outcome<PendingWorkingAppointment> resolvedWorkingAppointment = PendingWorkingAppointment.resolve(location, 0,
+				new WorkingAppointmentRequest(idsOfworksToPerform, customerIdRelatedToWorkingAppointment,
+						vehicleLicensePlateOfVehicleToWorkOn, workingPlatformIdRelatedToWorkingAppointment,
+						appointmentBeginDateAndTime, usernameOfResponsibleCarMechanic));
+		if (!resolvedWorkingAppointment.isAccepted()) {
+			return resolvedWorkingAppointment.asRejection();
+		}
+		PendingWorkingAppointment pending = resolvedWorkingAppointment.getResult()
+				.get();
+		// check and add atomically, so nobody else can book the platform or the car
+		// mechanic in between
+		try (StateChange stateChange = PERSISTENCE_SERVICE
+				.beginStateChange(planningCalendarData.lockResources(pending.workingPlatform, pending.carMechanic))) {
+			Outcome<Void> availability = checkIfWorkingAppointmentIsAvailable(pending.workingPlatform,
+					pending.beginEpochMinute, pending.beginEpochMinute + pending.durationInMinutes,
+					pending.carMechanic, null);
+			if (!availability.isAccepted()) {
+				return availability.asRejection();
+			}
+			WorkingAppointment newWorkingAppointment = new WorkingAppointment(pending.worksToPerform,
+					pending.customer, pending.vehicle, pending.workingPlatform, appointmentBeginDateAndTime,
+					pending.carMechanic);
+			planningCalendarData.addAppointmentToPlanningCalendar(newWorkingAppointment);
+			stateChange.journalAppointment(location, newWorkingAppointment);
+			return Outcome.accepted(newWorkingAppointment);
+		}
+	}
 
-						}
+	/**
+	 * Books a working appointment with the given works at the earliest date, at
+	 * which any working platform and any car mechanic of this location are free
+	 * together for the duration of all works (see
+	 * {@link PlanningCalendarData#findEarliestFreeSlot(List, List, long, long, long)}).
+	 * If several are free at that date, the working platform with the smallest ID
+	 * and the car mechanic with the smallest username are chosen. If another
+	 * thread books the found date first, the search is repeated a few times.
+	 * 
+	 * @param earliestBegin - no date before this, null for now
+	 * @param latestEnd     - no appointment ending after this, null for no limit
+	 * @return - the booked working appointment, or why none was booked; a
+	 *         conflict without conflicting appointment, if there is no free date
+	 */
+	public Outcome<WorkingAppointment> createAndAddWorkingAppointmentAtEarliestDate(Set<String> idsOfworksToPerform,
+			String customerIdRelatedToWorkingAppointment, String vehicleLicensePlateOfVehicleToWorkOn,
+			LocalDateTime earliestBegin, LocalDateTime latestEnd) {
+		List<WorkingPlatform> workingPlatforms = new ArrayList<>(
+				PLATFORM_SERVICE.getWorkingPlatformsOfLocation(location));
+		workingPlatforms.sort(Comparator.comparing(WorkingPlatform::getWorkingPlatformId));
+		List<CarMechanicUser> carMechanics = new ArrayList<>(getCarMechanicUsersOfThisLocation());
+		carMechanics.sort(Comparator.comparing(CarMechanicUser::getUsername));
+		if (workingPlatforms.isEmpty() || carMechanics.isEmpty()) {
+			return Outcome.notFound(
+					"There is no working platform or no car mechanic at this location. Working appointment NOT created!");
+		}
+		long earliestBeginOfSlot = getEarliestBeginOfSlots(earliestBegin);
+		long latestEndOfSlot = getLatestEndOfSlots(latestEnd);
+		// resolved with the first candidates only to check the customer, the vehicle
+		// and the works before searching
+		Outcome<PendingWorkingAppointment> resolvedWorkingAppointment = PendingWorkingAppointment.resolve(location, 0,
+				new WorkingAppointmentRequest(idsOfworksToPerform, customerIdRelatedToWorkingAppointment,
+						vehicleLicensePlateOfVehicleToWorkOn, workingPlatforms.get(0)
+								.getWorkingPlatformId(),
+						EpochMinutes.toLocalDateTime(earliestBeginOfSlot), carMechanics.get(0)
+								.getUsername()));
+		if (!resolvedWorkingAppointment.isAccepted()) {
+			return resolvedWorkingAppointment.asRejection();
+		}
+		int durationInMinutes = resolvedWorkingAppointment.getResult()
+				.get().durationInMinutes;
+		if (durationInMinutes <= 0) {
+			return Outcome.invalid("The set of works to perform is empty. Working appointment NOT created!");
+		}
+		Outcome<WorkingAppointment> booking = null;
+		for (int attempt = 0; attempt < MAX_NUMBER_OF_SEARCHES_FOR_EARLIEST_DATE; attempt++) {
+			Optional<FreeSlot<CarMechanicUser>> optionalFreeSlot = planningCalendarData.findEarliestFreeSlot(
+					workingPlatforms, carMechanics, durationInMinutes, earliestBeginOfSlot, latestEndOfSlot);
+			if (!optionalFreeSlot.isPresent()) {
+				return Outcome.conflict(null,
+						"No working platform and car mechanic are free together for %d minutes in the given time span. Working appointment NOT created!",
+						durationInMinutes);
+			}
+			FreeSlot<CarMechanicUser> freeSlot = optionalFreeSlot.get();
+			booking = createAndAddNewWorkingAppointment(idsOfworksToPerform, customerIdRelatedToWorkingAppointment,
+					vehicleLicensePlateOfVehicleToWorkOn, freeSlot.getWorkingPlatform()
+							.getWorkingPlatformId(),
+					EpochMinutes.toLocalDateTime(freeSlot.getBegin()), freeSlot.getUser()
+							.getUsername());
+			if (booking.getKind() != Outcome.Kind.CONFLICT) {
+				return booking;
+			}
+		}
+		return booking;
+	}
 
-					} else {
-						System.err.println("ERROR: The vehicle exists, but it does not belong to the customer(ID: "
-								+ customerIdRelatedToWorkingAppointment + "). Working appointment NOT created!");
-					}
+	/**
+	 * Books a whole batch of working appointments at once (e.g. an import) and
+	 * reports for every request whether it was booked or why not. Nothing is
+	 * printed.
+	 * 
+	 * The requests are sorted by their begin and checked in one pass along the
+	 * time line of every affected working platform and car mechanic (see
+	 * {@link AppointmentTimeline.Sweep}), against the calendar and against the
+	 * requests booked before in the same batch. So if two requests of the batch
+	 * conflict, the one beginning earlier wins, with the same begin the one coming
+	 * first in the batch. All affected resources stay locked during the whole
+	 * batch.
+	 * 
+	 * @param requests - the working appointments to book, in any order
+	 * @return - List of the results in the order of the requests
+	 */
+	public List<BookingResult> bookWorkingAppointments(List<WorkingAppointmentRequest> requests) {
+		BookingResult[] results = new BookingResult[requests.size()];
+		List<PendingWorkingAppointment> pendingWorkingAppointments = new ArrayList<>(requests.size());
+		Set<Object> affectedResources = new LinkedHashSet<>();
+		for (int index = 0; index < requests.size(); index++) {
+			WorkingAppointmentRequest request = requests.get(index);
+			Outcome<PendingWorkingAppointment> resolvedWorkingAppointment = PendingWorkingAppointment.resolve(location,
+					index, request);
+			if (resolvedWorkingAppointment.isAccepted()) {
+				PendingWorkingAppointment pendingWorkingAppointment = resolvedWorkingAppointment.getResult()
+						.get();
+				pendingWorkingAppointments.add(pendingWorkingAppointment);
+				affectedResources.add(pendingWorkingAppointment.workingPlatform);
+				affectedResources.add(pendingWorkingAppointment.carMechanic);
+			} else {
+				results[index] = new BookingResult(request, resolvedWorkingAppointment.asRejection());
+			}
+		}
+		pendingWorkingAppointments.sort(Comparator
+				.comparingLong((PendingWorkingAppointment pending) -> pending.beginEpochMinute)
+				.thenComparingInt(pending -> pending.index));
+
+		try (StateChange stateChange = PERSISTENCE_SERVICE
+				.beginStateChange(planningCalendarData.lockResources(affectedResources.toArray()))) {
+			Map<WorkingPlatform, AppointmentTimeline.Sweep> sweepsOnWorkingPlatforms = new HashMap<>();
+			Map<User, AppointmentTimeline.Sweep> sweepsOfCarMechanics = new HashMap<>();
+			List<WorkingAppointment> bookedWorkingAppointments = new ArrayList<>();
+			for (PendingWorkingAppointment pending : pendingWorkingAppointments) {
+				long begin = pending.beginEpochMinute;
+				long end = begin + pending.durationInMinutes;
+				AppointmentTimeline.Sweep sweepOfCarMechanic = sweepsOfCarMechanics.computeIfAbsent(pending.carMechanic,
+						planningCalendarData::startSweepOfUser);
+				AppointmentTimeline.Sweep sweepOnWorkingPlatform = sweepsOnWorkingPlatforms.computeIfAbsent(
+						pending.workingPlatform, planningCalendarData::startSweepOnWorkingPlatform);
+
+				Appointment conflictingAppointment = sweepOfCarMechanic.getConflictWith(begin, end);
+				if (conflictingAppointment != null) {
+					results[pending.index] = new BookingResult(pending.request,
+							conflictOfWorkingAppointmentWithCarMechanic(begin, conflictingAppointment));
+					continue;
+				}
+				conflictingAppointment = sweepOnWorkingPlatform.getConflictWith(begin, end);
+				if (conflictingAppointment != null) {
+					results[pending.index] = new BookingResult(pending.request,
+							conflictOfWorkingAppointmentOnWorkingPlatform(begin, conflictingAppointment));
+					continue;
+				}
+				WorkingAppointment newWorkingAppointment = new WorkingAppointment(pending.worksToPerform,
+						pending.customer, pending.vehicle, pending.workingPlatform,
+						pending.request.getAppointmentBeginDateAndTime(), pending.carMechanic);
+				sweepOfCarMechanic.occupy(newWorkingAppointment);
+				sweepOnWorkingPlatform.occupy(newWorkingAppointment);
+				bookedWorkingAppointments.add(newWorkingAppointment);
+				results[pending.index] = new BookingResult(pending.request, Outcome.accepted(newWorkingAppointment));
+			}
+			// the sweeps must not see their own bookings, so they are added at the end
+			for (WorkingAppointment bookedWorkingAppointment : bookedWorkingAppointments) {
+				planningCalendarData.addAppointmentToPlanningCalendar(bookedWorkingAppointment);
+				stateChange.journalAppointment(location, bookedWorkingAppointment);
+			}
+		}
+		return Collections.unmodifiableList(Arrays.asList(results));
+	}
 
-				} else {
-					System.err.println(
-							"ERROR: The vehicle with the license plate: " + vehicleLicensePlateOfVehicleToWorkOn
-									+ " does not exist. Working appointment NOT created!");
+	/**
+	 * A {@link WorkingAppointmentRequest} with all references resolved, not yet
+	 * checked for conflicts.
+	 */
+	private static class PendingWorkingAppointment {
+
+		private final int index;
+		private final WorkingAppointmentRequest request;
+		private final long beginEpochMinute;
+		private final Set<Work> worksToPerform;
+		private final int durationInMinutes;
+		private final Customer customer;
+		private final Vehicle vehicle;
+		private final WorkingPlatform workingPlatform;
+		private final CarMechanicUser carMechanic;
+
+		private PendingWorkingAppointment(int index, WorkingAppointmentRequest request, Set<Work> worksToPerform,
+				int durationInMinutes, Customer customer, Vehicle vehicle, WorkingPlatform workingPlatform,
+				CarMechanicUser carMechanic) {
+			this.index = index;
+			this.request = request;
+			this.beginEpochMinute = EpochMinutes.of(request.getAppointmentBeginDateAndTime());
+			this.worksToPerform = worksToPerform;
+			this.durationInMinutes = durationInMinutes;
+			this.customer = customer;
+			this.vehicle = vehicle;
+			this.workingPlatform = workingPlatform;
+			this.carMechanic = carMechanic;
+		}
+
+		/**
+		 * @param location - the location booking the request, the working platform
+		 *                 and the car mechanic have to belong to it
+		 * @param index    - position of the request in its batch
+		 * @return - the resolved request, or why it can't be booked
+		 */
+		private static Outcome<PendingWorkingAppointment> resolve(String location, int index,
+				WorkingAppointmentRequest request) {
+			if (request.getAppointmentBeginDateAndTime() == null) {
+				return Outcome
+						.invalid("The begin of the working appointment is missing. Working appointment NOT created!");
+			}
+			Optional<WorkingPlatform> optionalWorkingPlatform = PLATFORM_SERVICE
+					.getWorkingPlatformById(request.getWorkingPlatformId());
+			if (!optionalWorkingPlatform.isPresent()) {
+				return Outcome.notFound(
+						"The working platform with the ID: %s does not exist. Working appointment NOT created!",
+						request.getWorkingPlatformId());
+			}
+			if (!optionalWorkingPlatform.get()
+					.getLocation()
+					.equals(location)) {
+				return workingPlatformOfAnotherLocation(optionalWorkingPlatform.get(), location);
+			}
+			Optional<Customer> optionalCustomer = CUSTOMER_Service.getCustomerById(request.getCustomerId());
+			if (!optionalCustomer.isPresent()) {
+				return Outcome.notFound("The customer with the ID: %s does not exist. Working appointment NOT created!",
+						request.getCustomerId());
+			}
+			Optional<Vehicle> optionalVehicle = VEHICLE_SERVICE
+					.getVehicleByLicensePlate(request.getVehicleLicensePlate());
+			if (!optionalVehicle.isPresent()) {
+				return Outcome.notFound(
+						"The vehicle with the license plate: %s does not exist. Working appointment NOT created!",
+						request.getVehicleLicensePlate());
+			}
+			if (!optionalCustomer.get()
+					.getVehiclesOfCustomer()
+					.contains(optionalVehicle.get())) {
+				return Outcome.invalid(
+						"The vehicle exists, but it does not belong to the customer(ID: %s). Working appointment NOT created!",
+						request.getCustomerId());
+			}
+			Set<Work> worksToPerform = new HashSet<>();
+			int durationInMinutes = 0;
+			for (String workId : request.getIdsOfWorksToPerform()) {
+				Optional<Work> optionalWork = WORK_SERVICE.getWorkById(workId);
+				if (!optionalWork.isPresent()) {
+					return Outcome.notFound(
+							"A work with the ID(%s) of your set of works doesn´t exist. Working appointment NOT created!",
+							workId);
 				}
-			} else {
-				System.err.println("ERROR: The customer with the ID: " + customerIdRelatedToWorkingAppointment
-						+ " does not exist. Working appointment NOT created!");
+				worksToPerform.add(optionalWork.get());
+				durationInMinutes += optionalWork.get()
+						.getWorkDuration();
 			}
-		} else {
-			System.err
-					.println("ERROR: The working platform with the ID: " + workingPlatformIdRelatedToWorkingAppointment
-							+ " does not exist. Working appointment NOT created!");
+			Optional<User> optionalUser = USER_SERVICE.getUserByUsername(request.getUsernameOfResponsibleCarMechanic());
+			if (!optionalUser.isPresent()) {
+				return Outcome.notFound("User with the username %s does not exist.",
+						request.getUsernameOfResponsibleCarMechanic());
+			}
+			if (!(optionalUser.get() instanceof CarMechanicUser)) {
+				return Outcome.invalid(
+						"User with the username %s isn´t a CarMechanic, please choose a username realted to a CarMechanic.",
+						request.getUsernameOfResponsibleCarMechanic());
+			}
+			if (!optionalUser.get()
+					.getLocation()
+					.equals(location)) {
+				return userOfAnotherLocation(optionalUser.get(), location);
+			}
+			return Outcome.accepted(new PendingWorkingAppointment(index, request, worksToPerform, durationInMinutes,
+					optionalCustomer.get(), optionalVehicle.get(), optionalWorkingPlatform.get(),
+					(CarMechanicUser) optionalUser.get()));
 		}
 	}
 
@@ -287,7 +631,7 @@ public class PlannerService {
 	 * 
 	 * This method intercepts that appointments overlap and its purpose is to check
 	 * if a given consulting appointment is available. If check fails, the method
-	 * returns a negative value of boolean and prints an ERORR message.
+	 * returns a conflict with the overlapping appointment.
 	 * 
 	 * 
 	 * @param consultingAppointmentDuration          - int value of appointment
@@ -296,48 +640,29 @@ public class PlannerService {
 	 *                                               beginning of the appointment
 	 * @param responsibleDesiredClientAdvisor        - a responsible client advisor
 	 *                                               of consulting appointment
+	 * @param appointmentToUpdate                    - the appointment moved to
+	 *                                               the desired place, or null
+	 *                                               for a new appointment
 	 * 
-	 * @return - Boolean value if consulting appointment is available
+	 * @return - accepted Outcome if consulting appointment is available
 	 */
-	private boolean checkIfConsultingAppointmentIsAvailable(int consultingAppointmentDuration,
-			LocalDateTime beginOfNewDesiredConsultingAppointment, ClientAdvisorUser responsibleDesiredClientAdvisor) {
-		boolean consultingAppointmentIsAvailable = true;
-		LocalDateTime endOfDesiredConsultingAppointment = beginOfNewDesiredConsultingAppointment
-				.plusMinutes(consultingAppointmentDuration);
-		Set<ConsultingAppointment> allConsultingAppointments = this.getAllConsultingAppointments();
-		LocalDateTime beginOfExistingConsultingAppointment;
-		LocalDateTime endOfExistingConsultingAppointment;
-		ClientAdvisorUser responsibleClientAdvisorOfExistingConsultingAppointment;
-		for (ConsultingAppointment consultingAppointment : allConsultingAppointments) {
-			beginOfExistingConsultingAppointment = consultingAppointment.getAppointmentBeginDateAndTime();
-			endOfExistingConsultingAppointment = consultingAppointment.getAppointmentEndDateAndTime();
-			responsibleClientAdvisorOfExistingConsultingAppointment = consultingAppointment
-					.getResponsibleClientAdvisorUser();
-			if (beginOfNewDesiredConsultingAppointment.isEqual(beginOfExistingConsultingAppointment)
-					|| (beginOfNewDesiredConsultingAppointment.isAfter(beginOfExistingConsultingAppointment))
-							&& beginOfNewDesiredConsultingAppointment.isBefore(endOfExistingConsultingAppointment)
-							&& responsibleDesiredClientAdvisor
-									.equals(responsibleClientAdvisorOfExistingConsultingAppointment)) {
-				consultingAppointmentIsAvailable = false;
-				System.err.println(
-						"ERROR: New consulting appointment with the same advisor consolidates (beginning) with another one. Please check the calendar of all appointments.");
-				break;
-			} else if (endOfDesiredConsultingAppointment.isAfter(beginOfExistingConsultingAppointment)
-					&& (endOfDesiredConsultingAppointment.isBefore(endOfExistingConsultingAppointment)
-							|| endOfDesiredConsultingAppointment.isEqual(endOfExistingConsultingAppointment))
-					&& responsibleDesiredClientAdvisor
-							.equals(responsibleClientAdvisorOfExistingConsultingAppointment)) {
-				consultingAppointmentIsAvailable = false;
-				System.err.println(
-						"ERROR: New consulting appointment with the same advisor consolidates (end) with another one. Please check the calendar of all appointments.");
-				break;
-			}
+	private Outcome<Void> checkIfConsultingAppointmentIsAvailable(int consultingAppointmentDuration,
+			LocalDateTime beginOfNewDesiredConsultingAppointment, ClientAdvisorUser responsibleDesiredClientAdvisor,
+			Appointment appointmentToUpdate) {
+		long beginOfDesiredConsultingAppointment = EpochMinutes.of(beginOfNewDesiredConsultingAppointment);
+		long endOfDesiredConsultingAppointment = beginOfDesiredConsultingAppointment + consultingAppointmentDuration;
+		Appointment overlappingAppointment = getFirstOverlappingAppointmentExcept(appointmentToUpdate,
+				planningCalendarData.getAppointmentsOfUserOverlapping(responsibleDesiredClientAdvisor,
+						beginOfDesiredConsultingAppointment, endOfDesiredConsultingAppointment));
+		if (overlappingAppointment != null) {
+			return Outcome.conflict(overlappingAppointment,
+					"New consulting appointment with the same advisor consolidates (%s) with another one. Please check the calendar of all appointments.",
+					getOverlappingPartOf(beginOfDesiredConsultingAppointment, overlappingAppointment));
 		}
-
-		return consultingAppointmentIsAvailable;
+		return Outcome.accepted(null);
 	}
 
-	public void createAndAddNewConsultingAppointment(String customerIdRelatedToAppointment,
+	public Outcome<ConsultingAppointment> createAndAddNewConsultingAppointment(String customerIdRelatedToAppointment,
 			int consultingAppointmentDuration, LocalDateTime appointmentBeginDateAndTime,
 			String usernameOfResponsibleClientAdvisor) {
 		Optional<Customer> optionalCustomerRelatedToAppointment = CUSTOMER_Service
@@ -350,24 +675,38 @@ public class PlannerService {
 				if (optionalResponsibleClientAdvisorUser.get() instanceof ClientAdvisorUser) {
 					ClientAdvisorUser responsibleClientAdvisorUser = (ClientAdvisorUser) optionalResponsibleClientAdvisorUser
 							.get();
-					if (checkIfConsultingAppointmentIsAvailable(consultingAppointmentDuration,
-							appointmentBeginDateAndTime, responsibleClientAdvisorUser)) {
-						PLANNING_CALENDAR_DATA.addAppointmentToPlanningCalendar(
-								new ConsultingAppointment(customerRelatedToAppointment, consultingAppointmentDuration,
-										appointmentBeginDateAndTime, responsibleClientAdvisorUser));
+					if (!responsibleClientAdvisorUser.getLocation()
+							.equals(location)) {
+						return userOfAnotherLocation(responsibleClientAdvisorUser, location);
+					}
+					try (StateChange stateChange = PERSISTENCE_SERVICE
+							.beginStateChange(planningCalendarData.lockResources(responsibleClientAdvisorUser))) {
+						Outcome<Void> availability = checkIfConsultingAppointmentIsAvailable(
+								consultingAppointmentDuration, appointmentBeginDateAndTime,
+								responsibleClientAdvisorUser, null);
+						if (availability.isAccepted()) {
+							ConsultingAppointment newConsultingAppointment = new ConsultingAppointment(
+									customerRelatedToAppointment, consultingAppointmentDuration,
+									appointmentBeginDateAndTime, responsibleClientAdvisorUser);
+							planningCalendarData.addAppointmentToPlanningCalendar(newConsultingAppointment);
+							stateChange.journalAppointment(location, newConsultingAppointment);
+							return Outcome.accepted(newConsultingAppointment);
+						}
+						return availability.asRejection();
 					}
 				} else {
-					System.err.println("ERROR: User with the username " + usernameOfResponsibleClientAdvisor
-							+ " isn´t a ClientAdvisor, please choose a username realted to a ClientAdvisor.");
+					return Outcome.invalid(
+							"User with the username %s isn´t a ClientAdvisor, please choose a username realted to a ClientAdvisor.",
+							usernameOfResponsibleClientAdvisor);
 				}
 			} else {
-				System.err.println(
-						"ERROR: User with the username " + usernameOfResponsibleClientAdvisor + " does not exist.");
+				return Outcome.notFound("User with the username %s does not exist.",
+						usernameOfResponsibleClientAdvisor);
 			}
 
 		} else {
-			System.err.println("ERROR: The customer with the ID: " + customerIdRelatedToAppointment
-					+ " does not exist. Consulting appointment NOT created!");
+			return Outcome.notFound("The customer with the ID: %s does not exist. Consulting appointment NOT created!",
+					customerIdRelatedToAppointment);
 		}
 	}
 
@@ -377,7 +716,7 @@ public class PlannerService {
 	 * 
 	 * This method intercepts that appointments overlap and its purpose is to check
 	 * if a given cleaning appointment is available. If check fails, the method
-	 * returns a negative value of boolean and prints an ERORR message.
+	 * returns a conflict with the overlapping appointment.
 	 * 
 	 * 
 	 * @param cleaningAppointmentType                    - ENUM of appointment type
@@ -387,157 +726,148 @@ public class PlannerService {
 	 *                                                   beginning of cleaning
 	 *                                                   appointment
 	 * @param responsibleDesiredDispatcherUser           -
-	 * @return
+	 * @param appointmentToUpdate                        - the appointment moved
+	 *                                                   to the desired place, or
+	 *                                                   null for a new
+	 *                                                   appointment
+	 * @return - accepted Outcome if cleaning appointment is available
 	 */
-	private boolean checkIfCleaningAppointmentIsAvailable(CleaningAppointmentType cleaningAppointmentType,
+	private Outcome<Void> checkIfCleaningAppointmentIsAvailable(CleaningAppointmentType cleaningAppointmentType,
 			WorkingPlatform desiredWorkingPlatformRelatedToAppointment,
-			LocalDateTime beginOfNewDesiredCleaningAppointment, DispatcherUser responsibleDesiredDispatcherUser) {
-		boolean cleaningAppointmentIsAvailable = true;
-		LocalDateTime endOfNewDesiredCleaningAppointment;
+			LocalDateTime beginOfNewDesiredCleaningAppointment, DispatcherUser responsibleDesiredDispatcherUser,
+			Appointment appointmentToUpdate) {
+		long beginOfDesiredCleaningAppointment = EpochMinutes.of(beginOfNewDesiredCleaningAppointment);
+		long endOfDesiredCleaningAppointment;
 		switch (cleaningAppointmentType) {
 		case QUICK:
-			endOfNewDesiredCleaningAppointment = beginOfNewDesiredCleaningAppointment.plusMinutes(30);
+			endOfDesiredCleaningAppointment = beginOfDesiredCleaningAppointment + 30;
 			break;
 		case INTENSIVE:
-			endOfNewDesiredCleaningAppointment = beginOfNewDesiredCleaningAppointment.plusMinutes(60);
+			endOfDesiredCleaningAppointment = beginOfDesiredCleaningAppointment + 60;
 			break;
 		default:
 			throw new IllegalArgumentException();
 		}
-		Set<CleaningAppointment> allCleaningAppointments = this.getAllCleaningAppointments();
-		LocalDateTime beginOfExistingAppointment;
-		LocalDateTime endOfExistingAppointment;
-		DispatcherUser responsibleDispatcherUserOfExistingCleaningAppointment;
-		WorkingPlatform workingPlatformOfExistingAppointment;
-
-		for (CleaningAppointment cleaningAppointment : allCleaningAppointments) {
-			beginOfExistingAppointment = cleaningAppointment.getAppointmentBeginDateAndTime();
-			endOfExistingAppointment = cleaningAppointment.getAppointmentEndDateAndTime();
-			responsibleDispatcherUserOfExistingCleaningAppointment = cleaningAppointment.getResponsibleDispatcherUser();
-			workingPlatformOfExistingAppointment = cleaningAppointment.getWorkingPlatformRelatedToCleaningAppointment();
-			if ((beginOfNewDesiredCleaningAppointment.isAfter(beginOfExistingAppointment)
-					|| beginOfNewDesiredCleaningAppointment.isEqual(beginOfExistingAppointment))
-					&& beginOfNewDesiredCleaningAppointment.isBefore(endOfExistingAppointment)
-					&& (responsibleDesiredDispatcherUser.equals(responsibleDispatcherUserOfExistingCleaningAppointment)
-							|| desiredWorkingPlatformRelatedToAppointment
-									.equals(workingPlatformOfExistingAppointment))) { // either dispatcher
-																						// or platform is already
-																						// occupied
-				cleaningAppointmentIsAvailable = false;
-				System.err.println(
-						"ERROR: New cleaning appointment consolidates (beginning) with another one and it is either because of the same dispatcher or the same working platform or both. Please check a calendar of all appointments.");
-				break;
-			} else if (endOfNewDesiredCleaningAppointment.isAfter(beginOfExistingAppointment)
-					&& (endOfNewDesiredCleaningAppointment.isBefore(endOfExistingAppointment)
-							|| endOfNewDesiredCleaningAppointment.isEqual(endOfExistingAppointment))
-					&& (responsibleDesiredDispatcherUser.equals(responsibleDispatcherUserOfExistingCleaningAppointment)
-							|| desiredWorkingPlatformRelatedToAppointment
-									.equals(workingPlatformOfExistingAppointment))) {
-				cleaningAppointmentIsAvailable = false;
-				System.err.println(
-						"ERROR: New cleaning appointment consolidates (end) with another one and it is either because of the same dispatcher or the same working platform or both. Please check a calendar of all appointments.");
-				break;
-			}
+		// Check if dispatcher is already occupied
+		Appointment overlappingAppointmentOfUser = getFirstOverlappingAppointmentExcept(appointmentToUpdate,
+				planningCalendarData.getAppointmentsOfUserOverlapping(responsibleDesiredDispatcherUser,
+						beginOfDesiredCleaningAppointment, endOfDesiredCleaningAppointment));
+		if (overlappingAppointmentOfUser != null) {
+			return Outcome.conflict(overlappingAppointmentOfUser,
+					"New cleaning appointment consolidates (%s) with another one of the same dispatcher. Please check a calendar of all appointments.",
+					getOverlappingPartOf(beginOfDesiredCleaningAppointment, overlappingAppointmentOfUser));
 		}
-		// Check if working platform is already occupied for working appointments
-		if (!cleaningAppointmentIsAvailable) {
-			Set<WorkingAppointment> allWorkingAppointments = this.getAllWorkingAppointments();
-			for (WorkingAppointment workingAppointment : allWorkingAppointments) {
-				workingPlatformOfExistingAppointment = workingAppointment
-						.getWorkingPlatformRelatedToWorkingAppointment();
-				beginOfExistingAppointment = workingAppointment.getAppointmentBeginDateAndTime();
-				endOfExistingAppointment = workingAppointment.getAppointmentEndDateAndTime();
-				if ((beginOfNewDesiredCleaningAppointment.isAfter(beginOfExistingAppointment)
-						|| beginOfNewDesiredCleaningAppointment.isEqual(beginOfExistingAppointment))
-						&& beginOfNewDesiredCleaningAppointment.isBefore(endOfExistingAppointment)
-						&& desiredWorkingPlatformRelatedToAppointment.equals(workingPlatformOfExistingAppointment)) {
-					cleaningAppointmentIsAvailable = false;
-					System.err.println(
-							"ERROR: New working appointment consolidates (beginning) with another one on the same working platform. Please check a calendar of all appointments. ");
-
-					break;
-				} else if (endOfNewDesiredCleaningAppointment.isAfter(beginOfExistingAppointment)
-						&& (endOfNewDesiredCleaningAppointment.isBefore(endOfExistingAppointment)
-								|| endOfNewDesiredCleaningAppointment.isEqual(endOfExistingAppointment))
-						&& desiredWorkingPlatformRelatedToAppointment.equals(workingPlatformOfExistingAppointment)) {
-					cleaningAppointmentIsAvailable = false;
-					System.err.println(
-							"ERROR: New working appointment consolidates (end) with another one on the same working platform. Please check a calendar of all appointments.");
-					break;
-				}
+		// Check if working platform is already occupied for working or cleaning
+		// appointments
+		Appointment overlappingAppointment = getFirstOverlappingAppointmentExcept(appointmentToUpdate,
+				planningCalendarData.getAppointmentsOnWorkingPlatformOverlapping(
+						desiredWorkingPlatformRelatedToAppointment, beginOfDesiredCleaningAppointment,
+						endOfDesiredCleaningAppointment));
+		if (overlappingAppointment != null) {
+			if (overlappingAppointment instanceof CleaningAppointment) {
+				return Outcome.conflict(overlappingAppointment,
+						"New cleaning appointment consolidates (%s) with another one on the same working platform. Please check a calendar of all appointments.",
+						getOverlappingPartOf(beginOfDesiredCleaningAppointment, overlappingAppointment));
+			} else {
+				return Outcome.conflict(overlappingAppointment,
+						"New cleaning appointment consolidates (%s) with a working appointment on the same working platform. Please check a calendar of all appointments.",
+						getOverlappingPartOf(beginOfDesiredCleaningAppointment, overlappingAppointment));
 			}
 		}
-		return cleaningAppointmentIsAvailable;
-
+		return Outcome.accepted(null);
 	}
 
-	public void createAndAddNewCleaningAppointment(CleaningAppointmentType cleaningAppointmentType,
-			String workingPlatformIdRelatedToAppointment, LocalDateTime appointmentBeginDateAndTime,
+	public Outcome<CleaningAppointment> createAndAddNewCleaningAppointment(
+			CleaningAppointmentType cleaningAppointmentType, String workingPlatformIdRelatedToAppointment, LocalDateTime appointmentBeginDateAndTime,
 			String usernameOfResponsibleDispatcher) {
 		Optional<WorkingPlatform> optionalWorkingPlatformRelatedToAppointment = PLATFORM_SERVICE
 				.getWorkingPlatformById(workingPlatformIdRelatedToAppointment);
 		if (optionalWorkingPlatformRelatedToAppointment.isPresent()) {
 			WorkingPlatform workingPlatformRelatedToAppointment = optionalWorkingPlatformRelatedToAppointment.get();
+			if (!workingPlatformRelatedToAppointment.getLocation()
+					.equals(location)) {
+				return workingPlatformOfAnotherLocation(workingPlatformRelatedToAppointment, location);
+			}
 			Optional<User> optionalResponsibleDispatcher = USER_SERVICE
 					.getUserByUsername(usernameOfResponsibleDispatcher);
 			if (optionalResponsibleDispatcher.isPresent()) {
 				if (optionalResponsibleDispatcher.get() instanceof DispatcherUser) {
 					DispatcherUser responsibleDispatcherUser = (DispatcherUser) optionalResponsibleDispatcher.get();
-					if (checkIfCleaningAppointmentIsAvailable(cleaningAppointmentType,
-							workingPlatformRelatedToAppointment, appointmentBeginDateAndTime,
-							responsibleDispatcherUser)) {
-						PLANNING_CALENDAR_DATA.addAppointmentToPlanningCalendar(
-								new CleaningAppointment(cleaningAppointmentType, workingPlatformRelatedToAppointment,
-										appointmentBeginDateAndTime, responsibleDispatcherUser));
+					if (!responsibleDispatcherUser.getLocation()
+							.equals(location)) {
+						return userOfAnotherLocation(responsibleDispatcherUser, location);
+					}
+					try (StateChange stateChange = PERSISTENCE_SERVICE
+							.beginStateChange(planningCalendarData.lockResources(workingPlatformRelatedToAppointment,
+									responsibleDispatcherUser))) {
+						Outcome<Void> availability = checkIfCleaningAppointmentIsAvailable(cleaningAppointmentType,
+								workingPlatformRelatedToAppointment, appointmentBeginDateAndTime,
+								responsibleDispatcherUser, null);
+						if (availability.isAccepted()) {
+							CleaningAppointment newCleaningAppointment = new CleaningAppointment(
+									cleaningAppointmentType, workingPlatformRelatedToAppointment,
+									appointmentBeginDateAndTime, responsibleDispatcherUser);
+							planningCalendarData.addAppointmentToPlanningCalendar(newCleaningAppointment);
+							stateChange.journalAppointment(location, newCleaningAppointment);
+							return Outcome.accepted(newCleaningAppointment);
+						}
+						return availability.asRejection();
 					}
 				} else {
-					System.err.println("ERROR: User with the username " + usernameOfResponsibleDispatcher
-							+ " isn´t a Dispatcher, please choose a username realted to a Dispatcher.");
+					return Outcome.invalid(
+							"User with the username %s isn´t a Dispatcher, please choose a username realted to a Dispatcher.",
+							usernameOfResponsibleDispatcher);
 				}
 			} else {
-				System.err.println(
-						"ERROR: User with the username " + usernameOfResponsibleDispatcher + " does not exist.");
+				return Outcome.notFound("User with the username %s does not exist.", usernameOfResponsibleDispatcher);
 			}
 
 		} else {
-			System.err.println("ERROR: The working platform with the ID: " + workingPlatformIdRelatedToAppointment
-					+ " does not exist. Cleaning appointment NOT created!");
+			return Outcome.notFound(
+					"The working platform with the ID: %s does not exist. Cleaning appointment NOT created!",
+					workingPlatformIdRelatedToAppointment);
 		}
 	}
 
-	public void changeWorkingAppointmentStatusOf_To(String idOfWorkingAppointmentToChangeStatus,
+	public Outcome<WorkingAppointment> changeWorkingAppointmentStatusOf_To(String idOfWorkingAppointmentToChangeStatus,
 			WorkingAppointmentStatus newWorkingAppointmentStatus) {
 		Optional<Appointment> optionalWorkingAppointment = this
 				.getAppointmentById(idOfWorkingAppointmentToChangeStatus);
 		if (optionalWorkingAppointment.isPresent() && optionalWorkingAppointment.get() instanceof WorkingAppointment) {
 			WorkingAppointment workingAppointmentToChangeStatus = (WorkingAppointment) optionalWorkingAppointment.get();
-			workingAppointmentToChangeStatus.setStatus(newWorkingAppointmentStatus);
+			try (StateChange stateChange = PERSISTENCE_SERVICE
+					.beginStateChange(planningCalendarData.lockResourcesOf(workingAppointmentToChangeStatus))) {
+				// the appointment may have been archived in the meantime
+				if (planningCalendarData.changeStatusOfWorkingAppointment(workingAppointmentToChangeStatus,
+						newWorkingAppointmentStatus)) {
+					stateChange.journalAppointment(location, workingAppointmentToChangeStatus);
+					return Outcome.accepted(workingAppointmentToChangeStatus);
+				} else {
+					return Outcome.invalid(
+							"The working appointment with the ID %s is archived and can't be changed anymore.",
+							idOfWorkingAppointmentToChangeStatus);
+				}
+			}
 		} else {
-			System.err.println("WorkingAppointment with the ID " + idOfWorkingAppointmentToChangeStatus
-					+ " does not exist, or the ID isn´t related to a WorkingAppointment.");
+			return Outcome.notFound(
+					"WorkingAppointment with the ID %s does not exist, or the ID isn´t related to a WorkingAppointment.",
+					idOfWorkingAppointmentToChangeStatus);
 		}
 	}
 
 	public Optional<Appointment> getAppointmentById(String appointmentId) {
-		Set<Appointment> allAppointments = PLANNING_CALENDAR_DATA.getAllAppointments();
-		Appointment foundAppointment = null;
-		for (Appointment appointment : allAppointments) {
-			if (appointment.getAppointmentId()
-					.equals(appointmentId)) {
-				foundAppointment = appointment;
-				break;
-			}
-		}
-		return Optional.ofNullable(foundAppointment);
+		return planningCalendarData.getAppointmentById(appointmentId);
 	}
 
 	/**
 	 * Allows you to update an existing working appointment. You can only change the
 	 * working platform or the date, if you want to change the works to perform or
 	 * the vehicle, create a new appointment and remove the old one! Update method
-	 * for everything would have been too much not demanded work.
+	 * for everything would have been too much not demanded work. The new place is
+	 * checked for conflicts like a new appointment, only the appointment itself is
+	 * ignored; if it conflicts, nothing is changed.
 	 */
-	public void updateWorkingAppointment(String appointmentIdOfAppointmentToUpdate,
+	public Outcome<WorkingAppointment> updateWorkingAppointment(String appointmentIdOfAppointmentToUpdate,
 			String idOfNewWorkingPlatformRelatedToWorkingAppointment, LocalDateTime newAppointmentBeginDateAndTime) {
 		Optional<Appointment> optionalAppointmentToUpdate = getAppointmentById(appointmentIdOfAppointmentToUpdate);
 		Optional<WorkingPlatform> optionalNewWorkingPlatform = PLATFORM_SERVICE
@@ -548,56 +878,128 @@ public class PlannerService {
 				WorkingAppointment workingAppointmentToUpdate = (WorkingAppointment) appointmentToUpdate;
 				if (optionalNewWorkingPlatform.isPresent()) {
 					WorkingPlatform newWorkingPlatform = optionalNewWorkingPlatform.get();
-					workingAppointmentToUpdate.setWorkingPlatformRelatedToWorkingAppointment(newWorkingPlatform);
-					appointmentToUpdate.setAppointmentBeginDateAndTime(newAppointmentBeginDateAndTime);
+					if (!newWorkingPlatform.getLocation()
+							.equals(location)) {
+						return workingPlatformOfAnotherLocation(newWorkingPlatform, location);
+					}
+					try (StateChange stateChange = PERSISTENCE_SERVICE
+							.beginStateChange(planningCalendarData.lockResourcesOf(workingAppointmentToUpdate,
+									newWorkingPlatform))) {
+						long newBegin = EpochMinutes.of(newAppointmentBeginDateAndTime);
+						long newEnd = newBegin + workingAppointmentToUpdate.getAppointmentEndEpochMinute()
+								- workingAppointmentToUpdate.getAppointmentBeginEpochMinute();
+						Outcome<Void> availability = checkIfWorkingAppointmentIsAvailable(newWorkingPlatform, newBegin,
+								newEnd, workingAppointmentToUpdate.getResponsibleCarMechanicUser(),
+								workingAppointmentToUpdate);
+						if (!availability.isAccepted()) {
+							return availability.asRejection();
+						}
+						if (!planningCalendarData.updateAppointmentInPlanningCalendar(workingAppointmentToUpdate, () -> {
+							workingAppointmentToUpdate.setWorkingPlatformRelatedToWorkingAppointment(newWorkingPlatform);
+							workingAppointmentToUpdate.setAppointmentBeginDateAndTime(newAppointmentBeginDateAndTime);
+						})) {
+							return noLongerInThePlanningCalendar(appointmentIdOfAppointmentToUpdate);
+						}
+						stateChange.journalAppointment(location, workingAppointmentToUpdate);
+					}
+					return Outcome.accepted(workingAppointmentToUpdate);
 				} else {
-					System.err.println("ERROR: The new working platform does not exist. "
-							+ "Create the platform first using the workingPlatformService or "
-							+ "use the getAllWorkingPlatforms() method of the workingPlatformService to see all the platforms and their ID.");
+					return newWorkingPlatformNotFound();
 				}
 			} else {
-				System.err.println("ERROR: Appointment with the ID: " + appointmentIdOfAppointmentToUpdate
-						+ " isn't connected to a working appointment. Use updateCleaningAppointment(...) "
-						+ "or updateConsultingAppointment(...) instead.");
+				return Outcome.invalid("Appointment with the ID: %s isn't connected to a working appointment. "
+						+ "Use updateCleaningAppointment(...) or updateConsultingAppointment(...) instead.",
+						appointmentIdOfAppointmentToUpdate);
 			}
 		} else {
-			System.err.println("ERROR: Appointment with the ID: " + appointmentIdOfAppointmentToUpdate
-					+ " was not found. Use getAllWorkingAppointments() to see all the working appointments with their ID.");
+			return Outcome.notFound(
+					"Appointment with the ID: %s was not found. Use getAllWorkingAppointments() to see all the working appointments with their ID.",
+					appointmentIdOfAppointmentToUpdate);
 		}
 
 	}
 
+	private static <T> Outcome<T> noLongerInThePlanningCalendar(String appointmentId) {
+		return Outcome.notFound(
+				"The appointment with the ID: %s was removed or archived in the meantime and is no longer in the planning calendar.",
+				appointmentId);
+	}
+
+	/**
+	 * Working platforms and users are only booked by the planner of their own
+	 * location, because conflicts are only checked inside of a location.
+	 */
+	private static <T> Outcome<T> workingPlatformOfAnotherLocation(WorkingPlatform workingPlatform,
+			String location) {
+		return Outcome.invalid("The working platform with the ID: %s belongs to the location %s, not to %s.",
+				workingPlatform.getWorkingPlatformId(), workingPlatform.getLocation(), location);
+	}
+
+	/**
+	 * See {@link #workingPlatformOfAnotherLocation(WorkingPlatform, String)}.
+	 */
+	private static <T> Outcome<T> userOfAnotherLocation(User user, String location) {
+		return Outcome.invalid("User with the username %s belongs to the location %s, not to %s.", user.getUsername(),
+				user.getLocation(), location);
+	}
+
+	private static <T> Outcome<T> newWorkingPlatformNotFound() {
+		return Outcome.notFound("The new working platform does not exist. "
+				+ "Create the platform first using the workingPlatformService or "
+				+ "use the getAllWorkingPlatforms() method of the workingPlatformService to see all the platforms and their ID.");
+	}
+
 	/**
 	 * Allows you to update an existing consulting appointment. You can only change
-	 * the duration of the consulting and-/or the date.
+	 * the duration of the consulting and-/or the date. Like a new appointment, it
+	 * must not overlap another one of the client advisor.
 	 */
 
-	public void updateConsultingAppointment(String appointmentIdOfAppointmentToUpdate,
+	public Outcome<ConsultingAppointment> updateConsultingAppointment(String appointmentIdOfAppointmentToUpdate,
 			int newConsultingAppointmentDuration, LocalDateTime newAppointmentBeginDateAndTime) {
 		Optional<Appointment> optionalAppointmentToUpdate = getAppointmentById(appointmentIdOfAppointmentToUpdate);
 		if (optionalAppointmentToUpdate.isPresent()) {
 			Appointment appointmentToUpdate = optionalAppointmentToUpdate.get();
 			if (appointmentToUpdate instanceof ConsultingAppointment) {
 				ConsultingAppointment consultingAppointmentToUpdate = (ConsultingAppointment) appointmentToUpdate;
-				consultingAppointmentToUpdate.setConsultingAppointmentDuration(newConsultingAppointmentDuration);
-				consultingAppointmentToUpdate.setAppointmentBeginDateAndTime(newAppointmentBeginDateAndTime);
-
+				try (StateChange stateChange = PERSISTENCE_SERVICE
+						.beginStateChange(planningCalendarData.lockResourcesOf(consultingAppointmentToUpdate))) {
+					Outcome<Void> availability = checkIfConsultingAppointmentIsAvailable(
+							newConsultingAppointmentDuration, newAppointmentBeginDateAndTime,
+							consultingAppointmentToUpdate.getResponsibleClientAdvisorUser(),
+							consultingAppointmentToUpdate);
+					if (!availability.isAccepted()) {
+						return availability.asRejection();
+					}
+					if (!planningCalendarData.updateAppointmentInPlanningCalendar(consultingAppointmentToUpdate, () -> {
+						consultingAppointmentToUpdate.setConsultingAppointmentDuration(newConsultingAppointmentDuration);
+						consultingAppointmentToUpdate.setAppointmentBeginDateAndTime(newAppointmentBeginDateAndTime);
+					})) {
+						return noLongerInThePlanningCalendar(appointmentIdOfAppointmentToUpdate);
+					}
+					stateChange.journalAppointment(location, consultingAppointmentToUpdate);
+				}
+				return Outcome.accepted(consultingAppointmentToUpdate);
 			} else {
-				System.err.println("ERROR: Appointment with the ID: " + appointmentIdOfAppointmentToUpdate
-						+ " isn't connected to a consulting appointment. Use updateWorkingAppointment(...) or updateCleaningAppointment(...) instead.");
+				return Outcome.invalid(
+						"Appointment with the ID: %s isn't connected to a consulting appointment. Use updateWorkingAppointment(...) or updateCleaningAppointment(...) instead.",
+						appointmentIdOfAppointmentToUpdate);
 			}
 		} else {
-			System.err.println("ERROR: Appointment with the ID: " + appointmentIdOfAppointmentToUpdate
-					+ " was not found. Use getAllConsultingAppointments() to see all the consulting appointments with their ID.");
+			return Outcome.notFound(
+					"Appointment with the ID: %s was not found. Use getAllConsultingAppointments() to see all the consulting appointments with their ID.",
+					appointmentIdOfAppointmentToUpdate);
 		}
 
 	}
 
 	/**
 	 * Allows you to update an existing cleaning appointment. You can only change
-	 * the type of cleaning appointment, set new working platform or the date.
+	 * the type of cleaning appointment, set new working platform or the date. The
+	 * changed appointment is checked against the dispatcher and the working
+	 * platform first and stays unchanged if it conflicts.
 	 */
-	public void updateCleaningAppointment(String appointmentIdOfAppointmentToUpdate,
+	public Outcome<CleaningAppointment> updateCleaningAppointment(String appointmentIdOfAppointmentToUpdate,
 			CleaningAppointmentType newCleaningAppointmentType,
 			String idOfNewWorkingPlatformRelatedToCleaningAppointment, LocalDateTime newAppointmentBeginDateAndTime) {
 		Optional<Appointment> optionalAppointmentToUpdate = getAppointmentById(appointmentIdOfAppointmentToUpdate);
@@ -609,34 +1011,289 @@ public class PlannerService {
 				CleaningAppointment cleaningAppointmentToUpdate = (CleaningAppointment) appointmentToUpdate;
 				if (optionalNewWorkingPlatform.isPresent()) {
 					WorkingPlatform newWorkingPlatform = optionalNewWorkingPlatform.get();
-					cleaningAppointmentToUpdate.setWorkingPlatformRelatedToCleaningAppointment(newWorkingPlatform);
-					cleaningAppointmentToUpdate.setCleaningAppointmentType(newCleaningAppointmentType);
-					cleaningAppointmentToUpdate.setAppointmentBeginDateAndTime(newAppointmentBeginDateAndTime);
+					if (!newWorkingPlatform.getLocation()
+							.equals(location)) {
+						return workingPlatformOfAnotherLocation(newWorkingPlatform, location);
+					}
+					try (StateChange stateChange = PERSISTENCE_SERVICE
+							.beginStateChange(planningCalendarData.lockResourcesOf(cleaningAppointmentToUpdate,
+									newWorkingPlatform))) {
+						Outcome<Void> availability = checkIfCleaningAppointmentIsAvailable(newCleaningAppointmentType,
+								newWorkingPlatform, newAppointmentBeginDateAndTime,
+								cleaningAppointmentToUpdate.getResponsibleDispatcherUser(),
+								cleaningAppointmentToUpdate);
+						if (!availability.isAccepted()) {
+							return availability.asRejection();
+						}
+						if (!planningCalendarData.updateAppointmentInPlanningCalendar(cleaningAppointmentToUpdate, () -> {
+							cleaningAppointmentToUpdate
+									.setWorkingPlatformRelatedToCleaningAppointment(newWorkingPlatform);
+							cleaningAppointmentToUpdate.setCleaningAppointmentType(newCleaningAppointmentType);
+							cleaningAppointmentToUpdate.setAppointmentBeginDateAndTime(newAppointmentBeginDateAndTime);
+						})) {
+							return noLongerInThePlanningCalendar(appointmentIdOfAppointmentToUpdate);
+						}
+						stateChange.journalAppointment(location, cleaningAppointmentToUpdate);
+					}
+					return Outcome.accepted(cleaningAppointmentToUpdate);
 				} else {
-					System.err.println("ERROR: The new working platform does not exist. "
-							+ "Create the platform first using the workingPlatformService or "
-							+ "use the getAllWorkingPlatforms() method of the workingPlatformService to see all the platforms and their ID.");
+					return newWorkingPlatformNotFound();
 				}
 			} else {
-				System.err.println("ERROR: Appointment with the ID:" + appointmentIdOfAppointmentToUpdate
-						+ " isn't connected to a cleaning appointment. Use updateWorkingAppointment(...) or updateConsultingAppointment(..) instead.");
+				return Outcome.invalid(
+						"Appointment with the ID:%s isn't connected to a cleaning appointment. Use updateWorkingAppointment(...) or updateConsultingAppointment(..) instead.",
+						appointmentIdOfAppointmentToUpdate);
 			}
 		} else {
-			System.err.println("ERROR: Appointment with the ID: " + appointmentIdOfAppointmentToUpdate
-					+ " was not found. Use getAllCleaningAppointments() to see all the cleaning appointments with their ID.");
+			return Outcome.notFound(
+					"Appointment with the ID: %s was not found. Use getAllCleaningAppointments() to see all the cleaning appointments with their ID.",
+					appointmentIdOfAppointmentToUpdate);
 		}
 
 	}
 
-	public void removeAppointment(String appointmentIdOfAppointmentToRemove) {
+	public Outcome<Appointment> removeAppointment(String appointmentIdOfAppointmentToRemove) {
 		Optional<Appointment> optionalAppointmentToRemove = getAppointmentById(appointmentIdOfAppointmentToRemove);
 		if (optionalAppointmentToRemove.isPresent()) {
-			PLANNING_CALENDAR_DATA.removeAppointmentFromAppointmentData(optionalAppointmentToRemove.get());
+			Appointment appointmentToRemove = optionalAppointmentToRemove.get();
+			// the locks are taken for the resources the appointment occupies right now,
+			// so it can't be moved anymore; but it may have been removed or archived
+			// since it was looked up
+			try (StateChange stateChange = PERSISTENCE_SERVICE
+					.beginStateChange(planningCalendarData.lockResourcesOf(appointmentToRemove))) {
+				if (!planningCalendarData.removeAppointmentFromAppointmentData(appointmentToRemove)) {
+					return noLongerInThePlanningCalendar(appointmentIdOfAppointmentToRemove);
+				}
+				stateChange.journalAppointmentRemoved(appointmentIdOfAppointmentToRemove);
+			}
+			return Outcome.accepted(appointmentToRemove);
 		} else {
-			System.err.println("ERROR: The appointment with the ID: " + appointmentIdOfAppointmentToRemove
-					+ " does not exist in the PLANNING_CALENDAR_DATA. Try a different ID, check the appointment type of the ID with"
-					+ " getTypeOfAppointmentRelatedToId(...) or use getAllCustomers(...) to see all the customers with their ID.");
+			return Outcome.notFound("The appointment with the ID: %s does not exist in the PLANNING_CALENDAR_DATA. "
+					+ "Try a different ID, check the appointment type of the ID with"
+					+ " getTypeOfAppointmentRelatedToId(...) or use getAllCustomers(...) to see all the customers with their ID.",
+					appointmentIdOfAppointmentToRemove);
+		}
+	}
+
+	/**
+	 * Plans new places for the open working appointments and the cleaning
+	 * appointments beginning from firstDay to lastDay, e.g. after a car mechanic
+	 * called in sick or a working platform broke down. The appointments are only
+	 * moved to later times, as little as possible and preferably within their
+	 * original day, and get other working platforms, car mechanics or
+	 * dispatchers of this location where needed (see
+	 * {@link CalendarRescheduler}). Appointments beginning before now stay where
+	 * they are.
+	 * 
+	 * Nothing is changed by planning, the returned plan can be checked first and
+	 * then be committed with {@link #commitRescheduling(ReschedulingPlan)}.
+	 * 
+	 * @param idsOfUnavailableWorkingPlatforms - working platforms that get no
+	 *                                         appointments from the plan at all
+	 * @param usernamesOfUnavailableUsers      - car mechanics and dispatchers that
+	 *                                         get no appointments from the plan
+	 *                                         at all
+	 * @return - the plan, or why none was made
+	 */
+	public Outcome<ReschedulingPlan> planRescheduling(LocalDate firstDay, LocalDate lastDay,
+			Set<String> idsOfUnavailableWorkingPlatforms, Set<String> usernamesOfUnavailableUsers) {
+		if (lastDay.isBefore(firstDay) || firstDay.plusDays(MAX_NUMBER_OF_DAYS_TO_RESCHEDULE)
+				.isBefore(lastDay.plusDays(1))) {
+			return Outcome.invalid("Only 1 to %d days can be rescheduled at once.", MAX_NUMBER_OF_DAYS_TO_RESCHEDULE);
+		}
+		Set<WorkingPlatform> unavailableWorkingPlatforms = new HashSet<>();
+		for (String workingPlatformId : idsOfUnavailableWorkingPlatforms) {
+			Optional<WorkingPlatform> optionalWorkingPlatform = PLATFORM_SERVICE
+					.getWorkingPlatformById(workingPlatformId);
+			if (!optionalWorkingPlatform.isPresent()) {
+				return Outcome.notFound("The working platform with the ID: %s does not exist.", workingPlatformId);
+			}
+			unavailableWorkingPlatforms.add(optionalWorkingPlatform.get());
+		}
+		Set<User> unavailableUsers = new HashSet<>();
+		for (String username : usernamesOfUnavailableUsers) {
+			Optional<User> optionalUser = USER_SERVICE.getUserByUsername(username);
+			if (!optionalUser.isPresent()) {
+				return Outcome.notFound("User with the username %s does not exist.", username);
+			}
+			unavailableUsers.add(optionalUser.get());
+		}
+		List<WorkingPlatform> workingPlatforms = new ArrayList<>(
+				PLATFORM_SERVICE.getWorkingPlatformsOfLocation(location));
+		workingPlatforms.removeAll(unavailableWorkingPlatforms);
+		workingPlatforms.sort(Comparator.comparing(WorkingPlatform::getWorkingPlatformId));
+		List<User> carMechanics = new ArrayList<>();
+		List<User> dispatchers = new ArrayList<>();
+		for (User user : USER_SERVICE.getUsersOfLocation(location)) {
+			if (user instanceof CarMechanicUser && !unavailableUsers.contains(user)) {
+				carMechanics.add(user);
+			} else if (user instanceof DispatcherUser && !unavailableUsers.contains(user)) {
+				dispatchers.add(user);
+			}
+		}
+		carMechanics.sort(Comparator.comparing(User::getUsername));
+		dispatchers.sort(Comparator.comparing(User::getUsername));
+		long beginOfRescheduling = Math.max(EpochMinutes.ofDay(firstDay), EpochMinutes.of(LocalDateTime.now()) + 1);
+		List<Appointment> appointmentsToReschedule = new ArrayList<>();
+		for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+			for (Appointment appointment : planningCalendarData.getAppointmentsOfDay(day)) {
+				if (appointment.getAppointmentBeginEpochMinute() >= beginOfRescheduling
+						&& (appointment instanceof CleaningAppointment || appointment instanceof WorkingAppointment
+								&& ((WorkingAppointment) appointment)
+										.getStatus() == WorkingAppointmentStatus.OPEN)) {
+					appointmentsToReschedule.add(appointment);
+				}
+			}
+		}
+		return Outcome.accepted(new CalendarRescheduler(planningCalendarData, appointmentsToReschedule,
+				workingPlatforms, carMechanics, dispatchers, beginOfRescheduling).plan());
+	}
+
+	/**
+	 * Moves all appointments of the plan at once. All old and new resources of
+	 * the moved appointments stay locked meanwhile, so either all appointments
+	 * are moved or none. Nothing is moved if one of the appointments was changed
+	 * or removed since planning, or if another appointment was booked into one of
+	 * the new places in the meantime; a new plan has to be made then. Conflicts
+	 * are only checked at this location, so a plan moving appointments to working
+	 * platforms or users of another location is rejected.
+	 * 
+	 * @return - the committed plan, or why it couldn't be committed
+	 */
+	public Outcome<ReschedulingPlan> commitRescheduling(ReschedulingPlan plan) {
+		Set<Appointment> movedAppointments = new HashSet<>();
+		List<Object> affectedResources = new ArrayList<>();
+		for (ReschedulingPlan.Move move : plan.getMoves()) {
+			if (!move.getNewWorkingPlatform()
+					.getLocation()
+					.equals(location)) {
+				return workingPlatformOfAnotherLocation(move.getNewWorkingPlatform(), location);
+			}
+			if (!move.getNewResponsibleUser()
+					.getLocation()
+					.equals(location)) {
+				return userOfAnotherLocation(move.getNewResponsibleUser(), location);
+			}
+			movedAppointments.add(move.getAppointment());
+			Collections.addAll(affectedResources, move.getOriginalWorkingPlatform(), move.getOriginalResponsibleUser(),
+					move.getNewWorkingPlatform(), move.getNewResponsibleUser());
+		}
+		try (StateChange stateChange = PERSISTENCE_SERVICE
+				.beginStateChange(planningCalendarData.lockResources(affectedResources.toArray()))) {
+			for (ReschedulingPlan.Move move : plan.getMoves()) {
+				Appointment appointment = move.getAppointment();
+				if (!planningCalendarData.getAllAppointments()
+						.contains(appointment) || !move.isStillApplicable()) {
+					return Outcome.conflict(appointment,
+							"The appointment with the ID: %s was changed after the rescheduling was planned. Nothing was rescheduled!",
+							appointment.getAppointmentId());
+				}
+			}
+			// the moved appointments were planned not to overlap each other, but the
+			// other appointments may have changed since
+			for (ReschedulingPlan.Move move : plan.getMoves()) {
+				List<Appointment> overlappingAppointments = new ArrayList<>(
+						planningCalendarData.getAppointmentsOnWorkingPlatformOverlapping(move.getNewWorkingPlatform(),
+								move.getNewBeginEpochMinute(), move.getNewEndEpochMinute()));
+				overlappingAppointments.addAll(planningCalendarData.getAppointmentsOfUserOverlapping(
+						move.getNewResponsibleUser(), move.getNewBeginEpochMinute(), move.getNewEndEpochMinute()));
+				overlappingAppointments.removeAll(movedAppointments);
+				if (!overlappingAppointments.isEmpty()) {
+					return Outcome.conflict(overlappingAppointments.get(0),
+							"The new place of the appointment with the ID: %s was booked after the rescheduling was planned. Nothing was rescheduled!",
+							move.getAppointment()
+									.getAppointmentId());
+				}
+			}
+			for (ReschedulingPlan.Move move : plan.getMoves()) {
+				Appointment appointment = move.getAppointment();
+				planningCalendarData.updateAppointmentInPlanningCalendar(appointment, () -> {
+					appointment.moveTo(move.getNewBeginEpochMinute());
+					if (appointment instanceof WorkingAppointment) {
+						WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+						workingAppointment.setWorkingPlatformRelatedToWorkingAppointment(move.getNewWorkingPlatform());
+						workingAppointment.setResponsibleCarMechanicUser((CarMechanicUser) move.getNewResponsibleUser());
+					} else {
+						((CleaningAppointment) appointment)
+								.setResponsibleDispatcherUser((DispatcherUser) move.getNewResponsibleUser());
+					}
+				});
+				stateChange.journalAppointment(location, appointment);
+			}
+		}
+		return Outcome.accepted(plan);
+	}
+
+	/**
+	 * Moves all finished and cancelled working appointments, which ended before
+	 * the given time span, from the planning calendar into the
+	 * {@link AppointmentArchive}. Archived appointments still appear in the
+	 * weekly overview and in the history of the vehicles, but can't be found by
+	 * their ID or changed anymore. The archiving is journaled, so the archived
+	 * appointments don't return into the planning calendar on recovery.
+	 * 
+	 * @param horizon - time span before now in which the working appointments stay
+	 *                in the planning calendar
+	 * @return - number of archived working appointments
+	 * @throws IllegalStateException if persistence is disabled, the archive is
+	 *                               stored in its data directory
+	 */
+	public int archiveFinishedAndCancelledWorkingAppointmentsOlderThan(Period horizon) {
+		if (!PERSISTENCE_SERVICE.isPersistenceEnabled()) {
+			throw new IllegalStateException("ERROR: Working appointments can only be archived with persistence.");
+		}
+		long archiveAppointmentsEndedBefore = EpochMinutes.of(LocalDateTime.now()
+				.minus(horizon));
+		int numberOfArchivedAppointments = 0;
+		for (WorkingAppointment workingAppointment : getAllWorkingAppointments()) {
+			if (!isToBeArchived(workingAppointment, archiveAppointmentsEndedBefore)) {
+				continue;
+			}
+			try (StateChange stateChange = PERSISTENCE_SERVICE
+					.beginStateChange(planningCalendarData.lockResourcesOf(workingAppointment))) {
+				// the appointment may have been changed or removed in the meantime
+				if (planningCalendarData.getAllAppointments()
+						.contains(workingAppointment)
+						&& isToBeArchived(workingAppointment, archiveAppointmentsEndedBefore)) {
+					getOrCreateAppointmentArchive().archiveWorkingAppointment(workingAppointment);
+					planningCalendarData.removeAppointmentFromAppointmentData(workingAppointment);
+					stateChange.journalWorkingAppointmentArchived(location, workingAppointment);
+					numberOfArchivedAppointments++;
+				}
+			} catch (IOException e) {
+				System.err.println("ERROR: The working appointments could not be archived: " + e.getMessage());
+				break;
+			}
 		}
+		return numberOfArchivedAppointments;
+	}
+
+	private static boolean isToBeArchived(WorkingAppointment workingAppointment,
+			long archiveAppointmentsEndedBefore) {
+		return workingAppointment.getAppointmentEndEpochMinute() < archiveAppointmentsEndedBefore
+				&& AppointmentArchive.isArchivable(workingAppointment);
+	}
+
+	/**
+	 * Archives the old working appointments now and afterwards once every hour in
+	 * the background (see
+	 * {@link #archiveFinishedAndCancelledWorkingAppointmentsOlderThan(Period)}).
+	 * Calling this method again replaces the horizon.
+	 */
+	public synchronized void startArchivingWorkingAppointmentsOlderThan(Period horizon) {
+		archiveFinishedAndCancelledWorkingAppointmentsOlderThan(horizon);
+		if (archivingExecutor == null) {
+			archivingExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread archivingThread = new Thread(runnable, "appointment-archiving");
+				archivingThread.setDaemon(true);
+				return archivingThread;
+			});
+		}
+		if (scheduledArchiving != null) {
+			scheduledArchiving.cancel(false);
+		}
+		scheduledArchiving = archivingExecutor.scheduleWithFixedDelay(
+				() -> archiveFinishedAndCancelledWorkingAppointmentsOlderThan(horizon), 1, 1, TimeUnit.HOURS);
 	}
 
 	public void printTypeOfAppointmentRelatedToId(String idOfAppointment) {
@@ -670,34 +1327,140 @@ public class PlannerService {
 
 	/**
 	 * Returns a SORTED ({@link AppointmentComparator}) set of all the appointments
-	 * in the given calendar week. (may be empty)
+	 * in the given calendar week of the current year. (may be empty)
 	 * 
-	 * @param calendarWeek - Integer of the calendarWeek you want to get an overview
-	 *                     to
+	 * @param calendarWeek - Integer of the calendarWeek (ISO 8601) you want to get
+	 *                     an overview to
 	 * @return - Set of all appointments in the given week or an empty Set!
 	 */
 	public Set<Appointment> getSortedAppointmentOverviewOfWeek(int calendarWeek) {
-		Set<Appointment> allAppointments = PLANNING_CALENDAR_DATA.getAllAppointments();
-		Set<Appointment> allAppointmentsOfSearchedCalendarWeek = new HashSet<>();
-		LocalDateTime dateOfAppointment;
-		LocalDate dateNeededToGetCalendarWeek;
-
-		for (Appointment appointment : allAppointments) {
-			dateOfAppointment = appointment.getAppointmentBeginDateAndTime();
-			dateNeededToGetCalendarWeek = LocalDate.of(dateOfAppointment.getYear(), dateOfAppointment.getMonth(),
-					dateOfAppointment.getDayOfMonth());
-			int weekOfAppointment = dateNeededToGetCalendarWeek.get(ChronoField.ALIGNED_WEEK_OF_YEAR);
-			if (weekOfAppointment == calendarWeek) {
-				allAppointmentsOfSearchedCalendarWeek.add(appointment);
-			}
+		return getSortedAppointmentOverviewOfWeek(LocalDate.now()
+				.get(WeekFields.ISO.weekBasedYear()), calendarWeek);
+	}
+
+	/**
+	 * Returns a SORTED ({@link AppointmentComparator}) set of all the appointments
+	 * in the given calendar week, including the archived ones. Only the
+	 * appointments of the seven days of the week are read. (may be empty)
+	 * 
+	 * @param year         - Integer of the year the calendar week belongs to
+	 * @param calendarWeek - Integer of the calendarWeek (ISO 8601) you want to get
+	 *                     an overview to
+	 * @return - Set of all appointments in the given week or an empty Set!
+	 * @throws IllegalArgumentException if the year has no such calendar week
+	 */
+	public Set<Appointment> getSortedAppointmentOverviewOfWeek(int year, int calendarWeek) {
+		Set<Appointment> allAppointmentsOfSearchedCalendarWeek = new LinkedHashSet<>();
+		List<Appointment> appointmentsOfWeek;
+		try {
+			appointmentsOfWeek = planningCalendarData.getAppointmentsOfWeek(year, calendarWeek);
+		} catch (DateTimeException e) {
+			throw new IllegalArgumentException("ERROR: The year " + year + " has no calendar week " + calendarWeek + ".",
+					e);
+		}
+		AppointmentArchive appointmentArchive = this.appointmentArchive;
+		if (appointmentArchive == null) {
+			allAppointmentsOfSearchedCalendarWeek.addAll(appointmentsOfWeek);
+			return allAppointmentsOfSearchedCalendarWeek;
 		}
+		LocalDate mondayOfWeek = PlanningCalendarData.getMondayOfWeek(year, calendarWeek);
+		allAppointmentsOfSearchedCalendarWeek.addAll(appointmentsOfWeek);
+		allAppointmentsOfSearchedCalendarWeek.addAll(
+				appointmentArchive.getArchivedWorkingAppointmentsBeginningBetween(mondayOfWeek, mondayOfWeek.plusDays(6)));
 		return getSortedSetOfGivenSetOfAppointments(allAppointmentsOfSearchedCalendarWeek);
 	}
 
+	/**
+	 * Selects the appointments of some days for an export, including the
+	 * archived ones. Nothing is read until the export is written.
+	 * 
+	 * @param firstDay            - first day of the export
+	 * @param lastDay             - last day of the export (inclusive)
+	 * @param workingPlatformId   - only the working and cleaning appointments on
+	 *                            this working platform, or null for all
+	 * @param carMechanicUsername - only the working appointments of this car
+	 *                            mechanic, or null for all
+	 * @param status              - only the working appointments with this
+	 *                            status, or null for all
+	 * @return - the export, or why it isn't possible
+	 */
+	public Outcome<AppointmentExport> createAppointmentExport(LocalDate firstDay, LocalDate lastDay,
+			String workingPlatformId, String carMechanicUsername, WorkingAppointmentStatus status) {
+		if (lastDay.isBefore(firstDay)) {
+			return Outcome.invalid("The last day (%s) of the export is before its first day (%s).", lastDay, firstDay);
+		}
+		WorkingPlatform workingPlatform = null;
+		if (workingPlatformId != null) {
+			Optional<WorkingPlatform> optionalWorkingPlatform = PLATFORM_SERVICE
+					.getWorkingPlatformById(workingPlatformId);
+			if (!optionalWorkingPlatform.isPresent()) {
+				return Outcome.notFound("The working platform with the ID: %s does not exist.", workingPlatformId);
+			}
+			workingPlatform = optionalWorkingPlatform.get();
+		}
+		CarMechanicUser carMechanicUser = null;
+		if (carMechanicUsername != null) {
+			Optional<User> optionalUser = USER_SERVICE.getUserByUsername(carMechanicUsername);
+			if (!optionalUser.isPresent() || !(optionalUser.get() instanceof CarMechanicUser)) {
+				return Outcome.notFound("Car mechanic with the username %s does not exist.", carMechanicUsername);
+			}
+			carMechanicUser = (CarMechanicUser) optionalUser.get();
+		}
+		return Outcome.accepted(
+				new AppointmentExport(this, firstDay, lastDay, workingPlatform, carMechanicUser, status));
+	}
+
+	/**
+	 * Computes the booked and free minutes of all working platforms and car
+	 * mechanics of this location during the opening hours of some days,
+	 * including the finished archived appointments. Cancelled appointments are
+	 * not counted as booked.
+	 * 
+	 * @param firstDay    - first day of the report
+	 * @param lastDay     - last day of the report (inclusive)
+	 * @param bucket      - time span the results are summed up for
+	 * @param openingTime - begin of the opening hours of every day, null for
+	 *                    midnight
+	 * @param closingTime - end of the opening hours of every day, null for
+	 *                    midnight at the end of the day
+	 * @return - the report, or why it isn't possible
+	 */
+	public Outcome<UtilizationReport> createUtilizationReport(LocalDate firstDay, LocalDate lastDay,
+			UtilizationBucket bucket, LocalTime openingTime, LocalTime closingTime) {
+		if (lastDay.isBefore(firstDay)) {
+			return Outcome.invalid("The last day (%s) of the report is before its first day (%s).", lastDay, firstDay);
+		}
+		int openingMinute = openingTime != null ? openingTime.toSecondOfDay() / 60 : 0;
+		int closingMinute = closingTime != null ? closingTime.toSecondOfDay() / 60 : EpochMinutes.MINUTES_PER_DAY;
+		if (closingMinute <= openingMinute) {
+			return Outcome.invalid("The opening hours have to end (%s) after they begin (%s).", closingTime,
+					openingTime);
+		}
+		long numberOfBuckets = UtilizationReport.getNumberOfBuckets(bucket, firstDay, lastDay);
+		if (numberOfBuckets > MAX_NUMBER_OF_UTILIZATION_BUCKETS) {
+			return Outcome.invalid("The report would have %d buckets, at most %d are possible.", numberOfBuckets,
+					MAX_NUMBER_OF_UTILIZATION_BUCKETS);
+		}
+		return Outcome.accepted(new UtilizationReport(firstDay, lastDay, bucket, openingMinute, closingMinute,
+				planningCalendarData, appointmentArchive, PLATFORM_SERVICE.getWorkingPlatformsOfLocation(location),
+				getCarMechanicUsersOfThisLocation()));
+	}
+
 	public void printSortedAppointmentOverviewOfWeek(int calendarWeek) {
-		Set<Appointment> allAppointmentsOfSearchedCalendarWeek = this.getSortedAppointmentOverviewOfWeek(calendarWeek);
+		printSortedAppointmentOverviewOfWeek(LocalDate.now()
+				.get(WeekFields.ISO.weekBasedYear()), calendarWeek);
+	}
+
+	public void printSortedAppointmentOverviewOfWeek(int year, int calendarWeek) {
+		Set<Appointment> allAppointmentsOfSearchedCalendarWeek;
+		try {
+			allAppointmentsOfSearchedCalendarWeek = this.getSortedAppointmentOverviewOfWeek(year, calendarWeek);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			return;
+		}
 		if (allAppointmentsOfSearchedCalendarWeek.isEmpty()) {
-			System.err.println("No appointments in the calendar week " + calendarWeek + ".");
+			System.err.println("No appointments in the calendar week " + calendarWeek + " of " + year + ".");
 		} else {
 			this.printAppointmentsDetailedFor(allAppointmentsOfSearchedCalendarWeek);
 		}
@@ -724,28 +1487,22 @@ public class PlannerService {
 	 * @return - Set of all appointments of yesterday or an empty Set!
 	 */
 	public Set<WorkingAppointment> getSortedFinishedWorkingAppointmentsOfYesterday() {
-		Set<WorkingAppointment> allWorkingAppointments = PLANNER_SERVICE.getAllWorkingAppointments();
-		Set<WorkingAppointment> allWorkingAppointmentsOfYesterday = new HashSet<>();
-		LocalDateTime beginDateAndTimeOfAppointment;
-		LocalDate dateOfAppointment;
+		Set<WorkingAppointment> allWorkingAppointmentsOfYesterday = new LinkedHashSet<>();
 		LocalDate dateOfYesterday = LocalDate.now()
 				.minusDays(1);
-		String appointmentStatus;
-		for (WorkingAppointment appointment : allWorkingAppointments) {
-			beginDateAndTimeOfAppointment = appointment.getAppointmentBeginDateAndTime();
-			dateOfAppointment = LocalDate.of(beginDateAndTimeOfAppointment.getYear(),
-					beginDateAndTimeOfAppointment.getMonth(), beginDateAndTimeOfAppointment.getDayOfMonth());
-			if (dateOfYesterday.equals(dateOfAppointment)) {
-				appointmentStatus = appointment.getStatus();
-				if (appointmentStatus.equals("FINISHED")) {
-					{
-						allWorkingAppointmentsOfYesterday.add(appointment);
-					}
-				}
+		for (Appointment appointment : planningCalendarData.getAppointmentsOfDay(dateOfYesterday)) {
+			if (appointment instanceof WorkingAppointment
+					&& ((WorkingAppointment) appointment).getStatus() == WorkingAppointmentStatus.FINISHED) {
+				allWorkingAppointmentsOfYesterday.add((WorkingAppointment) appointment);
 			}
 		}
+		AppointmentArchive appointmentArchive = this.appointmentArchive;
+		if (appointmentArchive == null) {
+			return allWorkingAppointmentsOfYesterday;
+		}
+		allWorkingAppointmentsOfYesterday.addAll(appointmentArchive.getArchivedWorkingAppointmentsBeginningBetween(
+				dateOfYesterday, dateOfYesterday, WorkingAppointmentStatus.FINISHED));
 		return getSortedSetOfGivenSetOfGivenWorkingAppointments(allWorkingAppointmentsOfYesterday);
-
 	}
 
 	private static void printWorkingAppointmentsDetailedFor(Set<WorkingAppointment> workingAppointments) {
@@ -762,32 +1519,19 @@ public class PlannerService {
 	}
 
 	public Set<WorkingAppointment> getAllOpenWorkingAppointmentsOfTodayFor(String carMechanicUsernameToLookup) {
-		Set<WorkingAppointment> allWorkingAppointments = PLANNER_SERVICE.getAllWorkingAppointments();
-		Set<WorkingAppointment> allOpenWorkingAppointmentsOfToday = new HashSet<>();
-		LocalDateTime beginDateAndTimeOfWorkingAppointment;
-		LocalDate dateOfWorkingAppointment;
-		LocalDate dateOfToday = LocalDate.now();
-		String workingAppointmentStatus;
-		User carMechanicUser;
-		String carMechanicUsername;
-		for (WorkingAppointment appointment : allWorkingAppointments) {
-			beginDateAndTimeOfWorkingAppointment = appointment.getAppointmentBeginDateAndTime();
-			dateOfWorkingAppointment = LocalDate.of(beginDateAndTimeOfWorkingAppointment.getYear(),
-					beginDateAndTimeOfWorkingAppointment.getMonth(),
-					beginDateAndTimeOfWorkingAppointment.getDayOfMonth());
-			carMechanicUser = appointment.getResponsibleCarMechanicUser();
-			carMechanicUsername = carMechanicUser.getUsername();
-			if (dateOfToday.equals(dateOfWorkingAppointment)) {
-				if (carMechanicUsername.equals(carMechanicUsernameToLookup)) {
-					workingAppointmentStatus = appointment.getStatus();
-					if (workingAppointmentStatus.equals("OPEN")) {
-						allOpenWorkingAppointmentsOfToday.add(appointment);
-					}
+		Set<WorkingAppointment> allOpenWorkingAppointmentsOfToday = new LinkedHashSet<>();
+		for (Appointment appointment : planningCalendarData.getAppointmentsOfDay(LocalDate.now())) {
+			if (appointment instanceof WorkingAppointment) {
+				WorkingAppointment workingAppointment = (WorkingAppointment) appointment;
+				if (workingAppointment.getResponsibleCarMechanicUser()
+						.getUsername()
+						.equals(carMechanicUsernameToLookup)
+						&& workingAppointment.getStatus() == WorkingAppointmentStatus.OPEN) {
+					allOpenWorkingAppointmentsOfToday.add(workingAppointment);
 				}
 			}
 		}
-		return getSortedSetOfGivenSetOfGivenWorkingAppointments(allOpenWorkingAppointmentsOfToday);
-
+		return allOpenWorkingAppointmentsOfToday;
 	}
 
 	public void printAllSortedOpenWorkingAppointmentsOfTodayFor(String carMechanicUsernameToLookup) {
@@ -803,23 +1547,15 @@ public class PlannerService {
 
 	public Set<WorkingAppointment> getAllOpenWorkingAppointmentsByWorkingPlatformId(
 			String idOfWorkingPlatformToLookup) {
-		Set<WorkingAppointment> allWorkingAppointments = PLANNER_SERVICE.getAllWorkingAppointments();
 		Set<WorkingAppointment> allOpenWorkingAppointments = new HashSet<>();
-		LocalDateTime dateAndTimeOfNow = LocalDateTime.now();
-		for (WorkingAppointment appointment : allWorkingAppointments) {
-			if ((appointment.getAppointmentBeginDateAndTime()
-					.isAfter(dateAndTimeOfNow)
-					|| appointment.getAppointmentBeginDateAndTime()
-							.isEqual(dateAndTimeOfNow))
-					|| appointment.getAppointmentEndDateAndTime()
-							.isAfter(dateAndTimeOfNow)) {
+		long epochMinuteOfNow = EpochMinutes.of(LocalDateTime.now());
+		for (WorkingAppointment appointment : getWorkingAppointmentsWithStatus(WorkingAppointmentStatus.OPEN)) {
+			if (appointment.getAppointmentBeginEpochMinute() >= epochMinuteOfNow
+					|| appointment.getAppointmentEndEpochMinute() > epochMinuteOfNow) {
 				if (appointment.getWorkingPlatformRelatedToWorkingAppointment()
 						.getWorkingPlatformId()
 						.equals(idOfWorkingPlatformToLookup)) {
-					if (appointment.getStatus()
-							.equals("OPEN")) {
-						allOpenWorkingAppointments.add(appointment);
-					}
+					allOpenWorkingAppointments.add(appointment);
 				}
 			}
 		}
@@ -828,16 +1564,12 @@ public class PlannerService {
 
 	public Set<CleaningAppointment> getAllOpenCleaningAppointmentsByWorkingPlatformIdOrDispatcher(
 			String idOfWorkingPlatformToLookup, String usernameOfDesiredDispatcher) {
-		Set<CleaningAppointment> allCleaningAppointments = PLANNER_SERVICE.getAllCleaningAppointments();
+		Set<CleaningAppointment> allCleaningAppointments = getAllCleaningAppointments();
 		Set<CleaningAppointment> allOpenCleaningAppointments = new HashSet<>();
-		LocalDateTime dateAndTimeOfNow = LocalDateTime.now();
+		long epochMinuteOfNow = EpochMinutes.of(LocalDateTime.now());
 		for (CleaningAppointment appointment : allCleaningAppointments) {
-			if ((appointment.getAppointmentBeginDateAndTime()
-					.isAfter(dateAndTimeOfNow)
-					|| appointment.getAppointmentBeginDateAndTime()
-							.isEqual(dateAndTimeOfNow))
-					|| appointment.getAppointmentEndDateAndTime()
-							.isAfter(dateAndTimeOfNow)) {
+			if (appointment.getAppointmentBeginEpochMinute() >= epochMinuteOfNow
+					|| appointment.getAppointmentEndEpochMinute() > epochMinuteOfNow) {
 				if (appointment.getWorkingPlatformRelatedToCleaningAppointment()
 						.getWorkingPlatformId()
 						.equals(idOfWorkingPlatformToLookup)
@@ -865,10 +1597,21 @@ public class PlannerService {
 						"doesn´t matter"));
 	}
 
-	// observing operation hours and times between appointments would be useful,
-	// but we left it out for now because it is not demanded in the requirements
-	public void createAndAddNextAvailableCleaningAppointment(CleaningAppointmentType cleaningAppointmentType,
-			String workingPlatformIdOfPlatformRelatedToAppointment,
+	/**
+	 * Books a cleaning appointment at the earliest date from the next minute on,
+	 * at which the working platform and the dispatcher are free together (see
+	 * {@link PlanningCalendarData#findEarliestFreeSlot(List, List, long, long, long)}).
+	 * If another thread books the found date first, the search is repeated a few
+	 * times. Nothing is printed.
+	 * 
+	 * Note: observing operation hours and times between appointments would be
+	 * useful, but we left it out for now because it is not demanded in the
+	 * requirements
+	 * 
+	 * @return - the booked cleaning appointment, or why none was booked
+	 */
+	public Outcome<CleaningAppointment> createAndAddNextAvailableCleaningAppointment(
+			CleaningAppointmentType cleaningAppointmentType, String workingPlatformIdOfPlatformRelatedToAppointment,
 			String dispatcherUsernameOfResponsibleDispatcherUser) {
 		int appointmentDurationInMinutes;
 		switch (cleaningAppointmentType) {
@@ -881,98 +1624,69 @@ public class PlannerService {
 		default:
 			throw new IllegalArgumentException();
 		}
-		Set<WorkingAppointment> allOpenWorkingAppointmentsByGivenWorkingPlatformIdAfterNow = this
-				.getAllOpenWorkingAppointmentsByWorkingPlatformId(workingPlatformIdOfPlatformRelatedToAppointment);
-		Set<CleaningAppointment> allOpenCleaningAppointmentsByGivenWorkingPlatformIdAfterNow = this
-				.getAllOpenCleaningAppointmentsByWorkingPlatformIdOrDispatcher(
-						workingPlatformIdOfPlatformRelatedToAppointment, dispatcherUsernameOfResponsibleDispatcherUser);
-		Set<Appointment> allAppointmentsAfterNow = mergeSetsToSortedSet(
-				allOpenWorkingAppointmentsByGivenWorkingPlatformIdAfterNow,
-				allOpenCleaningAppointmentsByGivenWorkingPlatformIdAfterNow);
-		ArrayList<Appointment> arrayAllAppointmentsAfterNow = new ArrayList<>();
-		allAppointmentsAfterNow.forEach(appointment -> arrayAllAppointmentsAfterNow.add(appointment));
-		LocalDateTime dateAndTimeOfNow = LocalDateTime.now();
-		if (arrayAllAppointmentsAfterNow.isEmpty()) {
-			System.out.println("Appointment created NOW at " + dateAndTimeOfNow + "!");
-			this.createAndAddNewCleaningAppointment(cleaningAppointmentType,
-					workingPlatformIdOfPlatformRelatedToAppointment, dateAndTimeOfNow,
+		Optional<WorkingPlatform> optionalWorkingPlatform = PLATFORM_SERVICE
+				.getWorkingPlatformById(workingPlatformIdOfPlatformRelatedToAppointment);
+		if (!optionalWorkingPlatform.isPresent()) {
+			return Outcome.notFound(
+					"The working platform with the ID: %s does not exist. Cleaning appointment NOT created!",
+					workingPlatformIdOfPlatformRelatedToAppointment);
+		}
+		Optional<User> optionalDispatcher = USER_SERVICE
+				.getUserByUsername(dispatcherUsernameOfResponsibleDispatcherUser);
+		if (!optionalDispatcher.isPresent()) {
+			return Outcome.notFound("User with the username %s does not exist.",
 					dispatcherUsernameOfResponsibleDispatcherUser);
-		} else {
-			int differenceBetweenNowAndFirstAppointment = (int) ChronoUnit.MINUTES.between(dateAndTimeOfNow,
-					arrayAllAppointmentsAfterNow.get(0)
-							.getAppointmentBeginDateAndTime());
-			if (differenceBetweenNowAndFirstAppointment >= appointmentDurationInMinutes) {
-				System.out.println("Appointment created NOW at " + dateAndTimeOfNow + "!");
-				this.createAndAddNewCleaningAppointment(cleaningAppointmentType,
-						workingPlatformIdOfPlatformRelatedToAppointment, dateAndTimeOfNow,
-						dispatcherUsernameOfResponsibleDispatcherUser);
-			} else {
-				for (int i = 0; i < arrayAllAppointmentsAfterNow.size(); i++) {
-					if (i + 1 != arrayAllAppointmentsAfterNow.size()) {
-						Appointment appointment1 = arrayAllAppointmentsAfterNow.get(i);
-						Appointment nextAppointment = arrayAllAppointmentsAfterNow.get(i + 1);
-						int difference = (int) ChronoUnit.MINUTES.between(appointment1.getAppointmentEndDateAndTime(),
-								nextAppointment.getAppointmentBeginDateAndTime());
-						if (difference >= appointmentDurationInMinutes) {
-							System.out.println(
-									"Appointment created at " + appointment1.getAppointmentEndDateAndTime() + "!");
-							this.createAndAddNewCleaningAppointment(cleaningAppointmentType,
-									workingPlatformIdOfPlatformRelatedToAppointment,
-									appointment1.getAppointmentEndDateAndTime(),
-									dispatcherUsernameOfResponsibleDispatcherUser);
-							break;
-						}
-					} else {
-						System.out.println("Appointment created after all existing appointments at "
-								+ arrayAllAppointmentsAfterNow.get(arrayAllAppointmentsAfterNow.size() - 1)
-										.getAppointmentEndDateAndTime()
-								+ "!");
-						this.createAndAddNewCleaningAppointment(cleaningAppointmentType,
-								workingPlatformIdOfPlatformRelatedToAppointment,
-								arrayAllAppointmentsAfterNow.get(arrayAllAppointmentsAfterNow.size() - 1)
-										.getAppointmentEndDateAndTime(),
-								dispatcherUsernameOfResponsibleDispatcherUser);
-					}
-				}
+		}
+		if (!(optionalDispatcher.get() instanceof DispatcherUser)) {
+			return Outcome.invalid(
+					"User with the username %s isn´t a Dispatcher, please choose a username realted to a Dispatcher.",
+					dispatcherUsernameOfResponsibleDispatcherUser);
+		}
+		List<WorkingPlatform> workingPlatforms = Collections.singletonList(optionalWorkingPlatform.get());
+		List<DispatcherUser> dispatchers = Collections.singletonList((DispatcherUser) optionalDispatcher.get());
+		long earliestBeginOfSlot = getEarliestBeginOfSlots(null);
+		Outcome<CleaningAppointment> booking = null;
+		for (int attempt = 0; attempt < MAX_NUMBER_OF_SEARCHES_FOR_EARLIEST_DATE; attempt++) {
+			Optional<FreeSlot<DispatcherUser>> optionalFreeSlot = planningCalendarData.findEarliestFreeSlot(
+					workingPlatforms, dispatchers, appointmentDurationInMinutes, earliestBeginOfSlot, Long.MAX_VALUE);
+			if (!optionalFreeSlot.isPresent()) {
+				return Outcome.conflict(null,
+						"The working platform and the dispatcher are never free together for %d minutes. Cleaning appointment NOT created!",
+						appointmentDurationInMinutes);
+			}
+			booking = createAndAddNewCleaningAppointment(cleaningAppointmentType,
+					workingPlatformIdOfPlatformRelatedToAppointment,
+					EpochMinutes.toLocalDateTime(optionalFreeSlot.get()
+							.getBegin()),
+					dispatcherUsernameOfResponsibleDispatcherUser);
+			if (booking.getKind() != Outcome.Kind.CONFLICT) {
+				return booking;
 			}
 		}
+		return booking;
 	}
 
 	// MLP040
 
 	public Set<WorkingAppointment> getAllOpenWorkingAppointmentsAfterNow() {
-		Set<WorkingAppointment> allWorkingAppointments = PLANNER_SERVICE.getAllWorkingAppointments();
 		Set<WorkingAppointment> allOpenWorkingAppointments = new HashSet<>();
-		LocalDateTime dateAndTimeOfNow = LocalDateTime.now();
-		for (WorkingAppointment appointment : allWorkingAppointments) {
-			if ((appointment.getAppointmentBeginDateAndTime()
-					.isAfter(dateAndTimeOfNow)
-					|| appointment.getAppointmentBeginDateAndTime()
-							.isEqual(dateAndTimeOfNow))
-					|| appointment.getAppointmentEndDateAndTime()
-							.isAfter(dateAndTimeOfNow)) {
-				{
-					if (appointment.getStatus()
-							.equals("OPEN")) {
-						allOpenWorkingAppointments.add(appointment);
-					}
-				}
+		long epochMinuteOfNow = EpochMinutes.of(LocalDateTime.now());
+		for (WorkingAppointment appointment : getWorkingAppointmentsWithStatus(WorkingAppointmentStatus.OPEN)) {
+			if (appointment.getAppointmentBeginEpochMinute() >= epochMinuteOfNow
+					|| appointment.getAppointmentEndEpochMinute() > epochMinuteOfNow) {
+				allOpenWorkingAppointments.add(appointment);
 			}
 		}
 		return allOpenWorkingAppointments;
 	}
 
 	public Set<CleaningAppointment> getAllOpenCleaningAppointmentsAfterNow() {
-		Set<CleaningAppointment> allCleaningAppointments = PLANNER_SERVICE.getAllCleaningAppointments();
+		Set<CleaningAppointment> allCleaningAppointments = getAllCleaningAppointments();
 		Set<CleaningAppointment> allOpenCleaningAppointments = new HashSet<>();
-		LocalDateTime dateAndTimeOfNow = LocalDateTime.now();
+		long epochMinuteOfNow = EpochMinutes.of(LocalDateTime.now());
 		for (CleaningAppointment appointment : allCleaningAppointments) {
-			if ((appointment.getAppointmentBeginDateAndTime()
-					.isAfter(dateAndTimeOfNow)
-					|| appointment.getAppointmentBeginDateAndTime()
-							.isEqual(dateAndTimeOfNow))
-					|| appointment.getAppointmentEndDateAndTime()
-							.isAfter(dateAndTimeOfNow)) {
+			if (appointment.getAppointmentBeginEpochMinute() >= epochMinuteOfNow
+					|| appointment.getAppointmentEndEpochMinute() > epochMinuteOfNow) {
 				{
 					allOpenCleaningAppointments.add(appointment);
 				}
@@ -987,162 +1701,158 @@ public class PlannerService {
 	}
 
 	/**
-	 * A method that suggests the user three available dates for a given working
-	 * appointment. It also takes in account other appointments occupying a working
-	 * platform. Method checks for different possible gaps between date of now and a
-	 * list of all open appointments.
+	 * Searches the next dates, at which a working appointment with the given works
+	 * could be booked on the working platform. At each date the working platform
+	 * and the car mechanic (or at least one car mechanic, if no username is given)
+	 * are free for the whole duration of the works. The dates don't overlap each
+	 * other.
 	 * 
 	 * Note: observing operation hours and times between appointments would be
 	 * useful, but we left it out for now because it is not demanded in the
 	 * requirements
 	 * 
+	 * @param idsOfWorksToPerformDuringNewWorkingAppointment - IDs of the works to
+	 *                                                        perform
+	 * @param workingPlatformIdOfPlatformRelatedToAppointment - ID of the working
+	 *                                                        platform
+	 * @param usernameOfResponsibleCarMechanic                - username of the car
+	 *                                                        mechanic or null for
+	 *                                                        any car mechanic
+	 * @param numberOfDates                                   - maximum number of
+	 *                                                        returned dates
+	 * @param earliestBegin                                   - no date before this,
+	 *                                                        null for now
+	 * @param latestEnd                                       - no appointment
+	 *                                                        ending after this,
+	 *                                                        null for no limit
+	 * @return - List of the sorted dates (may be empty), or not found if the
+	 *         working platform, the car mechanic or a work does not exist
+	 */
+	public Outcome<List<LocalDateTime>> getNextAvailableWorkingAppointmentDatesOnWorkingPlatform(
+			Set<String> idsOfWorksToPerformDuringNewWorkingAppointment,
+			String workingPlatformIdOfPlatformRelatedToAppointment, String usernameOfResponsibleCarMechanic,
+			int numberOfDates, LocalDateTime earliestBegin, LocalDateTime latestEnd) {
+		Optional<WorkingPlatform> optionalWorkingPlatform = PLATFORM_SERVICE
+				.getWorkingPlatformById(workingPlatformIdOfPlatformRelatedToAppointment);
+		if (!optionalWorkingPlatform.isPresent()) {
+			return Outcome.notFound("The working platform with the ID: %s does not exist. No dates found!",
+					workingPlatformIdOfPlatformRelatedToAppointment);
+		}
+		if (!optionalWorkingPlatform.get()
+				.getLocation()
+				.equals(location)) {
+			return workingPlatformOfAnotherLocation(optionalWorkingPlatform.get(), location);
+		}
+		Outcome<Set<CarMechanicUser>> carMechanicUsers = getCarMechanicUsers(usernameOfResponsibleCarMechanic);
+		if (!carMechanicUsers.isAccepted()) {
+			return carMechanicUsers.asRejection();
+		}
+		Outcome<Integer> durationOfAllWorks = getDurationOfAllWorks(idsOfWorksToPerformDuringNewWorkingAppointment);
+		if (!durationOfAllWorks.isAccepted()) {
+			return durationOfAllWorks.asRejection();
+		}
+		return Outcome.accepted(toLocalDateTimes(planningCalendarData.findFreeSlotsOnWorkingPlatform(
+				optionalWorkingPlatform.get(), carMechanicUsers.getResult()
+						.get(),
+				durationOfAllWorks.getResult()
+						.get(),
+				getEarliestBeginOfSlots(earliestBegin), getLatestEndOfSlots(latestEnd), numberOfDates)));
+	}
+
+	/**
+	 * A method that suggests the user three available dates for a given working
+	 * appointment on a working platform, see
+	 * {@link #getNextAvailableWorkingAppointmentDatesOnWorkingPlatform(Set, String, String, int, LocalDateTime, LocalDateTime)}.
 	 * 
 	 * @param idsOfWorksToPerformDuringNewWorkingAppointment
 	 * @param workingPlatformIdOfPlatformRelatedToAppointment
 	 * @return
 	 */
-	public ArrayList<LocalDateTime> getSuggestionOfThreeNextAvailableWorkingAppointmentDatesOnWorkingPlatform(
+	public Outcome<List<LocalDateTime>> getSuggestionOfThreeNextAvailableWorkingAppointmentDatesOnWorkingPlatform(
 			Set<String> idsOfWorksToPerformDuringNewWorkingAppointment,
 			String workingPlatformIdOfPlatformRelatedToAppointment) {
-		Set<Appointment> allAppointmentsAfterNow = getAllOpenSortedAppointmentsOnWorkingPlatformAfterNow(
-				workingPlatformIdOfPlatformRelatedToAppointment);
-		LocalDateTime dateAndTimeOfNow = LocalDateTime.now();
-		int appointmentDurationInMinutes = 0;
-		Set<Work> worksToPerform = new HashSet<>();
-		Optional<Work> optionalWorkToPerform;
-		for (String string : idsOfWorksToPerformDuringNewWorkingAppointment) {
-			optionalWorkToPerform = WORK_SERVICE.getWorkById(string);
-			if (optionalWorkToPerform.isPresent()) {
-				worksToPerform.add(optionalWorkToPerform.get());
-			}
+		return getNextAvailableWorkingAppointmentDatesOnWorkingPlatform(idsOfWorksToPerformDuringNewWorkingAppointment,
+				workingPlatformIdOfPlatformRelatedToAppointment, null, 3, null, null);
+	}
+
+	/**
+	 * @return - the car mechanic with the given username or all car mechanics of
+	 *         this location, if the username is null (may be empty), not found if
+	 *         there is no car mechanic with the username, or invalid if the car
+	 *         mechanic belongs to another location
+	 */
+	private Outcome<Set<CarMechanicUser>> getCarMechanicUsers(String usernameOfCarMechanic) {
+		if (usernameOfCarMechanic == null) {
+			return Outcome.accepted(getCarMechanicUsersOfThisLocation());
 		}
-		for (Work work : worksToPerform) {
-			appointmentDurationInMinutes += work.getWorkDuration();
-		}
-		ArrayList<LocalDateTime> nextThreeSuggestionDatesForWorkingAppointment = new ArrayList<>();
-		int anzahlFreiePlätze;
-		int sizeOfTheThreeSugestionList = 0;
-		if (allAppointmentsAfterNow.isEmpty()) {
-			anzahlFreiePlätze = 3;
-			nextThreeSuggestionDatesForWorkingAppointment.add(dateAndTimeOfNow);
-			// System.out.println("First Suggestion is now at " + dateAndTimeOfNow + "!");
-			sizeOfTheThreeSugestionList += 1;
-			anzahlFreiePlätze -= 1;
-			if (anzahlFreiePlätze >= 1) {
-				while (anzahlFreiePlätze > 0) {
-					LocalDateTime lastSuggestion = nextThreeSuggestionDatesForWorkingAppointment
-							.get(nextThreeSuggestionDatesForWorkingAppointment.size() - 1);
-					LocalDateTime endOfLastSuggestion = lastSuggestion.plusMinutes(appointmentDurationInMinutes);
-					nextThreeSuggestionDatesForWorkingAppointment.add(endOfLastSuggestion);
-					// System.out.println("Suggestion after suggestion: " + endOfLastSuggestion);
-					sizeOfTheThreeSugestionList += 1;
-					anzahlFreiePlätze -= 1;
-				}
-			}
-		} else {
-			ArrayList<Appointment> arrayAllAppointmentsAfterNow = new ArrayList<>();
-			allAppointmentsAfterNow.forEach(appointment -> arrayAllAppointmentsAfterNow.add(appointment));
-
-			// Look if one or more are free right now
-			int differenceBetweenNowAndFirstAppointment = (int) ChronoUnit.MINUTES.between(dateAndTimeOfNow,
-					arrayAllAppointmentsAfterNow.get(0)
-							.getAppointmentBeginDateAndTime())
-					+ 1;
-
-			if (differenceBetweenNowAndFirstAppointment >= appointmentDurationInMinutes) {
-				anzahlFreiePlätze = differenceBetweenNowAndFirstAppointment / appointmentDurationInMinutes;
-				if (anzahlFreiePlätze > 3)
-					anzahlFreiePlätze = 3;
-				nextThreeSuggestionDatesForWorkingAppointment.add(dateAndTimeOfNow);
-				// System.out.println("First Suggestion is now at " + dateAndTimeOfNow + "!");
-				sizeOfTheThreeSugestionList += 1;
-				anzahlFreiePlätze -= 1;
-				if (anzahlFreiePlätze >= 1) {
-					while (anzahlFreiePlätze > 0 && sizeOfTheThreeSugestionList < 3) {
-						LocalDateTime lastSuggestion = nextThreeSuggestionDatesForWorkingAppointment
-								.get(nextThreeSuggestionDatesForWorkingAppointment.size() - 1);
-						LocalDateTime endOfLastSuggestion = lastSuggestion.plusMinutes(appointmentDurationInMinutes);
-						nextThreeSuggestionDatesForWorkingAppointment.add(endOfLastSuggestion);
-						// System.out.println("Suggestion after suggestion: " + endOfLastSuggestion);
-						sizeOfTheThreeSugestionList += 1;
-						anzahlFreiePlätze -= 1;
-					}
-				}
-			}
-			for (int i = 0; i < arrayAllAppointmentsAfterNow.size(); i++) {
-				if (sizeOfTheThreeSugestionList < 3) {
-					if (i + 1 != arrayAllAppointmentsAfterNow.size()) {
-						Appointment appointment1 = arrayAllAppointmentsAfterNow.get(i);
-						Appointment nextAppointment = arrayAllAppointmentsAfterNow.get(i + 1);
-						int difference = (int) ChronoUnit.MINUTES.between(appointment1.getAppointmentEndDateAndTime(),
-								nextAppointment.getAppointmentBeginDateAndTime()) + 1;
-						if (difference >= appointmentDurationInMinutes && !nextThreeSuggestionDatesForWorkingAppointment
-								.contains(appointment1.getAppointmentEndDateAndTime())) {
-							anzahlFreiePlätze = difference / appointmentDurationInMinutes;
-							if (anzahlFreiePlätze > 3)
-								anzahlFreiePlätze = 3;
-							nextThreeSuggestionDatesForWorkingAppointment
-									.add(appointment1.getAppointmentEndDateAndTime());
-							// System.out.println("Suggestion at: " +
-							// appointment1.getAppointmentEndDateAndTime());
-							sizeOfTheThreeSugestionList += 1;
-							anzahlFreiePlätze -= 1;
-							if (anzahlFreiePlätze >= 1 && sizeOfTheThreeSugestionList < 3) {
-								while (anzahlFreiePlätze > 0 && sizeOfTheThreeSugestionList < 3) {
-									LocalDateTime lastSuggestion = nextThreeSuggestionDatesForWorkingAppointment
-											.get(nextThreeSuggestionDatesForWorkingAppointment.size() - 1);
-									LocalDateTime endOfLastSuggestion = lastSuggestion
-											.plusMinutes(appointmentDurationInMinutes);
-									nextThreeSuggestionDatesForWorkingAppointment.add(endOfLastSuggestion);
-									// System.out.println("Suggestion after suggestion: " + endOfLastSuggestion);
-									sizeOfTheThreeSugestionList += 1;
-									anzahlFreiePlätze -= 1;
-								}
-							}
-						}
-					}
-				} else {
-					// System.out.println("All suggestions found");
-					break;
-				}
-			}
-			// Attach to the last element
-			if (sizeOfTheThreeSugestionList < 3) {
-				LocalDateTime endOfLastAppointment = arrayAllAppointmentsAfterNow
-						.get(arrayAllAppointmentsAfterNow.size() - 1)
-						.getAppointmentEndDateAndTime();
-				if (!nextThreeSuggestionDatesForWorkingAppointment.contains(endOfLastAppointment)) {
-					nextThreeSuggestionDatesForWorkingAppointment.add(endOfLastAppointment);
-					// System.out.println("Suggestion at end of existing appointments: " +
-					// endOfLastAppointment);
-					sizeOfTheThreeSugestionList += 1;
-				}
+		Optional<User> optionalUser = USER_SERVICE.getUserByUsername(usernameOfCarMechanic);
+		if (!optionalUser.isPresent() || !(optionalUser.get() instanceof CarMechanicUser)) {
+			return Outcome.notFound("User with the username %s does not exist or isn´t a CarMechanic. No dates found!",
+					usernameOfCarMechanic);
+		}
+		if (!optionalUser.get()
+				.getLocation()
+				.equals(location)) {
+			return userOfAnotherLocation(optionalUser.get(), location);
+		}
+		return Outcome.accepted(Collections.singleton((CarMechanicUser) optionalUser.get()));
+	}
+
+	private Set<CarMechanicUser> getCarMechanicUsersOfThisLocation() {
+		Set<CarMechanicUser> carMechanicUsers = new HashSet<>();
+		for (User user : USER_SERVICE.getUsersOfLocation(location)) {
+			if (user instanceof CarMechanicUser) {
+				carMechanicUsers.add((CarMechanicUser) user);
 			}
-			// If lists size is still smaller than 3, attach suggestion to the end of the
-			// last suggestion
-			while (sizeOfTheThreeSugestionList < 3) {
-				LocalDateTime lastSuggestion = nextThreeSuggestionDatesForWorkingAppointment
-						.get(nextThreeSuggestionDatesForWorkingAppointment.size() - 1);
-				LocalDateTime endOfLastSuggestion = lastSuggestion.plusMinutes(appointmentDurationInMinutes);
-				nextThreeSuggestionDatesForWorkingAppointment.add(endOfLastSuggestion);
-				// System.out.println("Suggestion after last suggestion: " +
-				// endOfLastSuggestion);
-				sizeOfTheThreeSugestionList += 1;
+		}
+		return carMechanicUsers;
+	}
+
+	/**
+	 * @return - the sum of the durations of the works, not found if one of the
+	 *         works does not exist, or invalid if there is no work
+	 */
+	private static Outcome<Integer> getDurationOfAllWorks(Set<String> idsOfWorks) {
+		if (idsOfWorks.isEmpty()) {
+			return Outcome.invalid("The set of works to perform is empty. No dates found!");
+		}
+		int durationOfAllWorks = 0;
+		for (String workId : idsOfWorks) {
+			Optional<Work> optionalWork = WORK_SERVICE.getWorkById(workId);
+			if (!optionalWork.isPresent()) {
+				return Outcome.notFound("A work with the ID(%s) of your set of works doesn´t exist. No dates found!",
+						workId);
 			}
+			durationOfAllWorks += optionalWork.get()
+					.getWorkDuration();
 		}
-		return nextThreeSuggestionDatesForWorkingAppointment;
+		return Outcome.accepted(durationOfAllWorks);
 	}
 
-	public void printSuggestionOfThreeNextAvailableWorkingAppointmentDatesOnWorkingPlatform(
-			Set<String> idsOfWorksToPerformDuringNewWorkingAppointment,
-			String workingPlatformIdOfPlatformRelatedToAppointment) {
-		ArrayList<LocalDateTime> allNextThreeSuggestionDatesAndTimesForWorkingAppointment = this
-				.getSuggestionOfThreeNextAvailableWorkingAppointmentDatesOnWorkingPlatform(
-						idsOfWorksToPerformDuringNewWorkingAppointment,
-						workingPlatformIdOfPlatformRelatedToAppointment);
+	/**
+	 * @return - the given begin or the begin of the next minute, if the begin is
+	 *         null, in epoch minutes
+	 */
+	private static long getEarliestBeginOfSlots(LocalDateTime earliestBegin) {
+		return earliestBegin != null ? EpochMinutes.of(earliestBegin) : EpochMinutes.of(LocalDateTime.now()) + 1;
+	}
+
+	private static long getLatestEndOfSlots(LocalDateTime latestEnd) {
+		return latestEnd != null ? EpochMinutes.of(latestEnd) : Long.MAX_VALUE;
+	}
+
+	private static List<LocalDateTime> toLocalDateTimes(long[] epochMinutes) {
+		List<LocalDateTime> datesAndTimes = new ArrayList<>(epochMinutes.length);
+		for (long epochMinute : epochMinutes) {
+			datesAndTimes.add(EpochMinutes.toLocalDateTime(epochMinute));
+		}
+		return datesAndTimes;
+	}
+
+	private static void printSuggestions(List<LocalDateTime> suggestedDatesAndTimes) {
 		int counter = 1;
 		System.out.println();
-		for (LocalDateTime localDateTime : allNextThreeSuggestionDatesAndTimesForWorkingAppointment) {
+		for (LocalDateTime localDateTime : suggestedDatesAndTimes) {
 			System.out
 					.println("Suggestion " + counter + ": On " + DateTimeFormatter.ISO_LOCAL_DATE.format(localDateTime)
 							+ " at " + DateTimeFormatter.ISO_LOCAL_TIME.format(localDateTime));
@@ -1150,18 +1860,76 @@ public class PlannerService {
 		}
 	}
 
+	public void printSuggestionOfThreeNextAvailableWorkingAppointmentDatesOnWorkingPlatform(
+			Set<String> idsOfWorksToPerformDuringNewWorkingAppointment,
+			String workingPlatformIdOfPlatformRelatedToAppointment) {
+		this.getSuggestionOfThreeNextAvailableWorkingAppointmentDatesOnWorkingPlatform(
+				idsOfWorksToPerformDuringNewWorkingAppointment, workingPlatformIdOfPlatformRelatedToAppointment)
+				.printIfRejected()
+				.getResult()
+				.ifPresent(PlannerService::printSuggestions);
+	}
+
+	/**
+	 * Searches the next available dates for a working appointment with the given
+	 * works on ALL working platforms of this location at once, see
+	 * {@link #getNextAvailableWorkingAppointmentDatesOnWorkingPlatform(Set, String, String, int, LocalDateTime, LocalDateTime)}.
+	 * The working platforms are searched in parallel.
+	 * 
+	 * @return - Map of all working platforms to their dates, ordered by the first
+	 *         date, so the best offers come first. Working platforms without any
+	 *         date come last. Not found if the car mechanic or a work does not
+	 *         exist.
+	 */
+	public Outcome<Map<WorkingPlatform, List<LocalDateTime>>> getNextAvailableWorkingAppointmentDatesOnAllWorkingPlatforms(
+			Set<String> idsOfWorksToPerformDuringNewWorkingAppointment, String usernameOfResponsibleCarMechanic,
+			int numberOfDatesPerWorkingPlatform, LocalDateTime earliestBegin, LocalDateTime latestEnd) {
+		Outcome<Set<CarMechanicUser>> carMechanicUsers = getCarMechanicUsers(usernameOfResponsibleCarMechanic);
+		if (!carMechanicUsers.isAccepted()) {
+			return carMechanicUsers.asRejection();
+		}
+		Outcome<Integer> durationOfAllWorks = getDurationOfAllWorks(idsOfWorksToPerformDuringNewWorkingAppointment);
+		if (!durationOfAllWorks.isAccepted()) {
+			return durationOfAllWorks.asRejection();
+		}
+		Map<WorkingPlatform, long[]> datesOfWorkingPlatforms = planningCalendarData.findFreeSlotsOnWorkingPlatforms(
+				PLATFORM_SERVICE.getWorkingPlatformsOfLocation(location), carMechanicUsers.getResult()
+						.get(),
+				durationOfAllWorks.getResult()
+						.get(),
+				getEarliestBeginOfSlots(earliestBegin), getLatestEndOfSlots(latestEnd),
+				numberOfDatesPerWorkingPlatform);
+		Comparator<Map.Entry<WorkingPlatform, long[]>> byFirstDate = Comparator
+				.comparingLong(entry -> entry.getValue().length == 0 ? Long.MAX_VALUE : entry.getValue()[0]);
+		return Outcome.accepted(datesOfWorkingPlatforms.entrySet()
+				.stream()
+				.sorted(byFirstDate.thenComparing(entry -> entry.getKey()
+						.getWorkingPlatformId()))
+				.collect(Collectors.toMap(Map.Entry::getKey, entry -> toLocalDateTimes(entry.getValue()),
+						(first, second) -> first, LinkedHashMap::new)));
+	}
+
+	/**
+	 * Prints three suggestions for each working platform, the working platform
+	 * with the earliest suggestion first.
+	 */
 	public void printSuggestionOfThreeNextAvailableWorkingAppointmentDatesForEachWorkingPlatform(
 			Set<String> idsOfWorksToPerformDuringNewWorkingAppointment) {
-		Set<WorkingPlatform> allWorkingPlatforms = PLATFORM_SERVICE.getAllWorkingPlatforms();
-		Set<String> idOfAllWorkingPlatforms = new HashSet<>();
-		allWorkingPlatforms.forEach(platform -> idOfAllWorkingPlatforms.add(platform.getWorkingPlatformId()));
+		Outcome<Map<WorkingPlatform, List<LocalDateTime>>> outcome = this
+				.getNextAvailableWorkingAppointmentDatesOnAllWorkingPlatforms(
+						idsOfWorksToPerformDuringNewWorkingAppointment, null, 3, null, null);
+		if (!outcome.printIfRejected()
+				.isAccepted()) {
+			return;
+		}
+		Map<WorkingPlatform, List<LocalDateTime>> suggestionsOfWorkingPlatforms = outcome.getResult()
+				.get();
 		System.out.println("\n---Suggestions for each working platform:---");
-		for (String string : idOfAllWorkingPlatforms) {
-			System.out.print("Suggestions for " + string);
-			this.printSuggestionOfThreeNextAvailableWorkingAppointmentDatesOnWorkingPlatform(
-					idsOfWorksToPerformDuringNewWorkingAppointment, string);
+		suggestionsOfWorkingPlatforms.forEach((workingPlatform, suggestions) -> {
+			System.out.print("Suggestions for " + workingPlatform.getWorkingPlatformId());
+			printSuggestions(suggestions);
 			System.out.println();
-		}
+		});
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,189 @@
+package de.hs_kl.staab.planner.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.CleaningAppointment;
+import de.hs_kl.staab.planner.EpochMinutes;
+import de.hs_kl.staab.planner.User;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+import de.hs_kl.staab.planner.WorkingPlatform;
+
+/**
+ * Result of
+ * {@link PlannerService#planRescheduling(LocalDate, LocalDate, java.util.Set, java.util.Set)}:
+ * the appointments to move, each with its place at planning time and its new
+ * place. Nothing is changed until the plan is committed with
+ * {@link PlannerService#commitRescheduling(ReschedulingPlan)}.
+ */
+public class ReschedulingPlan {
+
+	private final List<Move> moves;
+	private final List<Appointment> appointmentsLeftOnUnavailableResources;
+	private final long totalDelayInMinutes;
+	private final int numberOfDayChanges;
+
+	ReschedulingPlan(List<Move> moves, List<Appointment> appointmentsLeftOnUnavailableResources) {
+		this.moves = Collections.unmodifiableList(moves);
+		this.appointmentsLeftOnUnavailableResources = Collections
+				.unmodifiableList(appointmentsLeftOnUnavailableResources);
+		long delay = 0;
+		int dayChanges = 0;
+		for (Move move : moves) {
+			delay += move.getDelayInMinutes();
+			if (move.isChangingDay()) {
+				dayChanges++;
+			}
+		}
+		this.totalDelayInMinutes = delay;
+		this.numberOfDayChanges = dayChanges;
+	}
+
+	@Override
+	public String toString() {
+		return moves.size() + " moves, " + totalDelayInMinutes + " minutes delay, " + numberOfDayChanges
+				+ " day changes, " + appointmentsLeftOnUnavailableResources.size()
+				+ " appointments left on unavailable resources";
+	}
+
+	/**
+	 * @return - the appointments to move, sorted by their new begin
+	 */
+	public List<Move> getMoves() {
+		return moves;
+	}
+
+	/**
+	 * @return - appointments on an unavailable working platform or with an
+	 *         unavailable user, for which there is no replacement (e.g. the
+	 *         cleaning of an unavailable working platform)
+	 */
+	public List<Appointment> getAppointmentsLeftOnUnavailableResources() {
+		return appointmentsLeftOnUnavailableResources;
+	}
+
+	public long getTotalDelayInMinutes() {
+		return totalDelayInMinutes;
+	}
+
+	/**
+	 * @return - number of appointments moved to another day than before
+	 */
+	public int getNumberOfDayChanges() {
+		return numberOfDayChanges;
+	}
+
+	/**
+	 * One appointment of the plan, moved to a new begin, working platform and
+	 * responsible user. Appointments are only moved to later times, never to
+	 * earlier ones.
+	 */
+	public static class Move {
+
+		private final Appointment appointment;
+		private final long originalBegin;
+		private final long originalEnd;
+		private final WorkingPlatform originalWorkingPlatform;
+		private final User originalResponsibleUser;
+		private final long newBegin;
+		private final WorkingPlatform newWorkingPlatform;
+		private final User newResponsibleUser;
+
+		Move(Appointment appointment, long newBegin, WorkingPlatform newWorkingPlatform, User newResponsibleUser) {
+			this.appointment = appointment;
+			this.originalBegin = appointment.getAppointmentBeginEpochMinute();
+			this.originalEnd = appointment.getAppointmentEndEpochMinute();
+			this.originalWorkingPlatform = getWorkingPlatformOf(appointment);
+			this.originalResponsibleUser = getResponsibleUserOf(appointment);
+			this.newBegin = newBegin;
+			this.newWorkingPlatform = newWorkingPlatform;
+			this.newResponsibleUser = newResponsibleUser;
+		}
+
+		@Override
+		public String toString() {
+			return appointment.getAppointmentId() + ": " + EpochMinutes.toLocalDateTime(originalBegin) + " "
+					+ originalWorkingPlatform.getWorkingPlatformId() + " " + originalResponsibleUser.getUsername()
+					+ " -> " + getNewBeginDateAndTime() + " " + newWorkingPlatform.getWorkingPlatformId() + " "
+					+ newResponsibleUser.getUsername();
+		}
+
+		public Appointment getAppointment() {
+			return appointment;
+		}
+
+		public LocalDateTime getOriginalBeginDateAndTime() {
+			return EpochMinutes.toLocalDateTime(originalBegin);
+		}
+
+		public WorkingPlatform getOriginalWorkingPlatform() {
+			return originalWorkingPlatform;
+		}
+
+		public User getOriginalResponsibleUser() {
+			return originalResponsibleUser;
+		}
+
+		public LocalDateTime getNewBeginDateAndTime() {
+			return EpochMinutes.toLocalDateTime(newBegin);
+		}
+
+		public long getNewBeginEpochMinute() {
+			return newBegin;
+		}
+
+		public long getNewEndEpochMinute() {
+			return newBegin + originalEnd - originalBegin;
+		}
+
+		public WorkingPlatform getNewWorkingPlatform() {
+			return newWorkingPlatform;
+		}
+
+		public User getNewResponsibleUser() {
+			return newResponsibleUser;
+		}
+
+		public long getDelayInMinutes() {
+			return newBegin - originalBegin;
+		}
+
+		public boolean isChangingDay() {
+			return !EpochMinutes.toLocalDate(newBegin)
+					.equals(EpochMinutes.toLocalDate(originalBegin));
+		}
+
+		/**
+		 * @return - true if the appointment is still open and at the place it had
+		 *         when the plan was made
+		 */
+		boolean isStillApplicable() {
+			if (appointment instanceof WorkingAppointment
+					&& ((WorkingAppointment) appointment).getStatus() != WorkingAppointmentStatus.OPEN) {
+				return false;
+			}
+			return appointment.getAppointmentBeginEpochMinute() == originalBegin
+					&& appointment.getAppointmentEndEpochMinute() == originalEnd
+					&& getWorkingPlatformOf(appointment) == originalWorkingPlatform
+					&& getResponsibleUserOf(appointment) == originalResponsibleUser;
+		}
+
+		static WorkingPlatform getWorkingPlatformOf(Appointment appointment) {
+			if (appointment instanceof WorkingAppointment) {
+				return ((WorkingAppointment) appointment).getWorkingPlatformRelatedToWorkingAppointment();
+			}
+			return ((CleaningAppointment) appointment).getWorkingPlatformRelatedToCleaningAppointment();
+		}
+
+		static User getResponsibleUserOf(Appointment appointment) {
+			if (appointment instanceof WorkingAppointment) {
+				return ((WorkingAppointment) appointment).getResponsibleCarMechanicUser();
+			}
+			return ((CleaningAppointment) appointment).getResponsibleDispatcherUser();
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package de.hs_kl.staab.planner.services;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
@@ -8,112 +10,178 @@ import de.hs_kl.staab.planner.ClientAdvisorUser;
 import de.hs_kl.staab.planner.DispatcherUser;
 import de.hs_kl.staab.planner.User;
 import de.hs_kl.staab.planner.data.UserData;
+import de.hs_kl.staab.planner.services.PersistenceService.StateChange;
 
 public class UserService {
 	private static UserService USER_SERVICE;
 	private final static UserData USER_DATA = new UserData();
+	private final static PersistenceService PERSISTENCE_SERVICE = PersistenceService.getInstance();
 
 	private UserService() {
 	}
 
-	public static UserService getInstance() {
+	public static synchronized UserService getInstance() {
 		if (USER_SERVICE == null) {
 			USER_SERVICE = new UserService();
 		}
 		return USER_SERVICE;
 	}
 
+	static UserData getUserData() {
+		return USER_DATA;
+	}
+
 	public Set<User> getAllUsers() {
 		return USER_DATA.getAllUsers();
 	}
 
-	private boolean checkIfUsernameDuplicateAlreadyExists(String userName) {
-		Set<User> allUsers = USER_DATA.getAllUsers();
-		Boolean userDetailsAlreadyExist = false;
-		for (User user : allUsers) {
-			if (user.getUsername()
-					.equals(userName)) {
-				userDetailsAlreadyExist = true;
-				break;
+	/**
+	 * @return - the users the planner of the location may book
+	 */
+	public Set<User> getUsersOfLocation(String location) {
+		Set<User> usersOfLocation = new HashSet<>();
+		for (User user : USER_DATA.getAllUsers()) {
+			if (user.getLocation()
+					.equals(location)) {
+				usersOfLocation.add(user);
 			}
 		}
-		return userDetailsAlreadyExist;
+		return usersOfLocation;
 	}
 
-	public void createAndAddNewDispatcherUser(String userName, String userFirstName, String userLastName) {
-		if (!checkIfUsernameDuplicateAlreadyExists(userName)) {
-			USER_DATA.addUserToUserData(new DispatcherUser(userName, userFirstName, userLastName));
+	public Collection<User> getUsersOrderedByUsernameAfter(String userName) {
+		return USER_DATA.getUsersOrderedByUsernameAfter(userName);
+	}
+
+
+	/**
+	 * Creates the user at the {@link PlannerService#DEFAULT_LOCATION}.
+	 */
+	public Outcome<User> createAndAddNewDispatcherUser(String userName, String userFirstName, String userLastName) {
+		return createAndAddNewDispatcherUser(userName, userFirstName, userLastName, PlannerService.DEFAULT_LOCATION);
+	}
+
+	/**
+	 * @param location - the location whose planner may book the user, the
+	 *                 usernames are unique over all locations
+	 */
+	public synchronized Outcome<User> createAndAddNewDispatcherUser(String userName, String userFirstName,
+			String userLastName, String location) {
+		Optional<User> userWithSameUsername = USER_DATA.getUserByUsername(userName);
+		if (!userWithSameUsername.isPresent()) {
+			User newUser = new DispatcherUser(userName, userFirstName, userLastName, location);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				USER_DATA.addUserToUserData(newUser);
+				stateChange.journalUser(newUser);
+			}
+			return Outcome.accepted(newUser);
 		} else {
-			System.err.println(
-					"ERROR: Dispatcher-User with the same username already exists. Please choose a different username or check if the user you want to create already exists by using getAllUsers()");
+			return Outcome.conflict(userWithSameUsername.get(),
+					"Dispatcher-User with the same username already exists. Please choose a different username or check if the user you want to create already exists by using getAllUsers()");
 		}
 	}
 
-	public void createAndAddNewClientadvisorUser(String userName, String userFirstName, String userLastName) {
-		if (!checkIfUsernameDuplicateAlreadyExists(userName)) {
-			USER_DATA.addUserToUserData(new ClientAdvisorUser(userName, userFirstName, userLastName));
+	/**
+	 * Creates the user at the {@link PlannerService#DEFAULT_LOCATION}.
+	 */
+	public Outcome<User> createAndAddNewClientadvisorUser(String userName, String userFirstName, String userLastName) {
+		return createAndAddNewClientadvisorUser(userName, userFirstName, userLastName, PlannerService.DEFAULT_LOCATION);
+	}
+
+	public synchronized Outcome<User> createAndAddNewClientadvisorUser(String userName, String userFirstName,
+			String userLastName, String location) {
+		Optional<User> userWithSameUsername = USER_DATA.getUserByUsername(userName);
+		if (!userWithSameUsername.isPresent()) {
+			User newUser = new ClientAdvisorUser(userName, userFirstName, userLastName, location);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				USER_DATA.addUserToUserData(newUser);
+				stateChange.journalUser(newUser);
+			}
+			return Outcome.accepted(newUser);
 		} else {
-			System.err.println(
-					"ERROR: Clientadvisor-User with the same username already exists. Please choose a different username or check if the user you want to create already exists by using getAllUsers()");
+			return Outcome.conflict(userWithSameUsername.get(),
+					"Clientadvisor-User with the same username already exists. Please choose a different username or check if the user you want to create already exists by using getAllUsers()");
 		}
 	}
 
-	public void createAndAddNewCarMechanicUser(String userName, String userFirstName, String userLastName) {
-		if (!checkIfUsernameDuplicateAlreadyExists(userName)) {
-			USER_DATA.addUserToUserData(new CarMechanicUser(userName, userFirstName, userLastName));
+	/**
+	 * Creates the user at the {@link PlannerService#DEFAULT_LOCATION}.
+	 */
+	public Outcome<User> createAndAddNewCarMechanicUser(String userName, String userFirstName, String userLastName) {
+		return createAndAddNewCarMechanicUser(userName, userFirstName, userLastName, PlannerService.DEFAULT_LOCATION);
+	}
+
+	public synchronized Outcome<User> createAndAddNewCarMechanicUser(String userName, String userFirstName,
+			String userLastName, String location) {
+		Optional<User> userWithSameUsername = USER_DATA.getUserByUsername(userName);
+		if (!userWithSameUsername.isPresent()) {
+			User newUser = new CarMechanicUser(userName, userFirstName, userLastName, location);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				USER_DATA.addUserToUserData(newUser);
+				stateChange.journalUser(newUser);
+			}
+			return Outcome.accepted(newUser);
 		} else {
-			System.err.println(
-					"ERROR: Carmechanic-User with the same username  already exists. Please choose a different username or check if the user you want to create already exists by using getAllUsers()");
+			return Outcome.conflict(userWithSameUsername.get(),
+					"Carmechanic-User with the same username  already exists. Please choose a different username or check if the user you want to create already exists by using getAllUsers()");
 		}
 	}
 
 	public Optional<User> getUserByUsername(String userName) {
-		Set<User> allUsers = USER_DATA.getAllUsers();
-		User foundUser = null;
-		for (User user : allUsers) {
-			if (user.getUsername()
-					.equals(userName)) {
-				foundUser = user;
-				break;
-			}
-		}
-		return Optional.ofNullable(foundUser);
+		return USER_DATA.getUserByUsername(userName);
 	}
 
-	public void updateNameOfUser(String userNameOfUserToUpdate, String newUserFirstName, String newUserLastName) {
+	public Outcome<User> updateNameOfUser(String userNameOfUserToUpdate, String newUserFirstName,
+			String newUserLastName) {
 		Optional<User> optionalUserToUpdate = getUserByUsername(userNameOfUserToUpdate);
 		if (optionalUserToUpdate.isPresent()) {
 			User userToUpdate = optionalUserToUpdate.get();
-			userToUpdate.setUserFirstName(newUserFirstName);
-			userToUpdate.setUserLastName(newUserLastName);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				userToUpdate.setUserFirstName(newUserFirstName);
+				userToUpdate.setUserLastName(newUserLastName);
+				stateChange.journalUser(userToUpdate);
+			}
+			return Outcome.accepted(userToUpdate);
 		} else {
-			System.err.println("ERROR: User with the Username: " + userNameOfUserToUpdate
-					+ " was not found. Use getAllUsers() to see all the users with their Username.");
+			return Outcome.notFound(
+					"User with the Username: %s was not found. Use getAllUsers() to see all the users with their Username.",
+					userNameOfUserToUpdate);
 		}
 	}
 
-	public void updateUserNameOfUser(String userNameOfUserToUpdate, String newUserName) {
+	public synchronized Outcome<User> updateUserNameOfUser(String userNameOfUserToUpdate, String newUserName) {
 		Optional<User> optionalUserToUpdate = getUserByUsername(userNameOfUserToUpdate);
 		if (optionalUserToUpdate.isPresent()) {
-			if (!checkIfUsernameDuplicateAlreadyExists(newUserName)) {
-				optionalUserToUpdate.get()
-						.setUserName(newUserName);
+			Optional<User> userWithSameUsername = USER_DATA.getUserByUsername(newUserName);
+			if (!userWithSameUsername.isPresent()) {
+				try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+					USER_DATA.updateUsernameOfUser(optionalUserToUpdate.get(), newUserName);
+					stateChange.journalUsernameChanged(userNameOfUserToUpdate, newUserName);
+				}
+				return Outcome.accepted(optionalUserToUpdate.get());
 			} else {
-				System.err.println("ERROR: The username you wanted to use is already used. Choose a different one.");
+				return Outcome.conflict(userWithSameUsername.get(),
+						"The username you wanted to use is already used. Choose a different one.");
 			}
 		} else {
-			System.err.println("ERROR: User with the username: " + userNameOfUserToUpdate
-					+ " was not found. Use getAllUsers() to see all the users with their username.");
+			return Outcome.notFound(
+					"User with the username: %s was not found. Use getAllUsers() to see all the users with their username.",
+					userNameOfUserToUpdate);
 		}
 	}
 
-	public void removeUser(String userIdOfUserToRemove) {
+	public Outcome<User> removeUser(String userIdOfUserToRemove) {
 		Optional<User> optionalUserToRemove = getUserByUsername(userIdOfUserToRemove);
 		if (optionalUserToRemove.isPresent()) {
-			USER_DATA.removeUserFromUserData(optionalUserToRemove.get());
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				USER_DATA.removeUserFromUserData(optionalUserToRemove.get());
+				stateChange.journalUserRemoved(userIdOfUserToRemove);
+			}
+			return Outcome.accepted(optionalUserToRemove.get());
 		} else {
-			System.err.println("ERROR: The User with the Username: " + userIdOfUserToRemove
-					+ " does not exist in the UserData. Try a different ID or use getAllUsers() to see all the users with their Username.");
+			return Outcome.notFound(
+					"The User with the Username: %s does not exist in the UserData. Try a different ID or use getAllUsers() to see all the users with their Username.",
+					userIdOfUserToRemove);
 		}
 	}
 }
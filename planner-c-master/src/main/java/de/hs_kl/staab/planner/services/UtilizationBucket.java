@@ -0,0 +1,34 @@
+package de.hs_kl.staab.planner.services;
+
+import de.hs_kl.staab.planner.EpochMinutes;
+
+/**
+ * Time spans into which a {@link UtilizationReport} divides its days. The
+ * buckets are aligned to full hours, days and weeks from Monday to Sunday, the
+ * first and last one may be cut by the days of the report.
+ */
+public enum UtilizationBucket {
+	HOUR(60, 0),
+	DAY(EpochMinutes.MINUTES_PER_DAY, 0),
+	// 1970-01-01 was a Thursday, so the weeks begin 4 days later
+	WEEK(7 * EpochMinutes.MINUTES_PER_DAY, 4 * EpochMinutes.MINUTES_PER_DAY);
+
+	private final int lengthInMinutes;
+	private final int offsetInMinutes;
+
+	private UtilizationBucket(int lengthInMinutes, int offsetInMinutes) {
+		this.lengthInMinutes = lengthInMinutes;
+		this.offsetInMinutes = offsetInMinutes;
+	}
+
+	public int getLengthInMinutes() {
+		return lengthInMinutes;
+	}
+
+	/**
+	 * @return - the first minute of the bucket the given epoch minute lies in
+	 */
+	long getBeginOf(long epochMinute) {
+		return Math.floorDiv(epochMinute - offsetInMinutes, lengthInMinutes) * lengthInMinutes + offsetInMinutes;
+	}
+}
@@ -0,0 +1,342 @@
+package de.hs_kl.staab.planner.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import de.hs_kl.staab.planner.CarMechanicUser;
+import de.hs_kl.staab.planner.EpochMinutes;
+import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.data.AppointmentArchive;
+import de.hs_kl.staab.planner.data.PlanningCalendarData;
+
+/**
+ * Result of
+ * {@link PlannerService#createUtilizationReport(LocalDate, LocalDate, UtilizationBucket, LocalTime, LocalTime)}:
+ * how many minutes of the opening hours every working platform and every car
+ * mechanic was booked or free, per {@link UtilizationBucket} and in total,
+ * including the finished archived appointments. The free time spans during the
+ * opening hours of a day are counted as idle gaps, grouped by their length.
+ *
+ * The booked time spans of a resource are read from its timeline and from the
+ * archive, both already sorted by their begin, so every resource is analysed in
+ * one pass over its days. The resources don't depend on each other and are
+ * analysed in parallel on the common fork/join pool.
+ */
+public class UtilizationReport {
+
+	// the last class contains all idle gaps longer than the last of these minutes
+	private static final int[] LONGEST_IDLE_GAP_OF_CLASS = { 15, 30, 60, 120, 240, 480 };
+
+	private final LocalDate firstDay;
+	private final LocalDate lastDay;
+	private final UtilizationBucket bucket;
+	// minutes of the day, the closing minute is exclusive
+	private final int openingMinute;
+	private final int closingMinute;
+	private final long firstMinute;
+	private final long endMinute;
+	private final long beginOfFirstBucket;
+	private final int[] availableMinutes;
+	private final long totalAvailableMinutes;
+	private final List<ResourceUtilization> workingPlatforms;
+	private final List<ResourceUtilization> carMechanicUsers;
+
+	/**
+	 * @param openingMinute      - first minute of the opening hours of every day
+	 * @param closingMinute      - minute of the day the opening hours end
+	 *                           (exclusive)
+	 * @param appointmentArchive - null if nothing was archived yet
+	 */
+	UtilizationReport(LocalDate firstDay, LocalDate lastDay, UtilizationBucket bucket, int openingMinute,
+			int closingMinute, PlanningCalendarData planningCalendarData, AppointmentArchive appointmentArchive,
+			Collection<WorkingPlatform> workingPlatformsToAnalyse,
+			Collection<CarMechanicUser> carMechanicUsersToAnalyse) {
+		this.firstDay = firstDay;
+		this.lastDay = lastDay;
+		this.bucket = bucket;
+		this.openingMinute = openingMinute;
+		this.closingMinute = closingMinute;
+		this.firstMinute = EpochMinutes.ofDay(firstDay);
+		this.endMinute = EpochMinutes.ofDay(lastDay.plusDays(1));
+		this.beginOfFirstBucket = bucket.getBeginOf(firstMinute);
+		this.availableMinutes = new int[(int) getNumberOfBuckets(bucket, firstDay, lastDay)];
+		for (long beginOfDay = firstMinute; beginOfDay < endMinute; beginOfDay += EpochMinutes.MINUTES_PER_DAY) {
+			addMinutes(availableMinutes, beginOfDay + openingMinute, beginOfDay + closingMinute);
+		}
+		this.totalAvailableMinutes = (closingMinute - openingMinute) * ((endMinute - firstMinute)
+				/ EpochMinutes.MINUTES_PER_DAY);
+		Map<WorkingPlatform, long[]> archivedTimeSpansOnWorkingPlatforms = appointmentArchive == null
+				? Collections.emptyMap()
+				: appointmentArchive.getFinishedTimeSpansOnWorkingPlatformsOverlapping(firstMinute, endMinute);
+		Map<CarMechanicUser, long[]> archivedTimeSpansOfCarMechanicUsers = appointmentArchive == null
+				? Collections.emptyMap()
+				: appointmentArchive.getFinishedTimeSpansOfCarMechanicUsersOverlapping(firstMinute, endMinute);
+		this.workingPlatforms = workingPlatformsToAnalyse.parallelStream()
+				.sorted(Comparator.comparing(WorkingPlatform::getWorkingPlatformId))
+				.map(workingPlatform -> analyse(workingPlatform.getWorkingPlatformId(),
+						union(planningCalendarData.getBookedTimeSpansOnWorkingPlatform(workingPlatform, firstMinute,
+								endMinute), archivedTimeSpansOnWorkingPlatforms.get(workingPlatform))))
+				.collect(Collectors.toList());
+		this.carMechanicUsers = carMechanicUsersToAnalyse.parallelStream()
+				.sorted(Comparator.comparing(CarMechanicUser::getUsername))
+				.map(carMechanicUser -> analyse(carMechanicUser.getUsername(),
+						union(planningCalendarData.getBookedTimeSpansOfUser(carMechanicUser, firstMinute, endMinute),
+								archivedTimeSpansOfCarMechanicUsers.get(carMechanicUser))))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return - the number of buckets the days from firstDay to lastDay (both
+	 *         inclusive) are divided into
+	 */
+	static long getNumberOfBuckets(UtilizationBucket bucket, LocalDate firstDay, LocalDate lastDay) {
+		long firstMinute = EpochMinutes.ofDay(firstDay);
+		long endMinute = EpochMinutes.ofDay(lastDay.plusDays(1));
+		return (bucket.getBeginOf(endMinute - 1) - bucket.getBeginOf(firstMinute)) / bucket.getLengthInMinutes() + 1;
+	}
+
+	public LocalDate getFirstDay() {
+		return firstDay;
+	}
+
+	public LocalDate getLastDay() {
+		return lastDay;
+	}
+
+	public UtilizationBucket getBucket() {
+		return bucket;
+	}
+
+	public LocalTime getOpeningTime() {
+		return LocalTime.ofSecondOfDay(openingMinute * 60L);
+	}
+
+	/**
+	 * @return - the end of the opening hours, null if they last until midnight
+	 */
+	public LocalTime getClosingTime() {
+		return closingMinute == EpochMinutes.MINUTES_PER_DAY ? null : LocalTime.ofSecondOfDay(closingMinute * 60L);
+	}
+
+	public int getNumberOfBuckets() {
+		return availableMinutes.length;
+	}
+
+	/**
+	 * @return - the begin of the bucket, the first bucket begins at the first day
+	 *         even if it would begin earlier
+	 */
+	public LocalDateTime getBeginOfBucket(int bucketIndex) {
+		return EpochMinutes.toLocalDateTime(
+				Math.max(firstMinute, beginOfFirstBucket + (long) bucketIndex * bucket.getLengthInMinutes()));
+	}
+
+	/**
+	 * @return - the minutes of the opening hours in the bucket, the same for
+	 *         every resource
+	 */
+	public int getAvailableMinutes(int bucketIndex) {
+		return availableMinutes[bucketIndex];
+	}
+
+	public long getTotalAvailableMinutes() {
+		return totalAvailableMinutes;
+	}
+
+	/**
+	 * @return - the analysed working platforms sorted by their ID
+	 */
+	public List<ResourceUtilization> getWorkingPlatforms() {
+		return Collections.unmodifiableList(workingPlatforms);
+	}
+
+	/**
+	 * @return - the analysed car mechanics sorted by their username
+	 */
+	public List<ResourceUtilization> getCarMechanicUsers() {
+		return Collections.unmodifiableList(carMechanicUsers);
+	}
+
+	public static int getNumberOfIdleGapClasses() {
+		return LONGEST_IDLE_GAP_OF_CLASS.length + 1;
+	}
+
+	/**
+	 * @return - the length in minutes of the longest idle gap in the class, or
+	 *         Integer.MAX_VALUE for the last class
+	 */
+	public static int getLongestIdleGapOfClass(int idleGapClass) {
+		return idleGapClass < LONGEST_IDLE_GAP_OF_CLASS.length ? LONGEST_IDLE_GAP_OF_CLASS[idleGapClass]
+				: Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Walks through the days and the booked time spans at the same time. Only the
+	 * parts of the time spans during the opening hours are counted.
+	 *
+	 * @param bookedTimeSpans - pairs of begin and end, sorted and merged
+	 */
+	private ResourceUtilization analyse(String resourceId, long[] bookedTimeSpans) {
+		int[] bookedMinutes = new int[availableMinutes.length];
+		long[] numbersOfIdleGaps = new long[getNumberOfIdleGapClasses()];
+		int firstTimeSpanOfDay = 0;
+		for (long beginOfDay = firstMinute; beginOfDay < endMinute; beginOfDay += EpochMinutes.MINUTES_PER_DAY) {
+			long opening = beginOfDay + openingMinute;
+			long closing = beginOfDay + closingMinute;
+			while (firstTimeSpanOfDay < bookedTimeSpans.length && bookedTimeSpans[firstTimeSpanOfDay + 1] <= opening) {
+				firstTimeSpanOfDay += 2;
+			}
+			long beginOfIdleGap = opening;
+			for (int i = firstTimeSpanOfDay; i < bookedTimeSpans.length && bookedTimeSpans[i] < closing; i += 2) {
+				long beginOfBooking = Math.max(opening, bookedTimeSpans[i]);
+				long endOfBooking = Math.min(closing, bookedTimeSpans[i + 1]);
+				if (beginOfBooking > beginOfIdleGap) {
+					numbersOfIdleGaps[getIdleGapClass(beginOfBooking - beginOfIdleGap)]++;
+				}
+				addMinutes(bookedMinutes, beginOfBooking, endOfBooking);
+				beginOfIdleGap = endOfBooking;
+			}
+			if (closing > beginOfIdleGap) {
+				numbersOfIdleGaps[getIdleGapClass(closing - beginOfIdleGap)]++;
+			}
+		}
+		return new ResourceUtilization(resourceId, bookedMinutes, numbersOfIdleGaps);
+	}
+
+	/**
+	 * Adds the minutes from begin to end to the buckets they lie in.
+	 */
+	private void addMinutes(int[] minutesOfBuckets, long begin, long end) {
+		int lengthOfBucket = bucket.getLengthInMinutes();
+		while (begin < end) {
+			long beginOfBucket = bucket.getBeginOf(begin);
+			long endOfPart = Math.min(end, beginOfBucket + lengthOfBucket);
+			minutesOfBuckets[(int) ((beginOfBucket - beginOfFirstBucket) / lengthOfBucket)] += endOfPart - begin;
+			begin = endOfPart;
+		}
+	}
+
+	private static int getIdleGapClass(long lengthInMinutes) {
+		int idleGapClass = 0;
+		while (idleGapClass < LONGEST_IDLE_GAP_OF_CLASS.length
+				&& lengthInMinutes > LONGEST_IDLE_GAP_OF_CLASS[idleGapClass]) {
+			idleGapClass++;
+		}
+		return idleGapClass;
+	}
+
+	/**
+	 * @param timeSpans         - pairs of begin and end, sorted and merged
+	 * @param archivedTimeSpans - pairs of begin and end, sorted and merged, or
+	 *                          null if there are none
+	 * @return - the time spans of both, sorted and merged
+	 */
+	private static long[] union(long[] timeSpans, long[] archivedTimeSpans) {
+		if (archivedTimeSpans == null || archivedTimeSpans.length == 0) {
+			return timeSpans;
+		}
+		long[] union = new long[timeSpans.length + archivedTimeSpans.length];
+		int length = 0;
+		int i = 0;
+		int j = 0;
+		while (i < timeSpans.length || j < archivedTimeSpans.length) {
+			long[] next;
+			int index;
+			if (j == archivedTimeSpans.length || i < timeSpans.length && timeSpans[i] <= archivedTimeSpans[j]) {
+				next = timeSpans;
+				index = i;
+				i += 2;
+			} else {
+				next = archivedTimeSpans;
+				index = j;
+				j += 2;
+			}
+			if (length > 0 && next[index] <= union[length - 1]) {
+				union[length - 1] = Math.max(union[length - 1], next[index + 1]);
+			} else {
+				union[length++] = next[index];
+				union[length++] = next[index + 1];
+			}
+		}
+		return Arrays.copyOf(union, length);
+	}
+
+	/**
+	 * The booked and free minutes of one working platform or car mechanic.
+	 */
+	public final class ResourceUtilization {
+
+		private final String resourceId;
+		private final int[] bookedMinutes;
+		private final long totalBookedMinutes;
+		private final long[] numbersOfIdleGaps;
+
+		private ResourceUtilization(String resourceId, int[] bookedMinutes, long[] numbersOfIdleGaps) {
+			this.resourceId = resourceId;
+			this.bookedMinutes = bookedMinutes;
+			long sum = 0;
+			for (int bookedMinutesOfBucket : bookedMinutes) {
+				sum += bookedMinutesOfBucket;
+			}
+			this.totalBookedMinutes = sum;
+			this.numbersOfIdleGaps = numbersOfIdleGaps;
+		}
+
+		/**
+		 * @return - the ID of the working platform or the username of the car
+		 *         mechanic
+		 */
+		public String getResourceId() {
+			return resourceId;
+		}
+
+		public int getBookedMinutes(int bucketIndex) {
+			return bookedMinutes[bucketIndex];
+		}
+
+		public int getFreeMinutes(int bucketIndex) {
+			return availableMinutes[bucketIndex] - bookedMinutes[bucketIndex];
+		}
+
+		/**
+		 * @return - the booked minutes in percent of the available minutes, 0 if
+		 *         the bucket has none
+		 */
+		public double getUtilization(int bucketIndex) {
+			return toPercent(bookedMinutes[bucketIndex], availableMinutes[bucketIndex]);
+		}
+
+		public long getTotalBookedMinutes() {
+			return totalBookedMinutes;
+		}
+
+		public long getTotalFreeMinutes() {
+			return totalAvailableMinutes - totalBookedMinutes;
+		}
+
+		public double getTotalUtilization() {
+			return toPercent(totalBookedMinutes, totalAvailableMinutes);
+		}
+
+		/**
+		 * @return - the number of idle gaps not longer than
+		 *         {@link UtilizationReport#getLongestIdleGapOfClass(int)} and
+		 *         longer than the one of the previous class
+		 */
+		public long getNumberOfIdleGaps(int idleGapClass) {
+			return numbersOfIdleGaps[idleGapClass];
+		}
+	}
+
+	private static double toPercent(long minutes, long ofMinutes) {
+		return ofMinutes == 0 ? 0 : 100.0 * minutes / ofMinutes;
+	}
+}
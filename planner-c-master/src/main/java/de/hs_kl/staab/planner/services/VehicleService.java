@@ -1,7 +1,14 @@
 package de.hs_kl.staab.planner.services;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -9,13 +16,16 @@ import java.util.stream.Collectors;
 import de.hs_kl.staab.planner.AppointmentComparator;
 import de.hs_kl.staab.planner.Vehicle;
 import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+import de.hs_kl.staab.planner.data.AppointmentArchive;
 import de.hs_kl.staab.planner.data.VehicleData;
+import de.hs_kl.staab.planner.services.PersistenceService.StateChange;
 
 public class VehicleService {
 
 	private static VehicleService VEHICLE_SERVICE;
 	private final static VehicleData VEHICLE_DATA = new VehicleData();
-	private final static PlannerService PLANNER_SERVICE = PlannerService.getInstance();
+	private final static PersistenceService PERSISTENCE_SERVICE = PersistenceService.getInstance();
 
 	/**
 	 * Singleton-Pattern: Der Konstruktor kann nicht aufgerufen werden, sondern
@@ -30,153 +40,202 @@ public class VehicleService {
 	 * 
 	 * @return Die einzige Instanz des VehicleService.
 	 */
-	public static VehicleService getInstance() {
+	public static synchronized VehicleService getInstance() {
 		if (VEHICLE_SERVICE == null) {
 			VEHICLE_SERVICE = new VehicleService();
 		}
 		return VEHICLE_SERVICE;
 	}
 
+	static VehicleData getVehicleData() {
+		return VEHICLE_DATA;
+	}
+
 	public Set<Vehicle> getAllVehicles() {
 		return VEHICLE_DATA.getAllVehicles();
 	}
 
-	private boolean checkIfVehicleLicensePlateAlreadyExists(String carLicensePlate) {
-		Set<Vehicle> allVehicles = VEHICLE_DATA.getAllVehicles();
-		Boolean licensePlateAlreadyUsed = false;
-		for (Vehicle vehicle : allVehicles) {
-			if (vehicle.getVehicleLicensePlate()
-					.equals(carLicensePlate)) {
-				licensePlateAlreadyUsed = true;
-				break;
-			}
-		}
-		return licensePlateAlreadyUsed;
+	public Collection<Vehicle> getVehiclesOrderedByLicensePlateAfter(String vehicleLicensePlate) {
+		return VEHICLE_DATA.getVehiclesOrderedByLicensePlateAfter(vehicleLicensePlate);
 	}
 
-	public void createAndAddNewVehicle(String carBrand, String carModel, int carYearOfConstruction,
-			String carLicensePlate, LocalDateTime dateOfAdmission) {
-		if (!checkIfVehicleLicensePlateAlreadyExists(carLicensePlate)) {
-			VEHICLE_DATA.addVehicleToVehicleData(
-					new Vehicle(carBrand, carModel, carYearOfConstruction, carLicensePlate, dateOfAdmission));
+	public synchronized Outcome<Vehicle> createAndAddNewVehicle(String carBrand, String carModel,
+			int carYearOfConstruction, String carLicensePlate, LocalDateTime dateOfAdmission) {
+		Optional<Vehicle> vehicleWithSameLicensePlate = VEHICLE_DATA.getVehicleByLicensePlate(carLicensePlate);
+		if (!vehicleWithSameLicensePlate.isPresent()) {
+			Vehicle newVehicle = new Vehicle(carBrand, carModel, carYearOfConstruction, carLicensePlate,
+					dateOfAdmission);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				VEHICLE_DATA.addVehicleToVehicleData(newVehicle);
+				stateChange.journalVehicle(newVehicle);
+			}
+			return Outcome.accepted(newVehicle);
 		} else {
-			System.err
-					.println("ERROR: The license plate (" + carLicensePlate + ") is already used on an other vehicle.");
+			return Outcome.conflict(vehicleWithSameLicensePlate.get(),
+					"The license plate (%s) is already used on an other vehicle.", carLicensePlate);
 		}
 	}
 
-	public Optional<Vehicle> getVehicleByLicensePlate(String vehicleLicensePlate) {
-		Set<Vehicle> allVehicles = VEHICLE_DATA.getAllVehicles();
-		Vehicle foundVehicle = null;
-		for (Vehicle vehicle : allVehicles) {
-			if (vehicle.getVehicleLicensePlate()
-					.equals(vehicleLicensePlate)) {
-				foundVehicle = vehicle;
-				break;
+	/**
+	 * Adds many new vehicles at once, e.g. for an import. The license plate of
+	 * every vehicle must neither be used yet nor by a vehicle before it in the
+	 * list. The accepted vehicles are added together.
+	 * 
+	 * @param newVehicles - vehicles which are not stored yet
+	 * @return - List of the outcomes in the order of the vehicles
+	 */
+	synchronized List<Outcome<Vehicle>> addNewVehicles(List<Vehicle> newVehicles) {
+		List<Outcome<Vehicle>> outcomes = new ArrayList<>(newVehicles.size());
+		Map<String, Vehicle> acceptedVehiclesByLicensePlate = new LinkedHashMap<>();
+		for (Vehicle newVehicle : newVehicles) {
+			String licensePlate = newVehicle.getVehicleLicensePlate();
+			Optional<Vehicle> vehicleWithSameLicensePlate = VEHICLE_DATA.getVehicleByLicensePlate(licensePlate);
+			if (!vehicleWithSameLicensePlate.isPresent()) {
+				vehicleWithSameLicensePlate = Optional.ofNullable(acceptedVehiclesByLicensePlate.get(licensePlate));
+			}
+			if (!vehicleWithSameLicensePlate.isPresent()) {
+				acceptedVehiclesByLicensePlate.put(licensePlate, newVehicle);
+				outcomes.add(Outcome.accepted(newVehicle));
+			} else {
+				outcomes.add(Outcome.conflict(vehicleWithSameLicensePlate.get(),
+						"The license plate (%s) is already used on an other vehicle.", licensePlate));
+			}
+		}
+		try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+			VEHICLE_DATA.addVehiclesToVehicleData(acceptedVehiclesByLicensePlate.values());
+			for (Vehicle acceptedVehicle : acceptedVehiclesByLicensePlate.values()) {
+				stateChange.journalVehicle(acceptedVehicle);
 			}
 		}
-		return Optional.ofNullable(foundVehicle);
+		return outcomes;
 	}
 
-	public void updateVehicleLicensePlate(String vehicleLicensePlateOfVehicleToUpdate, String newCarLicensePlate) {
+	public Optional<Vehicle> getVehicleByLicensePlate(String vehicleLicensePlate) {
+		return VEHICLE_DATA.getVehicleByLicensePlate(vehicleLicensePlate);
+	}
+
+	public synchronized Outcome<Vehicle> updateVehicleLicensePlate(String vehicleLicensePlateOfVehicleToUpdate,
+			String newCarLicensePlate) {
 		Optional<Vehicle> optionalVehicleToUpdate = getVehicleByLicensePlate(vehicleLicensePlateOfVehicleToUpdate);
 		if (optionalVehicleToUpdate.isPresent()) {
-			if (!checkIfVehicleLicensePlateAlreadyExists(newCarLicensePlate)) {
-				optionalVehicleToUpdate.get()
-						.setVehicleLicensePlate(newCarLicensePlate);
+			Optional<Vehicle> vehicleWithSameLicensePlate = VEHICLE_DATA.getVehicleByLicensePlate(newCarLicensePlate);
+			if (!vehicleWithSameLicensePlate.isPresent()) {
+				try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+					VEHICLE_DATA.updateLicensePlateOfVehicle(optionalVehicleToUpdate.get(), newCarLicensePlate);
+					stateChange.journalLicensePlateChanged(vehicleLicensePlateOfVehicleToUpdate,
+							newCarLicensePlate);
+				}
+				return Outcome.accepted(optionalVehicleToUpdate.get());
 			} else {
-				System.err.println(
-						"ERROR: The license plate you wanted to choose already belongs to a vehicle. Please choose a different license plate!");
+				return Outcome.conflict(vehicleWithSameLicensePlate.get(),
+						"The license plate you wanted to choose already belongs to a vehicle. Please choose a different license plate!");
 			}
 		} else {
-			System.err.println("ERROR: Vehicle with the license plate: " + vehicleLicensePlateOfVehicleToUpdate
-					+ " was not found. Use getAllVehicles() to see all the vehicles with their license plate.");
+			return Outcome.notFound(
+					"Vehicle with the license plate: %s was not found. Use getAllVehicles() to see all the vehicles with their license plate.",
+					vehicleLicensePlateOfVehicleToUpdate);
 		}
 	}
 
-	public void removeVehicle(String vehicleLicensePlateOfVehicleToRemove) {
+	public Outcome<Vehicle> removeVehicle(String vehicleLicensePlateOfVehicleToRemove) {
 		Optional<Vehicle> optionalVehicleToRemove = getVehicleByLicensePlate(vehicleLicensePlateOfVehicleToRemove);
 		if (optionalVehicleToRemove.isPresent()) {
-			VEHICLE_DATA.removeVehicleFromVehicleData(optionalVehicleToRemove.get());
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				VEHICLE_DATA.removeVehicleFromVehicleData(optionalVehicleToRemove.get());
+				stateChange.journalVehicleRemoved(vehicleLicensePlateOfVehicleToRemove);
+			}
+			return Outcome.accepted(optionalVehicleToRemove.get());
 		} else {
-			System.err.println("ERROR: The vehicle with the license plate: " + vehicleLicensePlateOfVehicleToRemove
-					+ " does not exist in the VEHICLE_DATA. Try a different license plate or use getAllVehicles() to see all the vehicles with their license plate!");
+			return Outcome.notFound(
+					"The vehicle with the license plate: %s does not exist in the VEHICLE_DATA. Try a different license plate or use getAllVehicles() to see all the vehicles with their license plate!",
+					vehicleLicensePlateOfVehicleToRemove);
 		}
 	}
 
 	/**
-	 * Adds working appointments with status "finished" to the history of works
-	 * matching to the given license plate of vehicle. If no working appointment or
-	 * if no finished working appointment have been found, an error message will be
-	 * displayed.
+	 * Displays an error message if there is no working appointment or no finished
+	 * working appointment on the given vehicle. Only the appointments of the
+	 * vehicle itself are looked at, not the whole calendar.
 	 * 
-	 * @param vehicleLicensePlateToAddWorkingAppointmentTo - String of the vehicles
-	 *                                                     license plate for which
-	 *                                                     you want to have history
-	 *                                                     of works for
+	 * @param finishedWorkingAppointmentExists - true if the history of the vehicle
+	 *                                         isn't empty
 	 */
-	private void addFinishedWorkingAppointmentsToVehiclesHistoryOfWorks(
-			String vehicleLicensePlateToAddWorkingAppointmentTo) {
-		Optional<Vehicle> optionalVehicleToAddWorkingAppointmentTo = getVehicleByLicensePlate(
-				vehicleLicensePlateToAddWorkingAppointmentTo);
+	private static void warnIfNoFinishedWorkingAppointmentExists(Vehicle vehicle,
+			boolean finishedWorkingAppointmentExists) {
+		if (finishedWorkingAppointmentExists) {
+			return;
+		}
 		boolean workingAppointmentExists = false;
-		boolean finishedWorkingAppointmentExists = false;
-		if (optionalVehicleToAddWorkingAppointmentTo.isPresent()) {
-			Vehicle vehicleToAddWorkingAppointmentTo = optionalVehicleToAddWorkingAppointmentTo.get();
-			Set<WorkingAppointment> workingAppointmentsToAdd = PLANNER_SERVICE.getAllWorkingAppointments();
-			for (WorkingAppointment workingAppointment : workingAppointmentsToAdd) {
-				if (workingAppointment.getVehicleToWorkOn()
-						.equals(vehicleToAddWorkingAppointmentTo)) {
-					if (!workingAppointmentsToAdd.isEmpty()) {
-						workingAppointmentExists = true;
-						if (workingAppointment.getStatus()
-								.equals("FINISHED")) {
-							finishedWorkingAppointmentExists = true;
-							if (!vehicleToAddWorkingAppointmentTo.getHistoryOfWorkingsAppointments()
-									.contains(workingAppointment)) {
-								vehicleToAddWorkingAppointmentTo
-										.addWorkToVehiclesHistoryOfWorkingAppointments(workingAppointment);
-
-							}
-						}
-					}
-
-				}
+		// a vehicle may have been worked on at every location
+		for (PlannerService plannerService : PlannerService.getAllInstances()) {
+			if (!plannerService.getPlanningCalendarData()
+					.getWorkingAppointmentsOfVehicle(vehicle)
+					.isEmpty()) {
+				workingAppointmentExists = true;
+				break;
 			}
-
-			if (!workingAppointmentExists)
-				System.err.println("There are no working appointments on the vehicle with following license plate: "
-						+ vehicleLicensePlateToAddWorkingAppointmentTo + ".");
-			else if (!finishedWorkingAppointmentExists) {
-				System.err.println(
-						"There are no finished working appointments on the vehicle with following license plate: "
-								+ vehicleLicensePlateToAddWorkingAppointmentTo + ".");
+		}
+		for (AppointmentArchive appointmentArchive : getAppointmentArchives()) {
+			if (workingAppointmentExists) {
+				break;
 			}
-
+			workingAppointmentExists = appointmentArchive.hasArchivedWorkingAppointmentsOfVehicle(vehicle);
+		}
+		if (!workingAppointmentExists) {
+			System.err.println("There are no working appointments on the vehicle with following license plate: "
+					+ vehicle.getVehicleLicensePlate() + ".");
+		} else {
+			System.err.println(
+					"There are no finished working appointments on the vehicle with following license plate: "
+							+ vehicle.getVehicleLicensePlate() + ".");
 		}
 	}
 
 	/**
 	 * Returns a set of all the finished working appointments for a given vehicle's
-	 * license plate. If set is empty or if the given license plate does not exist,
-	 * throws an Exception.
+	 * license plate, including the archived ones. The history of the vehicle is
+	 * kept up to date by the planning calendars, so reading it doesn't change
+	 * or print anything. If the given license plate does not exist, throws an Exception.
 	 * 
 	 * @param vehicleLicensePlate - String of the vehicles license plate for which
 	 *                            you want to have history of works for
-	 * @return - Set of all finished working appointments
+	 * @return - read-only Set of all finished working appointments
 	 */
 	public Set<WorkingAppointment> getHistoryOfFinishedWorkingAppointments(String vehicleLicensePlate) {
-		addFinishedWorkingAppointmentsToVehiclesHistoryOfWorks(vehicleLicensePlate);
 		Optional<Vehicle> optionalVehicle = getVehicleByLicensePlate(vehicleLicensePlate);
 		if (optionalVehicle.isPresent()) {
-			return optionalVehicle.get()
-					.getHistoryOfWorkingsAppointments();
+			Vehicle vehicle = optionalVehicle.get();
+			Set<WorkingAppointment> historyOfWorkingAppointments = vehicle.getHistoryOfWorkingsAppointments();
+			List<AppointmentArchive> appointmentArchives = getAppointmentArchives();
+			if (!appointmentArchives.isEmpty()) {
+				historyOfWorkingAppointments = new HashSet<>(historyOfWorkingAppointments);
+				for (AppointmentArchive appointmentArchive : appointmentArchives) {
+					historyOfWorkingAppointments.addAll(appointmentArchive
+							.getArchivedWorkingAppointmentsOfVehicle(vehicle, WorkingAppointmentStatus.FINISHED));
+				}
+				historyOfWorkingAppointments = Collections.unmodifiableSet(historyOfWorkingAppointments);
+			}
+			return historyOfWorkingAppointments;
 		} else {
 			throw new IllegalArgumentException("ERROR: Vehicle with the license plate " + vehicleLicensePlate
 					+ " was not found. Use getAllVehicles() to see all the vehicles with their license plates.");
 		}
 	}
 
+	/**
+	 * @return - the archives of all locations which archived something yet
+	 */
+	private static List<AppointmentArchive> getAppointmentArchives() {
+		List<AppointmentArchive> appointmentArchives = new ArrayList<>();
+		for (PlannerService plannerService : PlannerService.getAllInstances()) {
+			AppointmentArchive appointmentArchive = plannerService.getAppointmentArchive();
+			if (appointmentArchive != null) {
+				appointmentArchives.add(appointmentArchive);
+			}
+		}
+		return appointmentArchives;
+	}
+
 	/**
 	 * Prints a SORTED ({@link AppointmentComparator}) set of all the finished
 	 * working appointments for a given vehicle's license plate. It is in a clearly
@@ -188,6 +247,8 @@ public class VehicleService {
 
 	public void printHistoryOfFinishedWorkingAppointments(String vehicleLicensePlate) {
 		Set<WorkingAppointment> historyOfWorks = this.getHistoryOfFinishedWorkingAppointments(vehicleLicensePlate);
+		getVehicleByLicensePlate(vehicleLicensePlate)
+				.ifPresent(vehicle -> warnIfNoFinishedWorkingAppointmentExists(vehicle, !historyOfWorks.isEmpty()));
 		Set<WorkingAppointment> sortedAppointments = new LinkedHashSet<>(historyOfWorks.size());
 		sortedAppointments = historyOfWorks.stream()
 				.sorted(new AppointmentComparator())
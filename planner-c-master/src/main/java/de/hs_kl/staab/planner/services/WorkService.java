@@ -1,15 +1,20 @@
 package de.hs_kl.staab.planner.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import de.hs_kl.staab.planner.Work;
 import de.hs_kl.staab.planner.data.WorkData;
+import de.hs_kl.staab.planner.services.PersistenceService.StateChange;
 
 public class WorkService {
 
 	private static WorkService WORK_SERVICE;
 	private final static WorkData WORK_DATA = new WorkData();
+	private final static PersistenceService PERSISTENCE_SERVICE = PersistenceService.getInstance();
 
 	/**
 	 * Singleton-Pattern: Der Konstruktor kann nicht aufgerufen werden, sondern
@@ -25,77 +30,123 @@ public class WorkService {
 	 * 
 	 * @return Die einzige Instanz des WorkService.
 	 */
-	public static WorkService getInstance() {
+	public static synchronized WorkService getInstance() {
 		if (WORK_SERVICE == null) {
 			WORK_SERVICE = new WorkService();
 		}
 		return WORK_SERVICE;
 	}
 
+	static WorkData getWorkData() {
+		return WORK_DATA;
+	}
+
 	public Set<Work> getAllWorks() {
 		return WORK_DATA.getAllWorks();
 	}
 
-	private boolean checkIfWorkDuplicateAlreadyExists(String workName, int workDurationMinutes) {
-		Set<Work> allWorks = WORK_DATA.getAllWorks();
-		Boolean workNameAndWorkDurationAlreadyExist = false;
-		for (Work work : allWorks) {
-			if (work.getWorkName().equals(workName) && work.getWorkDuration() == workDurationMinutes) {
-				workNameAndWorkDurationAlreadyExist = true;
-				break;
-			}
-		}
-		return workNameAndWorkDurationAlreadyExist;
+	public Collection<Work> getWorksOrderedByIdAfter(String workId) {
+		return WORK_DATA.getWorksOrderedByIdAfter(workId);
 	}
 
-	public void createAndAddNewWork(String workName, int workDurationMinutes) {
-		if (!checkIfWorkDuplicateAlreadyExists(workName, workDurationMinutes)) {
-			WORK_DATA.addWorkToWorkData(new Work(workName, workDurationMinutes));
+	private Optional<Work> getDuplicateOfWork(String workName, int workDurationMinutes) {
+		return WORK_DATA.getWorkByNameAndDuration(workName, workDurationMinutes);
+	}
+
+	public synchronized Outcome<Work> createAndAddNewWork(String workName, int workDurationMinutes) {
+		Optional<Work> duplicateOfWork = getDuplicateOfWork(workName, workDurationMinutes);
+		if (!duplicateOfWork.isPresent()) {
+			Work newWork = new Work(workName, workDurationMinutes);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				WORK_DATA.addWorkToWorkData(newWork);
+				stateChange.journalWork(newWork);
+			}
+			return Outcome.accepted(newWork);
 		} else
-			System.err.println(
-					"ERROR: A work with the same name(" + workName + ") and the same duration (" + workDurationMinutes
-							+ ") already exists. Please choose a different name or duration! No new work added!");
+			return Outcome.conflict(duplicateOfWork.get(),
+					"A work with the same name(%s) and the same duration (%s) already exists. Please choose a different name or duration! No new work added!",
+					workName, workDurationMinutes);
 	}
 
-	public Optional<Work> getWorkById(String workId) {
-		Set<Work> allWorks = WORK_DATA.getAllWorks();
-		Work foundWork = null;
-		for (Work work : allWorks) {
-			if (work.getWorkId().equals(workId)) {
-				foundWork = work;
-				break;
+	/**
+	 * Adds many new works at once, e.g. for an import. Every work is checked like
+	 * in {@link #createAndAddNewWork(String, int)} and against the works before it
+	 * in the list, and its ID must not be used yet.
+	 * 
+	 * @param newWorks - works which are not stored yet
+	 * @return - List of the outcomes in the order of the works
+	 */
+	synchronized List<Outcome<Work>> addNewWorks(List<Work> newWorks) {
+		List<Outcome<Work>> outcomes = new ArrayList<>(newWorks.size());
+		try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+			for (Work newWork : newWorks) {
+				Optional<Work> duplicateOfWork = getDuplicateOfWork(newWork.getWorkName(), newWork.getWorkDuration());
+				Optional<Work> workWithSameId = getWorkById(newWork.getWorkId());
+				if (duplicateOfWork.isPresent()) {
+					outcomes.add(Outcome.conflict(duplicateOfWork.get(),
+							"A work with the same name(%s) and the same duration (%s) already exists. Please choose a different name or duration! No new work added!",
+							newWork.getWorkName(), newWork.getWorkDuration()));
+				} else if (workWithSameId.isPresent()) {
+					outcomes.add(Outcome.conflict(workWithSameId.get(), "The work ID %s is already used.",
+							newWork.getWorkId()));
+				} else {
+					WORK_DATA.addWorkToWorkData(newWork);
+					stateChange.journalWork(newWork);
+					outcomes.add(Outcome.accepted(newWork));
+				}
 			}
 		}
-		return Optional.ofNullable(foundWork);
+		return outcomes;
+	}
+
+	public Optional<Work> getWorkById(String workId) {
+		return WORK_DATA.getWorkById(workId);
 	}
 
-	public void updateWorkName(String workIdOfWorkToUpdate, String newWorkName) {
+	public Outcome<Work> updateWorkName(String workIdOfWorkToUpdate, String newWorkName) {
 		Optional<Work> optionalWorkToUpdate = getWorkById(workIdOfWorkToUpdate);
 		if (optionalWorkToUpdate.isPresent()) {
-			optionalWorkToUpdate.get().setWorkName(newWorkName);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				WORK_DATA.updateWorkInWorkData(optionalWorkToUpdate.get(), () -> optionalWorkToUpdate.get()
+						.setWorkName(newWorkName));
+				stateChange.journalWork(optionalWorkToUpdate.get());
+			}
+			return Outcome.accepted(optionalWorkToUpdate.get());
 		} else {
-			System.err.println("ERROR: Work with the ID: " + workIdOfWorkToUpdate
-					+ " was not found. Use getAllWorks() to see all the works with their ID.");
+			return Outcome.notFound(
+					"Work with the ID: %s was not found. Use getAllWorks() to see all the works with their ID.",
+					workIdOfWorkToUpdate);
 		}
 	}
 
-	public void updateWorkDuration(String workIdOfWorkToUpdate, int newWorkDurationMinutes) {
+	public Outcome<Work> updateWorkDuration(String workIdOfWorkToUpdate, int newWorkDurationMinutes) {
 		Optional<Work> optionalWorkToUpdate = getWorkById(workIdOfWorkToUpdate);
 		if (optionalWorkToUpdate.isPresent()) {
-			optionalWorkToUpdate.get().setWorkDuration(newWorkDurationMinutes);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				WORK_DATA.updateWorkInWorkData(optionalWorkToUpdate.get(), () -> optionalWorkToUpdate.get()
+						.setWorkDuration(newWorkDurationMinutes));
+				stateChange.journalWork(optionalWorkToUpdate.get());
+			}
+			return Outcome.accepted(optionalWorkToUpdate.get());
 		} else {
-			System.err.println("ERROR: Work with the ID: " + workIdOfWorkToUpdate
-					+ " was not found. Use getAllWorks() to see all the works with their ID.");
+			return Outcome.notFound(
+					"Work with the ID: %s was not found. Use getAllWorks() to see all the works with their ID.",
+					workIdOfWorkToUpdate);
 		}
 	}
 
-	public void removeWork(String workIdOfWorkToRemove) {
+	public Outcome<Work> removeWork(String workIdOfWorkToRemove) {
 		Optional<Work> optionalWorkToRemove = getWorkById(workIdOfWorkToRemove);
 		if (optionalWorkToRemove.isPresent()) {
-			WORK_DATA.removeWorkFromWorkData(optionalWorkToRemove.get());
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				WORK_DATA.removeWorkFromWorkData(optionalWorkToRemove.get());
+				stateChange.journalWorkRemoved(workIdOfWorkToRemove);
+			}
+			return Outcome.accepted(optionalWorkToRemove.get());
 		} else {
-			System.err.println("ERROR: The work with the ID: " + workIdOfWorkToRemove
-					+ " does not exist in the WORK_DATA. Try a different ID or use getAllWorks() to see all the works with their ID.");
+			return Outcome.notFound(
+					"The work with the ID: %s does not exist in the WORK_DATA. Try a different ID or use getAllWorks() to see all the works with their ID.",
+					workIdOfWorkToRemove);
 		}
 	}
 
@@ -0,0 +1,64 @@
+package de.hs_kl.staab.planner.services;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * One working appointment to be booked by
+ * {@link PlannerService#bookWorkingAppointments(java.util.List)}, with the same
+ * values as
+ * {@link PlannerService#createAndAddNewWorkingAppointment(Set, String, String, String, LocalDateTime, String)}.
+ */
+public class WorkingAppointmentRequest {
+
+	private final Set<String> idsOfWorksToPerform;
+	private final String customerId;
+	private final String vehicleLicensePlate;
+	private final String workingPlatformId;
+	private final LocalDateTime appointmentBeginDateAndTime;
+	private final String usernameOfResponsibleCarMechanic;
+
+	public WorkingAppointmentRequest(Set<String> idsOfWorksToPerform, String customerId, String vehicleLicensePlate,
+			String workingPlatformId, LocalDateTime appointmentBeginDateAndTime,
+			String usernameOfResponsibleCarMechanic) {
+		this.idsOfWorksToPerform = Collections.unmodifiableSet(new LinkedHashSet<>(idsOfWorksToPerform));
+		this.customerId = customerId;
+		this.vehicleLicensePlate = vehicleLicensePlate;
+		this.workingPlatformId = workingPlatformId;
+		this.appointmentBeginDateAndTime = appointmentBeginDateAndTime;
+		this.usernameOfResponsibleCarMechanic = usernameOfResponsibleCarMechanic;
+	}
+
+	@Override
+	public String toString() {
+		return "Working appointment request (begin: " + appointmentBeginDateAndTime + ", working platform: "
+				+ workingPlatformId + ", car mechanic: " + usernameOfResponsibleCarMechanic + ", customer: "
+				+ customerId + ", vehicle: " + vehicleLicensePlate + ", works: " + idsOfWorksToPerform + ")";
+	}
+
+	public Set<String> getIdsOfWorksToPerform() {
+		return idsOfWorksToPerform;
+	}
+
+	public String getCustomerId() {
+		return customerId;
+	}
+
+	public String getVehicleLicensePlate() {
+		return vehicleLicensePlate;
+	}
+
+	public String getWorkingPlatformId() {
+		return workingPlatformId;
+	}
+
+	public LocalDateTime getAppointmentBeginDateAndTime() {
+		return appointmentBeginDateAndTime;
+	}
+
+	public String getUsernameOfResponsibleCarMechanic() {
+		return usernameOfResponsibleCarMechanic;
+	}
+}
@@ -1,15 +1,19 @@
 package de.hs_kl.staab.planner.services;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
 import de.hs_kl.staab.planner.WorkingPlatform;
 import de.hs_kl.staab.planner.data.WorkingPlatformData;
+import de.hs_kl.staab.planner.services.PersistenceService.StateChange;
 
 public class WorkingPlatformService {
 
 	private static WorkingPlatformService WORKING_PLATFORM_SERVICE;
 	private final static WorkingPlatformData WORKING_PLATFORM_DATA = new WorkingPlatformData();
+	private final static PersistenceService PERSISTENCE_SERVICE = PersistenceService.getInstance();
 
 	/**
 	 * Singleton-Pattern: Der Konstruktor kann nicht aufgerufen werden, sondern
@@ -24,75 +28,119 @@ public class WorkingPlatformService {
 	 * 
 	 * @return Die einzige Instanz des WorkingPlatformService.
 	 */
-	public static WorkingPlatformService getInstance() {
+	public static synchronized WorkingPlatformService getInstance() {
 		if (WORKING_PLATFORM_SERVICE == null) {
 			WORKING_PLATFORM_SERVICE = new WorkingPlatformService();
 		}
 		return WORKING_PLATFORM_SERVICE;
 	}
 
+	static WorkingPlatformData getWorkingPlatformData() {
+		return WORKING_PLATFORM_DATA;
+	}
+
 	public Set<WorkingPlatform> getAllWorkingPlatforms() {
 		return WORKING_PLATFORM_DATA.getAllWorkingPlatforms();
 	}
 
-	private boolean checkIfWorkingPlatformDuplicateAlreadyExists(String workingPlatformName) {
+	public Collection<WorkingPlatform> getWorkingPlatformsOrderedByIdAfter(String workingPlatformId) {
+		return WORKING_PLATFORM_DATA.getWorkingPlatformsOrderedByIdAfter(workingPlatformId);
+	}
+
+	private Optional<WorkingPlatform> getWorkingPlatformByName(String workingPlatformName) {
 		Set<WorkingPlatform> allWorkingPlatforms = WORKING_PLATFORM_DATA.getAllWorkingPlatforms();
-		Boolean workingPlatformNameAlreadyExists = false;
 		for (WorkingPlatform workingPlatform : allWorkingPlatforms) {
 			if (workingPlatform.getWorkingPlatformName()
 					.equals(workingPlatformName)) {
-				workingPlatformNameAlreadyExists = true;
-				break;
+				return Optional.of(workingPlatform);
 			}
 		}
-		return workingPlatformNameAlreadyExists;
+		return Optional.empty();
+	}
+
+	/**
+	 * Creates the working platform at the {@link PlannerService#DEFAULT_LOCATION}.
+	 */
+	public Outcome<WorkingPlatform> createAndAddNewWorkingPlatform(String workingPlatformName) {
+		return createAndAddNewWorkingPlatform(workingPlatformName, PlannerService.DEFAULT_LOCATION);
 	}
 
-	public void createAndAddNewWorkingPlatform(String workingPlatformName) {
-		if (!checkIfWorkingPlatformDuplicateAlreadyExists(workingPlatformName)) {
-			WORKING_PLATFORM_DATA.addWorkingPlatformToWorkingPlatformData(new WorkingPlatform(workingPlatformName));
+	/**
+	 * @param location - the location whose planner may book the working platform,
+	 *                 the names are unique over all locations
+	 */
+	public synchronized Outcome<WorkingPlatform> createAndAddNewWorkingPlatform(String workingPlatformName,
+			String location) {
+		Optional<WorkingPlatform> workingPlatformWithSameName = getWorkingPlatformByName(workingPlatformName);
+		if (!workingPlatformWithSameName.isPresent()) {
+			WorkingPlatform newWorkingPlatform = new WorkingPlatform(workingPlatformName, location);
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				WORKING_PLATFORM_DATA.addWorkingPlatformToWorkingPlatformData(newWorkingPlatform);
+				stateChange.journalWorkingPlatform(newWorkingPlatform);
+			}
+			return Outcome.accepted(newWorkingPlatform);
 		} else {
-			System.err.println("ERROR: A working platform with the same name(" + workingPlatformName
-					+ ") already exists. Please choose a different name! No new working platform added!");
+			return Outcome.conflict(workingPlatformWithSameName.get(),
+					"A working platform with the same name(%s) already exists. Please choose a different name! No new working platform added!",
+					workingPlatformName);
 		}
 	}
 
-	public Optional<WorkingPlatform> getWorkingPlatformById(String workingPlatformId) {
-		Set<WorkingPlatform> allWorkingPlatforms = WORKING_PLATFORM_DATA.getAllWorkingPlatforms();
-		WorkingPlatform foundWorkingPlatform = null;
-		for (WorkingPlatform workingPlatform : allWorkingPlatforms) {
-			if (workingPlatform.getWorkingPlatformId()
-					.equals(workingPlatformId)) {
-				foundWorkingPlatform = workingPlatform;
-				break;
+	/**
+	 * @return - the working platforms the planner of the location may book
+	 */
+	public Set<WorkingPlatform> getWorkingPlatformsOfLocation(String location) {
+		Set<WorkingPlatform> workingPlatformsOfLocation = new HashSet<>();
+		for (WorkingPlatform workingPlatform : WORKING_PLATFORM_DATA.getAllWorkingPlatforms()) {
+			if (workingPlatform.getLocation()
+					.equals(location)) {
+				workingPlatformsOfLocation.add(workingPlatform);
 			}
 		}
-		return Optional.ofNullable(foundWorkingPlatform);
+		return workingPlatformsOfLocation;
 	}
 
-	public void updateWorkingPlatformName(String workingPlatformIdOfPlatformToUpdate, String newWorkingPlatformName) {
+	public Optional<WorkingPlatform> getWorkingPlatformById(String workingPlatformId) {
+		return WORKING_PLATFORM_DATA.getWorkingPlatformById(workingPlatformId);
+	}
+
+	public synchronized Outcome<WorkingPlatform> updateWorkingPlatformName(String workingPlatformIdOfPlatformToUpdate,
+			String newWorkingPlatformName) {
 		Optional<WorkingPlatform> optionalWorkingPlatform = getWorkingPlatformById(workingPlatformIdOfPlatformToUpdate);
 		if (optionalWorkingPlatform.isPresent()) {
-			if (!checkIfWorkingPlatformDuplicateAlreadyExists(newWorkingPlatformName)) {
-				optionalWorkingPlatform.get()
-						.setWorkingPlatformName(newWorkingPlatformName);
+			Optional<WorkingPlatform> workingPlatformWithSameName = getWorkingPlatformByName(newWorkingPlatformName);
+			if (!workingPlatformWithSameName.isPresent()) {
+				try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+					optionalWorkingPlatform.get()
+							.setWorkingPlatformName(newWorkingPlatformName);
+					stateChange.journalWorkingPlatform(optionalWorkingPlatform.get());
+				}
+				return Outcome.accepted(optionalWorkingPlatform.get());
 			} else {
-				System.err.println("ERROR: A working platform with the same name(" + newWorkingPlatformName
-						+ ") already exists. Please choose a different name!");
+				return Outcome.conflict(workingPlatformWithSameName.get(),
+						"A working platform with the same name(%s) already exists. Please choose a different name!",
+						newWorkingPlatformName);
 			}
 		} else {
-			System.err.println("ERROR: WorkingPlatform with the ID: " + workingPlatformIdOfPlatformToUpdate
-					+ " was not found. Use getAllWorkingPlatforms() to see all the working platforms with their ID.");
+			return Outcome.notFound(
+					"WorkingPlatform with the ID: %s was not found. Use getAllWorkingPlatforms() to see all the working platforms with their ID.",
+					workingPlatformIdOfPlatformToUpdate);
 		}
 	}
 
-	public void removeWorkingPlatform(String workingPlatformIdToRemove) {
+	public Outcome<WorkingPlatform> removeWorkingPlatform(String workingPlatformIdToRemove) {
 		Optional<WorkingPlatform> optionalWorkingPlatformToRemove = getWorkingPlatformById(workingPlatformIdToRemove);
 		if (optionalWorkingPlatformToRemove.isPresent()) {
-			WORKING_PLATFORM_DATA.removeWorkingPlatformFromWorkingPlatformData(optionalWorkingPlatformToRemove.get());
+			try (StateChange stateChange = PERSISTENCE_SERVICE.beginStateChange()) {
+				WORKING_PLATFORM_DATA
+						.removeWorkingPlatformFromWorkingPlatformData(optionalWorkingPlatformToRemove.get());
+				stateChange.journalWorkingPlatformRemoved(workingPlatformIdToRemove);
+			}
+			return Outcome.accepted(optionalWorkingPlatformToRemove.get());
 		} else {
-			System.err.println("ERROR: The working platform with the ID: " + workingPlatformIdToRemove
-					+ " does not exist in the WORKING_PLATFORM_DATA. Try a different ID or use getAllWorkingPlatforms() to see all the working platforms with their ID.");
+			return Outcome.notFound(
+					"The working platform with the ID: %s does not exist in the WORKING_PLATFORM_DATA. Try a different ID or use getAllWorkingPlatforms() to see all the working platforms with their ID.",
+					workingPlatformIdToRemove);
 		}
 	}
 
@@ -1,5 +1,595 @@
 package de.hs_kl.staab.planner;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import de.hs_kl.staab.planner.data.CalendarChange;
+import de.hs_kl.staab.planner.services.BookingResult;
+import de.hs_kl.staab.planner.services.CustomerService;
+import de.hs_kl.staab.planner.services.Outcome;
+import de.hs_kl.staab.planner.services.PlannerService;
+import de.hs_kl.staab.planner.services.ReschedulingPlan;
+import de.hs_kl.staab.planner.services.UserService;
+import de.hs_kl.staab.planner.services.UtilizationBucket;
+import de.hs_kl.staab.planner.services.UtilizationReport;
+import de.hs_kl.staab.planner.services.VehicleService;
+import de.hs_kl.staab.planner.services.WorkService;
+import de.hs_kl.staab.planner.services.WorkingAppointmentRequest;
+import de.hs_kl.staab.planner.services.WorkingPlatformService;
+
 public class PlannerServiceTest {
 
+	private static final int NUMBER_OF_THREADS = 16;
+	// a race doesn't show up in every round
+	private static final int NUMBER_OF_ROUNDS = 20;
+	private static final int WORK_DURATION = 60;
+	private static final LocalDateTime BEGIN = LocalDateTime.of(2030, 1, 7, 8, 0);
+
+	private final WorkService workService = WorkService.getInstance();
+	private final WorkingPlatformService workingPlatformService = WorkingPlatformService.getInstance();
+	private final UserService userService = UserService.getInstance();
+	private final CustomerService customerService = CustomerService.getInstance();
+	private final VehicleService vehicleService = VehicleService.getInstance();
+
+	// the services are singletons, so every test uses its own location and its own
+	// names to stay independent of the other tests
+	private String prefix;
+	private PlannerService plannerService;
+	private Set<String> idsOfWorks;
+	private String customerId;
+	private String vehicleLicensePlate;
+	private ExecutorService executor;
+
+	/**
+	 * Wird vor jedem Test ausgeführt.
+	 */
+	@BeforeEach
+	void setUp() {
+		this.prefix = UUID.randomUUID()
+				.toString();
+		this.plannerService = PlannerService.getInstance(prefix);
+		this.idsOfWorks = Collections.singleton(workService.createAndAddNewWork(prefix + "-work", WORK_DURATION)
+				.getResult()
+				.get()
+				.getWorkId());
+		this.customerId = customerService
+				.createAndAddNewCustomer("Max", prefix, "Hauptstraße", 1, 67657, "Kaiserslautern", "0631", "max@test.de")
+				.getResult()
+				.get()
+				.getCustomerId();
+		this.vehicleLicensePlate = prefix + "-plate";
+		vehicleService.createAndAddNewVehicle("VW", "Golf", 2015, vehicleLicensePlate, BEGIN.minusYears(5));
+		customerService.addVehicleToCustomersVehicles(customerId, vehicleLicensePlate);
+		this.executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		executor.shutdownNow();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	@RepeatedTest(NUMBER_OF_ROUNDS)
+	public void concurrentBookingsOfTheSameWorkingPlatformAcceptOnlyOne() throws Exception {
+		String workingPlatformId = createWorkingPlatform("platform");
+		List<Callable<Outcome<WorkingAppointment>>> bookings = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+			String carMechanic = createCarMechanic("mechanic-" + i);
+			bookings.add(() -> book(workingPlatformId, BEGIN, carMechanic));
+		}
+
+		List<Outcome<WorkingAppointment>> outcomes = runConcurrently(bookings);
+
+		assertOnlyOneAccepted(outcomes);
+		assertEquals(1, plannerService.getAllWorkingAppointments()
+				.size());
+	}
+
+	@RepeatedTest(NUMBER_OF_ROUNDS)
+	public void concurrentBookingsOfTheSameCarMechanicAcceptOnlyOne() throws Exception {
+		String carMechanic = createCarMechanic("mechanic");
+		List<Callable<Outcome<WorkingAppointment>>> bookings = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+			String workingPlatformId = createWorkingPlatform("platform-" + i);
+			// every booking overlaps all others, but none begins at the same time
+			LocalDateTime begin = BEGIN.plusMinutes(i);
+			bookings.add(() -> book(workingPlatformId, begin, carMechanic));
+		}
+
+		List<Outcome<WorkingAppointment>> outcomes = runConcurrently(bookings);
+
+		assertOnlyOneAccepted(outcomes);
+		assertEquals(1, plannerService.getAllWorkingAppointments()
+				.size());
+	}
+
+	@RepeatedTest(NUMBER_OF_ROUNDS)
+	public void concurrentUpdatesToTheSameWorkingPlatformAcceptOnlyOne() throws Exception {
+		String targetWorkingPlatformId = createWorkingPlatform("target");
+		List<Callable<Outcome<WorkingAppointment>>> updates = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+			String appointmentId = book(createWorkingPlatform("platform-" + i), BEGIN,
+					createCarMechanic("mechanic-" + i)).getResult()
+							.get()
+							.getAppointmentId();
+			updates.add(() -> plannerService.updateWorkingAppointment(appointmentId, targetWorkingPlatformId,
+					BEGIN.plusDays(1)));
+		}
+
+		List<Outcome<WorkingAppointment>> outcomes = runConcurrently(updates);
+
+		assertOnlyOneAccepted(outcomes);
+		assertEquals(1, countAppointmentsOnWorkingPlatform(targetWorkingPlatformId));
+	}
+
+	@RepeatedTest(NUMBER_OF_ROUNDS)
+	public void concurrentUpdatesAndBookingsOfTheSameCarMechanicAcceptOnlyOne() throws Exception {
+		String carMechanic = createCarMechanic("mechanic");
+		LocalDateTime targetBegin = BEGIN.plusDays(1);
+		List<Callable<Outcome<WorkingAppointment>>> changes = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_THREADS / 2; i++) {
+			// the existing appointments don't overlap each other before the update
+			String workingPlatformId = createWorkingPlatform("updated-" + i);
+			String appointmentId = book(workingPlatformId, BEGIN.plusHours(2 * i), carMechanic).getResult()
+					.get()
+					.getAppointmentId();
+			changes.add(() -> plannerService.updateWorkingAppointment(appointmentId, workingPlatformId,
+					targetBegin.plusMinutes(1)));
+		}
+		for (int i = 0; i < NUMBER_OF_THREADS / 2; i++) {
+			String workingPlatformId = createWorkingPlatform("booked-" + i);
+			changes.add(() -> book(workingPlatformId, targetBegin, carMechanic));
+		}
+
+		List<Outcome<WorkingAppointment>> outcomes = runConcurrently(changes);
+
+		assertOnlyOneAccepted(outcomes);
+		long appointmentsOnTargetDay = plannerService.getAllWorkingAppointments()
+				.stream()
+				.filter(appointment -> appointment.getAppointmentBeginDateAndTime()
+						.toLocalDate()
+						.equals(targetBegin.toLocalDate()))
+				.count();
+		assertEquals(1, appointmentsOnTargetDay);
+	}
+
+	@RepeatedTest(NUMBER_OF_ROUNDS)
+	public void concurrentRemovalsOfTheSameAppointmentAcceptOnlyOne() throws Exception {
+		String workingPlatformId = createWorkingPlatform("platform");
+		String appointmentId = book(workingPlatformId, BEGIN, createCarMechanic("mechanic")).getResult()
+				.get()
+				.getAppointmentId();
+		// an update holds the locks of the appointment until all removals have looked
+		// it up, the listener is called while the locks are held
+		CountDownLatch updating = new CountDownLatch(1);
+		CountDownLatch finishUpdate = new CountDownLatch(1);
+		List<CalendarChange> removals = new CopyOnWriteArrayList<>();
+		plannerService.addCalendarChangeListener(change -> {
+			if (change.getKind() == CalendarChange.Kind.UPDATED) {
+				updating.countDown();
+				try {
+					finishUpdate.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread()
+							.interrupt();
+				}
+			} else if (change.getKind() == CalendarChange.Kind.REMOVED) {
+				removals.add(change);
+			}
+		});
+		Future<Outcome<WorkingAppointment>> update = executor.submit(
+				() -> plannerService.updateWorkingAppointment(appointmentId, workingPlatformId, BEGIN.plusHours(1)));
+		assertTrue(updating.await(10, TimeUnit.SECONDS));
+		List<Future<Outcome<Appointment>>> futures = new ArrayList<>();
+		for (int i = 1; i < NUMBER_OF_THREADS; i++) {
+			futures.add(executor.submit(() -> plannerService.removeAppointment(appointmentId)));
+		}
+		Thread.sleep(100);
+		finishUpdate.countDown();
+
+		assertTrue(update.get(10, TimeUnit.SECONDS)
+				.isAccepted());
+		List<Outcome<Appointment>> outcomes = new ArrayList<>();
+		for (Future<Outcome<Appointment>> future : futures) {
+			outcomes.add(future.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, outcomes.stream()
+				.filter(Outcome::isAccepted)
+				.count(), () -> "Outcomes: " + outcomes);
+		for (Outcome<Appointment> outcome : outcomes) {
+			if (!outcome.isAccepted()) {
+				assertEquals(Outcome.Kind.NOT_FOUND, outcome.getKind(), outcome::getMessage);
+			}
+		}
+		assertEquals(1, removals.size());
+		assertTrue(plannerService.getAllWorkingAppointments()
+				.isEmpty());
+	}
+
+	@Test
+	public void backToBackBookingsAreAccepted() {
+		String workingPlatformId = createWorkingPlatform("platform");
+		String carMechanic = createCarMechanic("mechanic");
+
+		assertTrue(book(workingPlatformId, BEGIN, carMechanic).isAccepted());
+		assertTrue(book(workingPlatformId, BEGIN.plusMinutes(WORK_DURATION), carMechanic).isAccepted());
+		assertTrue(book(workingPlatformId, BEGIN.minusMinutes(WORK_DURATION), carMechanic).isAccepted());
+		assertEquals(3, countAppointmentsOnWorkingPlatform(workingPlatformId));
+	}
+
+	@Test
+	public void overlappingBookingsAreConflicts() {
+		String workingPlatformId = createWorkingPlatform("platform");
+		String carMechanic = createCarMechanic("mechanic");
+		book(workingPlatformId, BEGIN, carMechanic);
+
+		Outcome<WorkingAppointment> overlappingEnd = book(workingPlatformId, BEGIN.minusMinutes(WORK_DURATION - 1),
+				createCarMechanic("other-mechanic"));
+		Outcome<WorkingAppointment> overlappingBeginning = book(createWorkingPlatform("other-platform"),
+				BEGIN.plusMinutes(WORK_DURATION - 1), carMechanic);
+
+		assertEquals(Outcome.Kind.CONFLICT, overlappingEnd.getKind());
+		assertTrue(overlappingEnd.getConflictingWith()
+				.isPresent());
+		assertEquals(Outcome.Kind.CONFLICT, overlappingBeginning.getKind());
+		assertEquals(1, plannerService.getAllWorkingAppointments()
+				.size());
+	}
+
+	@Test
+	public void updateDoesNotConflictWithItself() {
+		String workingPlatformId = createWorkingPlatform("platform");
+		String appointmentId = book(workingPlatformId, BEGIN, createCarMechanic("mechanic")).getResult()
+				.get()
+				.getAppointmentId();
+
+		Outcome<WorkingAppointment> update = plannerService.updateWorkingAppointment(appointmentId, workingPlatformId,
+				BEGIN.plusMinutes(WORK_DURATION / 2));
+
+		assertTrue(update.isAccepted());
+		assertEquals(BEGIN.plusMinutes(WORK_DURATION / 2), update.getResult()
+				.get()
+				.getAppointmentBeginDateAndTime());
+	}
+
+	@Test
+	public void nextAvailableCleaningAppointmentBeginsWhenTheWorkingPlatformIsFreeAgain() {
+		String workingPlatformId = createWorkingPlatform("platform");
+		String dispatcher = createDispatcher("dispatcher");
+		// too little time before it for a cleaning
+		LocalDateTime beginOfWorkingAppointment = LocalDateTime.now()
+				.truncatedTo(ChronoUnit.MINUTES)
+				.plusMinutes(10);
+		book(workingPlatformId, beginOfWorkingAppointment, createCarMechanic("mechanic"));
+
+		Outcome<CleaningAppointment> cleaning = plannerService
+				.createAndAddNextAvailableCleaningAppointment(CleaningAppointmentType.QUICK, workingPlatformId, dispatcher);
+
+		assertTrue(cleaning.isAccepted());
+		assertEquals(beginOfWorkingAppointment.plusMinutes(WORK_DURATION), cleaning.getResult()
+				.get()
+				.getAppointmentBeginDateAndTime());
+	}
+
+	@Test
+	public void nextAvailableCleaningAppointmentWaitsForTheDispatcher() {
+		String dispatcher = createDispatcher("dispatcher");
+		LocalDateTime beginOfOtherCleaning = LocalDateTime.now()
+				.truncatedTo(ChronoUnit.MINUTES)
+				.plusMinutes(10);
+		assertTrue(plannerService.createAndAddNewCleaningAppointment(CleaningAppointmentType.INTENSIVE,
+				createWorkingPlatform("other-platform"), beginOfOtherCleaning, dispatcher)
+				.isAccepted());
+
+		Outcome<CleaningAppointment> cleaning = plannerService.createAndAddNextAvailableCleaningAppointment(
+				CleaningAppointmentType.QUICK, createWorkingPlatform("platform"), dispatcher);
+
+		assertTrue(cleaning.isAccepted());
+		assertEquals(beginOfOtherCleaning.plusMinutes(60), cleaning.getResult()
+				.get()
+				.getAppointmentBeginDateAndTime());
+	}
+
+	@Test
+	public void nextAvailableCleaningAppointmentNeedsADispatcher() {
+		Outcome<CleaningAppointment> cleaning = plannerService.createAndAddNextAvailableCleaningAppointment(
+				CleaningAppointmentType.QUICK, createWorkingPlatform("platform"), createCarMechanic("mechanic"));
+
+		assertEquals(Outcome.Kind.INVALID, cleaning.getKind());
+		assertTrue(plannerService.getAllCleaningAppointments()
+				.isEmpty());
+	}
+
+	@Test
+	public void slotSearchesRejectUnknownInput() {
+		String workingPlatformId = createWorkingPlatform("platform");
+		String carMechanic = createCarMechanic("mechanic");
+
+		assertEquals(Outcome.Kind.NOT_FOUND, plannerService
+				.getNextAvailableWorkingAppointmentDatesOnWorkingPlatform(Collections.singleton(prefix + "-unknown"),
+						workingPlatformId, carMechanic, 3, BEGIN, null)
+				.getKind());
+		assertEquals(Outcome.Kind.INVALID, plannerService
+				.getNextAvailableWorkingAppointmentDatesOnWorkingPlatform(Collections.emptySet(), workingPlatformId,
+						carMechanic, 3, BEGIN, null)
+				.getKind());
+		assertEquals(Outcome.Kind.NOT_FOUND, plannerService
+				.getNextAvailableWorkingAppointmentDatesOnWorkingPlatform(idsOfWorks, prefix + "-unknown", carMechanic,
+						3, BEGIN, null)
+				.getKind());
+		assertEquals(Outcome.Kind.NOT_FOUND, plannerService
+				.getNextAvailableWorkingAppointmentDatesOnAllWorkingPlatforms(idsOfWorks, prefix + "-unknown", 3,
+						BEGIN, null)
+				.getKind());
+		assertEquals(Collections.singletonList(BEGIN), plannerService
+				.getNextAvailableWorkingAppointmentDatesOnWorkingPlatform(idsOfWorks, workingPlatformId, carMechanic, 1,
+						BEGIN, null)
+				.getResult()
+				.get());
+	}
+
+	@Test
+	public void weekOverviewRejectsAWeekTheYearDoesNotHave() {
+		assertThrows(IllegalArgumentException.class, () -> plannerService.getSortedAppointmentOverviewOfWeek(2021, 53));
+	}
+
+	@Test
+	public void publishedChangesKeepTheStateRightAfterTheChange() {
+		List<CalendarChange> changes = new CopyOnWriteArrayList<>();
+		plannerService.addCalendarChangeListener(changes::add);
+		String workingPlatformId = createWorkingPlatform("platform");
+		String appointmentId = book(workingPlatformId, BEGIN, createCarMechanic("mechanic")).getResult()
+				.get()
+				.getAppointmentId();
+
+		plannerService.updateWorkingAppointment(appointmentId, workingPlatformId, BEGIN.plusDays(1));
+
+		assertEquals(2, changes.size());
+		assertEquals(BEGIN, changes.get(0)
+				.getAppointment()
+				.getAppointmentBeginDateAndTime());
+		assertEquals(BEGIN.plusDays(1), changes.get(1)
+				.getAppointment()
+				.getAppointmentBeginDateAndTime());
+	}
+
+	@Test
+	public void earliestDateIsOnlySearchedAtTheOwnLocation() {
+		String workingPlatformId = createWorkingPlatform("platform");
+		String carMechanic = createCarMechanic("mechanic");
+		book(workingPlatformId, BEGIN, carMechanic);
+		// free at the begin, but at another location
+		workingPlatformService.createAndAddNewWorkingPlatform(prefix + "-other-platform", prefix + "-other");
+		userService.createAndAddNewCarMechanicUser(prefix + "-other-mechanic", "Max", "Mustermann", prefix + "-other");
+
+		WorkingAppointment workingAppointment = plannerService
+				.createAndAddWorkingAppointmentAtEarliestDate(idsOfWorks, customerId, vehicleLicensePlate, BEGIN, null)
+				.getResult()
+				.get();
+
+		assertEquals(BEGIN.plusMinutes(WORK_DURATION), workingAppointment.getAppointmentBeginDateAndTime());
+		assertEquals(workingPlatformId, workingAppointment.getWorkingPlatformRelatedToWorkingAppointment()
+				.getWorkingPlatformId());
+		assertEquals(carMechanic, workingAppointment.getResponsibleCarMechanicUser()
+				.getUsername());
+	}
+
+	@Test
+	public void resourcesOfAnotherLocationAreNotBooked() {
+		String workingPlatformId = createWorkingPlatform("platform");
+		String carMechanic = createCarMechanic("mechanic");
+		String dispatcher = createDispatcher("dispatcher");
+		PlannerService plannerOfAnotherLocation = PlannerService.getInstance(prefix + "-other");
+		String workingPlatformIdOfAnotherLocation = workingPlatformService
+				.createAndAddNewWorkingPlatform(prefix + "-other-platform", prefix + "-other")
+				.getResult()
+				.get()
+				.getWorkingPlatformId();
+
+		assertEquals(Outcome.Kind.INVALID, plannerOfAnotherLocation
+				.createAndAddNewWorkingAppointment(idsOfWorks, customerId, vehicleLicensePlate,
+						workingPlatformIdOfAnotherLocation, BEGIN, carMechanic)
+				.getKind());
+		assertEquals(Outcome.Kind.INVALID, plannerOfAnotherLocation
+				.createAndAddNewCleaningAppointment(CleaningAppointmentType.QUICK, workingPlatformId, BEGIN,
+						dispatcher)
+				.getKind());
+		String appointmentId = book(workingPlatformId, BEGIN, carMechanic).getResult()
+				.get()
+				.getAppointmentId();
+		assertEquals(Outcome.Kind.INVALID, plannerService
+				.updateWorkingAppointment(appointmentId, workingPlatformIdOfAnotherLocation, BEGIN)
+				.getKind());
+		assertTrue(plannerOfAnotherLocation.getAllAppointments()
+				.isEmpty());
+	}
+
+	@Test
+	public void batchBookingResolvesConflictsInsideTheBatch() {
+		String firstWorkingPlatformId = createWorkingPlatform("platform-1");
+		String secondWorkingPlatformId = createWorkingPlatform("platform-2");
+		String thirdWorkingPlatformId = createWorkingPlatform("platform-3");
+		String bookedCarMechanic = createCarMechanic("mechanic-1");
+		String carMechanic = createCarMechanic("mechanic-2");
+		String otherCarMechanic = createCarMechanic("mechanic-3");
+		String freeCarMechanic = createCarMechanic("mechanic-4");
+		book(firstWorkingPlatformId, BEGIN, bookedCarMechanic);
+
+		List<BookingResult> results = plannerService.bookWorkingAppointments(Arrays.asList(
+				// the same working platform as the next request, which begins earlier
+				request(secondWorkingPlatformId, BEGIN.plusMinutes(30), carMechanic),
+				request(secondWorkingPlatformId, BEGIN, otherCarMechanic),
+				// begins right at the end of the booked appointment
+				request(firstWorkingPlatformId, BEGIN.plusMinutes(WORK_DURATION), carMechanic),
+				request(thirdWorkingPlatformId, BEGIN.plusMinutes(30), bookedCarMechanic),
+				// the same car mechanic and begin as the request before the previous one
+				request(thirdWorkingPlatformId, BEGIN.plusMinutes(WORK_DURATION), carMechanic),
+				request(prefix + "-unknown", BEGIN, freeCarMechanic),
+				// the working platform of the rejected requests is still free
+				request(thirdWorkingPlatformId, BEGIN.plusMinutes(WORK_DURATION), freeCarMechanic)));
+
+		assertEquals(Arrays.asList(Outcome.Kind.CONFLICT, Outcome.Kind.ACCEPTED, Outcome.Kind.ACCEPTED,
+				Outcome.Kind.CONFLICT, Outcome.Kind.CONFLICT, Outcome.Kind.NOT_FOUND, Outcome.Kind.ACCEPTED), results
+						.stream()
+						.map(result -> result.getOutcome()
+								.getKind())
+						.collect(Collectors.toList()));
+		assertEquals(4, plannerService.getAllWorkingAppointments()
+				.size());
+		assertEquals(1, countAppointmentsOnWorkingPlatform(secondWorkingPlatformId));
+		assertEquals(BEGIN, results.get(1)
+				.getBookedWorkingAppointment()
+				.get()
+				.getAppointmentBeginDateAndTime());
+	}
+
+	@Test
+	public void reschedulingOnlyMovesToResourcesOfTheOwnLocation() {
+		String carMechanic = createCarMechanic("mechanic");
+		WorkingAppointment workingAppointment = book(createWorkingPlatform("platform"), BEGIN, carMechanic)
+				.getResult()
+				.get();
+		// free the whole time, but at another location
+		userService.createAndAddNewCarMechanicUser(prefix + "-other-mechanic", "Max", "Mustermann", prefix + "-other");
+
+		ReschedulingPlan plan = plannerService
+				.planRescheduling(BEGIN.toLocalDate(), BEGIN.toLocalDate(), Collections.emptySet(),
+						Collections.singleton(carMechanic))
+				.getResult()
+				.get();
+
+		assertTrue(plan.getMoves()
+				.isEmpty());
+		assertEquals(Collections.singletonList(workingAppointment), plan.getAppointmentsLeftOnUnavailableResources());
+	}
+
+	@Test
+	public void utilizationReportAndSlotSearchOnlyCoverTheOwnLocation() {
+		String workingPlatformId = createWorkingPlatform("platform");
+		String carMechanic = createCarMechanic("mechanic");
+		workingPlatformService.createAndAddNewWorkingPlatform(prefix + "-other-platform", prefix + "-other");
+		userService.createAndAddNewCarMechanicUser(prefix + "-other-mechanic", "Max", "Mustermann", prefix + "-other");
+
+		UtilizationReport report = plannerService
+				.createUtilizationReport(BEGIN.toLocalDate(), BEGIN.toLocalDate(), UtilizationBucket.DAY,
+						LocalTime.of(8, 0), LocalTime.of(18, 0))
+				.getResult()
+				.get();
+		Map<WorkingPlatform, List<LocalDateTime>> dates = plannerService
+				.getNextAvailableWorkingAppointmentDatesOnAllWorkingPlatforms(idsOfWorks, carMechanic, 1, BEGIN, null)
+				.getResult()
+				.get();
+
+		assertEquals(1, report.getWorkingPlatforms()
+				.size());
+		assertEquals(workingPlatformId, report.getWorkingPlatforms()
+				.get(0)
+				.getResourceId());
+		assertEquals(1, report.getCarMechanicUsers()
+				.size());
+		assertEquals(1, dates.size());
+		assertEquals(workingPlatformId, dates.keySet()
+				.iterator()
+				.next()
+				.getWorkingPlatformId());
+	}
+
+	private Outcome<WorkingAppointment> book(String workingPlatformId, LocalDateTime begin, String carMechanic) {
+		return plannerService.createAndAddNewWorkingAppointment(idsOfWorks, customerId, vehicleLicensePlate,
+				workingPlatformId, begin, carMechanic);
+	}
+
+	private WorkingAppointmentRequest request(String workingPlatformId, LocalDateTime begin, String carMechanic) {
+		return new WorkingAppointmentRequest(idsOfWorks, customerId, vehicleLicensePlate, workingPlatformId, begin,
+				carMechanic);
+	}
+
+	private String createWorkingPlatform(String name) {
+		return workingPlatformService.createAndAddNewWorkingPlatform(prefix + "-" + name, prefix)
+				.getResult()
+				.get()
+				.getWorkingPlatformId();
+	}
+
+	private String createCarMechanic(String name) {
+		String username = prefix + "-" + name;
+		userService.createAndAddNewCarMechanicUser(username, "Erika", "Mustermann", prefix);
+		return username;
+	}
+
+	private String createDispatcher(String name) {
+		String username = prefix + "-" + name;
+		userService.createAndAddNewDispatcherUser(username, "Erika", "Mustermann", prefix);
+		return username;
+	}
+
+	private long countAppointmentsOnWorkingPlatform(String workingPlatformId) {
+		return plannerService.getAllWorkingAppointments()
+				.stream()
+				.filter(appointment -> appointment.getWorkingPlatformRelatedToWorkingAppointment()
+						.getWorkingPlatformId()
+						.equals(workingPlatformId))
+				.count();
+	}
+
+	/**
+	 * Starts all tasks at the same time, so they really compete for the same
+	 * resources.
+	 */
+	private <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+		CountDownLatch ready = new CountDownLatch(tasks.size());
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<T>> futures = new ArrayList<>();
+		for (Callable<T> task : tasks) {
+			futures.add(executor.submit(() -> {
+				ready.countDown();
+				start.await();
+				return task.call();
+			}));
+		}
+		assertTrue(ready.await(10, TimeUnit.SECONDS));
+		start.countDown();
+		List<T> results = new ArrayList<>();
+		for (Future<T> future : futures) {
+			results.add(future.get(10, TimeUnit.SECONDS));
+		}
+		return results;
+	}
+
+	private static void assertOnlyOneAccepted(List<? extends Outcome<?>> outcomes) {
+		long accepted = outcomes.stream()
+				.filter(Outcome::isAccepted)
+				.count();
+		assertEquals(1, accepted, () -> "Outcomes: " + outcomes);
+		for (Outcome<?> outcome : outcomes) {
+			if (!outcome.isAccepted()) {
+				assertEquals(Outcome.Kind.CONFLICT, outcome.getKind(), outcome::getMessage);
+			}
+		}
+	}
 }
@@ -0,0 +1,147 @@
+package de.hs_kl.staab.planner.REST;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.jayway.jsonpath.JsonPath;
+
+import de.hs_kl.staab.planner.services.CustomerService;
+import de.hs_kl.staab.planner.services.PlannerService;
+import de.hs_kl.staab.planner.services.UserService;
+import de.hs_kl.staab.planner.services.VehicleService;
+import de.hs_kl.staab.planner.services.WorkService;
+import de.hs_kl.staab.planner.services.WorkingPlatformService;
+
+@WebMvcTest(PlannerController.class)
+public class PlannerControllerTest {
+
+	private static final LocalDateTime BEGIN = LocalDateTime.of(2030, 1, 7, 8, 0);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	// the services are singletons, so every test uses its own location and its own
+	// names to stay independent of the other tests
+	private String prefix;
+	private PlannerService plannerService;
+	private String workId;
+	private String customerId;
+	private String vehicleLicensePlate;
+	private String workingPlatformId;
+	private String carMechanic;
+
+	@BeforeEach
+	void setUp() {
+		this.prefix = UUID.randomUUID()
+				.toString();
+		this.plannerService = PlannerService.getInstance(prefix);
+		this.workId = WorkService.getInstance()
+				.createAndAddNewWork(prefix + "-work", 60)
+				.getResult()
+				.get()
+				.getWorkId();
+		this.customerId = CustomerService.getInstance()
+				.createAndAddNewCustomer("Max", prefix, "Hauptstraße", 1, 67657, "Kaiserslautern", "0631", "max@test.de")
+				.getResult()
+				.get()
+				.getCustomerId();
+		this.vehicleLicensePlate = prefix + "-plate";
+		VehicleService.getInstance()
+				.createAndAddNewVehicle("VW", "Golf", 2015, vehicleLicensePlate, BEGIN.minusYears(5));
+		CustomerService.getInstance()
+				.addVehicleToCustomersVehicles(customerId, vehicleLicensePlate);
+		this.workingPlatformId = WorkingPlatformService.getInstance()
+				.createAndAddNewWorkingPlatform(prefix + "-platform", prefix)
+				.getResult()
+				.get()
+				.getWorkingPlatformId();
+		this.carMechanic = prefix + "-mechanic";
+		UserService.getInstance()
+				.createAndAddNewCarMechanicUser(carMechanic, "Erika", "Mustermann", prefix);
+	}
+
+	@Test
+	public void appointmentsArePagedWithTheCursor() throws Exception {
+		for (int hour = 0; hour < 3; hour++) {
+			plannerService.createAndAddNewWorkingAppointment(Collections.singleton(workId), customerId,
+					vehicleLicensePlate, workingPlatformId, BEGIN.plusHours(hour), carMechanic);
+		}
+
+		MvcResult firstPage = performStreamed(get("/planner/appointments").param("limit", "2")
+				.param("location", prefix)).andExpect(status().isOk())
+						.andExpect(jsonPath("$.items", hasSize(2)))
+						.andExpect(jsonPath("$.items[0].begin").value(BEGIN.toString()))
+						.andExpect(jsonPath("$.items[1].begin").value(BEGIN.plusHours(1)
+								.toString()))
+						.andExpect(jsonPath("$.nextCursor", notNullValue()))
+						.andReturn();
+		String cursor = JsonPath.read(firstPage.getResponse()
+				.getContentAsString(), "$.nextCursor");
+
+		performStreamed(get("/planner/appointments").param("limit", "2")
+				.param("cursor", cursor)
+				.param("location", prefix)).andExpect(status().isOk())
+						.andExpect(jsonPath("$.items", hasSize(1)))
+						.andExpect(jsonPath("$.items[0].begin").value(BEGIN.plusHours(2)
+								.toString()))
+						.andExpect(jsonPath("$.nextCursor", nullValue()));
+	}
+
+	@Test
+	public void overlappingWorkingAppointmentIsAConflict() throws Exception {
+		performStreamed(createWorkingAppointment()).andExpect(status().isCreated())
+				.andExpect(jsonPath("$.type").value("WORKING"))
+				.andExpect(jsonPath("$.workingPlatformId").value(workingPlatformId));
+
+		// rejected before anything is streamed
+		mockMvc.perform(createWorkingAppointment())
+				.andExpect(status().isConflict());
+	}
+
+	@Test
+	public void unknownLocationIsNotFound() throws Exception {
+		mockMvc.perform(get("/planner/appointments").param("location", prefix + "-unknown"))
+				.andExpect(status().isNotFound());
+	}
+
+	private MockHttpServletRequestBuilder createWorkingAppointment() {
+		return post("/planner/appointments/working").param("workIds", workId)
+				.param("customerId", customerId)
+				.param("vehicleLicensePlate", vehicleLicensePlate)
+				.param("workingPlatformId", workingPlatformId)
+				.param("begin", BEGIN.toString())
+				.param("carMechanicUsername", carMechanic)
+				.param("location", prefix);
+	}
+
+	/**
+	 * The body is streamed asynchronously, so the request has to be dispatched
+	 * again to get it.
+	 */
+	private ResultActions performStreamed(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+		MvcResult startedResult = mockMvc.perform(requestBuilder)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(startedResult));
+	}
+}
@@ -0,0 +1,123 @@
+package de.hs_kl.staab.planner.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.hs_kl.staab.planner.CarMechanicUser;
+import de.hs_kl.staab.planner.Customer;
+import de.hs_kl.staab.planner.Vehicle;
+import de.hs_kl.staab.planner.Work;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+import de.hs_kl.staab.planner.WorkingPlatform;
+
+public class AppointmentArchiveTest {
+
+	private static final LocalDate MONDAY = LocalDate.of(2020, 1, 6);
+
+	private final Work work = new Work("Ölwechsel", 60);
+	private final Customer customer = new Customer("Max", "Mustermann", "Hauptstraße", 1, 67657, "Kaiserslautern",
+			"0631", "max@test.de");
+	private final WorkingPlatform workingPlatform = new WorkingPlatform("Bühne", "archive");
+	private final CarMechanicUser carMechanicUser = new CarMechanicUser("archive-mechanic", "Erika", "Mustermann",
+			"archive");
+	private final Vehicle firstVehicle = new Vehicle("VW", "Golf", 2015, "KL-AA-1", MONDAY.atStartOfDay());
+	private final Vehicle secondVehicle = new Vehicle("VW", "Polo", 2016, "KL-AA-2", MONDAY.atStartOfDay());
+
+	@TempDir
+	Path directory;
+
+	private AppointmentArchive appointmentArchive;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		customer.addVehicleToVehicleSet(firstVehicle);
+		customer.addVehicleToVehicleSet(secondVehicle);
+		this.appointmentArchive = new AppointmentArchive(directory.resolve("archive"));
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		appointmentArchive.close();
+	}
+
+	@Test
+	public void appointmentsOfDaysAreSortedByTheirBegin() throws IOException {
+		// archived in another order than they begin
+		WorkingAppointment tuesdayAfternoon = archive(firstVehicle, MONDAY.plusDays(1)
+				.atTime(14, 0), WorkingAppointmentStatus.FINISHED);
+		WorkingAppointment nextMonday = archive(firstVehicle, MONDAY.plusDays(7)
+				.atTime(8, 0), WorkingAppointmentStatus.FINISHED);
+		WorkingAppointment monday = archive(secondVehicle, MONDAY.atTime(9, 0), WorkingAppointmentStatus.CANCELLED);
+		WorkingAppointment tuesdayMorning = archive(secondVehicle, MONDAY.plusDays(1)
+				.atTime(8, 0), WorkingAppointmentStatus.FINISHED);
+		archive(firstVehicle, MONDAY.minusDays(1)
+				.atTime(23, 0), WorkingAppointmentStatus.FINISHED);
+
+		assertEquals(idsOf(monday, tuesdayMorning, tuesdayAfternoon),
+				idsOf(appointmentArchive.getArchivedWorkingAppointmentsBeginningBetween(MONDAY, MONDAY.plusDays(6))));
+		assertEquals(idsOf(tuesdayMorning, tuesdayAfternoon, nextMonday),
+				idsOf(appointmentArchive.getArchivedWorkingAppointmentsBeginningBetween(MONDAY, MONDAY.plusDays(7),
+						WorkingAppointmentStatus.FINISHED)));
+		Iterator<WorkingAppointment> iterator = appointmentArchive
+				.iterateArchivedWorkingAppointmentsBeginningBetween(MONDAY.plusDays(1), MONDAY.plusDays(1));
+		assertEquals(tuesdayMorning.getAppointmentId(), iterator.next()
+				.getAppointmentId());
+		assertEquals(tuesdayAfternoon.getAppointmentId(), iterator.next()
+				.getAppointmentId());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void appointmentsOfAVehicleAreFoundByTheirStatus() throws IOException {
+		WorkingAppointment finished = archive(firstVehicle, MONDAY.atTime(8, 0), WorkingAppointmentStatus.FINISHED);
+		archive(secondVehicle, MONDAY.atTime(9, 0), WorkingAppointmentStatus.FINISHED);
+		WorkingAppointment cancelled = archive(firstVehicle, MONDAY.atTime(10, 0),
+				WorkingAppointmentStatus.CANCELLED);
+
+		assertEquals(idsOf(finished, cancelled),
+				idsOf(appointmentArchive.getArchivedWorkingAppointmentsOfVehicle(firstVehicle, null)));
+		assertEquals(idsOf(finished), idsOf(appointmentArchive.getArchivedWorkingAppointmentsOfVehicle(firstVehicle,
+				WorkingAppointmentStatus.FINISHED)));
+		assertTrue(appointmentArchive.hasArchivedWorkingAppointmentsOfVehicle(secondVehicle));
+		Vehicle vehicleWithoutAppointments = new Vehicle("VW", "Up", 2017, "KL-AA-3", MONDAY.atStartOfDay());
+		assertFalse(appointmentArchive.hasArchivedWorkingAppointmentsOfVehicle(vehicleWithoutAppointments));
+		assertTrue(appointmentArchive.getArchivedWorkingAppointmentsOfVehicle(vehicleWithoutAppointments, null)
+				.isEmpty());
+	}
+
+	private WorkingAppointment archive(Vehicle vehicle, LocalDateTime begin, WorkingAppointmentStatus status)
+			throws IOException {
+		WorkingAppointment workingAppointment = new WorkingAppointment(Collections.singleton(work), customer,
+				vehicle, workingPlatform, begin, carMechanicUser);
+		workingAppointment.setStatus(status);
+		appointmentArchive.archiveWorkingAppointment(workingAppointment);
+		return workingAppointment;
+	}
+
+	private static List<String> idsOf(WorkingAppointment... workingAppointments) {
+		return idsOf(Arrays.asList(workingAppointments));
+	}
+
+	private static List<String> idsOf(List<WorkingAppointment> workingAppointments) {
+		return workingAppointments.stream()
+				.map(WorkingAppointment::getAppointmentId)
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,64 @@
+package de.hs_kl.staab.planner.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.ClientAdvisorUser;
+import de.hs_kl.staab.planner.ConsultingAppointment;
+import de.hs_kl.staab.planner.Customer;
+import de.hs_kl.staab.planner.EpochMinutes;
+
+public class AppointmentTimelineTest {
+
+	private static final LocalDateTime MONDAY = LocalDateTime.of(2030, 1, 7, 8, 0);
+
+	private final Customer customer = new Customer("Max", "Mustermann", "Hauptstraße", 1, 67657, "Kaiserslautern",
+			"0631", "max@test.de");
+	private final ClientAdvisorUser clientAdvisorUser = new ClientAdvisorUser("timeline-advisor", "Erika",
+			"Mustermann", "timeline");
+	private final AppointmentTimeline timeline = new AppointmentTimeline();
+
+	@Test
+	public void longestDurationShrinksWhenTheLongestAppointmentIsRemoved() {
+		Appointment wholeDay = add(MONDAY, 600);
+		Appointment shortOne = add(MONDAY.plusDays(1), 30);
+		Appointment otherShortOne = add(MONDAY.plusDays(2), 30);
+		assertEquals(600, timeline.getLongestDurationInMinutes());
+
+		timeline.removeAppointment(wholeDay);
+		assertEquals(30, timeline.getLongestDurationInMinutes());
+
+		// the same duration is counted twice
+		timeline.removeAppointment(shortOne);
+		assertEquals(30, timeline.getLongestDurationInMinutes());
+		timeline.removeAppointment(otherShortOne);
+		assertEquals(0, timeline.getLongestDurationInMinutes());
+		assertTrue(timeline.isEmpty());
+	}
+
+	@Test
+	public void overlapsAreFoundAfterTheLongestAppointmentIsRemoved() {
+		Appointment wholeDay = add(MONDAY, 600);
+		Appointment morning = add(MONDAY.plusMinutes(60), 120);
+		Appointment afternoon = add(MONDAY.plusMinutes(300), 60);
+		timeline.removeAppointment(wholeDay);
+
+		long noon = EpochMinutes.of(MONDAY.plusMinutes(240));
+		assertEquals(Arrays.asList(morning), timeline.getAppointmentsOverlapping(noon - 90, noon));
+		assertEquals(Arrays.asList(morning, afternoon), timeline.getAppointmentsOverlapping(noon - 90, noon + 90));
+		assertTrue(timeline.getAppointmentsOverlapping(noon, noon + 60)
+				.isEmpty());
+	}
+
+	private Appointment add(LocalDateTime begin, int durationInMinutes) {
+		Appointment appointment = new ConsultingAppointment(customer, durationInMinutes, begin, clientAdvisorUser);
+		timeline.addAppointment(appointment);
+		return appointment;
+	}
+}
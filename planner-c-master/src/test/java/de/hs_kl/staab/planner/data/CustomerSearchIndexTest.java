@@ -0,0 +1,95 @@
+package de.hs_kl.staab.planner.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.hs_kl.staab.planner.Customer;
+
+public class CustomerSearchIndexTest {
+
+	private static final int MAX_NUMBER_OF_RESULTS = 10;
+
+	private final CustomerData customerData = new CustomerData();
+
+	@Test
+	public void exactWordsRankBeforeBeginningsOfWordsAndMisspellings() {
+		Customer misspelled = add("Peter", "Mueler", 67657, "0631 1");
+		Customer beginning = add("Anna", "Müllerschön", 67657, "0631 2");
+		Customer zoeMueller = add("Zoe", "Müller", 67657, "0631 3");
+		Customer maxMueller = add("Max", "Müller", 67657, "0631 4");
+
+		// equally good matches are sorted by their last and first name
+		assertEquals(Arrays.asList(maxMueller, zoeMueller, beginning, misspelled), search("müller"));
+		assertEquals(Arrays.asList(maxMueller, zoeMueller), customerData.searchCustomers("Mueller", 2));
+		assertEquals(Collections.singletonList(zoeMueller), search("Zoe Müller"));
+	}
+
+	@Test
+	public void misspelledWordsAreFound() {
+		Customer customer = add("Max", "Mustermann", 67657, "0631/12345");
+
+		assertEquals(Collections.singletonList(customer), search("Mustremann"));
+		assertEquals(Collections.singletonList(customer), search("Kaiserlsautern"));
+		assertEquals(Collections.singletonList(customer), search("Max Mustremann"));
+		// too short to guess what was meant
+		assertTrue(search("Mx")
+				.isEmpty());
+		assertTrue(search("Schneider")
+				.isEmpty());
+	}
+
+	@Test
+	public void contactDetailsAndPostalCodesAreFound() {
+		Customer customer = add("Max", "Mustermann", 1067, "0631/12345");
+
+		assertEquals(Collections.singletonList(customer), search("+49 631 12345"));
+		assertEquals(Collections.singletonList(customer), search("MUSTERMANN@test.de"));
+		assertEquals(Collections.singletonList(customer), search("0106"));
+		assertEquals(Collections.singletonList(customer), customerData.getCustomersWithPostalCode(1067));
+	}
+
+	@Test
+	public void changedCustomersAreIndexedAgain() {
+		Customer customer = add("Max", "Müller", 67657, "0631/12345");
+		Customer otherCustomer = add("Anna", "Müller", 67655, "0631/54321");
+
+		customerData.updateCustomerInCustomerData(customer, () -> {
+			customer.setCustomerLastName("Schneider");
+			customer.setPostalCode(66849);
+			customer.setPhoneNumber("06371/1");
+		});
+
+		assertEquals(Collections.singletonList(otherCustomer), search("Müller"));
+		assertEquals(Collections.singletonList(customer), search("Schneider"));
+		assertEquals(Collections.singletonList(customer), search("06371 1"));
+		assertTrue(search("0631/12345")
+				.isEmpty());
+		assertTrue(customerData.getCustomersWithPostalCode(67657)
+				.isEmpty());
+		assertEquals(Collections.singletonList(customer), customerData.getCustomersWithPostalCode(66849));
+
+		customerData.removeCustomerFromCustomerData(customer);
+
+		assertTrue(search("Schneider")
+				.isEmpty());
+		assertTrue(customerData.getCustomersWithPostalCode(66849)
+				.isEmpty());
+	}
+
+	private Customer add(String firstName, String lastName, int postalCode, String phoneNumber) {
+		Customer customer = new Customer(firstName, lastName, "Hauptstraße", 1, postalCode, "Kaiserslautern",
+				phoneNumber, lastName.toLowerCase() + "@test.de");
+		customerData.addCustomerToCustomerData(customer);
+		return customer;
+	}
+
+	private List<Customer> search(String query) {
+		return customerData.searchCustomers(query, MAX_NUMBER_OF_RESULTS);
+	}
+}
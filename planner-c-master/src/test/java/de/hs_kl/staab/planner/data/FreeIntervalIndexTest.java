@@ -0,0 +1,102 @@
+package de.hs_kl.staab.planner.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.ClientAdvisorUser;
+import de.hs_kl.staab.planner.ConsultingAppointment;
+import de.hs_kl.staab.planner.Customer;
+import de.hs_kl.staab.planner.EpochMinutes;
+
+public class FreeIntervalIndexTest {
+
+	private static final LocalDateTime MONDAY = LocalDateTime.of(2030, 1, 7, 8, 0);
+	private static final long BEGIN = EpochMinutes.of(MONDAY);
+
+	private final Customer customer = new Customer("Max", "Mustermann", "Hauptstraße", 1, 67657, "Kaiserslautern",
+			"0631", "max@test.de");
+	private final ClientAdvisorUser clientAdvisorUser = new ClientAdvisorUser("free-advisor", "Erika", "Mustermann",
+			"free");
+	private final FreeIntervalIndex freeIntervalIndex = new FreeIntervalIndex();
+
+	@Test
+	public void releasingKeepsTheOverlappingAppointmentOccupied() {
+		Appointment first = occupy(0, 120);
+		Appointment second = occupy(60, 180);
+
+		release(first, second);
+
+		assertEquals(BEGIN, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN, 60));
+		assertEquals(BEGIN + 180, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN, 61));
+		assertEquals(BEGIN + 180, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN + 60, 1));
+
+		release(second);
+
+		assertEquals(BEGIN, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN, 1000));
+		// merged with the free time spans before and after
+		assertEquals(BEGIN - 1000, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN - 1000, 2000));
+	}
+
+	@Test
+	public void releasingAroundAContainedAppointmentFreesBothSides() {
+		Appointment wholeDay = occupy(0, 600);
+		Appointment morning = occupy(60, 120);
+		Appointment afternoon = occupy(300, 360);
+
+		release(wholeDay, morning, afternoon);
+
+		assertEquals(BEGIN, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN, 60));
+		assertEquals(BEGIN + 120, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN + 61, 180));
+		assertEquals(BEGIN + 360, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN + 61, 181));
+		assertEquals(BEGIN - 500, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN - 500, 560));
+		assertEquals(BEGIN + 360, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN - 500, 561));
+
+		release(morning, afternoon);
+		release(afternoon);
+
+		assertEquals(BEGIN, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN, 1000));
+	}
+
+	@Test
+	public void occupyingAgainAfterReleasingSplitsTheMergedTimeSpan() {
+		Appointment appointment = occupy(0, 60);
+		release(appointment);
+
+		occupy(30, 90);
+
+		assertEquals(BEGIN, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN, 30));
+		assertEquals(BEGIN + 90, freeIntervalIndex.getBeginOfFirstFreeTimeSpan(BEGIN, 31));
+	}
+
+	/**
+	 * @param startOffset - minutes after BEGIN
+	 * @param endOffset   - minutes after BEGIN
+	 */
+	private Appointment occupy(int startOffset, int endOffset) {
+		Appointment appointment = new ConsultingAppointment(customer, endOffset - startOffset,
+				MONDAY.plusMinutes(startOffset), clientAdvisorUser);
+		freeIntervalIndex.occupy(appointment.getAppointmentBeginEpochMinute(),
+				appointment.getAppointmentEndEpochMinute());
+		return appointment;
+	}
+
+	/**
+	 * Releases the time span of the removed appointment, as the timeline does.
+	 *
+	 * @param stillOccupyingAppointments - the remaining appointments overlapping
+	 *                                   it, sorted by their begin
+	 */
+	private void release(Appointment removedAppointment, Appointment... stillOccupyingAppointments) {
+		List<Appointment> remainingAppointments = stillOccupyingAppointments.length == 0 ? Collections.emptyList()
+				: Arrays.asList(stillOccupyingAppointments);
+		freeIntervalIndex.release(removedAppointment.getAppointmentBeginEpochMinute(),
+				removedAppointment.getAppointmentEndEpochMinute(), remainingAppointments);
+	}
+}
@@ -0,0 +1,208 @@
+package de.hs_kl.staab.planner.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JournalTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void appendedRecordsAreRecoveredInOrder() throws IOException {
+		try (Journal journal = Journal.open(directory, record -> {
+		})) {
+			journal.append(bytes("a"));
+			journal.append(bytes("b"));
+			journal.awaitDurable(journal.append(bytes("c")));
+		}
+
+		assertEquals(Arrays.asList("a", "b", "c"), recover());
+	}
+
+	@Test
+	public void bytesOfRecordsAreKept() throws IOException {
+		byte[] record = new byte[] { 0, -1, 127, -128 };
+		try (Journal journal = Journal.open(directory, recoveredRecord -> {
+		})) {
+			journal.append(record);
+		}
+		List<byte[]> records = new ArrayList<>();
+		Journal.open(directory, records::add)
+				.close();
+
+		assertEquals(1, records.size());
+		assertArrayEquals(record, records.get(0));
+	}
+
+	@Test
+	public void recordsAreDurableWhenAwaitDurableReturns() throws IOException {
+		try (Journal journal = Journal.open(directory, record -> {
+		})) {
+			long sequence = journal.append(bytes("a"));
+			journal.awaitDurable(sequence);
+
+			// read the files without closing the journal, as after a crash
+			assertEquals(Arrays.asList("a"), readRecordsOfSegments());
+		}
+	}
+
+	@Test
+	public void incompleteRecordAtTheEndIsTruncated() throws IOException {
+		try (Journal journal = Journal.open(directory, record -> {
+		})) {
+			journal.append(bytes("a"));
+			journal.append(bytes("b"));
+		}
+		Path lastSegment = getSegments().get(0);
+		long intactLength = Files.size(lastSegment);
+		// a crash while writing the header and the first bytes of a record
+		Files.write(lastSegment, new byte[] { 0, 0, 0, 42, 1, 2, 3, 4, 5 }, StandardOpenOption.APPEND);
+
+		assertEquals(Arrays.asList("a", "b"), recover());
+		assertEquals(intactLength, Files.size(lastSegment));
+	}
+
+	@Test
+	public void damagedRecordAtTheEndIsTruncated() throws IOException {
+		try (Journal journal = Journal.open(directory, record -> {
+		})) {
+			journal.append(bytes("a"));
+			journal.append(bytes("b"));
+		}
+		Path lastSegment = getSegments().get(0);
+		byte[] content = Files.readAllBytes(lastSegment);
+		// flips a bit of the last record, so its checksum doesn't match anymore
+		content[content.length - 1] ^= 1;
+		Files.write(lastSegment, content);
+
+		assertEquals(Arrays.asList("a"), recover());
+		// new records go to a new segment and are recovered after the intact ones
+		try (Journal journal = Journal.open(directory, record -> {
+		})) {
+			journal.append(bytes("c"));
+		}
+		assertEquals(Arrays.asList("a", "c"), recover());
+	}
+
+	@Test
+	public void damagedRecordBeforeTheLastSegmentFailsTheRecovery() throws IOException {
+		try (Journal journal = Journal.open(directory, record -> {
+		})) {
+			journal.append(bytes("a"));
+			journal.startNewSegment();
+			journal.append(bytes("b"));
+		}
+		Path firstSegment = getSegments().get(0);
+		byte[] content = Files.readAllBytes(firstSegment);
+		content[content.length - 1] ^= 1;
+		Files.write(firstSegment, content);
+
+		assertThrows(IOException.class, () -> recover());
+	}
+
+	@Test
+	public void snapshotReplacesTheSegmentsBeforeIt() throws IOException {
+		try (Journal journal = Journal.open(directory, record -> {
+		})) {
+			journal.append(bytes("a=1"));
+			journal.append(bytes("b=1"));
+			long snapshotSegment = journal.startNewSegment();
+			journal.append(bytes("a=2"));
+			journal.writeSnapshot(snapshotSegment, Arrays.asList(bytes("a=1"), bytes("b=1")));
+			journal.append(bytes("c=1"));
+		}
+
+		assertEquals(Arrays.asList("a=1", "b=1", "a=2", "c=1"), recover());
+		assertFalse(Files.exists(directory.resolve("journal-0.log")));
+		assertEquals(Arrays.asList(directory.resolve("snapshot-1.snap")), getFiles("snapshot-"));
+	}
+
+	@Test
+	public void snapshotTakenAfterTheSegmentSwitchIsReplayedBeforeItsSegment() throws IOException {
+		// a snapshot may already contain changes appended after its segment was
+		// started, replaying them again afterwards ends with the same state
+		try (Journal journal = Journal.open(directory, record -> {
+		})) {
+			journal.append(bytes("a=1"));
+			long snapshotSegment = journal.startNewSegment();
+			journal.append(bytes("a=2"));
+			journal.writeSnapshot(snapshotSegment, Arrays.asList(bytes("a=2")));
+			journal.append(bytes("a=3"));
+		}
+
+		assertEquals(Arrays.asList("a=2", "a=2", "a=3"), recover());
+	}
+
+	@Test
+	public void snapshotIsRecoveredWithoutAnyLaterRecords() throws IOException {
+		try (Journal journal = Journal.open(directory, record -> {
+		})) {
+			journal.append(bytes("a=1"));
+			journal.writeSnapshot(journal.startNewSegment(), Arrays.asList(bytes("a=1")));
+		}
+
+		assertEquals(Arrays.asList("a=1"), recover());
+		assertFalse(Files.exists(directory.resolve("journal-0.log")));
+	}
+
+	private List<String> recover() throws IOException {
+		List<String> records = new ArrayList<>();
+		Journal.open(directory, record -> records.add(new String(record, StandardCharsets.UTF_8)))
+				.close();
+		return records;
+	}
+
+	/**
+	 * Reads the segments frame by frame like the recovery, but without changing
+	 * them.
+	 */
+	private List<String> readRecordsOfSegments() throws IOException {
+		List<String> records = new ArrayList<>();
+		for (Path segment : getSegments()) {
+			byte[] content = Files.readAllBytes(segment);
+			int position = 0;
+			while (position + 8 <= content.length) {
+				int length = ((content[position] & 0xff) << 24) | ((content[position + 1] & 0xff) << 16)
+						| ((content[position + 2] & 0xff) << 8) | (content[position + 3] & 0xff);
+				records.add(new String(content, position + 8, length, StandardCharsets.UTF_8));
+				position += 8 + length;
+			}
+		}
+		return records;
+	}
+
+	private List<Path> getSegments() throws IOException {
+		return getFiles("journal-");
+	}
+
+	private List<Path> getFiles(String prefix) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName()
+					.toString()
+					.startsWith(prefix))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static byte[] bytes(String record) {
+		return record.getBytes(StandardCharsets.UTF_8);
+	}
+}
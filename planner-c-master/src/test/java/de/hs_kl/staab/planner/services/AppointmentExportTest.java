@@ -0,0 +1,138 @@
+package de.hs_kl.staab.planner.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+
+public class AppointmentExportTest {
+
+	private static final LocalDateTime BEGIN = LocalDateTime.of(2030, 1, 7, 8, 0);
+
+	// the services are singletons, so every test uses its own location and its own
+	// names to stay independent of the other tests
+	private String prefix;
+	private PlannerService plannerService;
+	private Set<String> idsOfWorks;
+	private String customerId;
+	private String vehicleLicensePlate;
+	private String workingPlatformId;
+
+	@BeforeEach
+	void setUp() {
+		this.prefix = UUID.randomUUID()
+				.toString();
+		this.plannerService = PlannerService.getInstance(prefix);
+		this.idsOfWorks = Collections.singleton(WorkService.getInstance()
+				.createAndAddNewWork(prefix + "-work", 60)
+				.getResult()
+				.get()
+				.getWorkId());
+		this.customerId = CustomerService.getInstance()
+				.createAndAddNewCustomer("Max", prefix, "Hauptstraße", 1, 67657, "Kaiserslautern", "0631", "max@test.de")
+				.getResult()
+				.get()
+				.getCustomerId();
+		this.vehicleLicensePlate = prefix + "-plate";
+		VehicleService.getInstance()
+				.createAndAddNewVehicle("VW", "Golf", 2015, vehicleLicensePlate, BEGIN.minusYears(5));
+		CustomerService.getInstance()
+				.addVehicleToCustomersVehicles(customerId, vehicleLicensePlate);
+		this.workingPlatformId = WorkingPlatformService.getInstance()
+				.createAndAddNewWorkingPlatform(prefix + "-platform", prefix)
+				.getResult()
+				.get()
+				.getWorkingPlatformId();
+	}
+
+	@Test
+	public void csvContainsTheFilteredAppointmentsSortedByTheirBegin() throws IOException {
+		String carMechanic = createCarMechanic("mechanic-1");
+		String otherCarMechanic = createCarMechanic("mechanic-2");
+		String secondAppointmentId = book(BEGIN.plusDays(1), carMechanic);
+		String firstAppointmentId = book(BEGIN, carMechanic);
+		book(BEGIN.plusHours(1), otherCarMechanic);
+		// after the last day of the export
+		book(BEGIN.plusDays(2), carMechanic);
+
+		AppointmentExport export = plannerService
+				.createAppointmentExport(BEGIN.toLocalDate(), BEGIN.toLocalDate()
+						.plusDays(1), null, carMechanic, WorkingAppointmentStatus.OPEN)
+				.getResult()
+				.get();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		long numberOfAppointments = export.writeTo(Channels.newChannel(output), ExportFormat.CSV);
+
+		List<String> lines = Arrays.asList(new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+		assertEquals(2, numberOfAppointments);
+		assertEquals(3, lines.size());
+		assertTrue(lines.get(0)
+				.startsWith("appointmentId,type,begin,end,status,"));
+		assertEquals(firstAppointmentId + ",WORKING," + BEGIN + "," + BEGIN.plusHours(1) + ",OPEN,"
+				+ workingPlatformId + "," + customerId + "," + vehicleLicensePlate + "," + idsOfWorks.iterator()
+						.next() + ",,," + carMechanic + ",,", lines.get(1));
+		assertTrue(lines.get(2)
+				.startsWith(secondAppointmentId + ",WORKING," + BEGIN.plusDays(1)));
+	}
+
+	@Test
+	public void binaryExportIsFramedByTheHeaderAndTheEnd() throws IOException {
+		book(BEGIN, createCarMechanic("mechanic"));
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		long numberOfAppointments = plannerService
+				.createAppointmentExport(BEGIN.toLocalDate(), BEGIN.toLocalDate(), workingPlatformId, null, null)
+				.getResult()
+				.get()
+				.writeTo(Channels.newChannel(output), ExportFormat.BINARY);
+
+		byte[] bytes = output.toByteArray();
+		assertEquals(1, numberOfAppointments);
+		assertArrayEquals(new byte[] { 'P', 'L', 'N', 'X', 1, 1 }, Arrays.copyOf(bytes, 6));
+		assertEquals(0, bytes[bytes.length - 1]);
+	}
+
+	@Test
+	public void exportOfUnknownResourcesIsRejected() {
+		assertEquals(Outcome.Kind.NOT_FOUND, plannerService
+				.createAppointmentExport(BEGIN.toLocalDate(), BEGIN.toLocalDate(), prefix + "-unknown", null, null)
+				.getKind());
+		assertEquals(Outcome.Kind.NOT_FOUND, plannerService
+				.createAppointmentExport(BEGIN.toLocalDate(), BEGIN.toLocalDate(), null, prefix + "-unknown", null)
+				.getKind());
+		assertEquals(Outcome.Kind.INVALID, plannerService
+				.createAppointmentExport(BEGIN.toLocalDate(), LocalDate.of(2029, 12, 31), null, null, null)
+				.getKind());
+	}
+
+	private String book(LocalDateTime begin, String carMechanic) {
+		return plannerService.createAndAddNewWorkingAppointment(idsOfWorks, customerId, vehicleLicensePlate,
+				workingPlatformId, begin, carMechanic)
+				.getResult()
+				.get()
+				.getAppointmentId();
+	}
+
+	private String createCarMechanic(String name) {
+		String username = prefix + "-" + name;
+		UserService.getInstance()
+				.createAndAddNewCarMechanicUser(username, "Erika", "Mustermann", prefix);
+		return username;
+	}
+}
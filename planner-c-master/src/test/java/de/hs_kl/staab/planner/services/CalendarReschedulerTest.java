@@ -0,0 +1,128 @@
+package de.hs_kl.staab.planner.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.CarMechanicUser;
+import de.hs_kl.staab.planner.CleaningAppointment;
+import de.hs_kl.staab.planner.CleaningAppointmentType;
+import de.hs_kl.staab.planner.Customer;
+import de.hs_kl.staab.planner.DispatcherUser;
+import de.hs_kl.staab.planner.EpochMinutes;
+import de.hs_kl.staab.planner.Vehicle;
+import de.hs_kl.staab.planner.Work;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingPlatform;
+import de.hs_kl.staab.planner.data.PlanningCalendarData;
+import de.hs_kl.staab.planner.services.ReschedulingPlan.Move;
+
+public class CalendarReschedulerTest {
+
+	private static final LocalDateTime MONDAY = LocalDateTime.of(2030, 1, 7, 8, 0);
+	private static final String LOCATION = "rescheduler";
+
+	private final Work work = new Work("Ölwechsel", 60);
+	private final Customer customer = new Customer("Max", "Mustermann", "Hauptstraße", 1, 67657, "Kaiserslautern",
+			"0631", "max@test.de");
+	private final Vehicle vehicle = new Vehicle("VW", "Golf", 2015, "KL-RS-1", MONDAY.minusYears(5));
+	private final WorkingPlatform firstWorkingPlatform = new WorkingPlatform("Bühne 1", LOCATION);
+	private final WorkingPlatform secondWorkingPlatform = new WorkingPlatform("Bühne 2", LOCATION);
+	private final WorkingPlatform thirdWorkingPlatform = new WorkingPlatform("Bühne 3", LOCATION);
+	private final CarMechanicUser unavailableCarMechanic = new CarMechanicUser("rescheduler-mechanic-1", "Erika",
+			"Mustermann", LOCATION);
+	private final CarMechanicUser carMechanic = new CarMechanicUser("rescheduler-mechanic-2", "Max", "Mustermann",
+			LOCATION);
+	private final DispatcherUser dispatcher = new DispatcherUser("rescheduler-dispatcher", "Anna", "Mustermann",
+			LOCATION);
+	private final PlanningCalendarData planningCalendarData = new PlanningCalendarData();
+
+	@BeforeEach
+	void setUp() {
+		customer.addVehicleToVehicleSet(vehicle);
+	}
+
+	@Test
+	public void appointmentsWaitForTheRemainingCarMechanic() {
+		WorkingAppointment unaffected = book(secondWorkingPlatform, MONDAY, carMechanic);
+		WorkingAppointment affected = book(firstWorkingPlatform, MONDAY.plusMinutes(30), unavailableCarMechanic);
+		// not rescheduled, but blocks the car mechanic
+		book(firstWorkingPlatform, MONDAY.plusMinutes(60), carMechanic);
+
+		ReschedulingPlan plan = plan(Arrays.asList(unaffected, affected),
+				Arrays.asList(firstWorkingPlatform, secondWorkingPlatform), Collections.singletonList(carMechanic));
+
+		assertEquals(1, plan.getMoves()
+				.size());
+		Move move = plan.getMoves()
+				.get(0);
+		assertEquals(affected, move.getAppointment());
+		assertEquals(MONDAY.plusMinutes(120), move.getNewBeginDateAndTime());
+		// the original working platform is kept on equal times
+		assertEquals(firstWorkingPlatform, move.getNewWorkingPlatform());
+		assertEquals(carMechanic, move.getNewResponsibleUser());
+		assertEquals(90, plan.getTotalDelayInMinutes());
+		assertEquals(0, plan.getNumberOfDayChanges());
+	}
+
+	@Test
+	public void movedAppointmentsDontOverlapEachOther() {
+		List<Appointment> affected = Arrays.asList(book(firstWorkingPlatform, MONDAY, unavailableCarMechanic),
+				book(secondWorkingPlatform, MONDAY, unavailableCarMechanic),
+				book(thirdWorkingPlatform, MONDAY, unavailableCarMechanic));
+
+		ReschedulingPlan plan = plan(affected,
+				Arrays.asList(firstWorkingPlatform, secondWorkingPlatform, thirdWorkingPlatform),
+				Collections.singletonList(carMechanic));
+
+		assertEquals(Arrays.asList(MONDAY, MONDAY.plusMinutes(60), MONDAY.plusMinutes(120)), plan.getMoves()
+				.stream()
+				.map(Move::getNewBeginDateAndTime)
+				.collect(Collectors.toList()));
+		for (Move move : plan.getMoves()) {
+			assertEquals(move.getOriginalWorkingPlatform(), move.getNewWorkingPlatform());
+		}
+		assertEquals(180, plan.getTotalDelayInMinutes());
+	}
+
+	@Test
+	public void appointmentsWithoutReplacementAreLeftOnTheirResources() {
+		Appointment cleaning = new CleaningAppointment(CleaningAppointmentType.QUICK, firstWorkingPlatform, MONDAY,
+				dispatcher);
+		planningCalendarData.addAppointmentToPlanningCalendar(cleaning);
+		WorkingAppointment workingAppointment = book(secondWorkingPlatform, MONDAY, unavailableCarMechanic);
+
+		ReschedulingPlan plan = new CalendarRescheduler(planningCalendarData,
+				Arrays.asList(cleaning, workingAppointment), Collections.singletonList(secondWorkingPlatform),
+				Collections.emptyList(), Collections.singletonList(dispatcher), EpochMinutes.ofDay(MONDAY
+						.toLocalDate())).plan();
+
+		assertTrue(plan.getMoves()
+				.isEmpty());
+		assertEquals(Arrays.asList(cleaning, workingAppointment), plan.getAppointmentsLeftOnUnavailableResources());
+	}
+
+	private WorkingAppointment book(WorkingPlatform workingPlatform, LocalDateTime begin,
+			CarMechanicUser carMechanicUser) {
+		WorkingAppointment workingAppointment = new WorkingAppointment(Collections.singleton(work), customer, vehicle,
+				workingPlatform, begin, carMechanicUser);
+		planningCalendarData.addAppointmentToPlanningCalendar(workingAppointment);
+		return workingAppointment;
+	}
+
+	private ReschedulingPlan plan(List<Appointment> appointmentsToReschedule, List<WorkingPlatform> workingPlatforms,
+			List<CarMechanicUser> carMechanics) {
+		return new CalendarRescheduler(planningCalendarData, appointmentsToReschedule, workingPlatforms,
+				carMechanics, Collections.singletonList(dispatcher), EpochMinutes.ofDay(MONDAY.toLocalDate()))
+						.plan();
+	}
+}
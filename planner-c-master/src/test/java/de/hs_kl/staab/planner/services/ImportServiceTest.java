@@ -0,0 +1,135 @@
+package de.hs_kl.staab.planner.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class ImportServiceTest {
+
+	private final ImportService importService = ImportService.getInstance();
+	private final CustomerService customerService = CustomerService.getInstance();
+	private final VehicleService vehicleService = VehicleService.getInstance();
+	// the services are singletons, so every test uses its own names
+	private final String prefix = UUID.randomUUID()
+			.toString();
+
+	@Test
+	public void invalidAndDuplicateCustomersOfTheSameBatchAreRejected() throws IOException {
+		String csv = "customerId;firstName;lastName;street;houseNumber;postalCode;city;phoneNumber;email\n"
+				+ prefix + "-1;Max;" + prefix + ";\"Haupt;straße\";1;67657;Kaiserslautern;0631;max@test.de\n"
+				// the same name and address
+				+ prefix + "-2;Max;" + prefix + ";\"Haupt;straße\";1;67657;Kaiserslautern;0631;max@test.de\n"
+				// the same ID
+				+ prefix + "-1;Anna;" + prefix + ";Hauptstraße;2;67657;Kaiserslautern;0631;anna@test.de\n"
+				+ prefix + "-3;Anna;" + prefix + ";Hauptstraße;2;676x7;Kaiserslautern;0631;anna@test.de\n"
+				+ prefix + "-4;Anna;;Hauptstraße;2;67657;Kaiserslautern;0631;anna@test.de\n"
+				+ "\n"
+				+ prefix + "-5;\"Peter \"\"Pete\"\"\";" + prefix
+				+ ";Hauptstraße;3;67657;Kaiserslautern;0631;peter@test.de\n";
+
+		ImportReport report = importService.importCustomers(new StringReader(csv), ImportFormat.CSV);
+
+		assertEquals(6, report.getNumberOfRecords());
+		assertEquals(2, report.getNumberOfImportedRecords());
+		assertEquals(2L, report.getNumbersOfRejectedRecords()
+				.get(Outcome.Kind.CONFLICT));
+		assertEquals(2L, report.getNumbersOfRejectedRecords()
+				.get(Outcome.Kind.INVALID));
+		assertEquals(Arrays.asList(3L, 4L, 5L, 6L), getLineNumbersOfRejections(report));
+		assertEquals("Haupt;straße", customerService.getCustomerById(prefix + "-1")
+				.get()
+				.getStreet());
+		assertEquals("Peter \"Pete\"", customerService.getCustomerById(prefix + "-5")
+				.get()
+				.getCustomerFirstName());
+		assertFalse(customerService.getCustomerById(prefix + "-2")
+				.isPresent());
+	}
+
+	@Test
+	public void duplicateVehiclesOfTheSameBatchAreRejected() throws IOException {
+		String json = "[\n"
+				+ "{\"licensePlate\": \"" + prefix + "-1\", \"brand\": \"VW\", \"model\": \"Golf\","
+				+ " \"yearOfConstruction\": 2015, \"dateOfAdmission\": \"2015-03-01\","
+				+ " \"owner\": {\"names\": [\"Max\", \"Anna\"]}},\n"
+				+ "{\"licensePlate\": \"" + prefix + "-1\", \"brand\": \"VW\", \"model\": \"Polo\","
+				+ " \"yearOfConstruction\": 2016, \"dateOfAdmission\": \"2016-03-01\"},\n"
+				+ "{\"licensePlate\": \"" + prefix + "-2\", \"brand\": \"VW\", \"model\": \"Polo\","
+				+ " \"yearOfConstruction\": 2016, \"dateOfAdmission\": \"March 2016\"},\n"
+				+ "{\"licensePlate\": \"" + prefix + "-3\", \"brand\": \"VW\", \"model\": \"Up\","
+				+ " \"yearOfConstruction\": null, \"dateOfAdmission\": \"2017-03-01T10:00\"}\n"
+				+ "]";
+
+		ImportReport report = importService.importVehicles(new StringReader(json), ImportFormat.JSON);
+
+		assertEquals(4, report.getNumberOfRecords());
+		assertEquals(1, report.getNumberOfImportedRecords());
+		assertEquals(Arrays.asList(3L, 4L, 5L), getLineNumbersOfRejections(report));
+		assertEquals(Outcome.Kind.CONFLICT, report.getRejections()
+				.get(0)
+				.getOutcome()
+				.getKind());
+		assertEquals("Golf", vehicleService.getVehicleByLicensePlate(prefix + "-1")
+				.get()
+				.getVehicleModel());
+		assertEquals(LocalDate.of(2015, 3, 1), vehicleService.getVehicleByLicensePlate(prefix + "-1")
+				.get()
+				.getDateOfAdmission()
+				.toLocalDate());
+	}
+
+	@Test
+	public void malformedCsvStopsTheImport() {
+		String header = "customerId,firstName,lastName,street,houseNumber,postalCode,city,phoneNumber,email\n";
+		String record = prefix + "-1,Max," + prefix + ",Hauptstraße,1,67657,Kaiserslautern,0631,max@test.de\n";
+
+		IOException tooManyValues = assertThrows(IOException.class, () -> importCustomers(header + record
+				+ record.trim() + ",too much\n"));
+		IOException unclosedQuote = assertThrows(IOException.class, () -> importCustomers(header + record
+				+ "\"Max,"));
+
+		assertTrue(tooManyValues.getMessage()
+				.startsWith("Line 3: "), tooManyValues::getMessage);
+		assertTrue(unclosedQuote.getMessage()
+				.startsWith("Line 3: "), unclosedQuote::getMessage);
+		// the batch of the malformed record isn't imported
+		assertFalse(customerService.getCustomerById(prefix + "-1")
+				.isPresent());
+	}
+
+	@Test
+	public void malformedJsonStopsTheImport() {
+		List<String> malformedFiles = Arrays.asList("{\"licensePlate\": \"" + prefix + "\"\n\"brand\": \"VW\"}",
+				"[\"" + prefix + "\"]", "{\"licensePlate\": {\"number\": 1}}", "{\"licensePlate\": \"" + prefix,
+				"{\"licensePlate\": \"\\x\"}", "{\"licensePlate\": }");
+
+		for (String malformedFile : malformedFiles) {
+			assertThrows(IOException.class, () -> importService.importVehicles(new StringReader(malformedFile),
+					ImportFormat.JSON), malformedFile);
+		}
+		assertFalse(vehicleService.getVehicleByLicensePlate(prefix)
+				.isPresent());
+	}
+
+	private ImportReport importCustomers(String csv) throws IOException {
+		return importService.importCustomers(new StringReader(csv), ImportFormat.CSV);
+	}
+
+	private static List<Long> getLineNumbersOfRejections(ImportReport report) {
+		return report.getRejections()
+				.stream()
+				.map(ImportReport.Rejection::getLineNumber)
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,240 @@
+package de.hs_kl.staab.planner.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.hs_kl.staab.planner.Appointment;
+import de.hs_kl.staab.planner.WorkingAppointment;
+import de.hs_kl.staab.planner.WorkingAppointmentStatus;
+
+/**
+ * The services are singletons, so the tests can't start with an empty state.
+ * Instead they lose their changes by making them while persistence is disabled
+ * and check that enabling it again restores the journaled state.
+ */
+public class PersistenceServiceTest {
+
+	private static final LocalDateTime BEGIN = LocalDateTime.of(2030, 1, 7, 8, 0);
+	private static final LocalDateTime PAST_BEGIN = LocalDateTime.of(2020, 1, 6, 8, 0);
+
+	private final PersistenceService persistenceService = PersistenceService.getInstance();
+	private final WorkService workService = WorkService.getInstance();
+	private final String prefix = UUID.randomUUID()
+			.toString();
+
+	@TempDir
+	Path directory;
+
+	@AfterEach
+	void tearDown() throws IOException {
+		persistenceService.disablePersistence();
+	}
+
+	@Test
+	public void changeIsDurableWhenTheServiceReturns() throws IOException {
+		persistenceService.enablePersistence(directory);
+
+		String workId = workService.createAndAddNewWork(prefix + "-work", 60)
+				.getResult()
+				.get()
+				.getWorkId();
+
+		assertTrue(persistenceService.isDurable());
+		// read the journal without closing it, as after a crash
+		assertTrue(readJournal().contains(workId));
+	}
+
+	@Test
+	public void bookingsAreRecovered() throws IOException {
+		persistenceService.enablePersistence(directory);
+		PlannerService plannerService = PlannerService.getInstance(prefix);
+		String workId = workService.createAndAddNewWork(prefix + "-work", 60)
+				.getResult()
+				.get()
+				.getWorkId();
+		String workingPlatformId = WorkingPlatformService.getInstance()
+				.createAndAddNewWorkingPlatform(prefix + "-platform", prefix)
+				.getResult()
+				.get()
+				.getWorkingPlatformId();
+		UserService.getInstance()
+				.createAndAddNewCarMechanicUser(prefix + "-mechanic", "Erika", "Mustermann", prefix);
+		String customerId = CustomerService.getInstance()
+				.createAndAddNewCustomer("Max", prefix, "Hauptstraße", 1, 67657, "Kaiserslautern", "0631",
+						"max@test.de")
+				.getResult()
+				.get()
+				.getCustomerId();
+		VehicleService.getInstance()
+				.createAndAddNewVehicle("VW", "Golf", 2015, prefix + "-plate", BEGIN.minusYears(5));
+		CustomerService.getInstance()
+				.addVehicleToCustomersVehicles(customerId, prefix + "-plate");
+		String appointmentId = plannerService
+				.createAndAddNewWorkingAppointment(Collections.singleton(workId), customerId, prefix + "-plate",
+						workingPlatformId, BEGIN, prefix + "-mechanic")
+				.getResult()
+				.get()
+				.getAppointmentId();
+		persistenceService.disablePersistence();
+		// not journaled anymore, so both changes are lost
+		plannerService.removeAppointment(appointmentId);
+		workService.updateWorkName(workId, prefix + "-lost");
+
+		persistenceService.enablePersistence(directory);
+
+		Appointment recoveredAppointment = plannerService.getAppointmentById(appointmentId)
+				.get();
+		assertTrue(recoveredAppointment instanceof WorkingAppointment);
+		assertEquals(BEGIN, recoveredAppointment.getAppointmentBeginDateAndTime());
+		assertEquals(workingPlatformId, ((WorkingAppointment) recoveredAppointment)
+				.getWorkingPlatformRelatedToWorkingAppointment()
+				.getWorkingPlatformId());
+		assertEquals(prefix + "-work", workService.getWorkById(workId)
+				.get()
+				.getWorkName());
+	}
+
+	@Test
+	public void changesAfterTheSnapshotAreReplayedOnTopOfIt() throws IOException {
+		persistenceService.enablePersistence(directory);
+		String firstWorkId = workService.createAndAddNewWork(prefix + "-first", 60)
+				.getResult()
+				.get()
+				.getWorkId();
+		persistenceService.takeSnapshot();
+		workService.updateWorkName(firstWorkId, prefix + "-renamed");
+		String secondWorkId = workService.createAndAddNewWork(prefix + "-second", 30)
+				.getResult()
+				.get()
+				.getWorkId();
+		persistenceService.disablePersistence();
+		workService.updateWorkName(firstWorkId, prefix + "-lost");
+		workService.removeWork(secondWorkId);
+
+		persistenceService.enablePersistence(directory);
+
+		assertEquals(prefix + "-renamed", workService.getWorkById(firstWorkId)
+				.get()
+				.getWorkName());
+		assertTrue(workService.getWorkById(secondWorkId)
+				.isPresent());
+		assertTrue(Files.exists(directory.resolve("snapshot-1.snap")));
+		assertFalse(Files.exists(directory.resolve("journal-0.log")));
+	}
+
+	@Test
+	public void snapshotAlreadyContainingARenameIsRecovered() throws IOException {
+		persistenceService.enablePersistence(directory);
+		UserService userService = UserService.getInstance();
+		userService.createAndAddNewCarMechanicUser(prefix + "-old", "Erika", "Mustermann");
+		userService.updateUserNameOfUser(prefix + "-old", prefix + "-new");
+		userService.createAndAddNewCarMechanicUser(prefix + "-old", "Max", "Mustermann");
+		byte[] journaledChanges = Files.readAllBytes(directory.resolve("journal-0.log"));
+		persistenceService.takeSnapshot();
+		persistenceService.disablePersistence();
+		// as if the changes had been journaled after the switch to the new segment,
+		// but were read by the snapshot already
+		Files.write(directory.resolve("journal-1.log"), journaledChanges);
+
+		persistenceService.enablePersistence(directory);
+
+		assertEquals(1, userService.getAllUsers()
+				.stream()
+				.filter(user -> user.getUsername()
+						.equals(prefix + "-new"))
+				.count());
+		assertEquals("Erika", userService.getUserByUsername(prefix + "-new")
+				.get()
+				.getUserFirstName());
+		assertEquals("Max", userService.getUserByUsername(prefix + "-old")
+				.get()
+				.getUserFirstName());
+	}
+
+	@Test
+	public void archivedWorkingAppointmentsStayArchivedOnRecovery() throws IOException {
+		persistenceService.enablePersistence(directory);
+		PlannerService plannerService = PlannerService.getInstance(prefix);
+		String workId = workService.createAndAddNewWork(prefix + "-work", 60)
+				.getResult()
+				.get()
+				.getWorkId();
+		String workingPlatformId = WorkingPlatformService.getInstance()
+				.createAndAddNewWorkingPlatform(prefix + "-platform", prefix)
+				.getResult()
+				.get()
+				.getWorkingPlatformId();
+		UserService.getInstance()
+				.createAndAddNewCarMechanicUser(prefix + "-mechanic", "Erika", "Mustermann", prefix);
+		String customerId = CustomerService.getInstance()
+				.createAndAddNewCustomer("Max", prefix, "Hauptstraße", 1, 67657, "Kaiserslautern", "0631",
+						"max@test.de")
+				.getResult()
+				.get()
+				.getCustomerId();
+		VehicleService.getInstance()
+				.createAndAddNewVehicle("VW", "Golf", 2015, prefix + "-plate", BEGIN.minusYears(20));
+		CustomerService.getInstance()
+				.addVehicleToCustomersVehicles(customerId, prefix + "-plate");
+		List<String> appointmentIds = new ArrayList<>();
+		for (LocalDateTime begin : Arrays.asList(PAST_BEGIN, PAST_BEGIN.plusDays(1))) {
+			String appointmentId = plannerService
+					.createAndAddNewWorkingAppointment(Collections.singleton(workId), customerId, prefix + "-plate",
+							workingPlatformId, begin, prefix + "-mechanic")
+					.getResult()
+					.get()
+					.getAppointmentId();
+			appointmentIds.add(appointmentId);
+		}
+		// the first one is archived before the snapshot, the second one is replayed
+		// from the journal after it
+		plannerService.changeWorkingAppointmentStatusOf_To(appointmentIds.get(0), WorkingAppointmentStatus.FINISHED);
+		assertEquals(1, plannerService.archiveFinishedAndCancelledWorkingAppointmentsOlderThan(Period.ofDays(1)));
+		persistenceService.takeSnapshot();
+		plannerService.changeWorkingAppointmentStatusOf_To(appointmentIds.get(1), WorkingAppointmentStatus.FINISHED);
+		assertEquals(1, plannerService.archiveFinishedAndCancelledWorkingAppointmentsOlderThan(Period.ofDays(1)));
+		persistenceService.disablePersistence();
+
+		persistenceService.enablePersistence(directory);
+
+		assertEquals(2, plannerService.getAppointmentArchive()
+				.size());
+		for (String appointmentId : appointmentIds) {
+			assertFalse(plannerService.getAppointmentById(appointmentId)
+					.isPresent());
+		}
+		assertEquals(2, VehicleService.getInstance()
+				.getHistoryOfFinishedWorkingAppointments(prefix + "-plate")
+				.size());
+		assertTrue(Files.exists(directory.resolve("archive")
+				.resolve(prefix + ".col")));
+	}
+
+	private String readJournal() throws IOException {
+		StringBuilder journal = new StringBuilder();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				journal.append(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1));
+			}
+		}
+		return journal.toString();
+	}
+}
@@ -0,0 +1,179 @@
+package de.hs_kl.staab.planner.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.hs_kl.staab.planner.services.UtilizationReport.ResourceUtilization;
+
+public class UtilizationReportTest {
+
+	// a Monday
+	private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+	private static final LocalTime OPENING_TIME = LocalTime.of(8, 0);
+	private static final LocalTime CLOSING_TIME = LocalTime.of(18, 0);
+
+	// the services are singletons, so every test uses its own location and its own
+	// names to stay independent of the other tests
+	private String prefix;
+	private PlannerService plannerService;
+	private Set<String> idsOfWorks;
+	private String customerId;
+	private String vehicleLicensePlate;
+	private String workingPlatformId;
+	private String carMechanic;
+
+	@BeforeEach
+	void setUp() {
+		this.prefix = UUID.randomUUID()
+				.toString();
+		this.plannerService = PlannerService.getInstance(prefix);
+		this.idsOfWorks = Collections.singleton(WorkService.getInstance()
+				.createAndAddNewWork(prefix + "-work", 60)
+				.getResult()
+				.get()
+				.getWorkId());
+		this.customerId = CustomerService.getInstance()
+				.createAndAddNewCustomer("Max", prefix, "Hauptstraße", 1, 67657, "Kaiserslautern", "0631", "max@test.de")
+				.getResult()
+				.get()
+				.getCustomerId();
+		this.vehicleLicensePlate = prefix + "-plate";
+		VehicleService.getInstance()
+				.createAndAddNewVehicle("VW", "Golf", 2015, vehicleLicensePlate, MONDAY.atStartOfDay()
+						.minusYears(5));
+		CustomerService.getInstance()
+				.addVehicleToCustomersVehicles(customerId, vehicleLicensePlate);
+		this.workingPlatformId = WorkingPlatformService.getInstance()
+				.createAndAddNewWorkingPlatform(prefix + "-platform", prefix)
+				.getResult()
+				.get()
+				.getWorkingPlatformId();
+		this.carMechanic = prefix + "-mechanic";
+		UserService.getInstance()
+				.createAndAddNewCarMechanicUser(carMechanic, "Erika", "Mustermann", prefix);
+	}
+
+	@Test
+	public void weeksAreCutByTheDaysOfTheReport() {
+		LocalDate wednesday = MONDAY.plusDays(2);
+
+		UtilizationReport report = createReport(wednesday, wednesday.plusDays(6), UtilizationBucket.WEEK);
+
+		assertEquals(2, report.getNumberOfBuckets());
+		assertEquals(wednesday.atStartOfDay(), report.getBeginOfBucket(0));
+		assertEquals(MONDAY.plusWeeks(1)
+				.atStartOfDay(), report.getBeginOfBucket(1));
+		// Wednesday to Sunday, Monday and Tuesday
+		assertEquals(5 * 600, report.getAvailableMinutes(0));
+		assertEquals(2 * 600, report.getAvailableMinutes(1));
+		assertEquals(7 * 600, report.getTotalAvailableMinutes());
+	}
+
+	@Test
+	public void bookingsAreSplitAtTheEdgesOfTheBucketsAndOpeningHours() {
+		book(MONDAY.atTime(8, 30));
+		book(MONDAY.atTime(17, 30));
+
+		UtilizationReport report = createReport(MONDAY, MONDAY, UtilizationBucket.HOUR);
+		ResourceUtilization workingPlatform = report.getWorkingPlatforms()
+				.get(0);
+
+		assertEquals(24, report.getNumberOfBuckets());
+		assertEquals(0, report.getAvailableMinutes(7));
+		assertEquals(60, report.getAvailableMinutes(8));
+		assertEquals(60, report.getAvailableMinutes(17));
+		assertEquals(0, report.getAvailableMinutes(18));
+		assertEquals(30, workingPlatform.getBookedMinutes(8));
+		assertEquals(30, workingPlatform.getBookedMinutes(9));
+		assertEquals(50.0, workingPlatform.getUtilization(9));
+		assertEquals(30, workingPlatform.getBookedMinutes(17));
+		// after the closing time
+		assertEquals(0, workingPlatform.getBookedMinutes(18));
+		assertEquals(0.0, workingPlatform.getUtilization(18));
+		assertEquals(90, workingPlatform.getTotalBookedMinutes());
+		assertEquals(510, workingPlatform.getTotalFreeMinutes());
+		assertEquals(90, report.getCarMechanicUsers()
+				.get(0)
+				.getTotalBookedMinutes());
+	}
+
+	@Test
+	public void idleGapsAreCountedUpToTheLongestOfTheirClass() {
+		// idle gaps of 30 and 480 minutes, exactly the longest of their classes
+		book(MONDAY.atTime(8, 30));
+		book(MONDAY.atTime(17, 30));
+		// idle gaps of 31 and 449 minutes
+		book(MONDAY.plusDays(1)
+				.atTime(8, 31));
+		book(MONDAY.plusDays(1)
+				.atTime(9, 31));
+
+		ResourceUtilization workingPlatform = createReport(MONDAY, MONDAY.plusDays(1), UtilizationBucket.DAY)
+				.getWorkingPlatforms()
+				.get(0);
+
+		assertEquals(30, UtilizationReport.getLongestIdleGapOfClass(1));
+		assertEquals(480, UtilizationReport.getLongestIdleGapOfClass(5));
+		assertEquals(1, workingPlatform.getNumberOfIdleGaps(1));
+		assertEquals(1, workingPlatform.getNumberOfIdleGaps(2));
+		assertEquals(2, workingPlatform.getNumberOfIdleGaps(5));
+		assertEquals(0, workingPlatform.getNumberOfIdleGaps(UtilizationReport.getNumberOfIdleGapClasses() - 1));
+	}
+
+	@Test
+	public void bookingOverMidnightCountsForBothDays() {
+		book(MONDAY.atTime(23, 30));
+
+		UtilizationReport report = plannerService
+				.createUtilizationReport(MONDAY, MONDAY.plusDays(1), UtilizationBucket.DAY, null, null)
+				.getResult()
+				.get();
+		ResourceUtilization workingPlatform = report.getWorkingPlatforms()
+				.get(0);
+
+		assertNull(report.getClosingTime());
+		assertEquals(24 * 60, report.getAvailableMinutes(0));
+		assertEquals(30, workingPlatform.getBookedMinutes(0));
+		assertEquals(30, workingPlatform.getBookedMinutes(1));
+		// the idle gaps of both days end and begin at midnight
+		assertEquals(2, workingPlatform.getNumberOfIdleGaps(UtilizationReport.getNumberOfIdleGapClasses() - 1));
+	}
+
+	@Test
+	public void reportWithoutOpeningHoursIsInvalid() {
+		assertEquals(Outcome.Kind.INVALID, plannerService
+				.createUtilizationReport(MONDAY, MONDAY, UtilizationBucket.DAY, CLOSING_TIME, OPENING_TIME)
+				.getKind());
+		assertEquals(Outcome.Kind.INVALID, plannerService
+				.createUtilizationReport(MONDAY, MONDAY.minusDays(1), UtilizationBucket.DAY, OPENING_TIME,
+						CLOSING_TIME)
+				.getKind());
+		assertTrue(plannerService
+				.createUtilizationReport(MONDAY, MONDAY, UtilizationBucket.DAY, OPENING_TIME,
+						OPENING_TIME.plusMinutes(1))
+				.isAccepted());
+	}
+
+	private void book(LocalDateTime begin) {
+		assertTrue(plannerService.createAndAddNewWorkingAppointment(idsOfWorks, customerId, vehicleLicensePlate,
+				workingPlatformId, begin, carMechanic)
+				.isAccepted());
+	}
+
+	private UtilizationReport createReport(LocalDate firstDay, LocalDate lastDay, UtilizationBucket bucket) {
+		return plannerService.createUtilizationReport(firstDay, lastDay, bucket, OPENING_TIME, CLOSING_TIME)
+				.getResult()
+				.get();
+	}
+}